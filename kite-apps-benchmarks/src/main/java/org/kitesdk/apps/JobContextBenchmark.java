@@ -0,0 +1,98 @@
+/**
+ * Copyright 2015 Cerner Corporation.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.kitesdk.apps;
+
+import com.google.common.collect.Maps;
+import org.apache.hadoop.conf.Configuration;
+import org.kitesdk.apps.benchmarks.BenchmarkJob;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Resolution of job settings from application settings of different sizes,
+ * which is done each time a job or stream is run.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Fork(1)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class JobContextBenchmark {
+
+  @Param({"10", "1000"})
+  public int settingsCount;
+
+  private final BenchmarkJob job = new BenchmarkJob();
+
+  private final Configuration conf = new Configuration();
+
+  private Map<String,String> settings;
+
+  private JobContext context;
+
+  @Setup
+  public void setup() {
+
+    settings = Maps.newHashMap();
+
+    String prefix = "kite.job." + job.getName() + ".";
+
+    for (int i = 0; i < settingsCount; ++i) {
+
+      // Mix settings of this job, its inputs and unrelated jobs.
+      switch (i % 3) {
+        case 0:
+          settings.put(prefix + "setting." + i, "value");
+          break;
+        case 1:
+          settings.put(prefix + "input.source_events.setting." + i, "value");
+          break;
+        default:
+          settings.put("kite.job.other-job.setting." + i, "value");
+      }
+    }
+
+    context = new JobContext(job, settings, conf);
+  }
+
+  @Benchmark
+  public JobContext createContext() {
+    return new JobContext(job, settings, conf);
+  }
+
+  @Benchmark
+  public Map<String,String> getInputSettings() {
+    return context.getInputSettings("source_events");
+  }
+
+  @Benchmark
+  public Map<String,String> createAndGetInputSettings() {
+    return new JobContext(job, settings, conf).getInputSettings("source_events");
+  }
+}
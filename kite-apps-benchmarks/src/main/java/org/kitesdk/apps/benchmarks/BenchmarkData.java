@@ -0,0 +1,72 @@
+/**
+ * Copyright 2015 Cerner Corporation.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.kitesdk.apps.benchmarks;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import org.kitesdk.apps.kafka.SchemaRegistries;
+import org.kitesdk.data.event.StandardEvent;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Data shared by the benchmarks.
+ */
+public class BenchmarkData {
+
+  public static final String TOPIC = "benchmark-events";
+
+  /**
+   * Returns the given number of events with randomized, fixed-seed contents
+   * so each run of a benchmark uses the same data.
+   */
+  public static List<StandardEvent> events(int count) {
+
+    Random random = new Random(42);
+
+    List<StandardEvent> events = Lists.newArrayListWithCapacity(count);
+
+    for (int i = 0; i < count; ++i) {
+
+      events.add(StandardEvent.newBuilder()
+          .setEventInitiator("client_user")
+          .setEventName("event_" + random.nextInt(100))
+          .setUserId(random.nextInt(100000))
+          .setSessionId(Long.toHexString(random.nextLong()))
+          .setIp("10.0." + random.nextInt(256) + "." + random.nextInt(256))
+          .setTimestamp(1420070400000L + i)
+          .build());
+    }
+
+    return events;
+  }
+
+  /**
+   * Returns settings that use an in-memory schema registry,
+   * so benchmarks need no ZooKeeper.
+   */
+  public static Map<String,String> registrySettings() {
+
+    Map<String,String> settings = Maps.newHashMap();
+
+    settings.put(SchemaRegistries.REGISTRY_ENABLED, "true");
+    settings.put(SchemaRegistries.REGISTRY_CLASS, MemorySchemaRegistry.class.getName());
+
+    return settings;
+  }
+}
@@ -0,0 +1,38 @@
+/**
+ * Copyright 2015 Cerner Corporation.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.kitesdk.apps.benchmarks;
+
+import org.kitesdk.apps.DataIn;
+import org.kitesdk.apps.DataOut;
+import org.kitesdk.apps.scheduled.AbstractSchedulableJob;
+import org.kitesdk.data.View;
+import org.kitesdk.data.event.StandardEvent;
+
+/**
+ * Scheduled job used to benchmark job reflection and Oozie XML generation.
+ */
+public class BenchmarkJob extends AbstractSchedulableJob {
+
+  @Override
+  public String getName() {
+    return "benchmark-job";
+  }
+
+  public void run(@DataIn(name="source_events", type=StandardEvent.class) View<StandardEvent> input,
+                  @DataIn(name="source_users", type=StandardEvent.class) View<StandardEvent> users,
+                  @DataOut(name="target_events", type=StandardEvent.class) View<StandardEvent> output) {
+  }
+}
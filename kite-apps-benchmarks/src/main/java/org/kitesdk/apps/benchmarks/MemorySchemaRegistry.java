@@ -0,0 +1,64 @@
+/**
+ * Copyright 2015 Cerner Corporation.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.kitesdk.apps.benchmarks;
+
+import com.google.common.collect.Maps;
+import org.apache.avro.Schema;
+import org.kitesdk.apps.AppException;
+import org.kitesdk.apps.kafka.SchemaRegistries;
+import org.kitesdk.apps.kafka.SchemaRegistry;
+
+import java.util.Map;
+
+/**
+ * Schema registry kept in memory for benchmarks.
+ */
+public class MemorySchemaRegistry implements SchemaRegistry {
+
+  private final Map<Long,Schema> schemas = Maps.newConcurrentMap();
+
+  private final Map<String,Schema> latest = Maps.newConcurrentMap();
+
+  public MemorySchemaRegistry(Map<String,String> settings) {
+  }
+
+  @Override
+  public long register(String topic, Schema schema) {
+
+    long id = SchemaRegistries.id(schema);
+
+    schemas.put(id, schema);
+    latest.put(topic, schema);
+
+    return id;
+  }
+
+  @Override
+  public Schema getSchema(long id) {
+
+    Schema schema = schemas.get(id);
+
+    if (schema == null)
+      throw new AppException("No schema registered with identifier " + Long.toHexString(id));
+
+    return schema;
+  }
+
+  @Override
+  public Schema getLatestSchema(String topic) {
+    return latest.get(topic);
+  }
+}
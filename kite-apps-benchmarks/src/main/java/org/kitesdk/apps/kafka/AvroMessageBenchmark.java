@@ -0,0 +1,81 @@
+/**
+ * Copyright 2015 Cerner Corporation.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.kitesdk.apps.kafka;
+
+import org.kitesdk.apps.benchmarks.BenchmarkData;
+import org.kitesdk.data.event.StandardEvent;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Encoding and decoding of Kafka messages. Encoding is the per-record
+ * work of {@link org.kitesdk.apps.spark.kafka.KafkaOutput}'s writer
+ * before records are handed to the producer, which needs a broker and
+ * so is not measured here.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Fork(1)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class AvroMessageBenchmark {
+
+  private StandardEvent event;
+
+  private byte[] message;
+
+  private AvroMessageEncoder<StandardEvent> encoder;
+
+  private AvroMessageDecoder<StandardEvent> decoder;
+
+  @Setup
+  public void setup() {
+
+    Map<String,String> settings = BenchmarkData.registrySettings();
+
+    event = BenchmarkData.events(1).get(0);
+
+    encoder = new AvroMessageEncoder<StandardEvent>(event.getSchema(),
+        SchemaRegistries.get(settings), BenchmarkData.TOPIC);
+
+    decoder = new AvroMessageDecoder<StandardEvent>(event.getSchema(),
+        SchemaRegistries.get(settings));
+
+    message = encoder.encode(event);
+  }
+
+  @Benchmark
+  public byte[] encode() {
+    return encoder.encode(event);
+  }
+
+  @Benchmark
+  public StandardEvent decode() {
+    return decoder.decode(message);
+  }
+}
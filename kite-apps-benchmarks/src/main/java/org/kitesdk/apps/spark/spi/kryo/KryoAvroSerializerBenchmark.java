@@ -0,0 +1,134 @@
+/**
+ * Copyright 2015 Cerner Corporation.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.kitesdk.apps.spark.spi.kryo;
+
+import com.esotericsoftware.kryo.Kryo;
+import com.esotericsoftware.kryo.io.Input;
+import com.esotericsoftware.kryo.io.Output;
+import com.google.common.collect.ImmutableList;
+import org.apache.avro.generic.GenericData;
+import org.kitesdk.apps.AppException;
+import org.kitesdk.apps.benchmarks.BenchmarkData;
+import org.kitesdk.data.event.StandardEvent;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Kryo serialization of the Avro records Spark shuffles and caches,
+ * for both specific records and generic records of a known schema.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Fork(1)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class KryoAvroSerializerBenchmark {
+
+  private Kryo kryo;
+
+  private final Output output = new Output(4096, -1);
+
+  private final Input input = new Input();
+
+  private StandardEvent specific;
+
+  private GenericData.Record generic;
+
+  private byte[] specificBytes;
+
+  private byte[] genericBytes;
+
+  private File schemasFile;
+
+  @Setup
+  public void setup() {
+
+    specific = BenchmarkData.events(1).get(0);
+    generic = (GenericData.Record) GenericData.get().deepCopy(specific.getSchema(), specific);
+
+    try {
+      schemasFile = File.createTempFile("kite-avro-schemas-", ".avsc");
+      KryoAvroRegistrator.writeSchemas(ImmutableList.of(specific.getSchema()), schemasFile);
+    } catch (IOException e) {
+      throw new AppException(e);
+    }
+
+    System.setProperty(KryoAvroRegistrator.KITE_AVRO_CLASSES, StandardEvent.class.getName());
+    System.setProperty(KryoAvroRegistrator.KITE_AVRO_SCHEMAS, schemasFile.getAbsolutePath());
+
+    kryo = new Kryo();
+
+    new KryoAvroRegistrator().registerClasses(kryo);
+
+    specificBytes = serializeSpecific();
+    genericBytes = serializeGeneric();
+  }
+
+  @TearDown
+  public void tearDown() {
+    System.clearProperty(KryoAvroRegistrator.KITE_AVRO_CLASSES);
+    System.clearProperty(KryoAvroRegistrator.KITE_AVRO_SCHEMAS);
+    schemasFile.delete();
+  }
+
+  @Benchmark
+  public byte[] serializeSpecific() {
+
+    output.clear();
+    kryo.writeObject(output, specific);
+
+    return output.toBytes();
+  }
+
+  @Benchmark
+  public StandardEvent deserializeSpecific() {
+
+    input.setBuffer(specificBytes);
+
+    return kryo.readObject(input, StandardEvent.class);
+  }
+
+  @Benchmark
+  public byte[] serializeGeneric() {
+
+    output.clear();
+    kryo.writeObject(output, generic);
+
+    return output.toBytes();
+  }
+
+  @Benchmark
+  public GenericData.Record deserializeGeneric() {
+
+    input.setBuffer(genericBytes);
+
+    return kryo.readObject(input, GenericData.Record.class);
+  }
+}
@@ -0,0 +1,92 @@
+/**
+ * Copyright 2015 Cerner Corporation.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.kitesdk.apps.spark.spi.streaming;
+
+import com.google.common.collect.Lists;
+import org.apache.avro.Schema;
+import org.apache.spark.streaming.kafka.OffsetRange;
+import org.kitesdk.apps.benchmarks.BenchmarkData;
+import org.kitesdk.apps.kafka.AvroMessageEncoder;
+import org.kitesdk.apps.kafka.SchemaRegistries;
+import org.kitesdk.data.event.StandardEvent;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import scala.Tuple2;
+
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Decoding a partition of a Kafka batch into records, as each executor
+ * does for streaming inputs. Results are per record.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Fork(1)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class ToAvroFunctionBenchmark {
+
+  private static final int BATCH_SIZE = 1000;
+
+  private final List<Tuple2<byte[],byte[]>> messages = Lists.newArrayList();
+
+  private SparkKafkaStreamLoader.ToAvroFunction function;
+
+  @Setup
+  public void setup() {
+
+    Map<String,String> settings = BenchmarkData.registrySettings();
+
+    Schema schema = StandardEvent.getClassSchema();
+
+    AvroMessageEncoder<StandardEvent> encoder = new AvroMessageEncoder<StandardEvent>(schema,
+        SchemaRegistries.get(settings), BenchmarkData.TOPIC);
+
+    for (StandardEvent event: BenchmarkData.events(BATCH_SIZE)) {
+      messages.add(new Tuple2<byte[],byte[]>(new byte[0], encoder.encode(event)));
+    }
+
+    OffsetRange[] ranges = {OffsetRange.create(BenchmarkData.TOPIC, 0, 0, BATCH_SIZE)};
+
+    function = new SparkKafkaStreamLoader.ToAvroFunction(schema, settings, true,
+        "benchmark", ranges);
+  }
+
+  @Benchmark
+  @OperationsPerInvocation(BATCH_SIZE)
+  public void decodePartition(Blackhole blackhole) throws Exception {
+
+    Iterator<Object> records = function.call(0, messages.iterator());
+
+    while (records.hasNext()) {
+      blackhole.consume(records.next());
+    }
+  }
+}
@@ -0,0 +1,121 @@
+/**
+ * Copyright 2015 Cerner Corporation.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.kitesdk.apps.spi.jobs;
+
+import com.google.common.collect.Maps;
+import org.kitesdk.apps.DataIn;
+import org.kitesdk.apps.DataOut;
+import org.kitesdk.apps.benchmarks.BenchmarkJob;
+import org.kitesdk.data.event.StandardEvent;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.lang.reflect.Method;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Reflection over job run methods, comparing the cached descriptor
+ * against describing the run method anew.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Fork(1)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class JobDescriptorBenchmark {
+
+  /**
+   * Job with untyped parameters, so runs can be dispatched without views.
+   */
+  public static class DispatchJob {
+
+    public void run(@DataIn(name="source", type=StandardEvent.class) Object input,
+                    @DataOut(name="target", type=StandardEvent.class) Object output) {
+    }
+  }
+
+  private final Map<String,Object> params = Maps.newHashMap();
+
+  private final Map<String,Object> dispatchParams = Maps.newHashMap();
+
+  private final DispatchJob dispatchJob = new DispatchJob();
+
+  private Method runMethod;
+
+  @Setup
+  public void setup() {
+
+    params.put("source_events", "events");
+    params.put("source_users", "users");
+    params.put("target_events", "target");
+
+    runMethod = JobReflection.resolveRunMethod(BenchmarkJob.class);
+
+    dispatchParams.put("source", new Object());
+    dispatchParams.put("target", new Object());
+  }
+
+  @Benchmark
+  public Object[] cachedArgs() {
+    return JobReflection.getArgs(runMethod, params);
+  }
+
+  @Benchmark
+  public JobDescriptor cachedDescriptor() {
+    return JobDescriptor.of(BenchmarkJob.class);
+  }
+
+  @Benchmark
+  public Map<String,Class> getTypes() {
+    return JobReflection.getTypes(runMethod);
+  }
+
+  @Benchmark
+  public void cachedDispatch() {
+    JobDescriptor.of(DispatchJob.class).invoke(dispatchJob, dispatchParams);
+  }
+
+  /**
+   * Dispatches a run the way the job managers did before descriptors
+   * were cached, resolving the run method and its bindings on each call.
+   */
+  @Benchmark
+  public Object uncachedDispatch() throws Exception {
+
+    Method method = DispatchJob.class.getMethod("run", Object.class, Object.class);
+
+    Object[] args = new Object[2];
+
+    for (int p = 0; p < method.getParameterAnnotations().length; ++p) {
+      Object annotation = method.getParameterAnnotations()[p][0];
+
+      args[p] = dispatchParams.get(annotation instanceof DataIn ?
+          ((DataIn) annotation).name() : ((DataOut) annotation).name());
+    }
+
+    return method.invoke(dispatchJob, args);
+  }
+}
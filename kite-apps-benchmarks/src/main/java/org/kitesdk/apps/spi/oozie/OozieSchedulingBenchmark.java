@@ -0,0 +1,95 @@
+/**
+ * Copyright 2015 Cerner Corporation.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.kitesdk.apps.spi.oozie;
+
+import org.apache.hadoop.conf.Configuration;
+import org.kitesdk.apps.AppContext;
+import org.kitesdk.apps.benchmarks.BenchmarkJob;
+import org.kitesdk.apps.scheduled.Schedule;
+import org.kitesdk.apps.spi.jobs.JobManagers;
+import org.kitesdk.apps.spi.jobs.SchedulableJobManager;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Generation of the Oozie workflow and coordinator for a scheduled job,
+ * which is done for every job when an application is installed.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class OozieSchedulingBenchmark {
+
+  private final ByteArrayOutputStream output = new ByteArrayOutputStream(16 * 1024);
+
+  private Schedule schedule;
+
+  private SchedulableJobManager manager;
+
+  @Setup
+  public void setup() {
+
+    schedule = new Schedule.Builder()
+        .jobClass(BenchmarkJob.class)
+        .frequency("0 * * * *")
+        .withInput("source_events",
+            "view:hdfs:///tmp/bench/events?year=${YEAR}&month=${MONTH}&day=${DAY}&hour=${HOUR}",
+            "0 * * * *")
+        .withInput("source_users",
+            "view:hdfs:///tmp/bench/users?year=${YEAR}&month=${MONTH}&day=${DAY}",
+            "0 0 * * *")
+        .withOutput("target_events",
+            "view:hdfs:///tmp/bench/target?year=${YEAR}&month=${MONTH}&day=${DAY}&hour=${HOUR}")
+        .build();
+
+    manager = JobManagers.createSchedulable(BenchmarkJob.class,
+        new AppContext(Collections.<String,String>emptyMap(), new Configuration()));
+  }
+
+  @Benchmark
+  public int writeWorkflow() throws IOException {
+
+    output.reset();
+    OozieScheduling.writeWorkFlow(schedule, manager, output);
+
+    return output.size();
+  }
+
+  @Benchmark
+  public int writeCoordinator() throws IOException {
+
+    output.reset();
+    OozieScheduling.writeCoordinator(schedule, manager, output);
+
+    return output.size();
+  }
+}
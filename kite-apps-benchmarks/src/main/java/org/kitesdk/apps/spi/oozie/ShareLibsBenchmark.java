@@ -0,0 +1,125 @@
+/**
+ * Copyright 2015 Cerner Corporation.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.kitesdk.apps.spi.oozie;
+
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.Path;
+import org.kitesdk.apps.AppException;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Resolution of the Spark sharelib for every schedule of an application,
+ * as done when it is installed, with and without the sharelib cache. The
+ * sharelib is on the local filesystem, so this measures the listing and
+ * parsing work rather than NameNode latency.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class ShareLibsBenchmark {
+
+  @Param({"10", "500"})
+  public int schedules;
+
+  private Path sharelib;
+
+  private Configuration cachedConf;
+
+  private Configuration coldConf;
+
+  @Setup
+  public void setup() {
+
+    try {
+
+      File root = File.createTempFile("kite-sharelib-", "");
+      root.delete();
+
+      sharelib = new Path(root.toURI());
+
+      FileSystem fs = FileSystem.getLocal(new Configuration());
+
+      // Older library directories are listed but not used.
+      fs.mkdirs(new Path(sharelib, "lib_20150501000000/spark"));
+
+      for (int i = 0; i < 50; ++i) {
+        fs.create(new Path(sharelib, "lib_20150601000000/spark/lib-" + i + ".jar")).close();
+      }
+
+    } catch (IOException e) {
+      throw new AppException(e);
+    }
+
+    cachedConf = new Configuration();
+    cachedConf.set("fs.defaultFS", "file:///");
+    cachedConf.set("system.libpath", sharelib.toString());
+
+    coldConf = new Configuration(cachedConf);
+    coldConf.setLong(ShareLibs.CACHE_TTL_SECONDS, 0);
+  }
+
+  @TearDown
+  public void tearDown() throws IOException {
+
+    ShareLibs.invalidate();
+
+    FileSystem.getLocal(new Configuration()).delete(sharelib, true);
+  }
+
+  private int resolveAll(Configuration conf) throws IOException {
+
+    int jars = 0;
+
+    for (int i = 0; i < schedules; ++i) {
+      jars += ShareLibs.jars(conf, "spark").size();
+    }
+
+    return jars;
+  }
+
+  @Benchmark
+  public int resolveCold() throws IOException {
+    return resolveAll(coldConf);
+  }
+
+  @Benchmark
+  public int resolveCached() throws IOException {
+
+    // Each install starts with an empty cache.
+    ShareLibs.invalidate();
+
+    return resolveAll(cachedConf);
+  }
+}
@@ -31,6 +31,7 @@ import org.apache.hadoop.util.Tool;
 import org.apache.hadoop.util.ToolRunner;
 import org.apache.log4j.Level;
 import org.apache.log4j.PropertyConfigurator;
+import org.kitesdk.apps.cli.commands.GenerateCommand;
 import org.kitesdk.apps.cli.commands.InstallCommand;
 import org.kitesdk.apps.cli.commands.JarCommand;
 import org.kitesdk.cli.Command;
@@ -88,6 +89,7 @@ public class Main extends Configured implements Tool {
     this.jc = new JCommander(this);
     jc.addCommand("install", new InstallCommand(console));
     jc.addCommand("jar", new JarCommand(console));
+    jc.addCommand("generate", new GenerateCommand(console));
 
   }
 
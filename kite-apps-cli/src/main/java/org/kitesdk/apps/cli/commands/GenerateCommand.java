@@ -0,0 +1,225 @@
+/**
+ * Copyright 2015 Cerner Corporation.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.kitesdk.apps.cli.commands;
+
+import com.beust.jcommander.Parameter;
+import com.beust.jcommander.Parameters;
+import com.google.common.base.Preconditions;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import org.apache.avro.Schema;
+import org.kitesdk.apps.kafka.LoadGenerator;
+import org.kitesdk.apps.kafka.SchemaRegistries;
+import org.kitesdk.apps.kafka.SchemaRegistry;
+import org.kitesdk.apps.spi.PropertyFiles;
+import org.kitesdk.cli.commands.BaseCommand;
+import org.slf4j.Logger;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Command to generate load on a Kafka topic, reporting the throughput
+ * achieved so the jobs consuming the topic can be measured.
+ */
+@Parameters(commandDescription="Generates records on a Kafka topic for load testing.")
+public class GenerateCommand extends BaseCommand {
+
+  @Parameter(description = "<topic>")
+  List<String> args;
+
+  @Parameter(description = "Configuration properties file with the Kafka settings.",
+      names={"--properties-file"})
+  String propertiesFileName;
+
+  @Parameter(description = "A configuration setting, in the form of --conf key=value. " +
+      "May be specified multiple times.", names={"--conf"})
+  List<String> settings;
+
+  @Parameter(description = "Avro schema file of the generated records. Defaults to the " +
+      "latest schema of the topic in the schema registry, or a simple keyed schema.",
+      names={"--schema"})
+  String schemaFileName;
+
+  @Parameter(description = "Number of sending threads.", names={"--threads"})
+  int threads = 4;
+
+  @Parameter(description = "Target records per second, or 0 to send as fast as possible.",
+      names={"--rate"})
+  long rate = 0;
+
+  @Parameter(description = "Number of records to send, or 0 for no limit.", names={"--count"})
+  long count = 0;
+
+  @Parameter(description = "Seconds to send records for, or 0 for no limit.", names={"--duration"})
+  long durationSeconds = 0;
+
+  @Parameter(description = "Number of records in each send.", names={"--batch-size"})
+  int batchSize = 500;
+
+  @Parameter(description = "Target size in bytes of each record.", names={"--record-size"})
+  int recordSize = 100;
+
+  @Parameter(description = "Long, int or string field holding the record key.",
+      names={"--key-field"})
+  String keyField;
+
+  @Parameter(description = "Number of distinct keys.", names={"--key-cardinality"})
+  long keyCardinality = 1000;
+
+  @Parameter(description = "Skew of keys as a Zipf exponent, where 0 is uniform.",
+      names={"--skew"})
+  double skew = 0.0;
+
+  @Parameter(description = "Seconds between throughput reports.", names={"--report-interval"})
+  int reportInterval = 10;
+
+  private final Logger console;
+
+  public GenerateCommand(Logger console) {
+    this.console = console;
+  }
+
+  private Map<String,String> loadSettings() {
+
+    Map<String,String> loaded = Maps.newHashMap();
+
+    if (propertiesFileName != null)
+      loaded.putAll(PropertyFiles.load(new File(propertiesFileName)));
+
+    if (settings != null) {
+
+      for (String setting: settings) {
+
+        String[] parts = setting.split("=", 2);
+
+        if (parts.length != 2)
+          throw new IllegalArgumentException("Malformed input setting: " + setting);
+
+        loaded.put(parts[0], parts[1]);
+      }
+    }
+
+    return loaded;
+  }
+
+  private Schema loadSchema(String topic, Map<String,String> settings) throws IOException {
+
+    if (schemaFileName != null)
+      return new Schema.Parser().parse(new File(schemaFileName));
+
+    SchemaRegistry registry = SchemaRegistries.get(settings);
+
+    Schema latest = registry != null ? registry.getLatestSchema(topic) : null;
+
+    return latest != null ? latest : LoadGenerator.DEFAULT_SCHEMA;
+  }
+
+  private void report(String prefix, long records, long bytes, long millis) {
+
+    double seconds = Math.max(millis, 1) / 1000.0;
+
+    console.info(String.format("%s %d records in %.1f seconds: %.0f records/sec, %.2f MB/sec",
+        prefix, records, seconds, records / seconds, bytes / seconds / (1024 * 1024)));
+  }
+
+  @Override
+  public int run() throws IOException {
+
+    Preconditions.checkArgument(args != null && args.size() == 1,
+        "A topic must be specified");
+
+    String topic = args.get(0);
+
+    Map<String,String> appSettings = loadSettings();
+
+    Schema schema = loadSchema(topic, appSettings);
+
+    final LoadGenerator generator = new LoadGenerator.Builder()
+        .topic(topic)
+        .schema(schema)
+        .settings(appSettings)
+        .threads(threads)
+        .rate(rate)
+        .count(count)
+        .duration(durationSeconds, TimeUnit.SECONDS)
+        .batchSize(batchSize)
+        .recordSize(recordSize)
+        .keyField(keyField)
+        .keyCardinality(keyCardinality)
+        .skew(skew)
+        .build();
+
+    console.info("Generating {} records on topic {} with {} threads.",
+        new Object[] {schema.getFullName(), topic, threads});
+
+    // Report the totals if interrupted before finishing.
+    Thread reportOnExit = new Thread() {
+      @Override
+      public void run() {
+        generator.stop();
+        report("Sent", generator.getRecordsSent(), generator.getBytesSent(),
+            generator.getElapsedMillis());
+      }
+    };
+
+    Runtime.getRuntime().addShutdownHook(reportOnExit);
+
+    generator.start();
+
+    long lastRecords = 0;
+    long lastBytes = 0;
+
+    try {
+
+      while (!generator.awaitCompletion(reportInterval, TimeUnit.SECONDS)) {
+
+        long records = generator.getRecordsSent();
+        long bytes = generator.getBytesSent();
+
+        report("Sent", records - lastRecords, bytes - lastBytes, reportInterval * 1000L);
+
+        lastRecords = records;
+        lastBytes = bytes;
+      }
+
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      generator.stop();
+    } finally {
+      Runtime.getRuntime().removeShutdownHook(reportOnExit);
+    }
+
+    report("Finished. Sent", generator.getRecordsSent(), generator.getBytesSent(),
+        generator.getElapsedMillis());
+
+    return 0;
+  }
+
+  @Override
+  public List<String> getExamples() {
+    return Lists.newArrayList(
+        "# Send 100,000 records per second of about 200 bytes to a topic for ten minutes:",
+        "events --properties-file app.properties --rate 100000 --record-size 200 --duration 600",
+        "# Send a million records of a schema with skewed user IDs as fast as possible:",
+        "events --properties-file app.properties --schema event.avsc --count 1000000 " +
+            "--key-field user_id --key-cardinality 100000 --skew 1.2"
+    );
+  }
+}
@@ -26,6 +26,7 @@ import org.apache.hadoop.fs.Path;
 import org.apache.hadoop.mapred.JobConf;
 import org.kitesdk.apps.AppContext;
 import org.kitesdk.apps.spi.AppDeployer;
+import org.kitesdk.apps.spi.JarStore;
 import org.kitesdk.apps.spi.PropertyFiles;
 import org.kitesdk.cli.commands.BaseCommand;
 import org.slf4j.Logger;
@@ -58,6 +59,14 @@ public class InstallCommand extends BaseCommand {
       "May be specified multiple times.", names={"--conf"})
   List<String> settings;
 
+  @Parameter(description = "Location of the shared store of library JARs. " +
+      "Defaults to a jars directory under the destination.", names={"--jar-store"})
+  String jarStorePath;
+
+  @Parameter(description = "Copy all library JARs into the installation " +
+      "rather than using the shared JAR store.", names={"--copy-jars"})
+  boolean copyJars = false;
+
   private final Logger console;
 
   public InstallCommand(Logger console) {
@@ -162,7 +171,20 @@ public class InstallCommand extends BaseCommand {
 
     AppContext context = new AppContext(settings, getConf(), destination);
 
-    AppDeployer deployer = new AppDeployer(fs, context);
+    // Library JARs are shared across installations so
+    // only changed JARs are uploaded.
+    JarStore jarStore = null;
+
+    if (!copyJars) {
+
+      Path storePath = jarStorePath != null ?
+          new Path(jarStorePath) :
+          new Path(args.get(2), "jars");
+
+      jarStore = new JarStore(fs, storePath);
+    }
+
+    AppDeployer deployer = new AppDeployer(fs, context, jarStore);
 
     // Load the needed libraries and the application jar
     // so they are deployed to the coordinator.
@@ -17,14 +17,13 @@ package org.kitesdk.apps;
 
 import com.google.common.collect.Lists;
 import org.kitesdk.apps.scheduled.Schedule;
+import org.kitesdk.apps.spi.DatasetInstaller;
 import org.kitesdk.apps.streaming.StreamDescription;
-import org.kitesdk.data.Dataset;
 import org.kitesdk.data.DatasetDescriptor;
-import org.kitesdk.data.DatasetExistsException;
-import org.kitesdk.data.Datasets;
 
 import java.util.Collections;
 import java.util.List;
+import java.util.Map;
 
 /**
  * Base class to simplify common application patterns. See {@link Application}
@@ -32,6 +31,11 @@ import java.util.List;
  */
 public abstract class AbstractApplication implements Application {
 
+  /**
+   * Maximum number of datasets checked at once by {@link #datasets}.
+   */
+  private static final int DATASET_THREADS = 8;
+
   private final List<Schedule> schedules = Lists.newArrayList();
 
   private final List<StreamDescription> descriptions = Lists.newArrayList();
@@ -48,32 +52,23 @@ public abstract class AbstractApplication implements Application {
 
   /**
    * Ensures the given dataset exists, creating it if it doesn't
-   * and updating the schema if necessary.
+   * and updating its descriptor only if it has changed.
    */
   protected void dataset(String uri, DatasetDescriptor descriptor) {
 
-    try {
-
-      Datasets.create(uri, descriptor);
-    } catch (DatasetExistsException e) {
-
-      Dataset existingDataset = Datasets.load(uri);
-
-      DatasetDescriptor updated;
-
-      // The given discriptor might not have a location,
-      // so use the current one.
-      if (descriptor.getLocation() == null) {
-        updated = new DatasetDescriptor.Builder(descriptor)
-            .location(existingDataset.getDescriptor().getLocation())
-            .build();
-      } else {
+    DatasetInstaller.install(uri, descriptor);
+  }
 
-        updated = descriptor;
-      }
+  /**
+   * Ensures each of the given datasets exists, as {@link #dataset} does.
+   * The datasets are checked concurrently, so applications with many
+   * datasets should prefer this to calling {@link #dataset} for each.
+   *
+   * @param descriptors the dataset descriptors keyed by dataset URI
+   */
+  protected void datasets(Map<String,DatasetDescriptor> descriptors) {
 
-      Datasets.update(uri, updated);
-    }
+    DatasetInstaller.installAll(descriptors, DATASET_THREADS);
   }
 
   @Override
@@ -17,6 +17,7 @@ package org.kitesdk.apps;
 
 import org.apache.hadoop.conf.Configuration;
 import org.apache.hadoop.fs.Path;
+import org.kitesdk.apps.spi.ReadOnlyConfiguration;
 
 import java.util.Collections;
 import java.util.Map;
@@ -33,6 +34,8 @@ public class AppContext {
 
   private final Path installPath;
 
+  private volatile Configuration readOnlyConf = null;
+
   /**
    * Gets the configuration settings for the application.
    */
@@ -41,12 +44,36 @@ public class AppContext {
   }
 
   /**
-   * Gets the Hadoop configuration for the application.
+   * Gets a copy of the Hadoop configuration for the application,
+   * which the caller may modify.
    */
   public Configuration getHadoopConf() {
     return new Configuration(conf);
   }
 
+  /**
+   * Gets a read-only view of the Hadoop configuration for the application.
+   * The view is created once and shared, so this is much cheaper than
+   * {@link #getHadoopConf()} for callers that only read settings.
+   */
+  public Configuration getReadOnlyHadoopConf() {
+
+    Configuration view = readOnlyConf;
+
+    if (view == null) {
+
+      synchronized (this) {
+
+        if (readOnlyConf == null)
+          readOnlyConf = new ReadOnlyConfiguration(conf);
+
+        view = readOnlyConf;
+      }
+    }
+
+    return view;
+  }
+
   public Path getInstallPath() { return installPath; }
 
   /**
@@ -58,6 +85,13 @@ public class AppContext {
     this.installPath = installPath;
   }
 
+  /**
+   * Creates a context with the given settings and Hadoop configuration.
+   */
+  public AppContext(Map<String,String> settings, Configuration conf) {
+    this(settings, conf, null);
+  }
+
   /**
    * Creates a context with the given Hadoop configuration.
    */
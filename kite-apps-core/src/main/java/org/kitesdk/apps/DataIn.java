@@ -39,4 +39,13 @@ public @interface DataIn  {
    * The type of the input, defaulting to a generic record.
    */
   Class type() default GenericData.Record.class;
+
+  /**
+   * The top-level fields of the input read by the job, defaulting to all
+   * fields. When fields are given, scheduled jobs receive a view that reads
+   * generic records with only those fields, so columnar formats like Parquet
+   * read only the needed columns. Projections can only be used with the
+   * default generic record type.
+   */
+  String[] fields() default {};
 }
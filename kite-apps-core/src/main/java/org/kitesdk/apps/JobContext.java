@@ -17,12 +17,19 @@ package org.kitesdk.apps;
 
 import com.google.common.collect.Maps;
 import org.apache.hadoop.conf.Configuration;
-import org.kitesdk.apps.spi.jobs.JobReflection;
+import org.kitesdk.apps.spi.ReadOnlyConfiguration;
+import org.kitesdk.apps.spi.jobs.JobDescriptor;
 import org.kitesdk.apps.streaming.StreamDescription;
+import org.kitesdk.data.View;
 
-import java.lang.reflect.Method;
+import java.util.Collections;
 import java.util.Map;
+import java.util.NavigableMap;
 import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * Context in which a Kite job is running.
@@ -35,6 +42,24 @@ public class JobContext {
 
   private final Map<String,String> jobSettings;
 
+  // Settings that apply to all inputs and outputs.
+  private final Map<String,String> generalSettings;
+
+  // Input and output specific settings, sorted so the settings
+  // of a single parameter can be found by prefix.
+  private final NavigableMap<String,String> parameterSettings;
+
+  // Settings of each input and output, built on first use.
+  private final ConcurrentMap<String,Map<String,String>> settingsByPrefix =
+      new ConcurrentHashMap<String,Map<String,String>>();
+
+  // Records written to each output, as reported by the job.
+  private final ConcurrentMap<String,AtomicLong> outputRecords =
+      new ConcurrentHashMap<String,AtomicLong>();
+
+  // Views read by the current run of a scheduled job.
+  private volatile Map<String,View> inputViews = Collections.emptyMap();
+
   private static final String JOB_PREFIX = "kite.job.";
 
   /**
@@ -56,28 +81,76 @@ public class JobContext {
   }
 
   /**
-   * Gets the settings for a DataInput parameter
-   * of the job, given the name used in DataInput annotation.
+   * Reports records written to the named output, so they are included in
+   * the record of the job's run. Jobs may call this once with the total
+   * or repeatedly as records are written.
+   *
+   * @param dataOutputName the name used in the DataOut annotation
+   * @param records the number of records written
    */
-  public Map<String,String> getInputSettings (String dataInputName) {
+  public void addOutputRecords(String dataOutputName, long records) {
 
-    Map<String,String> inputSettings = Maps.newHashMap();
+    AtomicLong count = outputRecords.get(dataOutputName);
 
-    String prefix = "input." + dataInputName + ".";
+    if (count == null) {
 
-    for (String setting: jobSettings.keySet()) {
+      AtomicLong created = new AtomicLong();
 
-      if (setting.startsWith(prefix)) {
+      count = outputRecords.putIfAbsent(dataOutputName, created);
 
-        inputSettings.put(setting.substring(prefix.length()), jobSettings.get(setting));
-      } else {
-        if (isGeneralSetting(setting)) {
-          inputSettings.put(setting, jobSettings.get(setting));
-        }
-      }
+      if (count == null)
+        count = created;
     }
 
-    return inputSettings;
+    count.addAndGet(records);
+  }
+
+  /**
+   * Clears the records reported for each output, so the next attempt of
+   * a run counts only its own records. This is called by the job manager
+   * before each attempt.
+   */
+  public void resetOutputRecords() {
+    outputRecords.clear();
+  }
+
+  /**
+   * Gets the number of records reported for each output of the job.
+   */
+  public Map<String,Long> getOutputRecords() {
+
+    Map<String,Long> records = Maps.newHashMap();
+
+    for (Map.Entry<String,AtomicLong> count: outputRecords.entrySet()) {
+      records.put(count.getKey(), count.getValue().get());
+    }
+
+    return records;
+  }
+
+  /**
+   * Sets the views read by the current run of a scheduled job.
+   * This is called by the job manager before each run.
+   */
+  public void setInputViews(Map<String,View> inputViews) {
+    this.inputViews = Collections.unmodifiableMap(Maps.newHashMap(inputViews));
+  }
+
+  /**
+   * Gets the views read by the current run of a scheduled job, by the
+   * name used in the DataIn annotation. This is empty for streaming jobs.
+   */
+  public Map<String,View> getInputViews() {
+    return inputViews;
+  }
+
+  /**
+   * Gets the settings for a DataInput parameter
+   * of the job, given the name used in DataInput annotation.
+   */
+  public Map<String,String> getInputSettings (String dataInputName) {
+
+    return getParameterSettings("input." + dataInputName + ".");
   }
 
   /**
@@ -86,30 +159,40 @@ public class JobContext {
    */
   public Map<String,String> getOutputSettings (String dataOutputName) {
 
-    Map<String,String> outputSettings = Maps.newHashMap();
+    return getParameterSettings("output." + dataOutputName + ".");
+  }
 
-    String prefix = "output." + dataOutputName + ".";
+  /**
+   * Returns an immutable map of the general settings combined with
+   * those with the given prefix, which is removed from their names.
+   */
+  private Map<String,String> getParameterSettings(String prefix) {
+
+    Map<String,String> settings = settingsByPrefix.get(prefix);
 
-    for (String setting: jobSettings.keySet()) {
+    if (settings == null) {
 
-      if (setting.startsWith(prefix)) {
+      Map<String,String> combined = Maps.newHashMap(generalSettings);
 
-        outputSettings.put(setting.substring(prefix.length()), jobSettings.get(setting));
-      } else {
-        if (isGeneralSetting(setting)) {
-          outputSettings.put(setting, jobSettings.get(setting));
-        }
+      // All settings with the prefix sort between the prefix itself
+      // and the prefix followed by the highest character.
+      for (Map.Entry<String,String> setting:
+          parameterSettings.subMap(prefix, true, prefix + Character.MAX_VALUE, false).entrySet()) {
+
+        combined.put(setting.getKey().substring(prefix.length()), setting.getValue());
       }
+
+      settings = Collections.unmodifiableMap(combined);
+
+      settingsByPrefix.putIfAbsent(prefix, settings);
     }
 
-    return outputSettings;
+    return settings;
   }
 
   private static Map<String,String> getDefaultSettings(StreamDescription descrip) {
 
-    Method runMethod = JobReflection.resolveRunMethod(descrip.getJobClass());
-
-    Set<String> inputNames = JobReflection.getInputs(runMethod).keySet();
+    Set<String> inputNames = JobDescriptor.of(descrip.getJobClass()).getInputs().keySet();
 
     Map<String,String> settings = Maps.newHashMap();
 
@@ -129,26 +212,52 @@ public class JobContext {
   }
 
   /**
-   * Gets the Hadoop configuration for the job.
+   * Gets a copy of the Hadoop configuration for the job,
+   * which the caller may modify.
    */
   public Configuration getHadoopConf() {
     return new Configuration(conf);
   }
 
+  /**
+   * Gets a read-only view of the Hadoop configuration for the job.
+   * This is shared rather than copied, so it is much cheaper than
+   * {@link #getHadoopConf()} for callers that only read settings.
+   */
+  public Configuration getReadOnlyHadoopConf() {
+    return conf;
+  }
+
   /**
    * Creates a context with the given settings and Hadoop configuration.
    */
   public JobContext(StreamDescription descrip, Job job, Map<String,String> settings, Configuration conf) {
-    this.job = job;
-    this.jobSettings = toJobSettings(job.getName(), getDefaultSettings(descrip), settings);
-    this.conf = toJobHadoopConf(this.jobSettings, conf);
+    this(job, conf, toJobSettings(job.getName(), getDefaultSettings(descrip), settings));
   }
 
 
   public JobContext(Job job, Map<String,String> settings, Configuration conf) {
+    this(job, conf, toJobSettings(job.getName(), Collections.<String,String>emptyMap(), settings));
+  }
+
+  private JobContext(Job job, Configuration conf, Map<String,String> jobSettings) {
     this.job = job;
-    this.jobSettings = toJobSettings(job.getName(), Maps.<String,String>newHashMap(), settings);
+    this.jobSettings = Collections.unmodifiableMap(jobSettings);
     this.conf = toJobHadoopConf(this.jobSettings, conf);
+
+    Map<String,String> generalSettings = Maps.newHashMap();
+
+    this.parameterSettings = new TreeMap<String,String>();
+
+    for (Map.Entry<String,String> setting: jobSettings.entrySet()) {
+
+      if (isGeneralSetting(setting.getKey()))
+        generalSettings.put(setting.getKey(), setting.getValue());
+      else
+        parameterSettings.put(setting.getKey(), setting.getValue());
+    }
+
+    this.generalSettings = generalSettings;
   }
 
   private static Map<String,String> toJobSettings(String jobName, Map<String,String> defaultSettings, Map<String,String> appSettings) {
@@ -178,17 +287,19 @@ public class JobContext {
 
   private static Configuration toJobHadoopConf(Map<String,String> jobSettings, Configuration conf) {
 
-    Configuration updated = new Configuration(conf);
+    Map<String,String> overrides = Maps.newHashMap();
 
     // Overwrite given configuration with items defined for the job.
     for (Map.Entry<String,String> setting: jobSettings.entrySet()) {
 
       if (setting.getKey().startsWith("hadoop.")) {
 
-        updated.set(setting.getKey().substring("hadoop.".length()), setting.getValue());
+        overrides.put(setting.getKey().substring("hadoop.".length()), setting.getValue());
       }
     }
 
-    return updated;
+    // Take a single read-only snapshot of the job configuration, which
+    // is copied only for callers that need to modify it.
+    return new ReadOnlyConfiguration(conf, overrides);
   }
 }
@@ -0,0 +1,301 @@
+/**
+ * Copyright 2015 Cerner Corporation.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.kitesdk.apps.scheduled;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Lists;
+import org.kitesdk.data.DatasetIOException;
+
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * Policy for retrying a failed run of a scheduled job. Retries are
+ * done by the job launcher itself, so a transient failure does not
+ * restart the whole workflow action. The delay between retries grows
+ * exponentially by the backoff multiplier, up to a maximum interval.
+ *
+ * Only failures caused by a retryable exception are retried. By default
+ * these are I/O failures, which are typically transient. Failures caused
+ * by a non-retryable exception fail immediately, even if they are also
+ * caused by a retryable exception.
+ */
+public class RetryPolicy {
+
+  private final int maxRetries;
+
+  private final long intervalSeconds;
+
+  private final double backoffMultiplier;
+
+  private final long maxIntervalSeconds;
+
+  private final List<Class<? extends Throwable>> retryOn;
+
+  private final List<Class<? extends Throwable>> failOn;
+
+  RetryPolicy(int maxRetries, long intervalSeconds, double backoffMultiplier,
+              long maxIntervalSeconds,
+              List<Class<? extends Throwable>> retryOn,
+              List<Class<? extends Throwable>> failOn) {
+    this.maxRetries = maxRetries;
+    this.intervalSeconds = intervalSeconds;
+    this.backoffMultiplier = backoffMultiplier;
+    this.maxIntervalSeconds = maxIntervalSeconds;
+    this.retryOn = ImmutableList.copyOf(retryOn);
+    this.failOn = ImmutableList.copyOf(failOn);
+  }
+
+  /**
+   * Gets the maximum number of times a failed run is retried.
+   *
+   * @return the maximum number of retries
+   */
+  public int getMaxRetries() {
+    return maxRetries;
+  }
+
+  /**
+   * Gets the delay before the first retry, in seconds.
+   *
+   * @return the initial retry interval
+   */
+  public long getIntervalSeconds() {
+    return intervalSeconds;
+  }
+
+  /**
+   * Gets the factor by which the retry interval grows after each retry.
+   *
+   * @return the backoff multiplier
+   */
+  public double getBackoffMultiplier() {
+    return backoffMultiplier;
+  }
+
+  /**
+   * Gets the upper bound of the retry interval, in seconds.
+   *
+   * @return the maximum retry interval
+   */
+  public long getMaxIntervalSeconds() {
+    return maxIntervalSeconds;
+  }
+
+  /**
+   * Gets the exception types that cause a failure to be retried.
+   *
+   * @return the retryable exception types
+   */
+  public List<Class<? extends Throwable>> getRetryOn() {
+    return retryOn;
+  }
+
+  /**
+   * Gets the exception types that cause a failure to never be retried.
+   *
+   * @return the non-retryable exception types
+   */
+  public List<Class<? extends Throwable>> getFailOn() {
+    return failOn;
+  }
+
+  private static boolean causedBy(Throwable failure, List<Class<? extends Throwable>> types) {
+
+    for (Throwable cause = failure; cause != null; cause = cause.getCause()) {
+
+      for (Class<? extends Throwable> type: types) {
+        if (type.isInstance(cause))
+          return true;
+      }
+
+      // Guard against self-referencing causes.
+      if (cause.getCause() == cause)
+        break;
+    }
+
+    return false;
+  }
+
+  /**
+   * Returns true if the given failure is retryable under this policy.
+   * This does not consider the number of retries already done.
+   *
+   * @param failure the failure of a job run
+   *
+   * @return true if the failure may be retried
+   */
+  public boolean isRetryable(Throwable failure) {
+
+    return !causedBy(failure, failOn) && causedBy(failure, retryOn);
+  }
+
+  /**
+   * Returns true if a run that failed with the given failure
+   * should be retried after the given number of retries.
+   *
+   * @param failure the failure of a job run
+   * @param retries the number of retries already done
+   *
+   * @return true if the run should be retried
+   */
+  public boolean shouldRetry(Throwable failure, int retries) {
+
+    return retries < maxRetries && isRetryable(failure);
+  }
+
+  /**
+   * Gets the delay in milliseconds before the given retry, where
+   * zero is the first retry.
+   *
+   * @param retry the retry number, starting at zero
+   *
+   * @return the delay in milliseconds
+   */
+  public long getDelayMillis(int retry) {
+
+    double seconds = intervalSeconds * Math.pow(backoffMultiplier, retry);
+
+    return (long) (Math.min(seconds, (double) maxIntervalSeconds) * 1000L);
+  }
+
+  /**
+   * A fluent builder to create {@link RetryPolicy} instances.
+   */
+  public static class Builder {
+
+    private int maxRetries = 2;
+
+    private long intervalSeconds = 60;
+
+    private double backoffMultiplier = 2.0;
+
+    private long maxIntervalSeconds = 30 * 60;
+
+    private final List<Class<? extends Throwable>> retryOn = Lists.newArrayList();
+
+    private final List<Class<? extends Throwable>> failOn = Lists.newArrayList();
+
+    /**
+     * Sets the maximum number of times a failed run is retried.
+     * Defaults to two.
+     *
+     * @param maxRetries the maximum number of retries
+     *
+     * @return An instance of the builder for method chaining.
+     */
+    public Builder maxRetries(int maxRetries) {
+
+      if (maxRetries < 0)
+        throw new IllegalArgumentException("Maximum retries must not be negative.");
+
+      this.maxRetries = maxRetries;
+
+      return this;
+    }
+
+    /**
+     * Sets the delay before the first retry, in seconds. Defaults
+     * to one minute.
+     *
+     * @param intervalSeconds the initial retry interval, in seconds
+     *
+     * @return An instance of the builder for method chaining.
+     */
+    public Builder interval(long intervalSeconds) {
+
+      if (intervalSeconds < 0)
+        throw new IllegalArgumentException("Retry interval must not be negative.");
+
+      this.intervalSeconds = intervalSeconds;
+
+      return this;
+    }
+
+    /**
+     * Sets the exponential backoff for retries. Each retry waits the
+     * previous interval times the multiplier, up to the given maximum.
+     * Defaults to a multiplier of two and a maximum of thirty minutes.
+     *
+     * @param multiplier the factor by which the interval grows
+     * @param maxIntervalSeconds the upper bound of the interval, in seconds
+     *
+     * @return An instance of the builder for method chaining.
+     */
+    public Builder backoff(double multiplier, long maxIntervalSeconds) {
+
+      if (multiplier < 1.0)
+        throw new IllegalArgumentException("Backoff multiplier must be at least one.");
+
+      if (maxIntervalSeconds < 0)
+        throw new IllegalArgumentException("Maximum retry interval must not be negative.");
+
+      this.backoffMultiplier = multiplier;
+      this.maxIntervalSeconds = maxIntervalSeconds;
+
+      return this;
+    }
+
+    /**
+     * Retries failures caused by the given exception type. If this is
+     * never called, I/O failures are retried.
+     *
+     * @param type the retryable exception type
+     *
+     * @return An instance of the builder for method chaining.
+     */
+    public Builder retryOn(Class<? extends Throwable> type) {
+
+      retryOn.add(type);
+
+      return this;
+    }
+
+    /**
+     * Never retries failures caused by the given exception type. This
+     * should be used for deterministic errors that a retry cannot fix.
+     *
+     * @param type the non-retryable exception type
+     *
+     * @return An instance of the builder for method chaining.
+     */
+    public Builder failOn(Class<? extends Throwable> type) {
+
+      failOn.add(type);
+
+      return this;
+    }
+
+    /**
+     * Builds an immutable {@link RetryPolicy}.
+     *
+     * @return a RetryPolicy.
+     */
+    public RetryPolicy build() {
+
+      List<Class<? extends Throwable>> retryable = retryOn;
+
+      if (retryable.isEmpty()) {
+        retryable = Lists.newArrayList();
+        retryable.add(IOException.class);
+        retryable.add(DatasetIOException.class);
+      }
+
+      return new RetryPolicy(maxRetries, intervalSeconds, backoffMultiplier,
+          maxIntervalSeconds, retryable, failOn);
+    }
+  }
+}
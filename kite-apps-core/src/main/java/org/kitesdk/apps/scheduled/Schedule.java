@@ -16,17 +16,15 @@
 package org.kitesdk.apps.scheduled;
 
 import com.google.common.collect.Maps;
-import org.apache.hadoop.conf.Configuration;
 import org.joda.time.Instant;
-import org.kitesdk.apps.AppContext;
 import org.kitesdk.apps.AppException;
 import org.kitesdk.apps.DataIn;
 import org.kitesdk.apps.DataOut;
-import org.kitesdk.apps.spi.jobs.JobManagers;
-import org.kitesdk.apps.spi.jobs.SchedulableJobManager;
+import org.kitesdk.apps.spi.jobs.JobDescriptor;
 import org.kitesdk.apps.spi.oozie.CronConverter;
 
 import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.Map;
 import java.util.regex.Pattern;
 
@@ -46,18 +44,88 @@ public class Schedule {
 
   private final Map<String,ViewTemplate> views;
 
+  private final Integer concurrency;
+
+  private final Integer throttle;
+
+  private final Integer timeoutMinutes;
+
+  private final ExecutionOrder executionOrder;
+
+  private final RetryPolicy retryPolicy;
+
+  private final EmptyInputPolicy emptyInputPolicy;
+
+  private final int catchUpLimit;
+
   /**
    * Job names should be within Oozie constraints.
    */
   private static final Pattern NAME_PATTERN = Pattern.compile("([a-zA-Z]([\\-_a-zA-Z0-9])*){1,39}");
 
   Schedule(Class<? extends SchedulableJob> jobClass, String name, String frequency,
-           Instant startTime, Map<String,ViewTemplate> views) {
+           Instant startTime, Map<String,ViewTemplate> views,
+           Integer concurrency, Integer throttle, Integer timeoutMinutes,
+           ExecutionOrder executionOrder, RetryPolicy retryPolicy,
+           EmptyInputPolicy emptyInputPolicy, int catchUpLimit) {
     this.jobClass = jobClass;
     this.name = name;
     this.frequency = frequency;
     this.startTime = startTime;
     this.views = Collections.unmodifiableMap(views);
+    this.concurrency = concurrency;
+    this.throttle = throttle;
+    this.timeoutMinutes = timeoutMinutes;
+    this.executionOrder = executionOrder;
+    this.retryPolicy = retryPolicy;
+    this.emptyInputPolicy = emptyInputPolicy;
+    this.catchUpLimit = catchUpLimit;
+  }
+
+  /**
+   * The order in which pending instances of a scheduled job are run
+   * when more than one is ready, such as when catching up after an outage.
+   */
+  public enum ExecutionOrder {
+
+    /**
+     * Run the oldest pending instance first. This is the default.
+     */
+    FIFO,
+
+    /**
+     * Run the newest pending instance first.
+     */
+    LIFO,
+
+    /**
+     * Run only the newest pending instance, skipping any older ones.
+     */
+    LAST_ONLY
+  }
+
+  /**
+   * What to do with a run of a scheduled job when all of its
+   * inputs are empty.
+   */
+  public enum EmptyInputPolicy {
+
+    /**
+     * Run the job regardless of its inputs. This is the default.
+     */
+    RUN,
+
+    /**
+     * Skip the run without signaling its outputs, so downstream jobs
+     * waiting on them do not run either.
+     */
+    SKIP,
+
+    /**
+     * Skip the run but signal its outputs as ready, so downstream jobs
+     * run on the empty outputs.
+     */
+    SKIP_AND_SIGNAL
   }
 
   /**
@@ -105,6 +173,72 @@ public class Schedule {
    */
   public Map<String,ViewTemplate> getViewTemplates() { return views; }
 
+  /**
+   * Gets the maximum number of instances of the job that may run
+   * at the same time, or null if the scheduler default should be used.
+   *
+   * @return the maximum number of concurrent instances
+   */
+  public Integer getConcurrency() { return concurrency; }
+
+  /**
+   * Gets the maximum number of instances of the job that may be waiting
+   * for their inputs at the same time, or null if the scheduler default
+   * should be used.
+   *
+   * @return the maximum number of waiting instances
+   */
+  public Integer getThrottle() { return throttle; }
+
+  /**
+   * Gets the number of minutes an instance of the job may wait for its
+   * inputs before it is discarded, or null if the scheduler default
+   * should be used.
+   *
+   * @return the timeout in minutes
+   */
+  public Integer getTimeout() { return timeoutMinutes; }
+
+  /**
+   * Gets the order in which pending instances of the job are run,
+   * or null if the scheduler default should be used.
+   *
+   * @return the execution order
+   */
+  public ExecutionOrder getExecutionOrder() { return executionOrder; }
+
+  /**
+   * Gets the policy for retrying failed runs of the job, or null if
+   * the scheduler's fixed retries should be used.
+   *
+   * @return the retry policy
+   */
+  public RetryPolicy getRetryPolicy() { return retryPolicy; }
+
+  /**
+   * Gets what to do with a run of the job when all of its inputs are empty.
+   *
+   * @return the empty input policy
+   */
+  public EmptyInputPolicy getEmptyInputPolicy() { return emptyInputPolicy; }
+
+  /**
+   * Gets the maximum number of pending nominal times merged into a single
+   * run of the job when catching up, or 1 if each nominal time is run
+   * separately.
+   *
+   * @return the maximum number of nominal times in a run
+   */
+  public int getCatchUpLimit() { return catchUpLimit; }
+
+  /**
+   * Returns true if pending nominal times of the job are merged into
+   * a single run when catching up.
+   *
+   * @return true if catch-up runs are enabled
+   */
+  public boolean isCatchUp() { return catchUpLimit > 1; }
+
   /**
    * A template for views used by the scheduled job.
    */
@@ -114,12 +248,25 @@ public class Schedule {
     private final String uriTemplate;
     private final String frequency;
     private final Class inputType;
+    private final int startInstance;
+    private final int endInstance;
+    private final Map<String,String> constraints;
 
     ViewTemplate(String name, String uriTemplate, Class inputType, String frequency) {
+      this(name, uriTemplate, inputType, frequency, 0, 0,
+          Collections.<String,String>emptyMap());
+    }
+
+    ViewTemplate(String name, String uriTemplate, Class inputType, String frequency,
+                 int startInstance, int endInstance, Map<String,String> constraints) {
       this.name = name;
       this.uriTemplate = uriTemplate;
       this.inputType = inputType;
       this.frequency = frequency;
+      this.startInstance = startInstance;
+      this.endInstance = endInstance;
+      this.constraints = Collections.unmodifiableMap(
+          new LinkedHashMap<String,String>(constraints));
     }
 
     /**
@@ -160,6 +307,49 @@ public class Schedule {
     public Class getInputType() {
       return inputType;
     }
+
+    /**
+     * Gets the offset of the first instance of the view used by a job run,
+     * relative to the current instance at the run's nominal time. For
+     * instance, -23 refers to the instance 23 periods before the current one.
+     *
+     * @return the offset of the first instance
+     */
+    public int getStartInstance() {
+      return startInstance;
+    }
+
+    /**
+     * Gets the offset of the last instance of the view used by a job run,
+     * relative to the current instance at the run's nominal time.
+     *
+     * @return the offset of the last instance
+     */
+    public int getEndInstance() {
+      return endInstance;
+    }
+
+    /**
+     * Returns true if the template covers more than one instance of the view.
+     *
+     * @return true if the template is a window of several instances
+     */
+    public boolean isWindow() {
+      return startInstance != endInstance;
+    }
+
+    /**
+     * Gets the constraints on fields of the view beyond those in the
+     * URI template, as values in Kite view URI form keyed by field name.
+     * The constraints are applied to the view when it is loaded for a
+     * job run, rather than being part of the URI checked for the
+     * availability of the input.
+     *
+     * @return the field constraints, which may be empty
+     */
+    public Map<String,String> getConstraints() {
+      return constraints;
+    }
   }
 
   /**
@@ -169,7 +359,7 @@ public class Schedule {
 
     private Class jobClass = null;
 
-    private SchedulableJobManager manager;
+    private JobDescriptor descriptor;
 
     private String frequency = null;
 
@@ -179,19 +369,38 @@ public class Schedule {
 
     private Map<String,ViewTemplate> views = Maps.newHashMap();
 
+    private Integer concurrency = null;
+
+    private Integer throttle = null;
+
+    private Integer timeoutMinutes = null;
+
+    private ExecutionOrder executionOrder = null;
+
+    private RetryPolicy retryPolicy = null;
+
+    private EmptyInputPolicy emptyInputPolicy = EmptyInputPolicy.RUN;
+
+    private int catchUpLimit = 1;
+
     /**
      * Sets the class of the {@link org.kitesdk.apps.scheduled.SchedulableJob}
-     * being scheduled.
+     * being scheduled. Only the job's metadata is read, which is cached per
+     * class, so no job manager or Hadoop configuration is created.
      *
      * @return An instance of the builder for method chaining.
      */
     public Builder jobClass(Class jobClass) {
 
+      if (!SchedulableJob.class.isAssignableFrom(jobClass))
+        throw new IllegalArgumentException("Job class " + jobClass +
+            " is not a scheduled job.");
+
       this.jobClass = jobClass;
 
-      manager = JobManagers.createSchedulable(jobClass, new AppContext(new Configuration()));
+      descriptor = JobDescriptor.of(jobClass);
 
-      String name = manager.getName();
+      String name = descriptor.getJobName();
 
       if (!NAME_PATTERN.matcher(name).matches())
         throw new AppException("App name " + name + " must match pattern " + NAME_PATTERN + ".");
@@ -246,6 +455,151 @@ public class Schedule {
       return this;
     }
 
+    /**
+     * Sets the maximum number of instances of the job that may run at
+     * the same time. Raising this above one allows a backlog of instances,
+     * such as those accumulated during an outage, to be processed in parallel.
+     *
+     * @param concurrency the maximum number of concurrently running instances
+     *
+     * @return An instance of the builder for method chaining.
+     */
+    public Builder concurrency(int concurrency) {
+
+      if (concurrency < 1)
+        throw new IllegalArgumentException("Concurrency must be at least one.");
+
+      this.concurrency = concurrency;
+
+      return this;
+    }
+
+    /**
+     * Sets the maximum number of instances of the job that may be waiting
+     * for their inputs at the same time.
+     *
+     * @param throttle the maximum number of waiting instances
+     *
+     * @return An instance of the builder for method chaining.
+     */
+    public Builder throttle(int throttle) {
+
+      if (throttle < 1)
+        throw new IllegalArgumentException("Throttle must be at least one.");
+
+      this.throttle = throttle;
+
+      return this;
+    }
+
+    /**
+     * Sets the number of minutes an instance of the job may wait for its
+     * inputs before it is discarded. A value of zero discards any instance
+     * whose inputs are not available when it is materialized, and
+     * a value of -1 waits indefinitely.
+     *
+     * @param timeoutMinutes the timeout in minutes
+     *
+     * @return An instance of the builder for method chaining.
+     */
+    public Builder timeout(int timeoutMinutes) {
+
+      if (timeoutMinutes < -1)
+        throw new IllegalArgumentException("Timeout must be -1 or greater.");
+
+      this.timeoutMinutes = timeoutMinutes;
+
+      return this;
+    }
+
+    /**
+     * Sets the order in which pending instances of the job are run.
+     * Using {@link ExecutionOrder#LAST_ONLY} skips stale instances
+     * so only the most recent one is run.
+     *
+     * @param executionOrder the execution order
+     *
+     * @return An instance of the builder for method chaining.
+     */
+    public Builder executionOrder(ExecutionOrder executionOrder) {
+
+      this.executionOrder = executionOrder;
+
+      return this;
+    }
+
+    /**
+     * Sets the policy for retrying failed runs of the job. If no policy
+     * is set, a failed run is retried twice at a fixed one minute interval,
+     * regardless of the cause of the failure. A retried run writes to
+     * the same outputs as the failed one, which are not cleaned up first.
+     *
+     * @param retryPolicy the retry policy
+     *
+     * @return An instance of the builder for method chaining.
+     */
+    public Builder retry(RetryPolicy retryPolicy) {
+
+      this.retryPolicy = retryPolicy;
+
+      return this;
+    }
+
+    /**
+     * Sets what to do with a run of the job when all of its inputs are
+     * empty. By default the job is run regardless of its inputs.
+     *
+     * The inputs are checked by the job launcher after Oozie starts the
+     * workflow action. Skipping a Java action run avoids submitting its
+     * MapReduce jobs. Spark jobs are checked in the already launched Spark
+     * driver, so skipping them saves only creating the Spark context and
+     * its executors.
+     *
+     * @param emptyInputPolicy the empty input policy
+     *
+     * @return An instance of the builder for method chaining.
+     */
+    public Builder emptyInputs(EmptyInputPolicy emptyInputPolicy) {
+
+      if (emptyInputPolicy == null)
+        throw new IllegalArgumentException("An empty input policy must be provided.");
+
+      this.emptyInputPolicy = emptyInputPolicy;
+
+      return this;
+    }
+
+    /**
+     * Covers consecutive pending nominal times of the job in a single
+     * launch, such as when catching up after an outage. Only the newest
+     * pending instance is launched, and it covers every nominal time since
+     * the last completed run, up to the given limit.
+     *
+     * If any output of the job is templated by nominal time, the launch
+     * runs the job once for each of those nominal times in turn, so each
+     * run reads its own inputs and writes and signals its own outputs.
+     * Otherwise the nominal times are merged into a single run that reads
+     * the union of their inputs and writes to the shared outputs.
+     *
+     * The last completed run is found from the run records under the
+     * application root, so runs fail if they are disabled for the schedule.
+     * Catch-up runs use {@link ExecutionOrder#LAST_ONLY}, so no other
+     * execution order may be set.
+     *
+     * @param maxNominalTimes the maximum number of nominal times in a run
+     *
+     * @return An instance of the builder for method chaining.
+     */
+    public Builder catchUp(int maxNominalTimes) {
+
+      if (maxNominalTimes < 1)
+        throw new IllegalArgumentException("A run must include at least one nominal time.");
+
+      this.catchUpLimit = maxNominalTimes;
+
+      return this;
+    }
+
     /**
      * Deprecated. Configures a view defined by a name and URI template to be used
      * by the scheduled job.
@@ -260,9 +614,9 @@ public class Schedule {
     @Deprecated
     public Builder withView(String name, String uriTemplate, int frequencyMinutes) {
 
-      Map<String,DataIn> inputs = manager.getInputs();
+      Map<String,DataIn> inputs = descriptor.getInputs();
 
-      Map<String,DataOut> outputs = manager.getOutputs();
+      Map<String,DataOut> outputs = descriptor.getOutputs();
 
       Class type = inputs.containsKey(name) ? inputs.get(name).type() :
           outputs.containsKey(name) ? outputs.get(name).type() : null;
@@ -292,13 +646,121 @@ public class Schedule {
      */
     public Builder withInput(String name, String uriTemplate, String cronFrequency) {
 
-      DataIn input = manager.getInputs().get(name);
+      return withInput(name, uriTemplate, cronFrequency, 0, 0,
+          Collections.<String,String>emptyMap());
+    }
+
+    /**
+     * Configures a view defined by a name and URI template to be used
+     * as an input for the scheduled job, reading only the records that
+     * match the given field constraints. The constraints are applied to
+     * the view loaded for each run, so storage can skip partitions and
+     * records that do not match rather than the job filtering them.
+     *
+     * @param name the name of the data parameter for the job.
+     * @param uriTemplate the Oozie-style URI template identifying the input
+     * @param cronFrequency the frequency in minutes with which instances of
+     *                         the view are expected to be created.
+     * @param constraints values of fields in Kite view URI form keyed by
+     *                    field name, such as "click" or "click,view"
+     *
+     * @return An instance of the builder for method chaining.
+     */
+    public Builder withInput(String name, String uriTemplate, String cronFrequency,
+                             Map<String,String> constraints) {
+
+      return withInput(name, uriTemplate, cronFrequency, 0, 0, constraints);
+    }
+
+    /**
+     * Configures a window of the most recent instances of a view to be used
+     * as an input for the scheduled job. For instance, a daily job may
+     * consume the last 24 instances of an hourly view. The job receives a
+     * single {@link org.kitesdk.apps.spi.UnionView} over all of the instances.
+     *
+     * @param name the name of the data parameter for the job.
+     * @param uriTemplate the Oozie-style URI template identifying the input
+     * @param cronFrequency the frequency in minutes with which instances of
+     *                         the view are expected to be created.
+     * @param instances the number of instances, ending with the current one
+     *
+     * @return An instance of the builder for method chaining.
+     */
+    public Builder withInput(String name, String uriTemplate, String cronFrequency,
+                             int instances) {
+
+      if (instances < 1)
+        throw new IllegalArgumentException("An input window must include at least one instance.");
+
+      return withInput(name, uriTemplate, cronFrequency, 1 - instances, 0);
+    }
+
+    /**
+     * Configures a range of instances of a view to be used as an input for
+     * the scheduled job. The start and end are offsets relative to the
+     * current instance at the job's nominal time, so a range of -3 to 0
+     * includes the current instance and the three before it. The job
+     * receives a single {@link org.kitesdk.apps.spi.UnionView} over all
+     * of the instances.
+     *
+     * @param name the name of the data parameter for the job.
+     * @param uriTemplate the Oozie-style URI template identifying the input
+     * @param cronFrequency the frequency in minutes with which instances of
+     *                         the view are expected to be created.
+     * @param startInstance the offset of the first instance
+     * @param endInstance the offset of the last instance
+     *
+     * @return An instance of the builder for method chaining.
+     */
+    public Builder withInput(String name, String uriTemplate, String cronFrequency,
+                             int startInstance, int endInstance) {
+
+      return withInput(name, uriTemplate, cronFrequency, startInstance, endInstance,
+          Collections.<String,String>emptyMap());
+    }
+
+    /**
+     * Configures a range of instances of a view to be used as an input for
+     * the scheduled job, reading only the records that match the given
+     * field constraints. See {@link #withInput(String, String, String, int, int)}
+     * for the range of instances and {@link #withInput(String, String, String, Map)}
+     * for the constraints.
+     *
+     * @param name the name of the data parameter for the job.
+     * @param uriTemplate the Oozie-style URI template identifying the input
+     * @param cronFrequency the frequency in minutes with which instances of
+     *                         the view are expected to be created.
+     * @param startInstance the offset of the first instance
+     * @param endInstance the offset of the last instance
+     * @param constraints values of fields in Kite view URI form keyed by
+     *                    field name
+     *
+     * @return An instance of the builder for method chaining.
+     */
+    public Builder withInput(String name, String uriTemplate, String cronFrequency,
+                             int startInstance, int endInstance,
+                             Map<String,String> constraints) {
+
+      if (startInstance > endInstance)
+        throw new IllegalArgumentException("Start instance " + startInstance +
+            " must not be after end instance " + endInstance);
+
+      DataIn input = descriptor.getInputs().get(name);
 
       if (input == null)
         throw new IllegalArgumentException("Named input parameter " + name +
             " not used in job " + jobClass.getName());
 
-      views.put(name, new ViewTemplate(name, uriTemplate, input.type(), cronFrequency));
+      for (Map.Entry<String,String> constraint: constraints.entrySet()) {
+
+        if (constraint.getKey().isEmpty() || constraint.getValue() == null ||
+            constraint.getValue().isEmpty())
+          throw new IllegalArgumentException("Invalid constraint " + constraint +
+              " on input " + name);
+      }
+
+      views.put(name, new ViewTemplate(name, uriTemplate, input.type(), cronFrequency,
+          startInstance, endInstance, constraints));
 
       return this;
     }
@@ -315,7 +777,7 @@ public class Schedule {
      */
     public Builder withOutput(String name, String uriTemplate) {
 
-      DataOut output = manager.getOutputs().get(name);
+      DataOut output = descriptor.getOutputs().get(name);
 
       if (output == null)
         throw new IllegalArgumentException("Named output parameter " + name +
@@ -334,20 +796,34 @@ public class Schedule {
      */
     public Schedule build() {
 
-      for (String viewName: manager.getInputs().keySet()) {
+      for (String viewName: descriptor.getInputs().keySet()) {
         if (!views.containsKey(viewName))
           throw new IllegalArgumentException("Named input " + viewName + " not provided in schedule");
       }
 
-      for (String viewName: manager.getOutputs().keySet()) {
+      for (String viewName: descriptor.getOutputs().keySet()) {
         if (!views.containsKey(viewName))
           throw new IllegalArgumentException("Named output " + viewName + " not provided in schedule");
       }
 
+      ExecutionOrder effectiveOrder = executionOrder;
+
+      // Catching up relies on Oozie skipping all but the newest pending instance.
+      if (catchUpLimit > 1) {
+
+        if (executionOrder != null && executionOrder != ExecutionOrder.LAST_ONLY)
+          throw new IllegalArgumentException("Catch-up runs cannot use execution order " +
+              executionOrder);
+
+        effectiveOrder = ExecutionOrder.LAST_ONLY;
+      }
+
       // Use the next start time that aligns with the cron schedule.
       Instant effectiveStartTime = CronConverter.nextInstant(frequency, startTime);
 
-      return new Schedule(jobClass, name, frequency, effectiveStartTime, views);
+      return new Schedule(jobClass, name, frequency, effectiveStartTime, views,
+          concurrency, throttle, timeoutMinutes, effectiveOrder, retryPolicy,
+          emptyInputPolicy, catchUpLimit);
     }
   }
 }
@@ -16,7 +16,9 @@
 package org.kitesdk.apps.spi;
 
 import com.google.common.annotations.VisibleForTesting;
+import com.google.common.collect.Lists;
 import com.google.common.io.Closeables;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import org.apache.hadoop.conf.Configuration;
 import org.apache.hadoop.fs.FileSystem;
 import org.apache.hadoop.fs.Path;
@@ -31,6 +33,8 @@ import org.kitesdk.apps.spi.jobs.SchedulableJobManager;
 import org.kitesdk.apps.spi.jobs.StreamingJobManager;
 import org.kitesdk.apps.spi.oozie.OozieScheduling;
 import org.kitesdk.apps.streaming.StreamDescription;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 import java.io.File;
 import java.io.IOException;
@@ -38,6 +42,11 @@ import java.io.OutputStream;
 import java.util.List;
 import java.util.Properties;
 import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 /**
  * Deploys the Kite application to a Hadoop cluster.
@@ -48,10 +57,31 @@ public class AppDeployer {
 
   private final AppContext context;
 
+  private final JarStore jarStore;
+
+  /**
+   * Configuration property for the number of threads used to upload
+   * JARs and generate job definitions during an install.
+   */
+  public static final String INSTALL_THREADS = "kite.apps.install.threads";
+
+  private static final int DEFAULT_INSTALL_THREADS = 8;
+
+  private static final Logger LOG = LoggerFactory.getLogger(AppDeployer.class);
 
   public AppDeployer(FileSystem fs, AppContext context) {
+    this(fs, context, null);
+  }
+
+  /**
+   * Creates a deployer that installs library JARs to the given store,
+   * uploading only those not already present. A null store copies
+   * the JARs into each installation.
+   */
+  public AppDeployer(FileSystem fs, AppContext context, JarStore jarStore) {
     this.fs = fs;
     this.context = context;
+    this.jarStore = jarStore;
   }
 
 
@@ -102,9 +132,44 @@ public class AppDeployer {
 
     // Install to a temporary destination and rename it to avoid
     // potential races against other installers.
-    String tempBase = context.getHadoopConf().get("hadoop.tmp.dir", "/tmp");
+    String tempBase = context.getReadOnlyHadoopConf().get("hadoop.tmp.dir", "/tmp");
     Path tempDestination =  new Path(tempBase, "kite-" + (new Random().nextInt() & Integer.MAX_VALUE));
 
+    int threads = context.getReadOnlyHadoopConf().getInt(INSTALL_THREADS, DEFAULT_INSTALL_THREADS);
+
+    ExecutorService executor = Executors.newFixedThreadPool(Math.max(1, threads),
+        new ThreadFactoryBuilder()
+            .setDaemon(true)
+            .setNameFormat("kite-install-%d")
+            .build());
+
+    boolean installed = false;
+
+    try {
+
+      install(executor, app, tempDestination, appPath, settingsFile, jars);
+
+      installed = true;
+
+    } finally {
+
+      executor.shutdownNow();
+
+      if (!installed) {
+        try {
+          fs.delete(tempDestination, true);
+        } catch (IOException e) {
+          LOG.warn("Unable to remove incomplete install at " + tempDestination, e);
+        }
+      }
+    }
+  }
+
+  private void install(ExecutorService executor, Application app, Path tempDestination,
+                       Path appPath, File settingsFile, List<File> jars) {
+
+    long start = System.currentTimeMillis();
+
     try {
 
       fs.mkdirs(tempDestination);
@@ -126,31 +191,54 @@ public class AppDeployer {
       }
     }
 
+    // Install the library JARs first, since generated workflows
+    // may refer to their stored locations.
+    AppContext installContext = context;
 
-    // Install the scheduled jobs.
-    List<Schedule> schedules = app.getSchedules();
+    long jarStart = System.currentTimeMillis();
 
-    for (Schedule schedule: schedules) {
+    if (jarStore != null) {
+
+      List<Path> storedJars = storeJars(executor, jars);
 
-      installWorkflow(tempDestination, schedule);
+      JarStore.writeManifest(fs, tempDestination, storedJars);
 
-      installCoordinator(tempDestination, schedule);
+      Configuration conf = context.getHadoopConf();
+
+      JarStore.setLibraryJars(conf, storedJars);
+
+      installContext = new AppContext(context.getSettings(), conf, context.getInstallPath());
+
+    } else {
+      installJars(executor, new Path(tempDestination, "lib"), jars);
     }
 
-    installBundle(app.getClass(), tempDestination, appPath, schedules);
+    LOG.info("Installed {} library JARs in {} ms.", jars.size(),
+        System.currentTimeMillis() - jarStart);
 
-    // Install the streaming jobs.
-    List<StreamDescription> descriptions = app.getStreamDescriptions();
+    // Install the scheduled and streaming jobs. Each writes to its
+    // own paths, so they are generated concurrently.
+    long jobStart = System.currentTimeMillis();
 
-    for (StreamDescription description: descriptions) {
+    List<Schedule> schedules = app.getSchedules();
 
-      StreamingJobManager manager = JobManagers.createStreaming(description, context);
+    List<Future<Void>> jobFutures = Lists.newArrayList();
+
+    for (Schedule schedule: schedules) {
+      jobFutures.add(executor.submit(new InstallSchedule(installContext, tempDestination, schedule)));
+    }
 
-      manager.install(fs, tempDestination);
+    for (StreamDescription description: app.getStreamDescriptions()) {
+      jobFutures.add(executor.submit(new InstallStream(installContext, tempDestination, description)));
     }
 
-    // Install the library JARs.
-    installJars(new Path(tempDestination, "lib"), jars);
+    waitFor(jobFutures);
+
+    installBundle(installContext, app.getClass(), tempDestination, appPath, schedules);
+
+    LOG.info("Installed {} scheduled and {} streaming jobs in {} ms.",
+        new Object[] {schedules.size(), app.getStreamDescriptions().size(),
+            System.currentTimeMillis() - jobStart});
 
     // create checkpoint directory
     try {
@@ -170,6 +258,49 @@ public class AppDeployer {
     } catch (IOException e) {
       throw new AppException(e);
     }
+
+    LOG.info("Installed application to {} in {} ms.", appPath,
+        System.currentTimeMillis() - start);
+  }
+
+  /**
+   * Waits for all of the given tasks to complete, returning their results
+   * in order. A failed task cancels those still pending and its failure
+   * is rethrown.
+   */
+  private static <T> List<T> waitFor(List<Future<T>> futures) {
+
+    List<T> results = Lists.newArrayList();
+
+    try {
+
+      for (Future<T> future: futures) {
+        results.add(future.get());
+      }
+
+    } catch (InterruptedException e) {
+
+      Thread.currentThread().interrupt();
+
+      throw new AppException("Interrupted while installing application.", e);
+
+    } catch (ExecutionException e) {
+
+      Throwable cause = e.getCause();
+
+      if (cause instanceof RuntimeException)
+        throw (RuntimeException) cause;
+
+      throw new AppException(cause);
+
+    } finally {
+
+      for (Future<T> future: futures) {
+        future.cancel(true);
+      }
+    }
+
+    return results;
   }
 
   private Configuration filterConfig(Configuration conf) {
@@ -192,18 +323,54 @@ public class AppDeployer {
     return appConfig;
   }
 
-  private void installJars(Path libPath, List<File> jars) {
+  private void installJars(ExecutorService executor, final Path libPath, List<File> jars) {
 
     try {
       fs.mkdirs(libPath);
 
-      for (File jarFile: jars) {
-        fs.copyFromLocalFile(new Path(jarFile.getAbsolutePath()), new Path(libPath, jarFile.getName()));
-      }
-
     } catch (IOException e) {
       throw new AppException(e);
     }
+
+    List<Future<Path>> futures = Lists.newArrayList();
+
+    for (final File jarFile: jars) {
+
+      futures.add(executor.submit(new Callable<Path>() {
+
+        @Override
+        public Path call() throws IOException {
+
+          Path jarPath = new Path(libPath, jarFile.getName());
+
+          fs.copyFromLocalFile(new Path(jarFile.getAbsolutePath()), jarPath);
+
+          return jarPath;
+        }
+      }));
+    }
+
+    waitFor(futures);
+  }
+
+  private List<Path> storeJars(ExecutorService executor, List<File> jars) {
+
+    List<Future<Path>> futures = Lists.newArrayList();
+
+    for (final File jarFile: jars) {
+
+      futures.add(executor.submit(new Callable<Path>() {
+
+        @Override
+        public Path call() {
+          return jarStore.add(jarFile);
+        }
+      }));
+    }
+
+    // Results are in the order of the given JARs, so the
+    // classpath order is preserved in the manifest.
+    return waitFor(futures);
   }
 
   /**
@@ -227,11 +394,71 @@ public class AppDeployer {
   }
 
 
+  /**
+   * Installs the workflow and coordinator for the given schedule under
+   * the application path.
+   */
+  private class InstallSchedule implements Callable<Void> {
+
+    private final AppContext context;
+
+    private final Path appPath;
+
+    private final Schedule schedule;
+
+    InstallSchedule(AppContext context, Path appPath, Schedule schedule) {
+      this.context = context;
+      this.appPath = appPath;
+      this.schedule = schedule;
+    }
+
+    @Override
+    public Void call() {
+
+      // Both the workflow and the coordinator are generated from a single manager.
+      SchedulableJobManager manager = JobManagers.createSchedulable(schedule.getJobClass(), context);
+
+      installWorkflow(manager, appPath, schedule);
+
+      installCoordinator(manager, appPath, schedule);
+
+      return null;
+    }
+  }
+
+  /**
+   * Installs the given streaming job under the application path.
+   */
+  private class InstallStream implements Callable<Void> {
+
+    private final AppContext context;
+
+    private final Path appPath;
+
+    private final StreamDescription description;
+
+    InstallStream(AppContext context, Path appPath, StreamDescription description) {
+      this.context = context;
+      this.appPath = appPath;
+      this.description = description;
+    }
+
+    @Override
+    public Void call() {
+
+      StreamingJobManager manager = JobManagers.createStreaming(description, context);
+
+      manager.install(fs, appPath);
+
+      return null;
+    }
+  }
+
   /**
    * Installs a workflow for the given schedule under the application path
    * and return the location of the installed workflow.
    */
-  private void installWorkflow(Path appPath, Schedule schedule) {
+  private void installWorkflow(SchedulableJobManager manager, Path appPath, Schedule schedule) {
 
     Path workflowPath = new Path (appPath, OozieScheduling.workflowPath(schedule));
 
@@ -243,7 +470,7 @@ public class AppDeployer {
 
       outputStream = fs.create(workflowXMLPath);
 
-      OozieScheduling.writeWorkFlow(schedule, context, outputStream);
+      OozieScheduling.writeWorkFlow(schedule, manager, outputStream);
 
     } catch (IOException e) {
       throw new AppException(e);
@@ -255,9 +482,7 @@ public class AppDeployer {
   }
 
 
-  private void installCoordinator(Path appPath, Schedule schedule) {
-
-    SchedulableJobManager manager = JobManagers.createSchedulable(schedule.getJobClass(), context);
+  private void installCoordinator(SchedulableJobManager manager, Path appPath, Schedule schedule) {
 
     Path coordDirectory = new Path (appPath, OozieScheduling.coordPath(schedule));
 
@@ -282,7 +507,8 @@ public class AppDeployer {
     }
   }
 
-  private Path installBundle(Class appClass, Path tempDestination, Path appPath, List<Schedule> schedules) {
+  private Path installBundle(AppContext context, Class appClass, Path tempDestination,
+                             Path appPath, List<Schedule> schedules) {
 
     Path bundlePath = new Path(tempDestination, "oozie/bundle.xml");
 
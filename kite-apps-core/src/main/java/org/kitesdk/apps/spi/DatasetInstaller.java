@@ -0,0 +1,266 @@
+/**
+ * Copyright 2015 Cerner Corporation.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.kitesdk.apps.spi;
+
+import com.google.common.collect.Maps;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.Path;
+import org.kitesdk.apps.AppException;
+import org.kitesdk.data.Dataset;
+import org.kitesdk.data.DatasetDescriptor;
+import org.kitesdk.data.DatasetExistsException;
+import org.kitesdk.data.DatasetNotFoundException;
+import org.kitesdk.data.Datasets;
+import org.kitesdk.data.spi.DefaultConfiguration;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.net.URI;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Ensures the datasets used by an application exist with the requested
+ * descriptors. An existing dataset is compared with the requested
+ * descriptor and only updated if they differ, so reinstalling an
+ * application does not rewrite unchanged datasets in the metastore.
+ */
+public final class DatasetInstaller {
+
+  private static final Logger LOG = LoggerFactory.getLogger(DatasetInstaller.class);
+
+  /**
+   * What installing a dataset did.
+   */
+  public enum Result {
+
+    /**
+     * The dataset did not exist and was created.
+     */
+    CREATED,
+
+    /**
+     * The dataset existed with a different descriptor and was updated.
+     */
+    UPDATED,
+
+    /**
+     * The dataset existed with the requested descriptor and was left as is.
+     */
+    UNCHANGED
+  }
+
+  private DatasetInstaller() {
+  }
+
+  /**
+   * Ensures the given dataset exists with the given descriptor, creating
+   * it if it doesn't and updating it only if its descriptor differs. If
+   * the descriptor has no location, the existing dataset's location is kept.
+   *
+   * @param uri the dataset URI
+   * @param descriptor the requested descriptor
+   *
+   * @return what was done to the dataset
+   */
+  public static Result install(String uri, DatasetDescriptor descriptor) {
+
+    Dataset existing;
+
+    try {
+
+      existing = Datasets.load(uri);
+
+    } catch (DatasetNotFoundException e) {
+
+      try {
+
+        Datasets.create(uri, descriptor);
+
+        return Result.CREATED;
+
+      } catch (DatasetExistsException exists) {
+
+        // Created concurrently, so compare with what was created.
+        existing = Datasets.load(uri);
+      }
+    }
+
+    DatasetDescriptor current = existing.getDescriptor();
+
+    // The given descriptor might not have a location,
+    // so use the current one.
+    DatasetDescriptor updated = descriptor.getLocation() == null ?
+        new DatasetDescriptor.Builder(descriptor).location(current.getLocation()).build() :
+        descriptor;
+
+    if (!differs(updated, current)) {
+
+      LOG.debug("Dataset {} is unchanged.", uri);
+
+      return Result.UNCHANGED;
+    }
+
+    LOG.info("Updating dataset {}.", uri);
+
+    Datasets.update(uri, updated);
+
+    return Result.UPDATED;
+  }
+
+  /**
+   * Returns true if the requested descriptor differs from the current one
+   * in anything an update would change. Properties only present in the
+   * current descriptor, such as those added by the metastore, are ignored.
+   */
+  static boolean differs(DatasetDescriptor requested, DatasetDescriptor current) {
+
+    if (!requested.getSchema().equals(current.getSchema()) ||
+        !requested.getFormat().equals(current.getFormat()) ||
+        !sameLocation(requested.getLocation(), current.getLocation()))
+      return true;
+
+    if (requested.isPartitioned() != current.isPartitioned() ||
+        (requested.isPartitioned() &&
+            !requested.getPartitionStrategy().equals(current.getPartitionStrategy())))
+      return true;
+
+    if (requested.isColumnMapped() != current.isColumnMapped() ||
+        (requested.isColumnMapped() &&
+            !requested.getColumnMapping().equals(current.getColumnMapping())))
+      return true;
+
+    for (String property: requested.listProperties()) {
+
+      if (!requested.getProperty(property).equals(current.getProperty(property)))
+        return true;
+    }
+
+    return false;
+  }
+
+  /**
+   * Returns true if both locations refer to the same place once qualified
+   * with their file system, so an unqualified requested location such as
+   * {@code /data/events} matches the {@code hdfs://namenode/data/events}
+   * location the metastore reports.
+   */
+  private static boolean sameLocation(URI requested, URI current) {
+
+    if (requested == null || current == null)
+      return requested == current;
+
+    return qualify(requested).equals(qualify(current));
+  }
+
+  private static URI qualify(URI location) {
+
+    Path path = new Path(location.toString());
+
+    try {
+
+      FileSystem fs = path.getFileSystem(DefaultConfiguration.get());
+
+      return path.makeQualified(fs.getUri(), fs.getWorkingDirectory()).toUri();
+
+    } catch (IOException e) {
+
+      LOG.warn("Unable to qualify location " + location + ", comparing it as is.", e);
+
+      return location;
+    }
+  }
+
+  /**
+   * Ensures each of the given datasets exists with its descriptor, as
+   * {@link #install(String, DatasetDescriptor)} does, checking up to the
+   * given number of datasets at once.
+   *
+   * @param descriptors the requested descriptors keyed by dataset URI
+   * @param threads the maximum number of datasets checked at once
+   *
+   * @return what was done to each dataset, keyed by URI
+   */
+  public static Map<String,Result> installAll(Map<String,DatasetDescriptor> descriptors,
+                                              int threads) {
+
+    Map<String,Result> results = Maps.newLinkedHashMap();
+
+    if (descriptors.size() <= 1 || threads <= 1) {
+
+      for (Map.Entry<String,DatasetDescriptor> entry: descriptors.entrySet()) {
+        results.put(entry.getKey(), install(entry.getKey(), entry.getValue()));
+      }
+
+      return results;
+    }
+
+    ExecutorService executor = Executors.newFixedThreadPool(Math.min(threads, descriptors.size()),
+        new ThreadFactoryBuilder().setDaemon(true).setNameFormat("kite-dataset-installer-%d").build());
+
+    try {
+
+      Map<String,Future<Result>> futures = Maps.newLinkedHashMap();
+
+      for (final Map.Entry<String,DatasetDescriptor> entry: descriptors.entrySet()) {
+
+        futures.put(entry.getKey(), executor.submit(new Callable<Result>() {
+          @Override
+          public Result call() {
+            return install(entry.getKey(), entry.getValue());
+          }
+        }));
+      }
+
+      for (Map.Entry<String,Future<Result>> future: futures.entrySet()) {
+        results.put(future.getKey(), get(future.getKey(), future.getValue()));
+      }
+
+    } finally {
+      executor.shutdownNow();
+    }
+
+    return results;
+  }
+
+  private static Result get(String uri, Future<Result> future) {
+
+    try {
+
+      return future.get();
+
+    } catch (InterruptedException e) {
+
+      Thread.currentThread().interrupt();
+
+      throw new AppException("Interrupted while installing dataset " + uri, e);
+
+    } catch (ExecutionException e) {
+
+      // Rethrow Kite's own exceptions, like IncompatibleSchemaException, as they are.
+      if (e.getCause() instanceof RuntimeException)
+        throw (RuntimeException) e.getCause();
+
+      throw new AppException("Unable to install dataset " + uri, e.getCause());
+    }
+  }
+}
@@ -0,0 +1,290 @@
+/**
+ * Copyright 2015 Cerner Corporation.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.kitesdk.apps.spi;
+
+import com.google.common.base.Charsets;
+import com.google.common.collect.Lists;
+import com.google.common.io.Closeables;
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.FileStatus;
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.Path;
+import org.kitesdk.apps.AppException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * A content-addressed store of library JARs shared by application installs.
+ * Each JAR is stored once under a directory named by its checksum, so
+ * redeploying an application only uploads the JARs that changed. An install
+ * references its stored JARs through a manifest rather than copies.
+ *
+ * Each stored JAR's directory is added to the Oozie libpath of the install,
+ * which Oozie lists whenever it launches a workflow. Applications with
+ * more than {@link #MAX_LIBPATH_JARS} library JARs are warned of the cost.
+ */
+public class JarStore {
+
+  private static final Logger LOG = LoggerFactory.getLogger(JarStore.class);
+
+  /**
+   * Relative path of the manifest listing the stored JARs used by an install.
+   */
+  public static final String MANIFEST = "lib/jars.list";
+
+  /**
+   * Configuration property holding the comma-separated, qualified paths
+   * of the stored JARs used by an install while it is being generated.
+   */
+  public static final String LIB_JARS = "kite.apps.lib.jars";
+
+  /**
+   * Number of stored JARs above which the libpath listing done by Oozie
+   * for each workflow launch becomes a significant cost.
+   */
+  public static final int MAX_LIBPATH_JARS = 100;
+
+  private final FileSystem fs;
+
+  private final Path root;
+
+  public JarStore(FileSystem fs, Path root) {
+    this.fs = fs;
+    this.root = fs.makeQualified(root);
+  }
+
+  /**
+   * Gets the root path of the store.
+   */
+  public Path getRoot() {
+    return root;
+  }
+
+  /**
+   * Returns the hex-encoded SHA-1 checksum of the given file.
+   */
+  static String checksum(File file) {
+
+    MessageDigest digest;
+
+    try {
+      digest = MessageDigest.getInstance("SHA-1");
+    } catch (NoSuchAlgorithmException e) {
+      // SHA-1 is required of every Java platform.
+      throw new AssertionError(e);
+    }
+
+    InputStream input = null;
+
+    try {
+      input = new FileInputStream(file);
+
+      byte[] buffer = new byte[64 * 1024];
+
+      int read;
+
+      while ((read = input.read(buffer)) != -1) {
+        digest.update(buffer, 0, read);
+      }
+
+    } catch (IOException e) {
+      throw new AppException(e);
+    } finally {
+      Closeables.closeQuietly(input);
+    }
+
+    StringBuilder builder = new StringBuilder();
+
+    for (byte b: digest.digest()) {
+      builder.append(Character.forDigit((b >> 4) & 0xF, 16))
+          .append(Character.forDigit(b & 0xF, 16));
+    }
+
+    return builder.toString();
+  }
+
+  /**
+   * Adds the given JAR to the store if an identical JAR is not already
+   * present, and returns the qualified path of the stored JAR.
+   */
+  public Path add(File jar) {
+
+    Path stored = new Path(new Path(root, checksum(jar)), jar.getName());
+
+    try {
+
+      if (fs.exists(stored)) {
+
+        LOG.debug("Reusing stored JAR {}.", stored);
+        return stored;
+      }
+
+      // Upload to a temporary location and rename it so a partially
+      // written JAR is never visible in the store.
+      Path temp = new Path(root, "_tmp-" + (new Random().nextInt() & Integer.MAX_VALUE));
+
+      Path uploaded = new Path(temp, jar.getName());
+
+      try {
+
+        fs.copyFromLocalFile(new Path(jar.getAbsolutePath()), uploaded);
+
+        fs.mkdirs(stored.getParent());
+
+        // Rename the JAR itself rather than its directory, since renaming
+        // onto a directory another installer created would nest it inside.
+        boolean renamed = fs.rename(uploaded, stored);
+
+        if (!fs.exists(stored))
+          throw new AppException("Unable to store " + jar + " at " + stored + ".");
+
+        if (renamed)
+          LOG.info("Stored JAR {}.", stored);
+        else
+          LOG.debug("JAR {} was stored concurrently.", stored);
+
+      } finally {
+        fs.delete(temp, true);
+      }
+
+    } catch (IOException e) {
+      throw new AppException(e);
+    }
+
+    return stored;
+  }
+
+  /**
+   * Writes the manifest of stored JARs used by the install at the given path.
+   */
+  public static void writeManifest(FileSystem fs, Path appRoot, List<Path> jars) {
+
+    Writer writer = null;
+
+    try {
+
+      OutputStream output = fs.create(new Path(appRoot, MANIFEST));
+
+      writer = new OutputStreamWriter(output, Charsets.UTF_8);
+
+      for (Path jar: jars) {
+        writer.write(jar.toString());
+        writer.write('\n');
+      }
+
+    } catch (IOException e) {
+      throw new AppException(e);
+    } finally {
+      Closeables.closeQuietly(writer);
+    }
+  }
+
+  /**
+   * Returns the library JARs of the install at the given path. These include
+   * the stored JARs listed in its manifest, if any, and the JARs copied
+   * directly into its library directory.
+   */
+  public static List<Path> libraryJars(FileSystem fs, Path appRoot) {
+
+    List<Path> jars = Lists.newArrayList();
+
+    Path libPath = new Path(appRoot, "lib");
+    Path manifestPath = new Path(appRoot, MANIFEST);
+
+    try {
+
+      if (fs.exists(manifestPath)) {
+
+        BufferedReader reader = new BufferedReader(
+            new InputStreamReader(fs.open(manifestPath), Charsets.UTF_8));
+
+        try {
+          String line;
+
+          while ((line = reader.readLine()) != null) {
+
+            if (!line.trim().isEmpty())
+              jars.add(new Path(line.trim()));
+          }
+        } finally {
+          Closeables.closeQuietly(reader);
+        }
+      }
+
+      if (fs.exists(libPath)) {
+
+        for (FileStatus status: fs.listStatus(libPath)) {
+
+          if (status.getPath().getName().endsWith(".jar"))
+            jars.add(status.getPath());
+        }
+      }
+
+    } catch (IOException e) {
+      throw new AppException(e);
+    }
+
+    return jars;
+  }
+
+  /**
+   * Returns the stored JARs recorded in the given configuration
+   * by {@link #setLibraryJars}, or an empty list if there are none.
+   */
+  public static List<Path> getLibraryJars(Configuration conf) {
+
+    List<Path> jars = Lists.newArrayList();
+
+    for (String jar: conf.getTrimmedStrings(LIB_JARS)) {
+      jars.add(new Path(jar));
+    }
+
+    return jars;
+  }
+
+  /**
+   * Records the given stored JARs in the configuration so generated
+   * workflows can reference them.
+   */
+  public static void setLibraryJars(Configuration conf, List<Path> jars) {
+
+    StringBuilder builder = new StringBuilder();
+
+    for (Path jar: jars) {
+
+      if (builder.length() > 0)
+        builder.append(",");
+
+      builder.append(jar.toString());
+    }
+
+    conf.set(LIB_JARS, builder.toString());
+  }
+}
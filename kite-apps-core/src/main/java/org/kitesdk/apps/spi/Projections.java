@@ -0,0 +1,74 @@
+/**
+ * Copyright 2015 Cerner Corporation.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.kitesdk.apps.spi;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Sets;
+import org.apache.avro.Schema;
+import org.kitesdk.apps.AppException;
+
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Utilities for projecting record schemas onto a subset of their fields.
+ */
+public class Projections {
+
+  /**
+   * Returns a schema of the given record schema with only the named
+   * top-level fields, which are kept in the order of the original schema.
+   *
+   * @param schema a record schema
+   * @param fieldNames the names of the fields to keep
+   * @return the projected schema
+   * @throws AppException if a field is not in the schema
+   */
+  public static Schema project(Schema schema, String... fieldNames) {
+
+    Set<String> names = Sets.newHashSet(fieldNames);
+
+    for (String name: names) {
+      if (schema.getField(name) == null)
+        throw new AppException("Field " + name + " is not in schema " + schema.getFullName());
+    }
+
+    List<Schema.Field> fields = Lists.newArrayList();
+
+    for (Schema.Field field: schema.getFields()) {
+
+      if (names.contains(field.name())) {
+
+        // Fields belong to a single schema, so each one is copied.
+        Schema.Field copy = new Schema.Field(field.name(), field.schema(),
+            field.doc(), field.defaultValue(), field.order());
+
+        for (String alias: field.aliases()) {
+          copy.addAlias(alias);
+        }
+
+        fields.add(copy);
+      }
+    }
+
+    Schema projection = Schema.createRecord(schema.getName(), schema.getDoc(),
+        schema.getNamespace(), schema.isError());
+
+    projection.setFields(fields);
+
+    return projection;
+  }
+}
@@ -0,0 +1,147 @@
+/**
+ * Copyright 2015 Cerner Corporation.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.kitesdk.apps.spi;
+
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.Path;
+
+import java.io.InputStream;
+import java.net.URL;
+import java.util.Collections;
+import java.util.Map;
+
+/**
+ * A Hadoop configuration that rejects changes to its properties, so a
+ * single snapshot can be shared by everything that only reads it rather
+ * than each reader taking its own copy. Copying this configuration with
+ * {@link Configuration#Configuration(Configuration)} yields an ordinary,
+ * modifiable configuration.
+ *
+ * Adding resources and changing how properties are loaded are rejected
+ * as well. Reloading is still allowed, since Hadoop reloads every
+ * configuration when a default resource is registered, and it does not
+ * change properties that were set or the resources they are read from.
+ */
+public class ReadOnlyConfiguration extends Configuration {
+
+  private final boolean sealed;
+
+  /**
+   * Creates a read-only snapshot of the given configuration.
+   */
+  public ReadOnlyConfiguration(Configuration conf) {
+    this(conf, Collections.<String,String>emptyMap());
+  }
+
+  /**
+   * Creates a read-only snapshot of the given configuration
+   * with the given properties overridden.
+   */
+  public ReadOnlyConfiguration(Configuration conf, Map<String,String> overrides) {
+    super(conf);
+
+    for (Map.Entry<String,String> override: overrides.entrySet()) {
+      super.set(override.getKey(), override.getValue());
+    }
+
+    this.sealed = true;
+  }
+
+  private void checkWritable() {
+
+    if (sealed)
+      throw new UnsupportedOperationException("Configuration is read-only. " +
+          "Use a copy of the configuration to change its settings.");
+  }
+
+  @Override
+  public void set(String name, String value, String source) {
+    checkWritable();
+    super.set(name, value, source);
+  }
+
+  @Override
+  public synchronized void unset(String name) {
+    checkWritable();
+    super.unset(name);
+  }
+
+  @Override
+  public void clear() {
+    checkWritable();
+    super.clear();
+  }
+
+  @Override
+  public void addResource(String name) {
+    checkWritable();
+    super.addResource(name);
+  }
+
+  @Override
+  public void addResource(URL url) {
+    checkWritable();
+    super.addResource(url);
+  }
+
+  @Override
+  public void addResource(Path file) {
+    checkWritable();
+    super.addResource(file);
+  }
+
+  @Override
+  public void addResource(InputStream in) {
+    checkWritable();
+    super.addResource(in);
+  }
+
+  @Override
+  public void addResource(InputStream in, String name) {
+    checkWritable();
+    super.addResource(in, name);
+  }
+
+  @Override
+  public void addResource(Configuration conf) {
+    checkWritable();
+    super.addResource(conf);
+  }
+
+  @Override
+  public void setClassLoader(ClassLoader classLoader) {
+    checkWritable();
+    super.setClassLoader(classLoader);
+  }
+
+  @Override
+  public synchronized void setQuietMode(boolean quietmode) {
+    checkWritable();
+    super.setQuietMode(quietmode);
+  }
+
+  @Override
+  public void setAllowNullValueProperties(boolean val) {
+    checkWritable();
+    super.setAllowNullValueProperties(val);
+  }
+
+  @Override
+  public synchronized void setDeprecatedProperties() {
+    checkWritable();
+    super.setDeprecatedProperties();
+  }
+}
@@ -0,0 +1,226 @@
+/**
+ * Copyright 2015 Cerner Corporation.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.kitesdk.apps.spi;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Lists;
+import com.google.common.io.Closeables;
+import org.apache.avro.Schema;
+import org.apache.avro.generic.GenericRecord;
+import org.kitesdk.data.Dataset;
+import org.kitesdk.data.DatasetReader;
+import org.kitesdk.data.DatasetWriter;
+import org.kitesdk.data.View;
+
+import java.net.URI;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+/**
+ * A read-only view over the union of several views of the same dataset,
+ * such as a window of hourly instances consumed by a daily job. Reading
+ * the union reads each of the underlying views in turn.
+ *
+ * Engines that load views by URI, like Crunch or Spark, should read
+ * each of the views returned by {@link #getViews()} and combine the results,
+ * as the CrunchViews.read and SparkDatasets.load helpers do.
+ */
+public class UnionView<E> implements View<E> {
+
+  private final List<View<E>> views;
+
+  public UnionView(List<View<E>> views) {
+
+    if (views.isEmpty())
+      throw new IllegalArgumentException("A union view requires at least one view.");
+
+    this.views = ImmutableList.copyOf(views);
+  }
+
+  /**
+   * Gets the views that make up the union.
+   *
+   * @return the underlying views
+   */
+  public List<View<E>> getViews() {
+    return views;
+  }
+
+  @Override
+  public Dataset<E> getDataset() {
+    return views.get(0).getDataset();
+  }
+
+  @Override
+  public DatasetReader<E> newReader() {
+    return new UnionReader<E>(views);
+  }
+
+  @Override
+  public DatasetWriter<E> newWriter() {
+    throw new UnsupportedOperationException("Cannot write to a union of views.");
+  }
+
+  @Override
+  public boolean includes(E entity) {
+
+    for (View<E> view: views) {
+      if (view.includes(entity))
+        return true;
+    }
+
+    return false;
+  }
+
+  @Override
+  public boolean deleteAll() {
+    throw new UnsupportedOperationException("Cannot delete from a union of views.");
+  }
+
+  @Override
+  public Class<E> getType() {
+    return views.get(0).getType();
+  }
+
+  @Override
+  public Schema getSchema() {
+    return views.get(0).getSchema();
+  }
+
+  @Override
+  public boolean isEmpty() {
+
+    for (View<E> view: views) {
+      if (!view.isEmpty())
+        return false;
+    }
+
+    return true;
+  }
+
+  /**
+   * A union of views has no URI of its own, so this always throws
+   * an UnsupportedOperationException. Use the URIs of the views
+   * returned by {@link #getViews()} instead.
+   */
+  @Override
+  public URI getUri() {
+    throw new UnsupportedOperationException("A union of views has no single URI.");
+  }
+
+  @Override
+  public <T> View<T> asType(Class<T> type) {
+
+    List<View<T>> typed = Lists.newArrayList();
+
+    for (View<E> view: views) {
+      typed.add(view.asType(type));
+    }
+
+    return new UnionView<T>(typed);
+  }
+
+  @Override
+  public View<GenericRecord> asSchema(Schema schema) {
+
+    List<View<GenericRecord>> projected = Lists.newArrayList();
+
+    for (View<E> view: views) {
+      projected.add(view.asSchema(schema));
+    }
+
+    return new UnionView<GenericRecord>(projected);
+  }
+
+  @Override
+  public String toString() {
+    return "UnionView" + views;
+  }
+
+  /**
+   * Reader that reads each of the underlying views in turn.
+   */
+  private static class UnionReader<E> implements DatasetReader<E> {
+
+    private final Iterator<View<E>> remaining;
+
+    private DatasetReader<E> current = null;
+
+    private boolean open = true;
+
+    UnionReader(List<View<E>> views) {
+      this.remaining = views.iterator();
+    }
+
+    @Override
+    public boolean hasNext() {
+
+      if (!open)
+        return false;
+
+      while (current == null || !current.hasNext()) {
+
+        if (current != null) {
+          Closeables.closeQuietly(current);
+          current = null;
+        }
+
+        if (!remaining.hasNext())
+          return false;
+
+        current = remaining.next().newReader();
+      }
+
+      return true;
+    }
+
+    @Override
+    public E next() {
+
+      if (!hasNext())
+        throw new NoSuchElementException();
+
+      return current.next();
+    }
+
+    @Override
+    public void remove() {
+      throw new UnsupportedOperationException("Cannot remove from a union of views.");
+    }
+
+    @Override
+    public void close() {
+
+      if (current != null) {
+        Closeables.closeQuietly(current);
+        current = null;
+      }
+
+      open = false;
+    }
+
+    @Override
+    public boolean isOpen() {
+      return open;
+    }
+
+    @Override
+    public Iterator<E> iterator() {
+      return this;
+    }
+  }
+}
@@ -0,0 +1,369 @@
+/**
+ * Copyright 2015 Cerner Corporation.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.kitesdk.apps.spi;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.databind.JsonMappingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.JsonNodeFactory;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.google.common.base.Charsets;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.google.common.hash.Hashing;
+import com.google.common.io.ByteStreams;
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.mapreduce.InputSplit;
+import org.apache.hadoop.mapreduce.Job;
+import org.apache.hadoop.mapreduce.lib.input.FileSplit;
+import org.joda.time.Instant;
+import org.kitesdk.apps.AppException;
+import org.kitesdk.data.Signalable;
+import org.kitesdk.data.ValidationException;
+import org.kitesdk.data.View;
+import org.kitesdk.data.spi.InputFormatAccessor;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.StringWriter;
+import java.net.URI;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A manifest of the files in a view, written when the view is signaled
+ * ready. Downstream jobs can use the manifest of a ready view to find
+ * its files and size rather than listing its partition directories.
+ *
+ * Manifests are written under the dataset's location in a hidden
+ * directory, which Kite ignores when reading the dataset, and are keyed
+ * by the view's URI.
+ */
+public class ViewManifest {
+
+  /**
+   * Directory under a dataset's location holding the manifests of its views.
+   */
+  public static final String MANIFEST_DIR = ".manifests";
+
+  private final String viewUri;
+
+  private final Instant createdTime;
+
+  private final long records;
+
+  private final Map<String,Long> files;
+
+  /**
+   * Creates a manifest of a view.
+   *
+   * @param viewUri the URI of the view
+   * @param createdTime the time the manifest was created
+   * @param records the number of records in the view, or -1 if unknown
+   * @param files the size in bytes of each file in the view, keyed by path
+   */
+  public ViewManifest(String viewUri, Instant createdTime, long records,
+                      Map<String,Long> files) {
+    this.viewUri = viewUri;
+    this.createdTime = createdTime;
+    this.records = records;
+    this.files = ImmutableMap.copyOf(files);
+  }
+
+  public String getViewUri() {
+    return viewUri;
+  }
+
+  public Instant getCreatedTime() {
+    return createdTime;
+  }
+
+  /**
+   * Gets the number of records in the view as reported by the job that
+   * wrote it, or -1 if the job did not report it.
+   */
+  public long getRecords() {
+    return records;
+  }
+
+  /**
+   * Gets the size in bytes of each file in the view, keyed by path.
+   */
+  public Map<String,Long> getFiles() {
+    return files;
+  }
+
+  /**
+   * Gets the total size in bytes of the files in the view.
+   */
+  public long getBytes() {
+
+    long bytes = 0;
+
+    for (Long length: files.values()) {
+      bytes += length;
+    }
+
+    return bytes;
+  }
+
+  /**
+   * Returns true if the view has no records.
+   */
+  public boolean isEmpty() {
+    return records == 0 || files.isEmpty();
+  }
+
+  /**
+   * Returns the path of the manifest of the given view, or null if
+   * the view's dataset is not stored in a filesystem.
+   */
+  public static Path manifestFile(View view) {
+
+    URI location = view.getDataset().getDescriptor().getLocation();
+
+    if (location == null)
+      return null;
+
+    String key = Hashing.md5().hashBytes(view.getUri().toString().getBytes(Charsets.UTF_8))
+        .toString();
+
+    return new Path(new Path(location), MANIFEST_DIR + "/" + key + ".json");
+  }
+
+  /**
+   * Creates a manifest of the given view by listing its files once.
+   *
+   * @param view the view
+   * @param records the number of records in the view, or -1 if unknown
+   * @param conf the Hadoop configuration used to list the view
+   *
+   * @throws AppException if the files of the view cannot be listed
+   */
+  public static ViewManifest create(View view, long records, Configuration conf) {
+
+    if (!(view instanceof InputFormatAccessor))
+      throw new AppException("Unable to list the files of view " + view.getUri());
+
+    Map<String,Long> files = Maps.newLinkedHashMap();
+
+    try {
+
+      InputFormatAccessor<?> accessor = (InputFormatAccessor<?>) view;
+
+      for (InputSplit split: accessor.getInputFormat(conf).getSplits(Job.getInstance(conf))) {
+
+        if (!(split instanceof FileSplit))
+          throw new AppException("Unable to list the files of view " + view.getUri());
+
+        FileSplit fileSplit = (FileSplit) split;
+
+        String path = fileSplit.getPath().toString();
+
+        Long length = files.get(path);
+
+        files.put(path, fileSplit.getLength() + (length == null ? 0L : length));
+      }
+
+    } catch (IOException e) {
+      throw new AppException(e);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new AppException(e);
+    }
+
+    return new ViewManifest(view.getUri().toString(), new Instant(), records, files);
+  }
+
+  /**
+   * Writes the manifest of the given view, replacing any existing manifest.
+   */
+  public void write(View view, Configuration conf) throws IOException {
+
+    Path manifestFile = manifestFile(view);
+
+    if (manifestFile == null)
+      throw new AppException("View " + view.getUri() + " is not stored in a filesystem.");
+
+    FileSystem fs = manifestFile.getFileSystem(conf);
+
+    OutputStream output = fs.create(manifestFile, true);
+
+    try {
+      output.write(toString().getBytes(Charsets.UTF_8));
+    } finally {
+      output.close();
+    }
+  }
+
+  /**
+   * Loads the manifest of the given view, or returns null if the view
+   * has no manifest or is not ready. A union of views has a manifest
+   * only if each of its views has one, which are combined.
+   */
+  public static ViewManifest load(View view, Configuration conf) throws IOException {
+
+    if (view instanceof UnionView) {
+
+      List<ViewManifest> manifests = Lists.newArrayList();
+
+      for (Object member: ((UnionView) view).getViews()) {
+
+        ViewManifest manifest = load((View) member, conf);
+
+        if (manifest == null)
+          return null;
+
+        manifests.add(manifest);
+      }
+
+      return combine(manifests);
+    }
+
+    // Only a ready view is complete, so its manifest can be trusted.
+    if (!(view instanceof Signalable) || !((Signalable) view).isReady())
+      return null;
+
+    Path manifestFile = manifestFile(view);
+
+    if (manifestFile == null)
+      return null;
+
+    FileSystem fs = manifestFile.getFileSystem(conf);
+
+    if (!fs.exists(manifestFile))
+      return null;
+
+    InputStream input = fs.open(manifestFile);
+
+    ViewManifest manifest;
+
+    try {
+      manifest = parseJson(new String(ByteStreams.toByteArray(input), Charsets.UTF_8));
+    } finally {
+      input.close();
+    }
+
+    // Guard against a hash collision with another view.
+    return manifest.getViewUri().equals(view.getUri().toString()) ? manifest : null;
+  }
+
+  private static ViewManifest combine(List<ViewManifest> manifests) {
+
+    long records = 0;
+
+    Instant createdTime = null;
+
+    Map<String,Long> files = Maps.newLinkedHashMap();
+
+    for (ViewManifest manifest: manifests) {
+
+      records = records < 0 || manifest.getRecords() < 0 ? -1 : records + manifest.getRecords();
+
+      if (createdTime == null || manifest.getCreatedTime().isAfter(createdTime))
+        createdTime = manifest.getCreatedTime();
+
+      files.putAll(manifest.getFiles());
+    }
+
+    return new ViewManifest(manifests.get(0).getViewUri(), createdTime, records, files);
+  }
+
+  private static final String VIEW = "view";
+  private static final String CREATED_TIME = "createdTime";
+  private static final String RECORDS = "records";
+  private static final String FILES = "files";
+  private static final String PATH = "path";
+  private static final String BYTES = "bytes";
+
+  public static ViewManifest parseJson(String json) {
+
+    ObjectMapper mapper = new ObjectMapper();
+
+    JsonNode parent;
+
+    try {
+      parent = mapper.readValue(json, JsonNode.class);
+    } catch (JsonParseException e) {
+      throw new ValidationException("Invalid JSON", e);
+    } catch (JsonMappingException e) {
+      throw new ValidationException("Invalid JSON", e);
+    } catch (IOException e) {
+      throw new AppException(e);
+    }
+
+    Map<String,Long> files = Maps.newLinkedHashMap();
+
+    for (JsonNode file: parent.get(FILES)) {
+      files.put(file.get(PATH).asText(), file.get(BYTES).asLong());
+    }
+
+    return new ViewManifest(parent.get(VIEW).asText(),
+        Instant.parse(parent.get(CREATED_TIME).asText()),
+        parent.get(RECORDS).asLong(),
+        files);
+  }
+
+  private ObjectNode toJson() {
+
+    JsonNodeFactory js = JsonNodeFactory.instance;
+
+    ObjectNode root = js.objectNode();
+
+    root.put(VIEW, viewUri);
+    root.put(CREATED_TIME, createdTime.toString());
+    root.put(RECORDS, records);
+
+    ArrayNode filesNode = root.putArray(FILES);
+
+    for (Map.Entry<String,Long> file: files.entrySet()) {
+
+      ObjectNode fileNode = filesNode.addObject();
+
+      fileNode.put(PATH, file.getKey());
+      fileNode.put(BYTES, file.getValue());
+    }
+
+    return root;
+  }
+
+  public String toString() {
+
+    StringWriter writer = new StringWriter();
+
+    try {
+
+      JsonGenerator gen = new JsonFactory().createGenerator(writer);
+      gen.setCodec(new ObjectMapper());
+      gen.writeTree(toJson());
+
+      gen.close();
+    } catch (IOException e) {
+      // An IOException should not be possible against a local buffer.
+      throw new AssertionError(e);
+    }
+
+    return writer.toString();
+  }
+}
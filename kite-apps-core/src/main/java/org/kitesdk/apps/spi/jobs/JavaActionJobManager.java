@@ -26,7 +26,6 @@ import org.kitesdk.apps.spi.oozie.OozieScheduledJobMain;
 import org.kitesdk.apps.spi.oozie.OozieScheduling;
 import org.kitesdk.data.View;
 
-import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
 import java.util.Map;
 
@@ -36,8 +35,9 @@ import static org.kitesdk.apps.spi.oozie.OozieScheduling.property;
 /**
  * Supports creating and scheduling jobs as Oozie Java actions.
  */
-class JavaActionJobManager extends SchedulableJobManager {
+public class JavaActionJobManager extends SchedulableJobManager {
 
+  private JobContext jobContext = null;
 
   public JavaActionJobManager(SchedulableJob job, Method runMethod, AppContext context) {
     super(job, runMethod, context);
@@ -45,7 +45,12 @@ class JavaActionJobManager extends SchedulableJobManager {
 
   @Override
   public JobContext getJobContext() {
-    return new JobContext(job, context.getSettings(), context.getHadoopConf());
+
+    if (jobContext == null) {
+      jobContext = new JobContext(job, context.getSettings(), context.getReadOnlyHadoopConf());
+    }
+
+    return jobContext;
   }
 
   public static JavaActionJobManager create(Class<? extends SchedulableJob> jobClass,
@@ -75,15 +80,7 @@ class JavaActionJobManager extends SchedulableJobManager {
     job.setNominalTime(nominalTime);
     job.setJobContext(getJobContext());
 
-    Object[] args = JobReflection.getArgs(runMethod, views);
-
-    try {
-      runMethod.invoke(job, args);
-    } catch (IllegalAccessException e) {
-      throw new AppException(e);
-    } catch (InvocationTargetException e) {
-      throw new AppException(e);
-    }
+    invokeJob(views);
 
     signalOutputViews(views);
   }
@@ -98,7 +95,7 @@ class JavaActionJobManager extends SchedulableJobManager {
     // element(writer, "job-xml", "${appConfigPath}");
 
 
-    Map<String, String> settings = OozieScheduling.getJobSettings(schedule, context.getHadoopConf());
+    Map<String, String> settings = OozieScheduling.getJobSettings(schedule, context.getReadOnlyHadoopConf());
 
     // Write the job configuration settings.
     writer.startElement("configuration");
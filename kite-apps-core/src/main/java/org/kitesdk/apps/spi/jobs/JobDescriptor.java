@@ -0,0 +1,334 @@
+/**
+ * Copyright 2015 Cerner Corporation.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.kitesdk.apps.spi.jobs;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.MapMaker;
+import com.google.common.collect.Maps;
+import org.apache.avro.Schema;
+import org.apache.avro.generic.GenericRecord;
+import org.apache.avro.specific.SpecificData;
+import org.apache.avro.specific.SpecificRecord;
+import org.kitesdk.apps.AppException;
+import org.kitesdk.apps.DataIn;
+import org.kitesdk.apps.DataOut;
+import org.kitesdk.apps.Job;
+
+import java.lang.annotation.Annotation;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * The structure of a job class, resolved once by reflection and cached
+ * per class. This holds the job's run method, the names bound to each of
+ * its parameters and the schemas it uses, so launching a job or inspecting
+ * its inputs and outputs does not repeat the reflection.
+ */
+public final class JobDescriptor {
+
+  // Weak keys so cached descriptors do not prevent job classes from unloading.
+  private static final ConcurrentMap<Class, JobDescriptor> DESCRIPTORS =
+      new MapMaker().weakKeys().makeMap();
+
+  private final Class jobClass;
+
+  private final Method runMethod;
+
+  private final Map<String, DataIn> inputs;
+
+  private final Map<String, DataOut> outputs;
+
+  private final Map<String, Class> types;
+
+  // Name bound to each parameter of the run method, or null if unbound.
+  private final String[] parameterNames;
+
+  private final List<Schema> schemas;
+
+  // Name reported by the job, resolved the first time it is needed.
+  private volatile String jobName;
+
+  private JobDescriptor(Class jobClass, Method runMethod) {
+
+    this.jobClass = jobClass;
+    this.runMethod = runMethod;
+
+    Annotation[][] paramAnnotations = runMethod.getParameterAnnotations();
+
+    Class<?>[] parameterTypes = runMethod.getParameterTypes();
+
+    Map<String, DataIn> inputs = Maps.newHashMap();
+    Map<String, DataOut> outputs = Maps.newHashMap();
+    Map<String, Class> types = Maps.newHashMap();
+
+    Set<Class> recordTypes = new LinkedHashSet<Class>();
+
+    parameterNames = new String[paramAnnotations.length];
+
+    for (int i = 0; i < paramAnnotations.length; ++i) {
+
+      for (Annotation annotation: paramAnnotations[i]) {
+
+        if (DataIn.class.equals(annotation.annotationType())) {
+
+          DataIn input = (DataIn) annotation;
+
+          inputs.put(input.name(), input);
+          types.put(input.name(), parameterTypes[i]);
+          parameterNames[i] = input.name();
+
+          if (SpecificRecord.class.isAssignableFrom(input.type()))
+            recordTypes.add(input.type());
+
+          if (input.fields().length > 0 &&
+              (!GenericRecord.class.isAssignableFrom(input.type()) ||
+               SpecificRecord.class.isAssignableFrom(input.type())))
+            throw new AppException("Input " + input.name() + " of " + runMethod.getDeclaringClass().getName() +
+                " projects fields, so its type must be a generic record rather than " + input.type().getName());
+        }
+
+        if (DataOut.class.equals(annotation.annotationType())) {
+
+          DataOut output = (DataOut) annotation;
+
+          outputs.put(output.name(), output);
+          types.put(output.name(), parameterTypes[i]);
+          parameterNames[i] = output.name();
+
+          if (SpecificRecord.class.isAssignableFrom(output.type()))
+            recordTypes.add(output.type());
+        }
+      }
+    }
+
+    ImmutableList.Builder<Schema> schemas = ImmutableList.builder();
+
+    for (Class type: recordTypes) {
+      schemas.add(SpecificData.get().getSchema(type));
+    }
+
+    this.inputs = ImmutableMap.copyOf(inputs);
+    this.outputs = ImmutableMap.copyOf(outputs);
+    this.types = ImmutableMap.copyOf(types);
+    this.schemas = schemas.build();
+
+    // Skip the language access checks on each invocation. Run methods
+    // are public, so this only matters for performance.
+    try {
+      runMethod.setAccessible(true);
+    } catch (SecurityException e) {
+      // Invoke with access checks instead.
+    }
+  }
+
+  /**
+   * Returns the descriptor of the given job class.
+   *
+   * @param jobClass a scheduled or streaming job class
+   * @return the descriptor of the job class
+   */
+  public static JobDescriptor of(Class jobClass) {
+
+    JobDescriptor descriptor = DESCRIPTORS.get(jobClass);
+
+    if (descriptor == null) {
+
+      descriptor = new JobDescriptor(jobClass, resolveRunMethod(jobClass));
+
+      JobDescriptor existing = DESCRIPTORS.putIfAbsent(jobClass, descriptor);
+
+      if (existing != null)
+        descriptor = existing;
+    }
+
+    return descriptor;
+  }
+
+  /**
+   * Returns the descriptor of the given job class, checking that the
+   * given method is its run method. The descriptor is cached under the
+   * job class, so run methods inherited from a base class share the
+   * descriptor of the job class rather than being described again.
+   *
+   * @param jobClass a scheduled or streaming job class
+   * @param runMethod the run method of the job class
+   * @return the descriptor of the job class
+   */
+  public static JobDescriptor of(Class jobClass, Method runMethod) {
+
+    JobDescriptor descriptor = of(jobClass);
+
+    if (!descriptor.runMethod.equals(runMethod))
+      throw new AppException("Method " + runMethod + " is not the run method of job class " +
+          jobClass.getName());
+
+    return descriptor;
+  }
+
+  /**
+   * Returns the descriptor of the job with the given run method, cached
+   * under the class declaring the method. Callers that know the job class
+   * should use {@link #of(Class, Method)}.
+   *
+   * @param runMethod the run method of a job
+   * @return the descriptor of the job
+   */
+  public static JobDescriptor of(Method runMethod) {
+    return of(runMethod.getDeclaringClass(), runMethod);
+  }
+
+  private static Method resolveRunMethod(Class jobClass) {
+
+    Method runMethod = null;
+
+    for (Method method: jobClass.getMethods()) {
+
+      if ("run".equals(method.getName())) {
+
+        if (runMethod != null)
+          throw new AppException("Multiple run methods found on scheduled job class "
+              + jobClass.getName());
+
+        runMethod = method;
+      }
+    }
+
+    if (runMethod == null)
+      throw new AppException("Could not find run method on job class "  +
+          jobClass.getName());
+
+    return runMethod;
+  }
+
+  /**
+   * Gets the name of the job. The first call creates an instance of the
+   * job class to ask for its name, without a job context or any Hadoop
+   * configuration, so job names must not depend on either.
+   *
+   * @return the name of the job
+   */
+  public String getJobName() {
+
+    if (jobName == null) {
+
+      Object job;
+
+      try {
+        job = jobClass.newInstance();
+      } catch (InstantiationException e) {
+        throw new AppException(e);
+      } catch (IllegalAccessException e) {
+        throw new AppException(e);
+      }
+
+      if (!(job instanceof Job))
+        throw new AppException("Class " + jobClass.getName() + " is not a job.");
+
+      jobName = ((Job) job).getName();
+    }
+
+    return jobName;
+  }
+
+  /**
+   * Gets the run method of the job.
+   */
+  public Method getRunMethod() {
+    return runMethod;
+  }
+
+  /**
+   * Gets an immutable map of job input names to the {@link DataIn}
+   * annotations that declared them.
+   */
+  public Map<String, DataIn> getInputs() {
+    return inputs;
+  }
+
+  /**
+   * Gets an immutable map of job output names to the {@link DataOut}
+   * annotations that declared them.
+   */
+  public Map<String, DataOut> getOutputs() {
+    return outputs;
+  }
+
+  /**
+   * Gets an immutable map of named parameters to their types.
+   */
+  public Map<String, Class> getTypes() {
+    return types;
+  }
+
+  /**
+   * Gets the schemas of the specific records used by the job.
+   */
+  public List<Schema> getSchemas() {
+    return schemas;
+  }
+
+  /**
+   * Returns the arguments to be passed to the job's run method.
+   */
+  public Object[] getArgs(Map<String,?> namedParams) {
+
+    Object[] args = new Object[parameterNames.length];
+
+    for (int i = 0; i < parameterNames.length; ++i) {
+
+      String name = parameterNames[i];
+
+      if (name == null)
+        continue;
+
+      Object arg = namedParams.get(name);
+
+      if (arg == null) {
+        throw new AppException("No " + (inputs.containsKey(name) ? "input" : "output") +
+            " defined for job parameter: " + name);
+      }
+
+      args[i] = arg;
+    }
+
+    return args;
+  }
+
+  /**
+   * Invokes the run method of the given job with the given named parameters.
+   *
+   * @param job an instance of the described job class
+   * @param namedParams the inputs and outputs of the job by name
+   */
+  public void invoke(Object job, Map<String,?> namedParams) {
+
+    Object[] args = getArgs(namedParams);
+
+    try {
+      runMethod.invoke(job, args);
+    } catch (IllegalAccessException e) {
+      throw new AppException(e);
+    } catch (InvocationTargetException e) {
+      throw new AppException(e);
+    }
+  }
+}
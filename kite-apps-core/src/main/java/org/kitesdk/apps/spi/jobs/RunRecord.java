@@ -0,0 +1,381 @@
+/**
+ * Copyright 2015 Cerner Corporation.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.kitesdk.apps.spi.jobs;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.databind.JsonMappingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.JsonNodeFactory;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.Maps;
+import org.apache.hadoop.fs.Path;
+import org.joda.time.Instant;
+import org.kitesdk.apps.AppException;
+import org.kitesdk.data.ValidationException;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.util.Iterator;
+import java.util.Map;
+
+/**
+ * A record of a single run of a scheduled job at a nominal time: how
+ * long each phase of the run took and how much each output grew. Run
+ * records are written under the application root, so runtime regressions
+ * and data growth can be tracked across nominal times.
+ */
+public class RunRecord {
+
+  /**
+   * Phase loading the input and output views of the job.
+   */
+  public static final String LOAD_VIEWS = "load-views";
+
+  /**
+   * Phase checking whether the inputs of the job are empty.
+   */
+  public static final String CHECK_INPUTS = "check-inputs";
+
+  /**
+   * Phase running the job itself, including any retried attempts.
+   */
+  public static final String RUN = "run";
+
+  /**
+   * Phase signaling that the job's outputs are ready.
+   */
+  public static final String SIGNAL = "signal";
+
+  /**
+   * Status of a run that has completed successfully.
+   */
+  public static final String SUCCEEDED = "SUCCEEDED";
+
+  /**
+   * Status of a run that has failed.
+   */
+  public static final String FAILED = "FAILED";
+
+  /**
+   * Status of a run that was skipped because its inputs were empty.
+   */
+  public static final String SKIPPED = "SKIPPED";
+
+  private final String jobName;
+
+  private final Instant nominalTime;
+
+  private final Instant startTime;
+
+  private final String status;
+
+  private final int attempts;
+
+  private final String error;
+
+  private final Map<String,Long> timings;
+
+  private final Map<String,Long> outputRecords;
+
+  private final Map<String,Long> outputBytes;
+
+  private RunRecord(Builder builder) {
+    this.jobName = builder.jobName;
+    this.nominalTime = builder.nominalTime;
+    this.startTime = builder.startTime;
+    this.status = builder.status;
+    this.attempts = builder.attempts;
+    this.error = builder.error;
+    this.timings = ImmutableMap.copyOf(builder.timings);
+    this.outputRecords = ImmutableMap.copyOf(builder.outputRecords);
+    this.outputBytes = ImmutableMap.copyOf(builder.outputBytes);
+  }
+
+  /**
+   * Returns the path of the record of the given job's run
+   * at the given nominal time.
+   */
+  public static Path recordFile(Path appRoot, String jobName, Instant nominalTime) {
+    return new Path(appRoot, "var/runs/" + jobName + "/" + nominalTime.getMillis() + ".json");
+  }
+
+  public String getJobName() {
+    return jobName;
+  }
+
+  public Instant getNominalTime() {
+    return nominalTime;
+  }
+
+  /**
+   * Gets the time the run started.
+   */
+  public Instant getStartTime() {
+    return startTime;
+  }
+
+  /**
+   * Gets the status of the run, which is {@link #SUCCEEDED}, {@link #FAILED}
+   * or {@link #SKIPPED}.
+   */
+  public String getStatus() {
+    return status;
+  }
+
+  /**
+   * Gets the number of times the job was run, including retries.
+   */
+  public int getAttempts() {
+    return attempts;
+  }
+
+  /**
+   * Gets the error that failed the run, or null if it succeeded.
+   */
+  public String getError() {
+    return error;
+  }
+
+  /**
+   * Gets the milliseconds taken by each phase of the run.
+   */
+  public Map<String,Long> getTimings() {
+    return timings;
+  }
+
+  /**
+   * Gets the number of records written to each output
+   * whose record count was reported by the job.
+   */
+  public Map<String,Long> getOutputRecords() {
+    return outputRecords;
+  }
+
+  /**
+   * Gets the number of bytes each output grew by in the run,
+   * for outputs stored in a filesystem.
+   */
+  public Map<String,Long> getOutputBytes() {
+    return outputBytes;
+  }
+
+  /**
+   * Builder for run records. The builder of a run is updated by the
+   * job manager as each phase of the run completes.
+   */
+  public static class Builder {
+
+    private String jobName;
+
+    private Instant nominalTime;
+
+    private Instant startTime;
+
+    private String status;
+
+    private int attempts = 0;
+
+    private String error;
+
+    private final Map<String,Long> timings = Maps.newLinkedHashMap();
+
+    private final Map<String,Long> outputRecords = Maps.newLinkedHashMap();
+
+    private final Map<String,Long> outputBytes = Maps.newLinkedHashMap();
+
+    public Builder jobName(String jobName) {
+      this.jobName = jobName;
+      return this;
+    }
+
+    public Builder nominalTime(Instant nominalTime) {
+      this.nominalTime = nominalTime;
+      return this;
+    }
+
+    public Builder startTime(Instant startTime) {
+      this.startTime = startTime;
+      return this;
+    }
+
+    public Builder status(String status) {
+      this.status = status;
+      return this;
+    }
+
+    public Builder attempts(int attempts) {
+      this.attempts = attempts;
+      return this;
+    }
+
+    public Builder error(String error) {
+      this.error = error;
+      return this;
+    }
+
+    /**
+     * Adds the given milliseconds to the time taken by the named phase.
+     */
+    public synchronized Builder addTiming(String phase, long millis) {
+
+      Long current = timings.get(phase);
+
+      timings.put(phase, current == null ? millis : current + millis);
+
+      return this;
+    }
+
+    public synchronized Builder outputRecords(String outputName, long records) {
+      outputRecords.put(outputName, records);
+      return this;
+    }
+
+    public synchronized Builder outputBytes(String outputName, long bytes) {
+      outputBytes.put(outputName, bytes);
+      return this;
+    }
+
+    public synchronized RunRecord build() {
+      return new RunRecord(this);
+    }
+  }
+
+  private static final String JOB = "job";
+  private static final String NOMINAL_TIME = "nominalTime";
+  private static final String START_TIME = "startTime";
+  private static final String STATUS = "status";
+  private static final String ATTEMPTS = "attempts";
+  private static final String ERROR = "error";
+  private static final String TIMINGS = "timings";
+  private static final String OUTPUTS = "outputs";
+  private static final String RECORDS = "records";
+  private static final String BYTES = "bytes";
+
+  private static Instant parseInstant(JsonNode node) {
+    return node == null || node.isNull() ? null : Instant.parse(node.asText());
+  }
+
+  public static RunRecord parseJson(String json) {
+
+    ObjectMapper mapper = new ObjectMapper();
+
+    JsonNode parent;
+
+    try {
+      parent = mapper.readValue(json, JsonNode.class);
+    } catch (JsonParseException e) {
+      throw new ValidationException("Invalid JSON", e);
+    } catch (JsonMappingException e) {
+      throw new ValidationException("Invalid JSON", e);
+    } catch (IOException e) {
+      throw new AppException(e);
+    }
+
+    Builder builder = new Builder()
+        .jobName(parent.get(JOB).asText())
+        .nominalTime(parseInstant(parent.get(NOMINAL_TIME)))
+        .startTime(parseInstant(parent.get(START_TIME)))
+        .status(parent.get(STATUS).asText())
+        .attempts(parent.get(ATTEMPTS).asInt());
+
+    if (parent.has(ERROR))
+      builder.error(parent.get(ERROR).asText());
+
+    for (Iterator<Map.Entry<String,JsonNode>> it = parent.get(TIMINGS).fields(); it.hasNext();) {
+
+      Map.Entry<String,JsonNode> timing = it.next();
+
+      builder.addTiming(timing.getKey(), timing.getValue().asLong());
+    }
+
+    for (Iterator<Map.Entry<String,JsonNode>> it = parent.get(OUTPUTS).fields(); it.hasNext();) {
+
+      Map.Entry<String,JsonNode> output = it.next();
+
+      if (output.getValue().has(RECORDS))
+        builder.outputRecords(output.getKey(), output.getValue().get(RECORDS).asLong());
+
+      if (output.getValue().has(BYTES))
+        builder.outputBytes(output.getKey(), output.getValue().get(BYTES).asLong());
+    }
+
+    return builder.build();
+  }
+
+  private ObjectNode toJson() {
+
+    JsonNodeFactory js = JsonNodeFactory.instance;
+
+    ObjectNode root = js.objectNode();
+
+    root.put(JOB, jobName);
+    root.put(NOMINAL_TIME, nominalTime == null ? null : nominalTime.toString());
+    root.put(START_TIME, startTime == null ? null : startTime.toString());
+    root.put(STATUS, status);
+    root.put(ATTEMPTS, attempts);
+
+    if (error != null)
+      root.put(ERROR, error);
+
+    ObjectNode timingsNode = root.putObject(TIMINGS);
+
+    for (Map.Entry<String,Long> timing: timings.entrySet()) {
+      timingsNode.put(timing.getKey(), timing.getValue());
+    }
+
+    ObjectNode outputsNode = root.putObject(OUTPUTS);
+
+    for (Map.Entry<String,Long> records: outputRecords.entrySet()) {
+      outputNode(outputsNode, records.getKey()).put(RECORDS, records.getValue());
+    }
+
+    for (Map.Entry<String,Long> bytes: outputBytes.entrySet()) {
+      outputNode(outputsNode, bytes.getKey()).put(BYTES, bytes.getValue());
+    }
+
+    return root;
+  }
+
+  private static ObjectNode outputNode(ObjectNode outputsNode, String name) {
+
+    return outputsNode.has(name) ?
+        (ObjectNode) outputsNode.get(name) :
+        outputsNode.putObject(name);
+  }
+
+  public String toString() {
+
+    StringWriter writer = new StringWriter();
+
+    try {
+
+      JsonGenerator gen = new JsonFactory().createGenerator(writer);
+      gen.setCodec(new ObjectMapper());
+      gen.writeTree(toJson());
+
+      gen.close();
+    } catch (IOException e) {
+      // An IOException should not be possible against a local buffer.
+      throw new AssertionError(e);
+    }
+
+    return writer.toString();
+  }
+}
@@ -15,17 +15,28 @@
  */
 package org.kitesdk.apps.spi.jobs;
 
+import com.google.common.base.Charsets;
+import com.google.common.collect.Maps;
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.Path;
 import org.codehaus.plexus.util.xml.XMLWriter;
 import org.joda.time.Instant;
 import org.kitesdk.apps.AppContext;
 import org.kitesdk.apps.JobContext;
 import org.kitesdk.apps.DataIn;
 import org.kitesdk.apps.DataOut;
+import org.kitesdk.apps.scheduled.RetryPolicy;
 import org.kitesdk.apps.scheduled.SchedulableJob;
 import org.kitesdk.apps.scheduled.Schedule;
+import org.kitesdk.apps.spi.ViewManifest;
 import org.kitesdk.data.Signalable;
 import org.kitesdk.data.View;
+import org.kitesdk.data.spi.InputFormatAccessor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
+import java.io.IOException;
+import java.io.OutputStream;
 import java.lang.reflect.Method;
 import java.util.Map;
 import java.util.Set;
@@ -35,18 +46,43 @@ import java.util.Set;
  */
 public abstract class SchedulableJobManager {
 
+  private static final Logger LOG = LoggerFactory.getLogger(SchedulableJobManager.class);
+
+  /**
+   * Setting to enable or disable writing a record of each scheduled
+   * run under the application root, which is enabled by default.
+   */
+  public static final String RUN_RECORDS_ENABLED = "kite.apps.run.records.enabled";
+
+  /**
+   * Setting to enable writing a {@link ViewManifest} for each output when
+   * it is signaled, and using the manifests of ready inputs rather than
+   * listing them. Manifests are disabled by default.
+   */
+  public static final String MANIFESTS_ENABLED = "kite.apps.manifests.enabled";
+
   protected final SchedulableJob job;
 
   protected final AppContext context;
 
   protected final Method runMethod;
 
+  protected final JobDescriptor descriptor;
+
+  // Record of the current run, replaced once the run is recorded.
+  private RunRecord.Builder runRecord;
+
+  // Manifests written for outputs when they were signaled.
+  private final Map<String,ViewManifest> outputManifests = Maps.newHashMap();
+
   protected SchedulableJobManager(SchedulableJob job,
                                   Method runMethod,
                                   AppContext context) {
     this.job = job;
     this.runMethod = runMethod;
+    this.descriptor = JobDescriptor.of(job.getClass(), runMethod);
     this.context = context;
+    this.runRecord = new RunRecord.Builder().jobName(job.getName());
   }
 
   /**
@@ -64,7 +100,7 @@ public abstract class SchedulableJobManager {
    */
   public Map<String, DataIn> getInputs() {
 
-    return JobReflection.getInputs(runMethod);
+    return descriptor.getInputs();
   }
 
   /**
@@ -85,7 +121,74 @@ public abstract class SchedulableJobManager {
    */
   public Map<String,DataOut> getOutputs() {
 
-    return JobReflection.getOutputs(runMethod);
+    return descriptor.getOutputs();
+  }
+
+  /**
+   * Gets the record of the job's current run, which is updated as each
+   * phase of the run completes. A new record is started once the run
+   * is recorded.
+   */
+  public RunRecord.Builder getRunRecord() {
+    return runRecord;
+  }
+
+  /**
+   * Invokes the job's run method with the given views,
+   * recording the time taken in the run record.
+   */
+  protected void invokeJob(Map<String,View> views) {
+
+    Map<String,View> inputViews = Maps.newHashMap();
+
+    for (String inputName: getInputs().keySet()) {
+
+      if (views.containsKey(inputName))
+        inputViews.put(inputName, views.get(inputName));
+    }
+
+    getJobContext().setInputViews(inputViews);
+
+    long start = System.currentTimeMillis();
+
+    try {
+      descriptor.invoke(job, views);
+    } finally {
+      runRecord.addTiming(RunRecord.RUN, System.currentTimeMillis() - start);
+    }
+  }
+
+  /**
+   * Returns true if the job writes and uses view manifests.
+   */
+  protected boolean manifestsEnabled() {
+
+    return Boolean.parseBoolean(getJobContext().getSettings().get(MANIFESTS_ENABLED));
+  }
+
+  /**
+   * Writes the manifest of an output before it is signaled. Failing to
+   * write the manifest is logged rather than failing the run, since
+   * readers list the view when it has no manifest.
+   */
+  private ViewManifest writeManifest(View view, long records) {
+
+    try {
+
+      ViewManifest manifest = ViewManifest.create(view, records,
+          getJobContext().getReadOnlyHadoopConf());
+
+      manifest.write(view, getJobContext().getReadOnlyHadoopConf());
+
+      return manifest;
+
+    } catch (IOException e) {
+      LOG.warn("Unable to write the manifest of view " + view.getUri(), e);
+    } catch (RuntimeException e) {
+      LOG.warn("Unable to write the manifest of view " + view.getUri(), e);
+    }
+
+    return null;
   }
 
   /**
@@ -93,17 +196,106 @@ public abstract class SchedulableJobManager {
    */
   protected void signalOutputViews(Map<String,View> views) {
 
+    long start = System.currentTimeMillis();
+
     Set<String> outputNames = getOutputs().keySet();
 
+    boolean manifests = manifestsEnabled();
+
+    Map<String,Long> outputRecords = getJobContext().getOutputRecords();
+
     for (String outputName: outputNames) {
 
       View view = views.get(outputName);
 
       if (view instanceof Signalable) {
 
+        if (manifests) {
+
+          Long records = outputRecords.get(outputName);
+
+          ViewManifest manifest = writeManifest(view, records == null ? -1L : records);
+
+          if (manifest != null)
+            outputManifests.put(outputName, manifest);
+        }
+
         ((Signalable) view).signalReady();
       }
     }
+
+    runRecord.addTiming(RunRecord.SIGNAL, System.currentTimeMillis() - start);
+  }
+
+  /**
+   * Returns the bytes stored in the files of each output view, listing
+   * only the view rather than its whole dataset. Outputs whose manifest
+   * was written by this run are sized from the manifest instead.
+   */
+  private Map<String,Long> getOutputSizes(Map<String,View> views) {
+
+    Map<String,Long> sizes = Maps.newHashMap();
+
+    for (String outputName: getOutputs().keySet()) {
+
+      View view = views.get(outputName);
+
+      if (view == null)
+        continue;
+
+      ViewManifest manifest = outputManifests.get(outputName);
+
+      if (manifest != null) {
+        sizes.put(outputName, manifest.getBytes());
+        continue;
+      }
+
+      if (!(view instanceof InputFormatAccessor))
+        continue;
+
+      try {
+
+        sizes.put(outputName, ViewManifest.create(view, -1L,
+            getJobContext().getReadOnlyHadoopConf()).getBytes());
+
+      } catch (RuntimeException e) {
+        LOG.warn("Unable to get the size of output " + outputName, e);
+      }
+    }
+
+    return sizes;
+  }
+
+  /**
+   * Writes the record of the run under the application root. Failing to
+   * write the record is logged rather than failing the run.
+   */
+  private void writeRunRecord(RunRecord record) {
+
+    String enabled = getJobContext().getSettings().get(RUN_RECORDS_ENABLED);
+
+    if (context.getInstallPath() == null ||
+        (enabled != null && !Boolean.parseBoolean(enabled)))
+      return;
+
+    Path recordFile = RunRecord.recordFile(context.getInstallPath(),
+        record.getJobName(), record.getNominalTime());
+
+    try {
+
+      FileSystem fs = recordFile.getFileSystem(context.getReadOnlyHadoopConf());
+
+      OutputStream output = fs.create(recordFile, true);
+
+      try {
+        output.write(record.toString().getBytes(Charsets.UTF_8));
+      } finally {
+        output.close();
+      }
+
+    } catch (IOException e) {
+      LOG.warn("Unable to write run record " + recordFile, e);
+    }
   }
 
   /**
@@ -115,6 +307,205 @@ public abstract class SchedulableJobManager {
    */
   public abstract void run(Instant nominalTime, Map<String,View> views);
 
+  /**
+   * Returns true if all of the job's inputs are empty. Jobs without
+   * inputs are never considered empty.
+   *
+   * @param views a map of view parameter names to loaded instances for the job.
+   */
+  public boolean inputsEmpty(Map<String,View> views) {
+
+    if (getInputs().isEmpty())
+      return false;
+
+    long start = System.currentTimeMillis();
+
+    try {
+
+      boolean manifests = manifestsEnabled();
+
+      for (String inputName: getInputs().keySet()) {
+
+        View view = views.get(inputName);
+
+        if (view == null)
+          return false;
+
+        ViewManifest manifest = manifests ? loadManifest(view) : null;
+
+        if (manifest != null ? !manifest.isEmpty() : !view.isEmpty())
+          return false;
+      }
+
+      return true;
+
+    } finally {
+      runRecord.addTiming(RunRecord.CHECK_INPUTS, System.currentTimeMillis() - start);
+    }
+  }
+
+  /**
+   * Loads the manifest of an input, or returns null if it has none.
+   */
+  private ViewManifest loadManifest(View view) {
+
+    try {
+      return ViewManifest.load(view, getJobContext().getReadOnlyHadoopConf());
+    } catch (IOException e) {
+      LOG.warn("Unable to load the manifest of input " + view, e);
+      return null;
+    }
+  }
+
+  /**
+   * Skips the run of the job at the given nominal time, signaling its
+   * outputs if the policy requires it and recording the skipped run.
+   *
+   * @param nominalTime the nominal time of the skipped run
+   * @param views a map of view parameter names to loaded instances for the job.
+   * @param policy the policy for runs with empty inputs
+   */
+  public void skip(Instant nominalTime, Map<String,View> views, Schedule.EmptyInputPolicy policy) {
+
+    LOG.info("Skipping run of job {} at {} since its inputs are empty.", getName(), nominalTime);
+
+    runRecord.nominalTime(nominalTime)
+        .startTime(new Instant())
+        .attempts(0)
+        .status(RunRecord.SKIPPED);
+
+    if (policy == Schedule.EmptyInputPolicy.SKIP_AND_SIGNAL)
+      signalOutputViews(views);
+
+    RunRecord record = runRecord.build();
+
+    LOG.info("Run of job {}: {}", getName(), record);
+
+    writeRunRecord(record);
+
+    runRecord = new RunRecord.Builder().jobName(job.getName());
+  }
+
+  /**
+   * Runs the job at the given nominal time unless the empty input policy
+   * skips it, retrying failed runs as permitted by the given retry policy.
+   *
+   * @param nominalTime the nominal time provided to the job
+   * @param views a map of view parameter names to loaded instances for the job.
+   * @param retryPolicy the retry policy, or null if failures should not be retried
+   * @param emptyInputPolicy the policy for runs with empty inputs
+   */
+  public void run(Instant nominalTime, Map<String,View> views, RetryPolicy retryPolicy,
+                  Schedule.EmptyInputPolicy emptyInputPolicy) {
+
+    if (emptyInputPolicy != Schedule.EmptyInputPolicy.RUN && inputsEmpty(views)) {
+
+      skip(nominalTime, views, emptyInputPolicy);
+
+    } else {
+
+      run(nominalTime, views, retryPolicy);
+    }
+  }
+
+  /**
+   * Runs the job at the given nominal time, retrying failed runs
+   * as permitted by the given policy. A null policy runs the job once.
+   *
+   * @param nominalTime the nominal time provided to the job
+   * @param views a map of view parameter names to loaded instances for the job.
+   * @param policy the retry policy, or null if failures should not be retried
+   */
+  public void run(Instant nominalTime, Map<String,View> views, RetryPolicy policy) {
+
+    runRecord.nominalTime(nominalTime)
+        .startTime(new Instant())
+        .status(RunRecord.FAILED);
+
+    outputManifests.clear();
+
+    Map<String,Long> sizesBefore = getOutputSizes(views);
+
+    try {
+
+      runWithRetries(nominalTime, views, policy);
+
+      runRecord.status(RunRecord.SUCCEEDED);
+
+    } catch (RuntimeException e) {
+
+      runRecord.error(e.toString());
+
+      throw e;
+
+    } finally {
+
+      Map<String,Long> sizesAfter = getOutputSizes(views);
+
+      for (Map.Entry<String,Long> size: sizesAfter.entrySet()) {
+
+        Long before = sizesBefore.get(size.getKey());
+
+        runRecord.outputBytes(size.getKey(),
+            size.getValue() - (before == null ? 0L : before));
+      }
+
+      for (Map.Entry<String,Long> records: getJobContext().getOutputRecords().entrySet()) {
+        runRecord.outputRecords(records.getKey(), records.getValue());
+      }
+
+      RunRecord record = runRecord.build();
+
+      LOG.info("Run of job {}: {}", getName(), record);
+
+      writeRunRecord(record);
+
+      runRecord = new RunRecord.Builder().jobName(job.getName());
+    }
+  }
+
+  /**
+   * Runs the job, retrying failed attempts as permitted by the policy.
+   * A retried attempt runs against the same output views as the failed
+   * one, so anything the failed attempt partially wrote to them is not
+   * cleaned up. Jobs with retry policies should write their outputs so a
+   * rerun replaces rather than duplicates them.
+   */
+  private void runWithRetries(Instant nominalTime, Map<String,View> views, RetryPolicy policy) {
+
+    for (int retries = 0; ; ++retries) {
+
+      runRecord.attempts(retries + 1);
+
+      // Count only the records reported by this attempt.
+      getJobContext().resetOutputRecords();
+
+      try {
+
+        run(nominalTime, views);
+
+        return;
+
+      } catch (RuntimeException e) {
+
+        if (policy == null || !policy.shouldRetry(e, retries))
+          throw e;
+
+        long delay = policy.getDelayMillis(retries);
+
+        LOG.warn("Run of job " + getName() + " at " + nominalTime +
+            " failed, retrying in " + delay + " ms.", e);
+
+        try {
+          Thread.sleep(delay);
+        } catch (InterruptedException interrupted) {
+          Thread.currentThread().interrupt();
+          throw e;
+        }
+      }
+    }
+  }
+
   /**
    * Writes the Oozie action block to launch the job. This allows for
    * different types of jobs to use specialized action blocks. For instance,
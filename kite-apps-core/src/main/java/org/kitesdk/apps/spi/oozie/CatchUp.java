@@ -0,0 +1,232 @@
+/**
+ * Copyright 2015 Cerner Corporation.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.kitesdk.apps.spi.oozie;
+
+import com.google.common.base.Charsets;
+import com.google.common.collect.Lists;
+import com.google.common.io.ByteStreams;
+import org.apache.hadoop.fs.FileStatus;
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.Path;
+import org.joda.time.DateTime;
+import org.joda.time.DateTimeZone;
+import org.joda.time.Instant;
+import org.kitesdk.apps.AppException;
+import org.kitesdk.apps.spi.jobs.RunRecord;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Finds the nominal times covered by a catch-up launch and the instances
+ * of its views at those times. Oozie only resolves the views of the
+ * nominal time it launches, so the views of earlier nominal times are
+ * resolved here from the schedule's URI templates.
+ */
+final class CatchUp {
+
+  private static final long MINUTE_MILLIS = 60 * 1000L;
+
+  /**
+   * Limit on how far back the previous instance of a frequency is searched for.
+   */
+  private static final long MAX_PERIOD_MILLIS = 400 * 24 * 60 * MINUTE_MILLIS;
+
+  private CatchUp() {
+  }
+
+  /**
+   * Returns the first instance of the cron frequency after the given time.
+   */
+  static Instant after(String frequency, Instant time) {
+
+    Instant next = CronConverter.nextInstant(frequency, time);
+
+    // Some frequencies return the given time if it is an instance.
+    return next.isAfter(time) ?
+        next :
+        CronConverter.nextInstant(frequency, time.plus(MINUTE_MILLIS));
+  }
+
+  /**
+   * Returns the latest instance of the cron frequency at or before the given
+   * time, which is the instance Oozie considers current at that time.
+   */
+  static Instant current(String frequency, Instant time) {
+
+    // Search back until there is an instance between the start and the time.
+    long step = MINUTE_MILLIS;
+
+    Instant start = time.minus(step);
+
+    while (after(frequency, start).isAfter(time)) {
+
+      if (step > MAX_PERIOD_MILLIS)
+        throw new AppException("No instance of frequency " + frequency + " before " + time);
+
+      step *= 2;
+      start = time.minus(step);
+    }
+
+    Instant current = after(frequency, start);
+
+    for (Instant next = after(frequency, current); !next.isAfter(time);
+         next = after(frequency, next)) {
+      current = next;
+    }
+
+    return current;
+  }
+
+  /**
+   * Returns the instances of a view between the given offsets, relative to
+   * the instance current at the nominal time, in chronological order.
+   */
+  static List<Instant> instances(String frequency, Instant nominalTime,
+                                 int startInstance, int endInstance) {
+
+    List<Instant> instances = Lists.newArrayList();
+
+    Instant instance = current(frequency, nominalTime);
+
+    for (int offset = 0; offset > startInstance; --offset) {
+      instance = current(frequency, instance.minus(MINUTE_MILLIS));
+    }
+
+    for (int offset = 0; offset < startInstance; ++offset) {
+      instance = after(frequency, instance);
+    }
+
+    for (int offset = startInstance; offset <= endInstance; ++offset) {
+      instances.add(instance);
+      instance = after(frequency, instance);
+    }
+
+    return instances;
+  }
+
+  /**
+   * Returns the nominal times of the schedule after the last completed run
+   * and before the given nominal time, keeping only the most recent if
+   * there are more than the limit.
+   */
+  static List<Instant> pendingTimes(String frequency, Instant lastRun,
+                                    Instant nominalTime, int limit) {
+
+    List<Instant> pending = Lists.newLinkedList();
+
+    if (lastRun == null || limit < 1)
+      return pending;
+
+    for (Instant time = after(frequency, lastRun); time.isBefore(nominalTime);
+         time = after(frequency, time)) {
+
+      pending.add(time);
+
+      if (pending.size() > limit)
+        pending.remove(0);
+    }
+
+    return pending;
+  }
+
+  /**
+   * Returns the nominal time of the most recent run of the job before the
+   * given nominal time that did not fail, or null if there is none.
+   */
+  static Instant lastCompletedRun(FileSystem fs, Path appRoot, String jobName,
+                                  Instant nominalTime) throws IOException {
+
+    Path runsDir = RunRecord.recordFile(appRoot, jobName, nominalTime).getParent();
+
+    if (!fs.exists(runsDir))
+      return null;
+
+    List<Long> times = Lists.newArrayList();
+
+    for (FileStatus status: fs.listStatus(runsDir)) {
+
+      String name = status.getPath().getName();
+
+      if (!name.endsWith(".json"))
+        continue;
+
+      try {
+        times.add(Long.parseLong(name.substring(0, name.length() - ".json".length())));
+      } catch (NumberFormatException e) {
+        // Not a run record.
+      }
+    }
+
+    Collections.sort(times, Collections.reverseOrder());
+
+    for (Long time: times) {
+
+      if (time >= nominalTime.getMillis())
+        continue;
+
+      Path recordFile = RunRecord.recordFile(appRoot, jobName, new Instant(time));
+
+      InputStream input = fs.open(recordFile);
+
+      RunRecord record;
+
+      try {
+        record = RunRecord.parseJson(new String(ByteStreams.toByteArray(input), Charsets.UTF_8));
+      } finally {
+        input.close();
+      }
+
+      if (!RunRecord.FAILED.equals(record.getStatus()))
+        return record.getNominalTime();
+    }
+
+    return null;
+  }
+
+  /**
+   * Converts a URI template to the form passed to the job launcher. Oozie
+   * would otherwise try to evaluate the template variables as expressions.
+   */
+  static String toSetting(String uriTemplate) {
+    return uriTemplate.replace("${", "{");
+  }
+
+  /**
+   * Returns true if a URI template, in the form passed to the job launcher,
+   * resolves to a different view at each instance time.
+   */
+  static boolean isTemplated(String setting) {
+    return !resolve(setting, new Instant(0L)).equals(setting);
+  }
+
+  /**
+   * Resolves a URI template, in the form passed to the job launcher, at the
+   * given instance time, as Oozie does for the nominal time it launches.
+   */
+  static String resolve(String setting, Instant instance) {
+
+    DateTime time = new DateTime(instance, DateTimeZone.UTC);
+
+    return setting.replace("{YEAR}", String.format("%04d", time.getYear()))
+        .replace("{MONTH}", String.format("%02d", time.getMonthOfYear()))
+        .replace("{DAY}", String.format("%02d", time.getDayOfMonth()))
+        .replace("{HOUR}", String.format("%02d", time.getHourOfDay()))
+        .replace("{MINUTE}", String.format("%02d", time.getMinuteOfHour()));
+  }
+}
@@ -25,6 +25,8 @@ import org.apache.hadoop.util.ToolRunner;
 import org.joda.time.Instant;
 import org.kitesdk.apps.AppContext;
 import org.kitesdk.apps.AppException;
+import org.kitesdk.apps.scheduled.RetryPolicy;
+import org.kitesdk.apps.scheduled.Schedule;
 import org.kitesdk.apps.spi.PropertyFiles;
 import org.kitesdk.apps.spi.jobs.JobManagers;
 import org.kitesdk.apps.spi.jobs.SchedulableJobManager;
@@ -98,10 +100,24 @@ public class OozieScheduledJobMain extends Configured implements Tool {
 
     DefaultConfiguration.set(conf);
 
+    RetryPolicy retryPolicy = OozieScheduling.getRetryPolicy(conf);
+
+    Schedule.EmptyInputPolicy emptyInputPolicy = OozieScheduling.getEmptyInputPolicy(conf);
+
+    // Catch-up launches first run any earlier nominal times on their own.
+    for (Instant catchUpTime: OozieScheduling.getCatchUpTimes(manager, conf)) {
+
+      Map<String, View> views = OozieScheduling.loadViews(manager, conf, catchUpTime);
+
+      manager.run(catchUpTime, views, retryPolicy, emptyInputPolicy);
+    }
+
     // Get the views to be used from Oozie configuration.
     Map<String, View> views = OozieScheduling.loadViews(manager, conf);
 
-    manager.run(nominalTime, views);
+    // Retry failed runs here if the schedule has a retry policy, and
+    // skip runs with empty inputs if the schedule allows it.
+    manager.run(nominalTime, views, retryPolicy, emptyInputPolicy);
 
     return 0;
   }
@@ -16,33 +16,50 @@
 package org.kitesdk.apps.spi.oozie;
 
 import com.google.common.annotations.VisibleForTesting;
+import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
+import org.apache.avro.Schema;
 import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.FileSystem;
 import org.apache.hadoop.fs.Path;
 import org.joda.time.DateTimeZone;
 import org.joda.time.Instant;
 import org.joda.time.format.DateTimeFormat;
 import org.joda.time.format.DateTimeFormatter;
 import org.kitesdk.apps.AppContext;
+import org.kitesdk.apps.AppException;
 import org.kitesdk.apps.DataIn;
 import org.kitesdk.apps.DataOut;
+import org.kitesdk.apps.scheduled.RetryPolicy;
 import org.kitesdk.apps.scheduled.Schedule;
+import org.kitesdk.apps.spi.JarStore;
+import org.kitesdk.apps.spi.Projections;
+import org.kitesdk.apps.spi.UnionView;
 
 import org.codehaus.plexus.util.WriterFactory;
 import org.codehaus.plexus.util.xml.PrettyPrintXMLWriter;
 import org.codehaus.plexus.util.xml.XMLWriter;
 import org.codehaus.plexus.util.xml.XmlStreamWriter;
 import org.kitesdk.apps.spi.jobs.JobManagers;
+import org.kitesdk.apps.spi.jobs.RunRecord;
 import org.kitesdk.apps.spi.jobs.SchedulableJobManager;
-import org.kitesdk.data.Datasets;
 import org.kitesdk.data.View;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 import java.io.IOException;
 import java.io.OutputStream;
+import java.io.UnsupportedEncodingException;
 import java.net.URI;
+import java.net.URLEncoder;
+import java.util.Arrays;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.regex.Pattern;
 
 
 /**
@@ -50,6 +67,8 @@ import java.util.Map;
  */
 public class OozieScheduling {
 
+  private static final Logger LOG = LoggerFactory.getLogger(OozieScheduling.class);
+
   static final String OOZIE_COORD_NS = "uri:oozie:coordinator:0.4";
 
   static final String OOZIE_WORKFLOW_NS = "uri:oozie:workflow:0.5";
@@ -72,6 +91,38 @@ public class OozieScheduling {
   private static final String WORKFLOW_NOMINAL_TIME = "workflowNominalTime";
   private static final String HIVE_METASTORE_URIS = "hive.metastore.uris";
 
+  /**
+   * Separates the view URIs of a multi-instance input, without splitting
+   * on commas that may appear within a single view URI.
+   */
+  private static final Pattern URI_SEPARATOR = Pattern.compile(",(?=(view|dataset):)");
+
+  private static final String RETRY_MAX = "kite.retry.max";
+  private static final String RETRY_INTERVAL = "kite.retry.interval.seconds";
+  private static final String RETRY_BACKOFF = "kite.retry.backoff.multiplier";
+  private static final String RETRY_MAX_INTERVAL = "kite.retry.max.interval.seconds";
+  private static final String RETRY_ON = "kite.retry.on";
+  private static final String RETRY_FAIL_ON = "kite.retry.fail.on";
+
+  private static final String EMPTY_INPUTS = "kite.empty.inputs";
+
+  // Prefix of the settings holding field constraints of each input.
+  private static final String INPUT_CONSTRAINTS = "kite.input.constraints.";
+
+  // Settings to resolve the views of earlier nominal times merged into catch-up runs.
+  private static final String CATCH_UP_LIMIT = "kite.catchup.limit";
+  private static final String CATCH_UP_FREQUENCY = "kite.catchup.frequency";
+  private static final String CATCH_UP_TEMPLATE = "kite.catchup.template.";
+  private static final String CATCH_UP_VIEW_FREQUENCY = "kite.catchup.view.frequency.";
+  private static final String CATCH_UP_INSTANCES = "kite.catchup.instances.";
+
+  /**
+   * Job setting for the number of views loaded at once for a run.
+   */
+  public static final String LOAD_VIEWS_THREADS = "kite.views.load.threads";
+
+  private static final int DEFAULT_LOAD_VIEWS_THREADS = 8;
+
   /**
    * Relative path to where Oozie workflows are stored.
    */
@@ -136,6 +187,24 @@ public class OozieScheduling {
                                    AppContext context,
                                    OutputStream output) throws IOException {
 
+    writeWorkFlow(schedule,
+        JobManagers.createSchedulable(schedule.getJobClass(), context),
+        output);
+  }
+
+  /**
+   * Generates an Oozie workflow to execute the job in the given schedule
+   * using an existing job manager, so callers that also write the
+   * coordinator need not create the manager twice.
+   *
+   * @param schedule the schedule to write
+   * @param manager the manager of the scheduled job
+   * @param output an output stream to which the workflow is written
+   */
+  public static void writeWorkFlow(Schedule schedule,
+                                   SchedulableJobManager manager,
+                                   OutputStream output) throws IOException {
+
     XmlStreamWriter streamWriter = WriterFactory.newXmlWriter(output);
 
     PrettyPrintXMLWriter writer = new PrettyPrintXMLWriter(streamWriter);
@@ -149,12 +218,20 @@ public class OozieScheduling {
     writer.startElement("action");
     writer.addAttribute("name", schedule.getName());
 
-    // Reduce retry attempts. TODO: make this configurable?
-    writer.addAttribute("retry-max", "2");
-    writer.addAttribute("retry-interval", "1");
+    if (schedule.getRetryPolicy() == null) {
+
+      // Reduce retry attempts from the Oozie default.
+      writer.addAttribute("retry-max", "2");
+      writer.addAttribute("retry-interval", "1");
+
+    } else {
+
+      // The job launcher applies the retry policy itself, since Oozie
+      // only supports fixed retry intervals regardless of the failure.
+      writer.addAttribute("retry-max", "0");
+    }
 
     // Write the appropriate action to be used in the job.
-    SchedulableJobManager manager = JobManagers.createSchedulable(schedule.getJobClass(), context);
     manager.writeOozieActionBlock(writer, schedule);
 
     element(writer, "ok", "to", "end");
@@ -220,6 +297,38 @@ public class OozieScheduling {
     return prefix + "//" + host + ":" + port + "/" + rest;
   }
 
+  /**
+   * Writes the controls block for the coordinator, if the schedule
+   * overrides any of Oozie's defaults.
+   */
+  private static final void writeCoordinatorControls(XMLWriter writer,
+                                                     Schedule schedule) {
+
+    if (schedule.getTimeout() == null &&
+        schedule.getConcurrency() == null &&
+        schedule.getExecutionOrder() == null &&
+        schedule.getThrottle() == null) {
+      return;
+    }
+
+    writer.startElement("controls");
+
+    // Oozie requires the control elements to appear in this order.
+    if (schedule.getTimeout() != null)
+      element(writer, "timeout", schedule.getTimeout().toString());
+
+    if (schedule.getConcurrency() != null)
+      element(writer, "concurrency", schedule.getConcurrency().toString());
+
+    if (schedule.getExecutionOrder() != null)
+      element(writer, "execution", schedule.getExecutionOrder().name());
+
+    if (schedule.getThrottle() != null)
+      element(writer, "throttle", schedule.getThrottle().toString());
+
+    writer.endElement(); // controls
+  }
+
   private static final void writeCoordinatorDatasets(XMLWriter writer,
                                                      Schedule schedule,
                                                      SchedulableJobManager manager) {
@@ -244,7 +353,7 @@ public class OozieScheduling {
 
       writer.addAttribute("timezone", "UTC");
 
-      String qualifiedTemplate = qualifyUri(manager.getAppContext().getHadoopConf(),
+      String qualifiedTemplate = qualifyUri(manager.getAppContext().getReadOnlyHadoopConf(),
           entry.getValue().getUriTemplate());
 
       element(writer, "uri-template", qualifiedTemplate);
@@ -266,7 +375,19 @@ public class OozieScheduling {
         writer.startElement("data-in");
         writer.addAttribute("name", "datain_" + toIdentifier(input.name()));
         writer.addAttribute("dataset", "ds_" + toIdentifier(input.name()));
-        element(writer, "instance", "${coord:current(0)}");
+
+        Schedule.ViewTemplate template = schedule.getViewTemplates().get(input.name());
+
+        if (template.isWindow()) {
+
+          // Oozie resolves a window to a comma-separated list of view URIs.
+          element(writer, "start-instance", "${coord:current(" + template.getStartInstance() + ")}");
+          element(writer, "end-instance", "${coord:current(" + template.getEndInstance() + ")}");
+
+        } else {
+          element(writer, "instance", "${coord:current(" + template.getStartInstance() + ")}");
+        }
+
         writer.endElement(); // data-in
       }
 
@@ -317,6 +438,8 @@ public class OozieScheduling {
 
     writer.addAttribute("timezone", "UTC");
 
+    writeCoordinatorControls(writer, schedule);
+
     writeCoordinatorDatasets(writer, schedule, manager);
 
     writer.startElement("action");
@@ -370,7 +493,7 @@ public class OozieScheduling {
                                  List<Schedule> schedules,
                                  OutputStream output) throws IOException {
 
-    Configuration conf = context.getHadoopConf();
+    Configuration conf = context.getReadOnlyHadoopConf();
 
     XmlStreamWriter streamWriter = WriterFactory.newXmlWriter(output);
 
@@ -389,7 +512,23 @@ public class OozieScheduling {
 
     property(writer, "kiteAppRoot", qualifiedPath.toString());
 
-    property(writer, "oozie.libpath", "${kiteAppRoot}/lib");
+    // Include the directories of any library JARs in the shared
+    // JAR store, since they are not copied into the application.
+    StringBuilder libPath = new StringBuilder("${kiteAppRoot}/lib");
+
+    List<Path> storedJars = JarStore.getLibraryJars(conf);
+
+    for (Path jar: storedJars) {
+      libPath.append(",").append(jar.getParent().toString());
+    }
+
+    // Oozie lists each libpath directory whenever it launches a workflow.
+    if (storedJars.size() > JarStore.MAX_LIBPATH_JARS)
+      LOG.warn("Application {} uses {} stored JARs, each listed by Oozie on every workflow " +
+          "launch. Consider shading them into fewer JARs or installing with copied JARs.",
+          appClass.getName(), storedJars.size());
+
+    property(writer, "oozie.libpath", libPath.toString());
     property(writer, "nameNode", conf.get("fs.default.name"));
 
     String resourceManager = conf.get("yarn.resourcemanager.address");
@@ -430,37 +569,523 @@ public class OozieScheduling {
   }
 
   /**
-   * Loads the Kite views to be passed to a job at runtime.
+   * Adds the given constraints, in view URI query form, to a view or
+   * dataset URI. Dataset URIs become view URIs so the constraints apply.
+   */
+  @VisibleForTesting
+  static String constrain(String uri, String constraints) {
+
+    if (constraints == null || constraints.isEmpty())
+      return uri;
+
+    String viewUri = uri.startsWith("dataset:") ?
+        "view:" + uri.substring("dataset:".length()) :
+        uri;
+
+    return viewUri + (viewUri.indexOf('?') >= 0 ? "&" : "?") + constraints;
+  }
+
+  /**
+   * Returns the field constraints of the schedule's inputs as settings,
+   * with each input's constraints in view URI query form.
+   */
+  private static Map<String,String> getConstraintSettings(Schedule schedule) {
+
+    Map<String,String> settings = Maps.newHashMap();
+
+    for (Schedule.ViewTemplate template: schedule.getViewTemplates().values()) {
+
+      if (template.getConstraints().isEmpty())
+        continue;
+
+      StringBuilder query = new StringBuilder();
+
+      for (Map.Entry<String,String> constraint: template.getConstraints().entrySet()) {
+
+        if (query.length() > 0)
+          query.append("&");
+
+        query.append(encode(constraint.getKey()))
+            .append("=")
+            .append(encode(constraint.getValue()));
+      }
+
+      settings.put(INPUT_CONSTRAINTS + toIdentifier(template.getName()), query.toString());
+    }
+
+    return settings;
+  }
+
+  private static String encode(String value) {
+
+    try {
+      // Kite separates values of a constraint with commas, so keep them.
+      return URLEncoder.encode(value, "UTF-8").replace("%2C", ",");
+    } catch (UnsupportedEncodingException e) {
+      throw new AppException(e);
+    }
+  }
+
+  /**
+   * Returns the URIs of the input, which may be a comma-separated list
+   * in the configuration if the input is a window of several instances.
+   */
+  private static String[] inputUris(DataIn input, Configuration conf) {
+
+    String[] splits = URI_SEPARATOR.split(conf.get("wf_" + toIdentifier(input.name())));
+
+    String constraints = conf.get(INPUT_CONSTRAINTS + toIdentifier(input.name()));
+
+    for (int i = 0; i < splits.length; ++i) {
+      splits[i] = constrain(splits[i], constraints);
+    }
+
+    return splits;
+  }
+
+  /**
+   * Returns the settings needed to resolve the views of earlier nominal
+   * times merged into a catch-up run of the schedule.
+   */
+  private static Map<String,String> getCatchUpSettings(Schedule schedule, Configuration conf) {
+
+    Map<String,String> settings = Maps.newHashMap();
+
+    if (!schedule.isCatchUp())
+      return settings;
+
+    settings.put(CATCH_UP_LIMIT, Integer.toString(schedule.getCatchUpLimit()));
+    settings.put(CATCH_UP_FREQUENCY, schedule.getFrequency());
+
+    for (Schedule.ViewTemplate template: schedule.getViewTemplates().values()) {
+
+      String id = toIdentifier(template.getName());
+
+      settings.put(CATCH_UP_TEMPLATE + id,
+          CatchUp.toSetting(qualifyUri(conf, template.getUriTemplate())));
+      settings.put(CATCH_UP_VIEW_FREQUENCY + id, template.getFrequency());
+      settings.put(CATCH_UP_INSTANCES + id,
+          template.getStartInstance() + "," + template.getEndInstance());
+    }
+
+    return settings;
+  }
+
+  /**
+   * Returns the earlier nominal times a launch of a catch-up schedule
+   * covers, which are those since the job's last completed run. Any
+   * beyond the schedule's limit are not run.
+   */
+  private static List<Instant> coalescedTimes(SchedulableJobManager manager, Configuration conf) {
+
+    int limit = conf.getInt(CATCH_UP_LIMIT, 1);
+
+    Instant nominalTime = getNominalTime(conf);
+
+    if (limit <= 1 || nominalTime == null)
+      return Collections.emptyList();
+
+    Path appRoot = manager.getAppContext().getInstallPath();
+
+    String recordsEnabled = manager.getJobContext().getSettings()
+        .get(SchedulableJobManager.RUN_RECORDS_ENABLED);
+
+    // Without run records every run would silently process only its own nominal time.
+    if (appRoot == null || (recordsEnabled != null && !Boolean.parseBoolean(recordsEnabled)))
+      throw new AppException("Job " + manager.getName() + " catches up from its last " +
+          "completed run, which requires run records under the application root.");
+
+    String frequency = conf.get(CATCH_UP_FREQUENCY);
+
+    Instant lastRun;
+
+    try {
+
+      FileSystem fs = appRoot.getFileSystem(conf);
+
+      lastRun = CatchUp.lastCompletedRun(fs, appRoot, manager.getName(), nominalTime);
+
+    } catch (IOException e) {
+
+      LOG.warn("Unable to read the run records of job " + manager.getName() +
+          ", so only nominal time " + nominalTime + " will be run.", e);
+
+      return Collections.emptyList();
+    }
+
+    if (lastRun == null) {
+
+      LOG.info("Job {} has no completed run before {}, so only that nominal time will be run.",
+          manager.getName(), nominalTime);
+
+      return Collections.emptyList();
+    }
+
+    List<Instant> pending = CatchUp.pendingTimes(frequency, lastRun, nominalTime, limit - 1);
+
+    if (!pending.isEmpty()) {
+
+      Instant firstPending = CatchUp.after(frequency, lastRun);
+
+      if (!pending.get(0).equals(firstPending))
+        LOG.warn("Nominal times of job {} from {} to before {} exceed the catch-up limit " +
+            "and will not be run.", new Object[] {manager.getName(), firstPending, pending.get(0)});
+
+      LOG.info("Catching up {} earlier nominal times from {} in the launch of job {} at {}.",
+          new Object[] {pending.size(), pending.get(0), manager.getName(), nominalTime});
+    }
+
+    return pending;
+  }
+
+  /**
+   * Returns the URIs of the instances of the named view at the given
+   * nominal times, in chronological order.
+   */
+  private static Set<String> catchUpUris(String name, List<Instant> nominalTimes,
+                                         Configuration conf) {
+
+    String id = toIdentifier(name);
+
+    String template = conf.get(CATCH_UP_TEMPLATE + id);
+    String frequency = conf.get(CATCH_UP_VIEW_FREQUENCY + id);
+    int[] offsets = conf.getInts(CATCH_UP_INSTANCES + id);
+
+    Set<String> uris = Sets.newLinkedHashSet();
+
+    for (Instant nominalTime: nominalTimes) {
+
+      for (Instant instance: CatchUp.instances(frequency, nominalTime, offsets[0], offsets[1])) {
+        uris.add(CatchUp.resolve(template, instance));
+      }
+    }
+
+    return uris;
+  }
+
+  /**
+   * Creates the input view from the loaded views of its URIs. If the
+   * input names fields, the view reads only those fields.
+   */
+  private static View toInputView(DataIn input, String[] uris, Map<ViewLoader.Key,View> loaded) {
+
+    View view;
+
+    if (uris.length == 1) {
+
+      view = loaded.get(new ViewLoader.Key(uris[0], input.type()));
+
+    } else {
+
+      List<View> views = Lists.newArrayList();
+
+      for (String uri: uris) {
+        views.add(loaded.get(new ViewLoader.Key(uri, input.type())));
+      }
+
+      view = new UnionView(views);
+    }
+
+    if (input.fields().length > 0) {
+
+      Schema schema = view.getDataset().getDescriptor().getSchema();
+
+      view = view.asSchema(Projections.project(schema, input.fields()));
+    }
+
+    return view;
+  }
+
+  private static int getInt(Map<String,String> settings, String name, int defaultValue) {
+
+    String value = settings.get(name);
+
+    if (value == null)
+      return defaultValue;
+
+    try {
+      return Integer.parseInt(value.trim());
+    } catch (NumberFormatException e) {
+      throw new AppException("Invalid value for " + name + ": " + value, e);
+    }
+  }
+
+  /**
+   * Returns true if any output of the job is at a location templated by
+   * nominal time, so each nominal time of a catch-up launch must be run
+   * on its own to write and signal its own outputs.
+   */
+  private static boolean outputsByNominalTime(SchedulableJobManager manager, Configuration conf) {
+
+    for (DataOut output: manager.getOutputs().values()) {
+
+      String template = conf.get(CATCH_UP_TEMPLATE + toIdentifier(output.name()));
+
+      if (template != null && CatchUp.isTemplated(template))
+        return true;
+    }
+
+    return false;
+  }
+
+  /**
+   * Returns the earlier nominal times a launch of a catch-up schedule runs
+   * one at a time, in chronological order, before its own nominal time.
+   * These are the nominal times since the job's last completed run for
+   * jobs with outputs templated by nominal time, so each run writes and
+   * signals its own outputs. Other jobs merge those nominal times into a
+   * single run, so this is empty for them.
+   *
+   * @return the earlier nominal times to run before the launched one
+   */
+  public static List<Instant> getCatchUpTimes(SchedulableJobManager manager, Configuration conf) {
+
+    if (!outputsByNominalTime(manager, conf))
+      return Collections.emptyList();
+
+    return coalescedTimes(manager, conf);
+  }
+
+  /**
+   * Loads the Kite views to be passed to a job at runtime. The views
+   * are loaded concurrently, up to the {@value #LOAD_VIEWS_THREADS} job
+   * setting at once, and views named more than once are loaded once.
+   * Views are always loaded fresh, so each run sees the current schema.
+   *
+   * A catch-up run of a job without outputs templated by nominal time
+   * also reads the instances of the earlier nominal times merged into it.
+   * Jobs with templated outputs instead run those nominal times on their
+   * own, as returned by {@link #getCatchUpTimes}.
    *
    * @return A map of named inputs to the corresponding views
    */
   public static Map<String,View> loadViews(SchedulableJobManager manager, Configuration conf) {
 
-    Map<String,View> views = Maps.newHashMap();
+    Map<String,String[]> inputUris = Maps.newHashMap();
 
-    Collection<DataIn> inputs = manager.getInputs().values();
+    List<Instant> coalesced = outputsByNominalTime(manager, conf) ?
+        Collections.<Instant>emptyList() :
+        coalescedTimes(manager, conf);
 
-    for (DataIn input: inputs) {
+    for (DataIn input: manager.getInputs().values()) {
 
-      String uri = conf.get("wf_" + OozieScheduling.toIdentifier(input.name()));
+      String[] uris = inputUris(input, conf);
 
-      views.put(input.name(),
-          Datasets.load(uri, input.type()));
+      // Catch-up runs read the inputs of the merged nominal times as well.
+      if (!coalesced.isEmpty()) {
+
+        String constraints = conf.get(INPUT_CONSTRAINTS + toIdentifier(input.name()));
+
+        Set<String> allUris = Sets.newLinkedHashSet();
+
+        for (String uri: catchUpUris(input.name(), coalesced, conf)) {
+          allUris.add(constrain(uri, constraints));
+        }
+
+        allUris.addAll(Arrays.asList(uris));
+
+        uris = allUris.toArray(new String[allUris.size()]);
+      }
+
+      inputUris.put(input.name(), uris);
     }
 
-    Collection<DataOut> outputs = manager.getOutputs().values();
+    Map<String,String> outputUris = Maps.newHashMap();
+
+    for (DataOut output: manager.getOutputs().values()) {
+
+      outputUris.put(output.name(), conf.get("wf_" + toIdentifier(output.name())));
+    }
+
+    return loadViews(manager, inputUris, outputUris);
+  }
+
+  /**
+   * Loads the Kite views of a catch-up job at one of the earlier nominal
+   * times returned by {@link #getCatchUpTimes}, resolving them from the
+   * schedule's URI templates as Oozie does for the launched nominal time.
+   *
+   * @return A map of named inputs to the corresponding views
+   */
+  public static Map<String,View> loadViews(SchedulableJobManager manager, Configuration conf,
+                                           Instant nominalTime) {
+
+    List<Instant> nominalTimes = Collections.singletonList(nominalTime);
+
+    Map<String,String[]> inputUris = Maps.newHashMap();
+
+    for (DataIn input: manager.getInputs().values()) {
+
+      String constraints = conf.get(INPUT_CONSTRAINTS + toIdentifier(input.name()));
+
+      List<String> uris = Lists.newArrayList();
+
+      for (String uri: catchUpUris(input.name(), nominalTimes, conf)) {
+        uris.add(constrain(uri, constraints));
+      }
+
+      inputUris.put(input.name(), uris.toArray(new String[uris.size()]));
+    }
+
+    Map<String,String> outputUris = Maps.newHashMap();
+
+    for (DataOut output: manager.getOutputs().values()) {
+
+      outputUris.put(output.name(),
+          catchUpUris(output.name(), nominalTimes, conf).iterator().next());
+    }
+
+    return loadViews(manager, inputUris, outputUris);
+  }
+
+  private static Map<String,View> loadViews(SchedulableJobManager manager,
+                                            Map<String,String[]> inputUris,
+                                            Map<String,String> outputUris) {
+
+    long start = System.currentTimeMillis();
+
+    Map<String,String> settings = manager.getJobContext().getSettings();
+
+    int threads = getInt(settings, LOAD_VIEWS_THREADS, DEFAULT_LOAD_VIEWS_THREADS);
 
-    for (DataOut output: outputs) {
+    // Gather every view to load so they can be loaded together.
+    List<ViewLoader.Key> keys = Lists.newArrayList();
 
-      String uri = conf.get("wf_" + OozieScheduling.toIdentifier(output.name()));
+    for (DataIn input: manager.getInputs().values()) {
+
+      for (String uri: inputUris.get(input.name())) {
+        keys.add(new ViewLoader.Key(uri, input.type()));
+      }
+    }
+
+    for (DataOut output: manager.getOutputs().values()) {
+
+      keys.add(new ViewLoader.Key(outputUris.get(output.name()), output.type()));
+    }
+
+    Map<ViewLoader.Key,View> loaded = ViewLoader.load(keys, threads);
+
+    Map<String,View> views = Maps.newHashMap();
+
+    for (DataIn input: manager.getInputs().values()) {
+
+      views.put(input.name(), toInputView(input, inputUris.get(input.name()), loaded));
+    }
+
+    for (DataOut output: manager.getOutputs().values()) {
 
       views.put(output.name(),
-          Datasets.load(uri, output.type()));
+          loaded.get(new ViewLoader.Key(outputUris.get(output.name()), output.type())));
     }
 
+    long elapsed = System.currentTimeMillis() - start;
+
+    LOG.info("Loaded {} views for job {} in {} ms.",
+        new Object[] {keys.size(), manager.getName(), elapsed});
+
+    manager.getRunRecord().addTiming(RunRecord.LOAD_VIEWS, elapsed);
+
     return views;
   }
 
+  private static String toClassList(List<Class<? extends Throwable>> types) {
+
+    StringBuilder builder = new StringBuilder();
+
+    for (Class<? extends Throwable> type: types) {
+
+      if (builder.length() > 0)
+        builder.append(",");
+
+      builder.append(type.getName());
+    }
+
+    return builder.toString();
+  }
+
+  private static void addTypes(Configuration conf, String name, RetryPolicy.Builder builder,
+                               boolean retryable) {
+
+    for (String className: conf.getTrimmedStrings(name)) {
+
+      Class<? extends Throwable> type;
+
+      try {
+        type = Thread.currentThread().getContextClassLoader()
+            .loadClass(className)
+            .asSubclass(Throwable.class);
+
+      } catch (ClassNotFoundException e) {
+        throw new AppException(e);
+      }
+
+      if (retryable)
+        builder.retryOn(type);
+      else
+        builder.failOn(type);
+    }
+  }
+
+  /**
+   * Returns the settings needed to apply the schedule's retry
+   * policy in the job launcher.
+   */
+  private static Map<String,String> getRetrySettings(Schedule schedule) {
+
+    Map<String,String> settings = Maps.newHashMap();
+
+    RetryPolicy policy = schedule.getRetryPolicy();
+
+    if (policy != null) {
+      settings.put(RETRY_MAX, Integer.toString(policy.getMaxRetries()));
+      settings.put(RETRY_INTERVAL, Long.toString(policy.getIntervalSeconds()));
+      settings.put(RETRY_BACKOFF, Double.toString(policy.getBackoffMultiplier()));
+      settings.put(RETRY_MAX_INTERVAL, Long.toString(policy.getMaxIntervalSeconds()));
+      settings.put(RETRY_ON, toClassList(policy.getRetryOn()));
+
+      if (!policy.getFailOn().isEmpty())
+        settings.put(RETRY_FAIL_ON, toClassList(policy.getFailOn()));
+    }
+
+    return settings;
+  }
+
+  /**
+   * Gets the policy for runs with empty inputs passed to the job
+   * launcher in the given configuration, which defaults to running
+   * the job regardless of its inputs.
+   */
+  public static Schedule.EmptyInputPolicy getEmptyInputPolicy(Configuration conf) {
+
+    String policy = conf.get(EMPTY_INPUTS);
+
+    return policy != null ?
+        Schedule.EmptyInputPolicy.valueOf(policy) :
+        Schedule.EmptyInputPolicy.RUN;
+  }
+
+  /**
+   * Gets the retry policy passed to the job launcher in the given
+   * configuration, or null if the job's runs should not be retried
+   * by the launcher.
+   */
+  public static RetryPolicy getRetryPolicy(Configuration conf) {
+
+    if (conf.get(RETRY_MAX) == null)
+      return null;
+
+    RetryPolicy.Builder builder = new RetryPolicy.Builder()
+        .maxRetries(conf.getInt(RETRY_MAX, 0))
+        .interval(conf.getLong(RETRY_INTERVAL, 0))
+        .backoff(Double.parseDouble(conf.get(RETRY_BACKOFF, "1.0")),
+            conf.getLong(RETRY_MAX_INTERVAL, 0));
+
+    addTypes(conf, RETRY_ON, builder, true);
+    addTypes(conf, RETRY_FAIL_ON, builder, false);
+
+    return builder.build();
+  }
+
   /**
    * Returns the settings to be passed to a job runner.
    */
@@ -482,6 +1107,14 @@ public class OozieScheduling {
       settings.put("wf_" + toIdentifier(name), "${coord_" + toIdentifier(name) + "}");
     }
 
+    settings.putAll(getRetrySettings(schedule));
+
+    settings.putAll(getConstraintSettings(schedule));
+
+    settings.put(EMPTY_INPUTS, schedule.getEmptyInputPolicy().name());
+
+    settings.putAll(getCatchUpSettings(schedule, conf));
+
     return settings;
   }
 
@@ -500,5 +1133,22 @@ public class OozieScheduling {
 
       property(writer, "wf_" + toIdentifier(name), "${coord_" + toIdentifier(name) + "}");
     }
+
+    for (Map.Entry<String,String> setting: getRetrySettings(schedule).entrySet()) {
+
+      property(writer, setting.getKey(), setting.getValue());
+    }
+
+    for (Map.Entry<String,String> setting: getConstraintSettings(schedule).entrySet()) {
+
+      property(writer, setting.getKey(), setting.getValue());
+    }
+
+    property(writer, EMPTY_INPUTS, schedule.getEmptyInputPolicy().name());
+
+    for (Map.Entry<String,String> setting: getCatchUpSettings(schedule, conf).entrySet()) {
+
+      property(writer, setting.getKey(), setting.getValue());
+    }
   }
 }
\ No newline at end of file
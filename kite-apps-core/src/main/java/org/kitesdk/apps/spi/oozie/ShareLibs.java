@@ -21,50 +21,101 @@ import org.apache.hadoop.fs.FileStatus;
 import org.apache.hadoop.fs.FileSystem;
 import org.apache.hadoop.fs.Path;
 import org.apache.hadoop.fs.PathFilter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 import java.io.IOException;
-import java.text.ParseException;
-import java.text.SimpleDateFormat;
-import java.util.Date;
+import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 /**
  * Support for working with Oozie shared libraries.
+ *
+ * Resolving a shared library lists the sharelib root and its latest
+ * library directory, which is done for every scheduled and streaming job
+ * installed. Results are cached per filesystem, sharelib root and library
+ * name for {@link #CACHE_TTL_SECONDS}, and may be cleared with
+ * {@link #invalidate()} after the sharelib is updated.
  */
 public class ShareLibs {
 
+  private static final Logger LOG = LoggerFactory.getLogger(ShareLibs.class);
+
   private static final String DEFAULT_SHARE_LIB_PATH = "/user/oozie/share/lib";
 
+  /**
+   * Configuration property for the number of seconds a resolved shared
+   * library is cached. Zero disables caching.
+   */
+  public static final String CACHE_TTL_SECONDS = "kite.apps.sharelib.cache.ttl.seconds";
+
+  private static final long DEFAULT_CACHE_TTL_SECONDS = 300;
+
+  private static final String LIB_PREFIX = "lib_";
+
+  // Length of the yyyyMMddHHmmss timestamp of a sharelib directory.
+  private static final int TIMESTAMP_LENGTH = 14;
+
+  private static final ConcurrentMap<String, CachedJars> CACHE =
+      new ConcurrentHashMap<String, CachedJars>();
+
+  private static class CachedJars {
+
+    private final List<Path> jars;
+
+    private final long loadedMillis;
+
+    CachedJars(List<Path> jars, long loadedMillis) {
+      this.jars = jars;
+      this.loadedMillis = loadedMillis;
+    }
+  }
+
+  /**
+   * Returns the timestamp of the given sharelib directory name, or null if
+   * it is not a timestamped directory. The timestamp is fixed width, so
+   * timestamps compare in time order as strings and need not be parsed.
+   */
+  private static String timestamp(String name) {
+
+    if (name.length() != LIB_PREFIX.length() + TIMESTAMP_LENGTH)
+      return null;
+
+    String time = name.substring(LIB_PREFIX.length());
+
+    for (int i = 0; i < time.length(); ++i) {
+      if (!Character.isDigit(time.charAt(i)))
+        return null;
+    }
 
+    return time;
+  }
 
   /**
    * Based on ShareLibService.getLatestLibPath, which is not available
    * in client libraries.
    */
   private static Path getLatestLibPath(FileSystem fs, Path rootDir) throws IOException {
-    Date max = new Date(0L);
+    String max = null;
     Path path = null;
     PathFilter directoryFilter = new PathFilter() {
       @Override
       public boolean accept(Path path) {
-        return path.getName().startsWith("lib_");
+        return path.getName().startsWith(LIB_PREFIX);
       }
     };
 
     FileStatus[] files = fs.listStatus(rootDir, directoryFilter);
     for (FileStatus file : files) {
-      String name = file.getPath().getName().toString();
-      String time = name.substring("lib_".length());
-      Date d = null;
-      try {
-        d = new SimpleDateFormat("yyyyMMddHHmmss").parse(time);
-      }
-      catch (ParseException e) {
+      String time = timestamp(file.getPath().getName());
+      if (time == null) {
         continue;
       }
-      if (d.compareTo(max) > 0) {
+      if (max == null || time.compareTo(max) > 0) {
         path = file.getPath();
-        max = d;
+        max = time;
       }
     }
     //If there are no timestamped directories, fall back to root directory
@@ -76,20 +127,71 @@ public class ShareLibs {
 
   /**
    * Returns a list of absolute paths to the JARs in the given shared library,
-   * or an empty list if the given shared library does not exist.
+   * or an empty list if the given shared library does not exist. Results
+   * are cached as described in the class documentation.
    */
   public static List<Path> jars(Configuration conf, String sharedLibName) throws IOException {
 
-    List<Path> sharedLibJars = Lists.newArrayList();
+    FileSystem fs = FileSystem.get(conf);
 
-    // Oozie does not provide a client-facing way to enumerate sharedlib
-    // contents, so we look at the shared library location ourselves.
+    String sharelib = conf.get("system.libpath", DEFAULT_SHARE_LIB_PATH);
+
+    long ttlMillis = conf.getLong(CACHE_TTL_SECONDS, DEFAULT_CACHE_TTL_SECONDS) * 1000L;
+
+    if (ttlMillis <= 0)
+      return resolve(fs, new Path(sharelib), sharedLibName);
+
+    String key = cacheKey(fs, sharelib, sharedLibName);
+
+    long now = System.currentTimeMillis();
+
+    CachedJars cached = CACHE.get(key);
+
+    if (cached == null || now - cached.loadedMillis >= ttlMillis) {
+
+      cached = new CachedJars(resolve(fs, new Path(sharelib), sharedLibName), now);
+
+      CACHE.put(key, cached);
+
+    } else {
+      LOG.debug("Using cached sharelib {} from {}.", sharedLibName, sharelib);
+    }
+
+    return Lists.newArrayList(cached.jars);
+  }
+
+  /**
+   * Clears all cached shared libraries, so the next lookups
+   * see the current contents of the sharelib.
+   */
+  public static void invalidate() {
+    CACHE.clear();
+  }
+
+  /**
+   * Clears the cached shared library with the given name
+   * in the sharelib configured for the given configuration.
+   */
+  public static void invalidate(Configuration conf, String sharedLibName) throws IOException {
 
     FileSystem fs = FileSystem.get(conf);
 
     String sharelib = conf.get("system.libpath", DEFAULT_SHARE_LIB_PATH);
 
-    Path sharelibPath = new Path(sharelib);
+    CACHE.remove(cacheKey(fs, sharelib, sharedLibName));
+  }
+
+  private static String cacheKey(FileSystem fs, String sharelib, String sharedLibName) {
+    return fs.getUri() + "|" + sharelib + "|" + sharedLibName;
+  }
+
+  private static List<Path> resolve(FileSystem fs, Path sharelibPath,
+                                    String sharedLibName) throws IOException {
+
+    List<Path> sharedLibJars = Lists.newArrayList();
+
+    // Oozie does not provide a client-facing way to enumerate sharedlib
+    // contents, so we look at the shared library location ourselves.
 
     if (fs.exists(sharelibPath)) {
 
@@ -107,6 +209,6 @@ public class ShareLibs {
       }
     }
 
-    return sharedLibJars;
+    return Collections.unmodifiableList(sharedLibJars);
   }
 }
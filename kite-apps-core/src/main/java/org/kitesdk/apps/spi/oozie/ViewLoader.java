@@ -0,0 +1,154 @@
+/**
+ * Copyright 2015 Cerner Corporation.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.kitesdk.apps.spi.oozie;
+
+import com.google.common.base.Objects;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import org.kitesdk.apps.AppException;
+import org.kitesdk.data.Datasets;
+import org.kitesdk.data.View;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Loads Kite views for job runs concurrently, since each load may make
+ * several round trips to the Hive metastore. Views named more than once
+ * in a load, like inputs and outputs sharing a URI, are loaded once.
+ * Nothing is kept between loads, so each run sees the current datasets.
+ */
+final class ViewLoader {
+
+  private ViewLoader() {
+  }
+
+  /**
+   * A view to load, identified by its URI and entity type.
+   */
+  static final class Key {
+
+    private final String uri;
+
+    private final Class type;
+
+    Key(String uri, Class type) {
+      this.uri = uri;
+      this.type = type;
+    }
+
+    @Override
+    public boolean equals(Object other) {
+
+      if (!(other instanceof Key))
+        return false;
+
+      Key that = (Key) other;
+
+      return uri.equals(that.uri) && type.equals(that.type);
+    }
+
+    @Override
+    public int hashCode() {
+      return Objects.hashCode(uri, type);
+    }
+
+    @Override
+    public String toString() {
+      return uri + " as " + type.getName();
+    }
+  }
+
+  /**
+   * Loads the given views, using up to the given number of threads.
+   *
+   * @param keys the views to load
+   * @param threads the largest number of views to load at once
+   * @return the loaded views
+   */
+  static Map<Key,View> load(Collection<Key> keys, int threads) {
+
+    Map<Key,View> views = Maps.newHashMap();
+
+    List<Key> toLoad = Lists.newArrayList(Sets.newLinkedHashSet(keys));
+
+    if (toLoad.size() <= 1 || threads <= 1) {
+
+      for (Key key: toLoad) {
+        views.put(key, Datasets.load(key.uri, key.type));
+      }
+
+    } else {
+
+      ExecutorService executor = Executors.newFixedThreadPool(Math.min(threads, toLoad.size()),
+          new ThreadFactoryBuilder().setDaemon(true).setNameFormat("kite-view-loader-%d").build());
+
+      try {
+
+        Map<Key,Future<View>> futures = Maps.newHashMap();
+
+        for (final Key key: toLoad) {
+
+          futures.put(key, executor.submit(new Callable<View>() {
+            @Override
+            public View call() {
+              return Datasets.load(key.uri, key.type);
+            }
+          }));
+        }
+
+        for (Map.Entry<Key,Future<View>> future: futures.entrySet()) {
+          views.put(future.getKey(), get(future.getKey(), future.getValue()));
+        }
+
+      } finally {
+        executor.shutdownNow();
+      }
+    }
+
+    return views;
+  }
+
+  private static View get(Key key, Future<View> future) {
+
+    try {
+
+      return future.get();
+
+    } catch (InterruptedException e) {
+
+      Thread.currentThread().interrupt();
+
+      throw new AppException("Interrupted while loading view " + key, e);
+
+    } catch (ExecutionException e) {
+
+      // Rethrow Kite's own exceptions, like DatasetNotFoundException, as they are.
+      if (e.getCause() instanceof RuntimeException)
+        throw (RuntimeException) e.getCause();
+
+      throw new AppException("Unable to load view " + key, e.getCause());
+    }
+  }
+}
@@ -18,6 +18,7 @@ package org.kitesdk.apps;
 import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.Maps;
 import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.Path;
 import org.junit.Assert;
 import org.junit.Test;
 import org.kitesdk.apps.streaming.MockStreamingJob;
@@ -114,6 +115,124 @@ public class JobContextTest {
     Assert.assertEquals("4096", conf.get("mapreduce.reduce.memory.mb"));
   }
 
+  private static void assertReadOnly(Configuration conf, Runnable change) {
+
+    try {
+      change.run();
+      Assert.fail("Read-only configuration should not be modifiable.");
+    } catch (UnsupportedOperationException e) {
+      // expected
+    }
+
+    Assert.assertEquals("2048", conf.get("mapreduce.map.memory.mb"));
+  }
+
+  @Test
+  public void testReadOnlyHadoopConf() {
+
+    AppContext context = context("hadoop.mapreduce.map.memory.mb", "2048");
+
+    JobContext jobContext = jobContext(context);
+
+    final Configuration readOnly = jobContext.getReadOnlyHadoopConf();
+
+    Assert.assertEquals("2048", readOnly.get("mapreduce.map.memory.mb"));
+    Assert.assertSame(readOnly, jobContext.getReadOnlyHadoopConf());
+    Assert.assertSame(context.getReadOnlyHadoopConf(), context.getReadOnlyHadoopConf());
+
+    assertReadOnly(readOnly, new Runnable() {
+      public void run() {
+        readOnly.set("mapreduce.map.memory.mb", "1024");
+      }
+    });
+
+    assertReadOnly(readOnly, new Runnable() {
+      public void run() {
+        readOnly.unset("mapreduce.map.memory.mb");
+      }
+    });
+
+    assertReadOnly(readOnly, new Runnable() {
+      public void run() {
+        readOnly.addResource(new Path("file:///tmp/other-site.xml"));
+      }
+    });
+
+    assertReadOnly(readOnly, new Runnable() {
+      public void run() {
+        readOnly.addResource(new Configuration(false));
+      }
+    });
+
+    assertReadOnly(readOnly, new Runnable() {
+      public void run() {
+        readOnly.setClassLoader(JobContextTest.class.getClassLoader());
+      }
+    });
+
+    assertReadOnly(readOnly, new Runnable() {
+      public void run() {
+        readOnly.setQuietMode(false);
+      }
+    });
+
+    assertReadOnly(readOnly, new Runnable() {
+      public void run() {
+        readOnly.setAllowNullValueProperties(true);
+      }
+    });
+
+    assertReadOnly(readOnly, new Runnable() {
+      public void run() {
+        readOnly.setDeprecatedProperties();
+      }
+    });
+
+    assertReadOnly(readOnly, new Runnable() {
+      public void run() {
+        readOnly.clear();
+      }
+    });
+
+    // Reloading re-reads the same resources and keeps the overrides.
+    readOnly.reloadConfiguration();
+
+    Assert.assertEquals("2048", readOnly.get("mapreduce.map.memory.mb"));
+
+    // Copies remain modifiable.
+    Configuration copy = jobContext.getHadoopConf();
+
+    copy.set("mapreduce.map.memory.mb", "1024");
+
+    Assert.assertEquals("1024", copy.get("mapreduce.map.memory.mb"));
+    Assert.assertEquals("2048", readOnly.get("mapreduce.map.memory.mb"));
+  }
+
+  @Test
+  public void testSettingsSnapshot() {
+
+    AppContext context = context("kite.job." + JOB_NAME + ".input.source-users.my.setting", "input.value",
+        "kite.job." + JOB_NAME + ".input.source-users-other.my.setting", "other.value",
+        "my.setting", "general.value");
+
+    JobContext jobContext = jobContext(context);
+
+    Map<String,String> inputSettings = jobContext.getInputSettings("source-users");
+
+    // A parameter's own settings override general ones, and settings of
+    // parameters whose names share a prefix are not included.
+    Assert.assertEquals(ImmutableMap.of("my.setting", "input.value"), inputSettings);
+
+    Assert.assertSame(inputSettings, jobContext.getInputSettings("source-users"));
+
+    try {
+      inputSettings.put("my.setting", "changed.value");
+      Assert.fail("Settings snapshot should not be modifiable.");
+    } catch (UnsupportedOperationException e) {
+      // expected
+    }
+  }
+
   @Test
   public void testStreamSettings() {
 
@@ -0,0 +1,83 @@
+/**
+ * Copyright 2015 Cerner Corporation.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.kitesdk.apps.scheduled;
+
+import org.junit.Test;
+import org.kitesdk.apps.AppException;
+import org.kitesdk.data.DatasetIOException;
+
+import java.io.IOException;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class RetryPolicyTest {
+
+  @Test
+  public void testExponentialDelay() {
+
+    RetryPolicy policy = new RetryPolicy.Builder()
+        .maxRetries(5)
+        .interval(10)
+        .backoff(2.0, 60)
+        .build();
+
+    assertEquals(10000L, policy.getDelayMillis(0));
+    assertEquals(20000L, policy.getDelayMillis(1));
+    assertEquals(40000L, policy.getDelayMillis(2));
+
+    // The delay should be capped at the maximum interval.
+    assertEquals(60000L, policy.getDelayMillis(3));
+    assertEquals(60000L, policy.getDelayMillis(4));
+  }
+
+  @Test
+  public void testDefaultRetriesIOFailures() {
+
+    RetryPolicy policy = new RetryPolicy.Builder().build();
+
+    assertTrue(policy.isRetryable(new AppException(new IOException("transient"))));
+    assertTrue(policy.isRetryable(new DatasetIOException("transient", new IOException())));
+    assertFalse(policy.isRetryable(new AppException(new IllegalStateException("bug"))));
+  }
+
+  @Test
+  public void testFailOnOverridesRetryOn() {
+
+    RetryPolicy policy = new RetryPolicy.Builder()
+        .failOn(IllegalArgumentException.class)
+        .build();
+
+    Exception failure = new AppException(
+        new IllegalArgumentException("bad input", new IOException()));
+
+    assertFalse(policy.isRetryable(failure));
+  }
+
+  @Test
+  public void testMaxRetries() {
+
+    RetryPolicy policy = new RetryPolicy.Builder()
+        .maxRetries(1)
+        .build();
+
+    Exception failure = new AppException(new IOException("transient"));
+
+    assertTrue(policy.shouldRetry(failure, 0));
+    assertFalse(policy.shouldRetry(failure, 1));
+  }
+}
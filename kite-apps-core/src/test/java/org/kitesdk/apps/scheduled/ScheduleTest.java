@@ -102,4 +102,38 @@ public class ScheduleTest {
         .jobClass(ScheduledInputOutputJob.class)
         .build();
   }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testNotScheduledJob() {
+
+    new Schedule.Builder().jobClass(String.class);
+  }
+
+  @Test
+  public void testCatchUp() {
+
+    Schedule schedule = new Schedule.Builder()
+        .jobClass(ScheduledInputOutputJob.class)
+        .frequency("0 * * * *")
+        .withInput("source_users", ScheduledInputOutputApp.INPUT_URI_PATTERN, "0 * * * *")
+        .withOutput("target_users", ScheduledInputOutputApp.OUTPUT_URI_PATTERN)
+        .catchUp(24)
+        .build();
+
+    assertEquals(24, schedule.getCatchUpLimit());
+    assertEquals(Schedule.ExecutionOrder.LAST_ONLY, schedule.getExecutionOrder());
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testCatchUpExecutionOrder() {
+
+    new Schedule.Builder()
+        .jobClass(ScheduledInputOutputJob.class)
+        .frequency("0 * * * *")
+        .withInput("source_users", ScheduledInputOutputApp.INPUT_URI_PATTERN, "0 * * * *")
+        .withOutput("target_users", ScheduledInputOutputApp.OUTPUT_URI_PATTERN)
+        .executionOrder(Schedule.ExecutionOrder.FIFO)
+        .catchUp(24)
+        .build();
+  }
 }
@@ -40,7 +40,9 @@ import java.io.File;
 import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.util.Arrays;
 import java.util.Collections;
+import java.util.List;
 import java.util.Properties;
 import java.util.Random;
 
@@ -106,6 +108,84 @@ public class AppDeployerTest extends MiniDFSTest {
     assertValidInstallation(testDirectory);
   }
 
+  private static File createTestJar(String name, String content) throws IOException {
+
+    File jar = new File(Files.createTempDir(), name);
+
+    Files.write(content.getBytes("UTF-8"), jar);
+
+    return jar;
+  }
+
+  @Test
+  public void testRedeployWithJarStore() throws Exception {
+
+    Path storePath = createTestDirectory();
+
+    JarStore store = new JarStore(fs, storePath);
+
+    AppDeployer deployer = new AppDeployer(fs, new AppContext(getConfiguration()), store);
+
+    ScheduledInputOutputApp app = new ScheduledInputOutputApp();
+
+    app.setup(new AppContext(getConfiguration()));
+
+    File propFile = createTestProperties();
+
+    File unchanged = createTestJar("unchanged.jar", "unchanged content");
+
+    Path firstInstall = createTestDirectory();
+
+    deployer.install(app, firstInstall, propFile,
+        Arrays.asList(unchanged, createTestJar("changed.jar", "first content")));
+
+    assertValidInstallation(firstInstall);
+
+    Path secondInstall = createTestDirectory();
+
+    deployer.install(app, secondInstall, propFile,
+        Arrays.asList(unchanged, createTestJar("changed.jar", "second content")));
+
+    assertValidInstallation(secondInstall);
+
+    // The unchanged JAR should be stored once and the changed JAR twice.
+    Assert.assertEquals(3, fs.listStatus(store.getRoot()).length);
+
+    List<Path> firstJars = JarStore.libraryJars(fs, firstInstall);
+    List<Path> secondJars = JarStore.libraryJars(fs, secondInstall);
+
+    Assert.assertEquals(2, secondJars.size());
+    Assert.assertEquals(firstJars.get(0), secondJars.get(0));
+    Assert.assertFalse(firstJars.get(1).equals(secondJars.get(1)));
+  }
+
+  @Test
+  public void testStoreIntoExistingDirectory() throws Exception {
+
+    JarStore store = new JarStore(fs, createTestDirectory());
+
+    File jar = createTestJar("concurrent.jar", "concurrent content");
+
+    // Another installer has created the JAR's directory but not yet stored it.
+    Path checksumDir = new Path(store.getRoot(), JarStore.checksum(jar));
+
+    fs.mkdirs(checksumDir);
+
+    Path stored = store.add(jar);
+
+    Assert.assertEquals(new Path(checksumDir, "concurrent.jar"), stored);
+
+    // The JAR is stored directly in its directory and no upload is left behind.
+    FileStatus[] contents = fs.listStatus(checksumDir);
+
+    Assert.assertEquals(1, contents.length);
+    Assert.assertEquals(stored, contents[0].getPath());
+    Assert.assertEquals(1, fs.listStatus(store.getRoot()).length);
+
+    // Adding it again reuses the stored JAR.
+    Assert.assertEquals(stored, store.add(jar));
+  }
+
   /**
    * Asserts that the application installed at thet given path is a valid
    * structure.
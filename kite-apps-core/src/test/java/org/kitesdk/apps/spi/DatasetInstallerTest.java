@@ -0,0 +1,132 @@
+/**
+ * Copyright 2015 Cerner Corporation.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.kitesdk.apps.spi;
+
+import com.google.common.collect.ImmutableMap;
+import org.apache.avro.Schema;
+import org.apache.avro.SchemaBuilder;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.kitesdk.data.DatasetDescriptor;
+import org.kitesdk.data.Datasets;
+
+import java.util.Map;
+
+public class DatasetInstallerTest {
+
+  @Rule
+  public TemporaryFolder folder = new TemporaryFolder();
+
+  private String root;
+
+  private DatasetDescriptor descriptor;
+
+  @Before
+  public void setup() {
+
+    root = folder.getRoot().getAbsolutePath();
+
+    descriptor = new DatasetDescriptor.Builder()
+        .schema(SchemaBuilder.record("Event")
+            .namespace("org.kitesdk.apps.test")
+            .fields()
+            .requiredLong("user_id")
+            .endRecord())
+        .build();
+  }
+
+  @Test
+  public void testInstall() {
+
+    String uri = "dataset:file:" + root + "/events";
+
+    Assert.assertEquals(DatasetInstaller.Result.CREATED,
+        DatasetInstaller.install(uri, descriptor));
+
+    Assert.assertEquals(DatasetInstaller.Result.UNCHANGED,
+        DatasetInstaller.install(uri, descriptor));
+
+    // Adding an optional field is a compatible change.
+    Schema merged = SchemaBuilder.record("Event")
+        .namespace("org.kitesdk.apps.test")
+        .fields()
+        .requiredLong("user_id")
+        .optionalString("session_id")
+        .endRecord();
+
+    DatasetDescriptor updated = new DatasetDescriptor.Builder(descriptor)
+        .schema(merged)
+        .build();
+
+    Assert.assertEquals(DatasetInstaller.Result.UPDATED,
+        DatasetInstaller.install(uri, updated));
+
+    Assert.assertEquals(merged, Datasets.load(uri).getDescriptor().getSchema());
+  }
+
+  @Test
+  public void testDiffers() {
+
+    DatasetDescriptor withProperty = new DatasetDescriptor.Builder(descriptor)
+        .property("example.property", "value")
+        .build();
+
+    Assert.assertFalse(DatasetInstaller.differs(descriptor, descriptor));
+    Assert.assertTrue(DatasetInstaller.differs(withProperty, descriptor));
+
+    // Properties only in the existing descriptor are ignored.
+    Assert.assertFalse(DatasetInstaller.differs(descriptor, withProperty));
+  }
+
+  @Test
+  public void testDiffersQualifiesLocations() {
+
+    DatasetDescriptor unqualified = new DatasetDescriptor.Builder(descriptor)
+        .location(root + "/events")
+        .build();
+
+    DatasetDescriptor qualified = new DatasetDescriptor.Builder(descriptor)
+        .location("file://" + root + "/events/")
+        .build();
+
+    DatasetDescriptor elsewhere = new DatasetDescriptor.Builder(descriptor)
+        .location("file://" + root + "/other")
+        .build();
+
+    Assert.assertFalse(DatasetInstaller.differs(unqualified, qualified));
+    Assert.assertTrue(DatasetInstaller.differs(elsewhere, qualified));
+  }
+
+  @Test
+  public void testInstallAll() {
+
+    Map<String,DatasetDescriptor> descriptors = ImmutableMap.of(
+        "dataset:file:" + root + "/first", descriptor,
+        "dataset:file:" + root + "/second", descriptor,
+        "dataset:file:" + root + "/third", descriptor);
+
+    for (DatasetInstaller.Result result: DatasetInstaller.installAll(descriptors, 4).values()) {
+      Assert.assertEquals(DatasetInstaller.Result.CREATED, result);
+    }
+
+    for (DatasetInstaller.Result result: DatasetInstaller.installAll(descriptors, 4).values()) {
+      Assert.assertEquals(DatasetInstaller.Result.UNCHANGED, result);
+    }
+  }
+}
@@ -0,0 +1,48 @@
+/**
+ * Copyright 2015 Cerner Corporation.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.kitesdk.apps.spi;
+
+import org.apache.avro.Schema;
+import org.junit.Assert;
+import org.junit.Test;
+import org.kitesdk.apps.AppException;
+import org.kitesdk.data.event.StandardEvent;
+
+public class ProjectionsTest {
+
+  @Test
+  public void testProject() {
+
+    Schema schema = StandardEvent.getClassSchema();
+
+    Schema projection = Projections.project(schema, "user_id", "event_initiator");
+
+    Assert.assertEquals(schema.getFullName(), projection.getFullName());
+    Assert.assertEquals(2, projection.getFields().size());
+
+    // Fields keep the order of the original schema.
+    Assert.assertEquals("event_initiator", projection.getFields().get(0).name());
+    Assert.assertEquals(schema.getField("event_initiator").schema(),
+        projection.getFields().get(0).schema());
+    Assert.assertEquals("user_id", projection.getFields().get(1).name());
+  }
+
+  @Test(expected = AppException.class)
+  public void testMissingField() {
+
+    Projections.project(StandardEvent.getClassSchema(), "user_id", "no_such_field");
+  }
+}
@@ -0,0 +1,152 @@
+/**
+ * Copyright 2015 Cerner Corporation.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.kitesdk.apps.spi;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import org.apache.hadoop.conf.Configuration;
+import org.joda.time.Instant;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.kitesdk.data.DatasetDescriptor;
+import org.kitesdk.data.DatasetWriter;
+import org.kitesdk.data.Datasets;
+import org.kitesdk.data.Signalable;
+import org.kitesdk.data.View;
+import org.kitesdk.data.event.StandardEvent;
+
+import java.io.IOException;
+import java.util.Map;
+
+public class ViewManifestTest {
+
+  @Rule
+  public TemporaryFolder folder = new TemporaryFolder();
+
+  private Configuration conf;
+
+  private View<StandardEvent> events;
+
+  private View<StandardEvent> empty;
+
+  @Before
+  public void setup() {
+
+    conf = new Configuration();
+
+    DatasetDescriptor descriptor = new DatasetDescriptor.Builder()
+        .schema(StandardEvent.getClassSchema())
+        .build();
+
+    String root = folder.getRoot().getAbsolutePath();
+
+    events = Datasets.create("dataset:file:" + root + "/events", descriptor, StandardEvent.class);
+    empty = Datasets.create("dataset:file:" + root + "/empty", descriptor, StandardEvent.class);
+
+    DatasetWriter<StandardEvent> writer = events.newWriter();
+
+    try {
+
+      for (long i = 0; i < 10; ++i) {
+
+        writer.write(StandardEvent.newBuilder()
+            .setEventInitiator("user")
+            .setEventName("click")
+            .setUserId(i)
+            .setSessionId("session")
+            .setIp("127.0.0.1")
+            .setTimestamp(1000L + i)
+            .build());
+      }
+
+    } finally {
+      writer.close();
+    }
+  }
+
+  @Test
+  public void testCreate() {
+
+    ViewManifest manifest = ViewManifest.create(events, 10, conf);
+
+    Assert.assertEquals(events.getUri().toString(), manifest.getViewUri());
+    Assert.assertEquals(10, manifest.getRecords());
+    Assert.assertEquals(1, manifest.getFiles().size());
+    Assert.assertTrue(manifest.getBytes() > 0);
+    Assert.assertFalse(manifest.isEmpty());
+
+    Assert.assertTrue(ViewManifest.create(empty, -1, conf).isEmpty());
+  }
+
+  @Test
+  public void testJson() {
+
+    Map<String,Long> files = ImmutableMap.of("file:/tmp/a.avro", 100L, "file:/tmp/b.avro", 200L);
+
+    ViewManifest manifest = new ViewManifest("dataset:file:/tmp/events",
+        new Instant(1000L), 42, files);
+
+    ViewManifest parsed = ViewManifest.parseJson(manifest.toString());
+
+    Assert.assertEquals(manifest.getViewUri(), parsed.getViewUri());
+    Assert.assertEquals(manifest.getCreatedTime(), parsed.getCreatedTime());
+    Assert.assertEquals(42, parsed.getRecords());
+    Assert.assertEquals(files, parsed.getFiles());
+    Assert.assertEquals(300L, parsed.getBytes());
+  }
+
+  @Test
+  public void testLoadReadyView() throws IOException {
+
+    ViewManifest.create(events, 10, conf).write(events, conf);
+
+    // The manifest of a view that is not ready is not used.
+    Assert.assertNull(ViewManifest.load(events, conf));
+
+    ((Signalable) events).signalReady();
+
+    ViewManifest loaded = ViewManifest.load(events, conf);
+
+    Assert.assertNotNull(loaded);
+    Assert.assertEquals(10, loaded.getRecords());
+
+    // The manifest directory is not read as part of the dataset.
+    Assert.assertEquals(1, ViewManifest.create(events, 10, conf).getFiles().size());
+  }
+
+  @Test
+  public void testLoadUnion() throws IOException {
+
+    ViewManifest.create(events, 10, conf).write(events, conf);
+    ((Signalable) events).signalReady();
+
+    UnionView<StandardEvent> union = new UnionView<StandardEvent>(ImmutableList.of(events, empty));
+
+    // A union has a manifest only if all of its views do.
+    Assert.assertNull(ViewManifest.load(union, conf));
+
+    ViewManifest.create(empty, 0, conf).write(empty, conf);
+    ((Signalable) empty).signalReady();
+
+    ViewManifest loaded = ViewManifest.load(union, conf);
+
+    Assert.assertEquals(10, loaded.getRecords());
+    Assert.assertEquals(1, loaded.getFiles().size());
+  }
+}
@@ -0,0 +1,163 @@
+/**
+ * Copyright 2015 Cerner Corporation.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.kitesdk.apps.spi.jobs;
+
+import com.google.common.collect.ImmutableMap;
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.Path;
+import org.joda.time.Instant;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.kitesdk.apps.AppContext;
+import org.kitesdk.apps.DataIn;
+import org.kitesdk.apps.DataOut;
+import org.kitesdk.apps.scheduled.AbstractSchedulableJob;
+import org.kitesdk.apps.scheduled.Schedule;
+import org.kitesdk.apps.spi.ViewManifest;
+import org.kitesdk.data.DatasetDescriptor;
+import org.kitesdk.data.DatasetWriter;
+import org.kitesdk.data.Datasets;
+import org.kitesdk.data.Signalable;
+import org.kitesdk.data.View;
+import org.kitesdk.data.event.StandardEvent;
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.Map;
+
+public class EmptyInputTest {
+
+  @Rule
+  public TemporaryFolder folder = new TemporaryFolder();
+
+  private static int runs = 0;
+
+  public static class CountingJob extends AbstractSchedulableJob {
+
+    @Override
+    public String getName() {
+      return "counting-job";
+    }
+
+    public void run(@DataIn(name="source", type=StandardEvent.class) View<StandardEvent> input,
+                    @DataOut(name="target", type=StandardEvent.class) View<StandardEvent> output) {
+      ++runs;
+    }
+  }
+
+  private SchedulableJobManager manager;
+
+  private Map<String,View> views;
+
+  @Before
+  public void setup() {
+
+    runs = 0;
+
+    DatasetDescriptor descriptor = new DatasetDescriptor.Builder()
+        .schema(StandardEvent.getClassSchema())
+        .build();
+
+    String root = folder.getRoot().getAbsolutePath();
+
+    View<StandardEvent> input = Datasets.create("dataset:file:" + root + "/source",
+        descriptor, StandardEvent.class);
+    View<StandardEvent> output = Datasets.create("dataset:file:" + root + "/target",
+        descriptor, StandardEvent.class);
+
+    views = ImmutableMap.<String,View>of("source", input, "target", output);
+
+    AppContext context = new AppContext(Collections.<String,String>emptyMap(),
+        new Configuration(), new Path(folder.getRoot().toURI()));
+
+    manager = JobManagers.createSchedulable(CountingJob.class, context);
+  }
+
+  @Test
+  public void testRunByDefault() {
+
+    manager.run(new Instant(), views, null, Schedule.EmptyInputPolicy.RUN);
+
+    Assert.assertEquals(1, runs);
+  }
+
+  @Test
+  public void testSkip() {
+
+    Assert.assertTrue(manager.inputsEmpty(views));
+
+    manager.run(new Instant(), views, null, Schedule.EmptyInputPolicy.SKIP);
+
+    Assert.assertEquals(0, runs);
+    Assert.assertFalse(((Signalable) views.get("target")).isReady());
+  }
+
+  @Test
+  public void testSkipAndSignal() {
+
+    manager.run(new Instant(), views, null, Schedule.EmptyInputPolicy.SKIP_AND_SIGNAL);
+
+    Assert.assertEquals(0, runs);
+    Assert.assertTrue(((Signalable) views.get("target")).isReady());
+  }
+
+  @Test
+  public void testNonEmptyInput() {
+
+    DatasetWriter<StandardEvent> writer = ((View<StandardEvent>) views.get("source")).newWriter();
+
+    try {
+      writer.write(StandardEvent.newBuilder()
+          .setEventInitiator("user")
+          .setEventName("click")
+          .setUserId(1L)
+          .setSessionId("session")
+          .setIp("127.0.0.1")
+          .setTimestamp(1000L)
+          .build());
+    } finally {
+      writer.close();
+    }
+
+    Assert.assertFalse(manager.inputsEmpty(views));
+
+    manager.run(new Instant(), views, null, Schedule.EmptyInputPolicy.SKIP);
+
+    Assert.assertEquals(1, runs);
+  }
+
+  @Test
+  public void testSkipAndSignalWithManifests() throws IOException {
+
+    AppContext context = new AppContext(
+        ImmutableMap.of(SchedulableJobManager.MANIFESTS_ENABLED, "true"),
+        new Configuration(), new Path(folder.getRoot().toURI()));
+
+    SchedulableJobManager manifestManager = JobManagers.createSchedulable(CountingJob.class, context);
+
+    manifestManager.run(new Instant(), views, null, Schedule.EmptyInputPolicy.SKIP_AND_SIGNAL);
+
+    Assert.assertEquals(0, runs);
+
+    ViewManifest manifest = ViewManifest.load(views.get("target"), new Configuration());
+
+    Assert.assertNotNull(manifest);
+    Assert.assertTrue(manifest.isEmpty());
+  }
+}
@@ -0,0 +1,133 @@
+/**
+ * Copyright 2015 Cerner Corporation.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.kitesdk.apps.spi.jobs;
+
+import com.google.common.collect.ImmutableMap;
+import org.junit.Assert;
+import org.junit.Test;
+import org.kitesdk.apps.AppException;
+import org.kitesdk.apps.DataIn;
+import org.kitesdk.apps.DataOut;
+import org.kitesdk.data.View;
+import org.kitesdk.data.event.StandardEvent;
+
+import java.lang.reflect.Method;
+
+public class JobDescriptorTest {
+
+  public static class CountingJob {
+
+    int runs = 0;
+
+    public void run(@DataIn(name="source", type=StandardEvent.class) Object input,
+                    @DataOut(name="target", type=StandardEvent.class) Object output) {
+      ++runs;
+    }
+  }
+
+  public static class InheritedJob extends CountingJob {
+  }
+
+  public static class SpecificProjectionJob {
+
+    public void run(@DataIn(name="source", type=StandardEvent.class, fields={"user_id"}) View input) {
+    }
+  }
+
+  @Test
+  public void testDescriptor() {
+
+    JobDescriptor descriptor = JobDescriptor.of(StandardEventsJob.class);
+
+    Assert.assertEquals("run", descriptor.getRunMethod().getName());
+    Assert.assertEquals(1, descriptor.getInputs().size());
+    Assert.assertEquals(1, descriptor.getOutputs().size());
+    Assert.assertEquals(View.class, descriptor.getTypes().get("source.events"));
+    Assert.assertEquals(View.class, descriptor.getTypes().get("target.events"));
+    Assert.assertEquals(1, descriptor.getSchemas().size());
+  }
+
+  @Test
+  public void testCached() {
+
+    Assert.assertSame(JobDescriptor.of(StandardEventsJob.class),
+        JobDescriptor.of(StandardEventsJob.class));
+
+    Method runMethod = JobReflection.resolveRunMethod(StandardEventsJob.class);
+
+    Assert.assertSame(JobDescriptor.of(StandardEventsJob.class),
+        JobDescriptor.of(runMethod));
+  }
+
+  @Test
+  public void testInheritedRunMethod() {
+
+    Method runMethod = JobReflection.resolveRunMethod(InheritedJob.class);
+
+    Assert.assertEquals(CountingJob.class, runMethod.getDeclaringClass());
+
+    // The inherited method is described under the job class.
+    Assert.assertSame(JobDescriptor.of(InheritedJob.class),
+        JobDescriptor.of(InheritedJob.class, runMethod));
+
+    Assert.assertSame(JobDescriptor.of(runMethod), JobDescriptor.of(runMethod));
+  }
+
+  @Test(expected = AppException.class)
+  public void testWrongRunMethod() {
+
+    JobDescriptor.of(StandardEventsJob.class, JobReflection.resolveRunMethod(CountingJob.class));
+  }
+
+  @Test
+  public void testJobName() {
+
+    JobDescriptor descriptor = JobDescriptor.of(StandardEventsJob.class);
+
+    Assert.assertEquals("scheduled-input-output", descriptor.getJobName());
+    Assert.assertSame(descriptor.getJobName(), descriptor.getJobName());
+  }
+
+  @Test(expected = AppException.class)
+  public void testNotAJob() {
+
+    JobDescriptor.of(CountingJob.class).getJobName();
+  }
+
+  @Test
+  public void testInvoke() {
+
+    CountingJob job = new CountingJob();
+
+    JobDescriptor.of(CountingJob.class).invoke(job,
+        ImmutableMap.of("source", new Object(), "target", new Object()));
+
+    Assert.assertEquals(1, job.runs);
+  }
+
+  @Test(expected = AppException.class)
+  public void testMissingParameter() {
+
+    JobDescriptor.of(CountingJob.class).invoke(new CountingJob(),
+        ImmutableMap.of("source", new Object()));
+  }
+
+  @Test(expected = AppException.class)
+  public void testSpecificProjection() {
+
+    JobDescriptor.of(SpecificProjectionJob.class);
+  }
+}
@@ -0,0 +1,278 @@
+/**
+ * Copyright 2015 Cerner Corporation.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.kitesdk.apps.spi.jobs;
+
+import com.google.common.base.Charsets;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.io.ByteStreams;
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.Path;
+import org.joda.time.Instant;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.kitesdk.apps.AppContext;
+import org.kitesdk.apps.DataOut;
+import org.kitesdk.apps.scheduled.AbstractSchedulableJob;
+import org.kitesdk.apps.spi.ViewManifest;
+import org.kitesdk.apps.scheduled.RetryPolicy;
+import org.kitesdk.data.DatasetDescriptor;
+import org.kitesdk.data.DatasetIOException;
+import org.kitesdk.data.DatasetWriter;
+import org.kitesdk.data.Datasets;
+import org.kitesdk.data.PartitionStrategy;
+import org.kitesdk.data.RefinableView;
+import org.kitesdk.data.View;
+import org.kitesdk.data.event.StandardEvent;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Collections;
+
+public class RunRecordTest {
+
+  @Rule
+  public TemporaryFolder folder = new TemporaryFolder();
+
+  public static class ReportingJob extends AbstractSchedulableJob {
+
+    @Override
+    public String getName() {
+      return "reporting-job";
+    }
+
+    public void run() {
+      getJobContext().addOutputRecords("target", 5);
+      getJobContext().addOutputRecords("target", 2);
+    }
+  }
+
+  public static class RetriedJob extends AbstractSchedulableJob {
+
+    private int attempts = 0;
+
+    @Override
+    public String getName() {
+      return "retried-job";
+    }
+
+    public void run() {
+
+      // The first attempt reports records before failing.
+      if (attempts++ == 0) {
+        getJobContext().addOutputRecords("target", 5);
+        throw new DatasetIOException("Transient failure", new IOException());
+      }
+
+      getJobContext().addOutputRecords("target", 2);
+    }
+  }
+
+  public static class WritingJob extends AbstractSchedulableJob {
+
+    @Override
+    public String getName() {
+      return "writing-job";
+    }
+
+    public void run(@DataOut(name="target", type=StandardEvent.class) View<StandardEvent> output) {
+      write(output, "mine", 3);
+    }
+  }
+
+  private static void write(View<StandardEvent> view, String eventName, int count) {
+
+    DatasetWriter<StandardEvent> writer = view.newWriter();
+
+    try {
+
+      for (long i = 0; i < count; ++i) {
+
+        writer.write(StandardEvent.newBuilder()
+            .setEventInitiator("user")
+            .setEventName(eventName)
+            .setUserId(i)
+            .setSessionId("session")
+            .setIp("127.0.0.1")
+            .setTimestamp(1000L + i)
+            .build());
+      }
+
+    } finally {
+      writer.close();
+    }
+  }
+
+  @Test
+  public void testJson() {
+
+    RunRecord record = new RunRecord.Builder()
+        .jobName("test-job")
+        .nominalTime(new Instant(1000L))
+        .startTime(new Instant(2000L))
+        .status(RunRecord.SUCCEEDED)
+        .attempts(2)
+        .addTiming(RunRecord.RUN, 100)
+        .addTiming(RunRecord.RUN, 50)
+        .outputRecords("target", 10)
+        .outputBytes("target", 1024)
+        .build();
+
+    RunRecord parsed = RunRecord.parseJson(record.toString());
+
+    Assert.assertEquals("test-job", parsed.getJobName());
+    Assert.assertEquals(new Instant(1000L), parsed.getNominalTime());
+    Assert.assertEquals(new Instant(2000L), parsed.getStartTime());
+    Assert.assertEquals(RunRecord.SUCCEEDED, parsed.getStatus());
+    Assert.assertEquals(2, parsed.getAttempts());
+    Assert.assertNull(parsed.getError());
+    Assert.assertEquals(ImmutableMap.of(RunRecord.RUN, 150L), parsed.getTimings());
+    Assert.assertEquals(ImmutableMap.of("target", 10L), parsed.getOutputRecords());
+    Assert.assertEquals(ImmutableMap.of("target", 1024L), parsed.getOutputBytes());
+  }
+
+  @Test
+  public void testRecordWritten() throws IOException {
+
+    Configuration conf = new Configuration();
+    Path appRoot = new Path(folder.getRoot().toURI());
+
+    AppContext context = new AppContext(Collections.<String,String>emptyMap(), conf, appRoot);
+
+    SchedulableJobManager manager = JobManagers.createSchedulable(ReportingJob.class, context);
+
+    Instant nominalTime = new Instant(1234L);
+
+    manager.run(nominalTime, Collections.<String,View>emptyMap(), null);
+
+    FileSystem fs = appRoot.getFileSystem(conf);
+
+    InputStream input = fs.open(RunRecord.recordFile(appRoot, "reporting-job", nominalTime));
+
+    RunRecord record;
+
+    try {
+      record = RunRecord.parseJson(new String(ByteStreams.toByteArray(input), Charsets.UTF_8));
+    } finally {
+      input.close();
+    }
+
+    Assert.assertEquals(RunRecord.SUCCEEDED, record.getStatus());
+    Assert.assertEquals(1, record.getAttempts());
+    Assert.assertEquals(nominalTime, record.getNominalTime());
+    Assert.assertEquals(Long.valueOf(7), record.getOutputRecords().get("target"));
+    Assert.assertTrue(record.getTimings().containsKey(RunRecord.RUN));
+    Assert.assertTrue(record.getTimings().containsKey(RunRecord.SIGNAL));
+  }
+
+  private static RunRecord readRecord(FileSystem fs, Path appRoot, String jobName,
+                                      Instant nominalTime) throws IOException {
+
+    InputStream input = fs.open(RunRecord.recordFile(appRoot, jobName, nominalTime));
+
+    try {
+      return RunRecord.parseJson(new String(ByteStreams.toByteArray(input), Charsets.UTF_8));
+    } finally {
+      input.close();
+    }
+  }
+
+  @Test
+  public void testRetriedRecordsNotCounted() throws IOException {
+
+    Configuration conf = new Configuration();
+    Path appRoot = new Path(folder.getRoot().toURI());
+
+    AppContext context = new AppContext(Collections.<String,String>emptyMap(), conf, appRoot);
+
+    SchedulableJobManager manager = JobManagers.createSchedulable(RetriedJob.class, context);
+
+    RetryPolicy policy = new RetryPolicy.Builder().interval(0).build();
+
+    Instant first = new Instant(1000L);
+
+    manager.run(first, Collections.<String,View>emptyMap(), policy);
+
+    FileSystem fs = appRoot.getFileSystem(conf);
+
+    RunRecord record = readRecord(fs, appRoot, "retried-job", first);
+
+    // Records reported by the failed attempt are not counted.
+    Assert.assertEquals(2, record.getAttempts());
+    Assert.assertEquals(Long.valueOf(2), record.getOutputRecords().get("target"));
+
+    // A later run with the same manager starts a new record.
+    Instant second = new Instant(2000L);
+
+    manager.run(second, Collections.<String,View>emptyMap(), policy);
+
+    record = readRecord(fs, appRoot, "retried-job", second);
+
+    Assert.assertEquals(1, record.getAttempts());
+    Assert.assertEquals(second, record.getNominalTime());
+    Assert.assertNull(record.getError());
+    Assert.assertEquals(Long.valueOf(2), record.getOutputRecords().get("target"));
+  }
+
+  @Test
+  public void testOutputBytesOfView() throws IOException {
+
+    Configuration conf = new Configuration();
+    Path appRoot = new Path(folder.newFolder("app").toURI());
+
+    DatasetDescriptor descriptor = new DatasetDescriptor.Builder()
+        .schema(StandardEvent.getClassSchema())
+        .partitionStrategy(new PartitionStrategy.Builder()
+            .identity("event_name", "name")
+            .build())
+        .build();
+
+    RefinableView<StandardEvent> events = Datasets.create("dataset:file:" +
+        folder.getRoot().getAbsolutePath() + "/events", descriptor, StandardEvent.class);
+
+    // Data elsewhere in the dataset is not credited to the run.
+    write(events, "other", 10);
+
+    View<StandardEvent> output = events.with("name", "mine");
+
+    AppContext context = new AppContext(Collections.<String,String>emptyMap(), conf, appRoot);
+
+    SchedulableJobManager manager = JobManagers.createSchedulable(WritingJob.class, context);
+
+    Instant nominalTime = new Instant(1234L);
+
+    manager.run(nominalTime, Collections.<String,View>singletonMap("target", output), null);
+
+    FileSystem fs = appRoot.getFileSystem(conf);
+
+    InputStream input = fs.open(RunRecord.recordFile(appRoot, "writing-job", nominalTime));
+
+    RunRecord record;
+
+    try {
+      record = RunRecord.parseJson(new String(ByteStreams.toByteArray(input), Charsets.UTF_8));
+    } finally {
+      input.close();
+    }
+
+    long outputBytes = ViewManifest.create(output, -1L, conf).getBytes();
+
+    Assert.assertTrue(outputBytes > 0);
+    Assert.assertEquals(Long.valueOf(outputBytes), record.getOutputBytes().get("target"));
+  }
+}
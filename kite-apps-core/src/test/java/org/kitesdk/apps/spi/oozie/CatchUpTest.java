@@ -0,0 +1,429 @@
+/**
+ * Copyright 2015 Cerner Corporation.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.kitesdk.apps.spi.oozie;
+
+import com.google.common.base.Charsets;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Sets;
+import com.google.common.io.Closeables;
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.Path;
+import org.joda.time.Instant;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.kitesdk.apps.AppContext;
+import org.kitesdk.apps.AppException;
+import org.kitesdk.apps.scheduled.Schedule;
+import org.kitesdk.apps.spi.UnionView;
+import org.kitesdk.apps.spi.jobs.JobManagers;
+import org.kitesdk.apps.spi.jobs.RunRecord;
+import org.kitesdk.apps.spi.jobs.SchedulableJobManager;
+import org.kitesdk.apps.spi.jobs.StandardEventsJob;
+import org.kitesdk.data.DatasetDescriptor;
+import org.kitesdk.data.DatasetReader;
+import org.kitesdk.data.DatasetWriter;
+import org.kitesdk.data.Datasets;
+import org.kitesdk.data.PartitionStrategy;
+import org.kitesdk.data.Signalable;
+import org.kitesdk.data.View;
+import org.kitesdk.data.event.StandardEvent;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class CatchUpTest {
+
+  @Rule
+  public TemporaryFolder folder = new TemporaryFolder();
+
+  private static final String FIVE_MINUTES = "*/5 * * * *";
+
+  private static final String HOURLY = "0 * * * *";
+
+  private static Instant time(String time) {
+    return Instant.parse(time);
+  }
+
+  @Test
+  public void testAfter() {
+
+    assertEquals(time("2015-06-10T02:05:00Z"),
+        CatchUp.after(FIVE_MINUTES, time("2015-06-10T02:00:00Z")));
+
+    assertEquals(time("2015-06-10T03:00:00Z"),
+        CatchUp.after(HOURLY, time("2015-06-10T02:00:00Z")));
+
+    assertEquals(time("2015-06-10T03:00:00Z"),
+        CatchUp.after(HOURLY, time("2015-06-10T02:42:00Z")));
+  }
+
+  @Test
+  public void testCurrent() {
+
+    assertEquals(time("2015-06-10T02:00:00Z"),
+        CatchUp.current(HOURLY, time("2015-06-10T02:00:00Z")));
+
+    assertEquals(time("2015-06-10T02:00:00Z"),
+        CatchUp.current(HOURLY, time("2015-06-10T02:59:00Z")));
+
+    assertEquals(time("2015-06-10T02:10:00Z"),
+        CatchUp.current(FIVE_MINUTES, time("2015-06-10T02:12:00Z")));
+  }
+
+  @Test
+  public void testInstances() {
+
+    List<Instant> expected = Lists.newArrayList(
+        time("2015-06-10T00:00:00Z"),
+        time("2015-06-10T01:00:00Z"),
+        time("2015-06-10T02:00:00Z"));
+
+    assertEquals(expected, CatchUp.instances(HOURLY, time("2015-06-10T02:30:00Z"), -2, 0));
+
+    assertEquals(Lists.newArrayList(time("2015-06-10T02:00:00Z")),
+        CatchUp.instances(HOURLY, time("2015-06-10T02:00:00Z"), 0, 0));
+  }
+
+  @Test
+  public void testPendingTimes() {
+
+    List<Instant> pending = CatchUp.pendingTimes(FIVE_MINUTES,
+        time("2015-06-10T02:00:00Z"), time("2015-06-10T02:20:00Z"), 10);
+
+    assertEquals(Lists.newArrayList(
+        time("2015-06-10T02:05:00Z"),
+        time("2015-06-10T02:10:00Z"),
+        time("2015-06-10T02:15:00Z")), pending);
+
+    // Only the most recent are kept beyond the limit.
+    pending = CatchUp.pendingTimes(FIVE_MINUTES,
+        time("2015-06-10T02:00:00Z"), time("2015-06-10T02:20:00Z"), 2);
+
+    assertEquals(Lists.newArrayList(
+        time("2015-06-10T02:10:00Z"),
+        time("2015-06-10T02:15:00Z")), pending);
+
+    assertTrue(CatchUp.pendingTimes(FIVE_MINUTES, null,
+        time("2015-06-10T02:20:00Z"), 10).isEmpty());
+  }
+
+  @Test
+  public void testResolve() {
+
+    String template = CatchUp.toSetting("view:hive:default/events" +
+        "?year=${YEAR}&month=${MONTH}&day=${DAY}&hour=${HOUR}&minute=${MINUTE}");
+
+    assertEquals("view:hive:default/events?year=2015&month=06&day=09&hour=02&minute=05",
+        CatchUp.resolve(template, time("2015-06-09T02:05:00Z")));
+  }
+
+  private static void writeRecord(FileSystem fs, Path appRoot, Instant nominalTime,
+                                  String status) throws IOException {
+    writeRecord(fs, appRoot, "test-job", nominalTime, status);
+  }
+
+  private static void writeRecord(FileSystem fs, Path appRoot, String jobName,
+                                  Instant nominalTime, String status) throws IOException {
+
+    RunRecord record = new RunRecord.Builder()
+        .jobName(jobName)
+        .nominalTime(nominalTime)
+        .startTime(nominalTime)
+        .status(status)
+        .attempts(1)
+        .build();
+
+    OutputStream output = fs.create(RunRecord.recordFile(appRoot, jobName, nominalTime));
+
+    try {
+      output.write(record.toString().getBytes(Charsets.UTF_8));
+    } finally {
+      output.close();
+    }
+  }
+
+  @Test
+  public void testLastCompletedRun() throws IOException {
+
+    FileSystem fs = FileSystem.getLocal(new Configuration());
+
+    Path appRoot = new Path(folder.getRoot().getAbsolutePath());
+
+    assertNull(CatchUp.lastCompletedRun(fs, appRoot, "test-job", time("2015-06-10T03:00:00Z")));
+
+    writeRecord(fs, appRoot, time("2015-06-10T00:00:00Z"), RunRecord.SUCCEEDED);
+    writeRecord(fs, appRoot, time("2015-06-10T01:00:00Z"), RunRecord.SKIPPED);
+    writeRecord(fs, appRoot, time("2015-06-10T02:00:00Z"), RunRecord.FAILED);
+    writeRecord(fs, appRoot, time("2015-06-10T03:00:00Z"), RunRecord.SUCCEEDED);
+
+    // Failed runs and runs at or after the nominal time are ignored.
+    assertEquals(time("2015-06-10T01:00:00Z"),
+        CatchUp.lastCompletedRun(fs, appRoot, "test-job", time("2015-06-10T03:00:00Z")));
+  }
+
+  private static final String EVENTS_JOB = "scheduled-input-output";
+
+  private static final String TEMPLATE_PARAMETERS =
+      "?year=${YEAR}&month=${MONTH}&day=${DAY}&hour=${HOUR}";
+
+  private String sourceTemplate;
+
+  private String targetTemplate;
+
+  private Path appRoot;
+
+  /**
+   * Creates hourly source and target datasets with one event in each of
+   * the first three source hours, returning the catch-up schedule.
+   */
+  private Schedule createEvents() throws IOException {
+
+    PartitionStrategy strategy = new PartitionStrategy.Builder()
+        .provided("year", "int")
+        .provided("month", "int")
+        .provided("day", "int")
+        .provided("hour", "int")
+        .build();
+
+    DatasetDescriptor descriptor = new DatasetDescriptor.Builder()
+        .schema(StandardEvent.getClassSchema())
+        .partitionStrategy(strategy)
+        .build();
+
+    String root = folder.newFolder("data").getAbsolutePath();
+
+    Datasets.create("dataset:file:" + root + "/source", descriptor);
+    Datasets.create("dataset:file:" + root + "/target", descriptor);
+
+    sourceTemplate = "view:file:" + root + "/source" + TEMPLATE_PARAMETERS;
+    targetTemplate = "view:file:" + root + "/target" + TEMPLATE_PARAMETERS;
+
+    appRoot = new Path(folder.newFolder("app").toURI());
+
+    for (int hour = 0; hour < 3; ++hour) {
+
+      DatasetWriter<StandardEvent> writer = view(sourceTemplate, hour).newWriter();
+
+      try {
+        writer.write(StandardEvent.newBuilder()
+            .setEventInitiator("user")
+            .setEventName("click")
+            .setUserId((long) hour)
+            .setSessionId("session")
+            .setIp("127.0.0.1")
+            .setTimestamp(hourTime(hour).getMillis())
+            .build());
+      } finally {
+        writer.close();
+      }
+    }
+
+    return new Schedule.Builder().jobClass(StandardEventsJob.class)
+        .frequency(HOURLY)
+        .withInput("source.events", sourceTemplate, HOURLY)
+        .withOutput("target.events", targetTemplate)
+        .catchUp(24)
+        .build();
+  }
+
+  private static Instant hourTime(int hour) {
+    return time("2015-06-10T00:00:00Z").plus(hour * 60 * 60 * 1000L);
+  }
+
+  private static View<StandardEvent> view(String template, int hour) {
+    return Datasets.load(CatchUp.resolve(CatchUp.toSetting(template), hourTime(hour)),
+        StandardEvent.class);
+  }
+
+  private static Set<Long> userIds(View<StandardEvent> view) {
+
+    Set<Long> userIds = Sets.newHashSet();
+
+    DatasetReader<StandardEvent> reader = view.newReader();
+
+    try {
+      for (StandardEvent event: reader) {
+        userIds.add(event.getUserId());
+      }
+    } finally {
+      Closeables.closeQuietly(reader);
+    }
+
+    return userIds;
+  }
+
+  /**
+   * Returns the configuration Oozie gives the launcher of the given hour.
+   */
+  private Configuration launchConf(Schedule schedule, int hour) {
+
+    Configuration conf = new Configuration();
+
+    for (Map.Entry<String,String> setting: OozieScheduling.getJobSettings(schedule, conf).entrySet()) {
+      conf.set(setting.getKey(), setting.getValue());
+    }
+
+    // Oozie resolves the nominal time and views of the instance it launches.
+    conf.set("workflowNominalTime", String.format("2015-06-10T%02d:00Z", hour));
+    conf.set("wf_source_events", CatchUp.resolve(CatchUp.toSetting(sourceTemplate), hourTime(hour)));
+    conf.set("wf_target_events", CatchUp.resolve(CatchUp.toSetting(targetTemplate), hourTime(hour)));
+
+    return conf;
+  }
+
+  private SchedulableJobManager manager(Map<String,String> settings) {
+
+    AppContext context = new AppContext(settings, new Configuration(), appRoot);
+
+    return JobManagers.createSchedulable(StandardEventsJob.class, context);
+  }
+
+  /**
+   * Launches the job at the given nominal time as the job launcher does.
+   */
+  private static void launch(SchedulableJobManager manager, Configuration conf,
+                             Instant nominalTime) {
+
+    for (Instant catchUpTime: OozieScheduling.getCatchUpTimes(manager, conf)) {
+      manager.run(catchUpTime, OozieScheduling.loadViews(manager, conf, catchUpTime), null);
+    }
+
+    manager.run(nominalTime, OozieScheduling.loadViews(manager, conf), null);
+  }
+
+  @Test
+  public void testCatchUpRun() throws IOException {
+
+    Schedule schedule = createEvents();
+
+    FileSystem fs = FileSystem.getLocal(new Configuration());
+
+    // The last completed run was the hour before the outage,
+    // so hours zero and one are pending when hour two launches.
+    writeRecord(fs, appRoot, EVENTS_JOB, time("2015-06-09T23:00:00Z"), RunRecord.SUCCEEDED);
+
+    SchedulableJobManager manager = manager(Collections.<String,String>emptyMap());
+
+    Configuration conf = launchConf(schedule, 2);
+
+    assertEquals(Lists.newArrayList(hourTime(0), hourTime(1)),
+        OozieScheduling.getCatchUpTimes(manager, conf));
+
+    launch(manager, conf, hourTime(2));
+
+    // Each hour's output holds that hour's records and is ready.
+    for (int hour = 0; hour < 3; ++hour) {
+
+      View<StandardEvent> output = view(targetTemplate, hour);
+
+      assertTrue("Output of hour " + hour, ((Signalable) output).isReady());
+      assertEquals("Output of hour " + hour, Sets.newHashSet((long) hour), userIds(output));
+    }
+
+    // Each hour is recorded, so the next launch continues from hour two.
+    assertEquals(hourTime(2), CatchUp.lastCompletedRun(fs, appRoot, EVENTS_JOB, hourTime(3)));
+    assertEquals(hourTime(1), CatchUp.lastCompletedRun(fs, appRoot, EVENTS_JOB, hourTime(2)));
+  }
+
+  @Test
+  public void testMergedRun() throws IOException {
+
+    createEvents();
+
+    // An output that is not templated by nominal time is shared by every
+    // nominal time, so the pending hours are merged into a single run.
+    String root = folder.newFolder("summary").getAbsolutePath();
+
+    Datasets.create("dataset:file:" + root + "/events", new DatasetDescriptor.Builder()
+        .schema(StandardEvent.getClassSchema())
+        .partitionStrategy(new PartitionStrategy.Builder()
+            .provided("year", "int")
+            .build())
+        .build());
+
+    String summary = "view:file:" + root + "/events?year=2015";
+
+    Schedule schedule = new Schedule.Builder().jobClass(StandardEventsJob.class)
+        .frequency(HOURLY)
+        .withInput("source.events", sourceTemplate, HOURLY)
+        .withOutput("target.events", summary)
+        .catchUp(24)
+        .build();
+
+    writeRecord(FileSystem.getLocal(new Configuration()), appRoot, EVENTS_JOB,
+        time("2015-06-09T23:00:00Z"), RunRecord.SUCCEEDED);
+
+    SchedulableJobManager manager = manager(Collections.<String,String>emptyMap());
+
+    Configuration conf = launchConf(schedule, 2);
+
+    conf.set("wf_target_events", summary);
+
+    assertTrue(OozieScheduling.getCatchUpTimes(manager, conf).isEmpty());
+
+    Map<String,View> views = OozieScheduling.loadViews(manager, conf);
+
+    assertTrue(views.get("source.events") instanceof UnionView);
+
+    manager.run(hourTime(2), views, null);
+
+    View<StandardEvent> output = Datasets.load(summary, StandardEvent.class);
+
+    assertEquals(Sets.newHashSet(0L, 1L, 2L), userIds(output));
+  }
+
+  @Test
+  public void testFirstRun() throws IOException {
+
+    Schedule schedule = createEvents();
+
+    SchedulableJobManager manager = manager(Collections.<String,String>emptyMap());
+
+    Configuration conf = launchConf(schedule, 2);
+
+    // Without an earlier run, only the launched nominal time is read.
+    assertTrue(OozieScheduling.getCatchUpTimes(manager, conf).isEmpty());
+
+    Map<String,View> views = OozieScheduling.loadViews(manager, conf);
+
+    View<StandardEvent> input = views.get("source.events");
+
+    assertFalse(input instanceof UnionView);
+    assertEquals(Sets.newHashSet(2L), userIds(input));
+  }
+
+  @Test(expected = AppException.class)
+  public void testRunRecordsDisabled() throws IOException {
+
+    Schedule schedule = createEvents();
+
+    OozieScheduling.getCatchUpTimes(
+        manager(ImmutableMap.of(SchedulableJobManager.RUN_RECORDS_ENABLED, "false")),
+        launchConf(schedule, 2));
+  }
+}
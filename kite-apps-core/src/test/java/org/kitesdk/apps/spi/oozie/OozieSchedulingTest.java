@@ -15,11 +15,13 @@
  */
 package org.kitesdk.apps.spi.oozie;
 
+import com.google.common.collect.ImmutableMap;
 import org.apache.hadoop.conf.Configuration;
 import org.apache.hadoop.fs.Path;
 import org.junit.Before;
 import org.junit.Test;
 import org.kitesdk.apps.AppContext;
+import org.kitesdk.apps.scheduled.RetryPolicy;
 import org.kitesdk.apps.scheduled.Schedule;
 import org.kitesdk.apps.spi.jobs.JobManagers;
 import org.kitesdk.apps.spi.jobs.SchedulableJobManager;
@@ -34,8 +36,11 @@ import java.io.ByteArrayOutputStream;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
+import java.util.Map;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
 
 public class OozieSchedulingTest  {
 
@@ -143,6 +148,224 @@ public class OozieSchedulingTest  {
             "coord:property/coord:value[../coord:name/text() = \"coord_target_users\"]", coord));
   }
 
+  @Test
+  public void testWriteCoordinatorControls() throws Exception {
+
+    Schedule schedule = new Schedule.Builder().jobClass(ScheduledInputOutputJob.class)
+        .frequency("0 * * * *")
+        .withInput("source_users", ScheduledInputOutputApp.INPUT_URI_PATTERN, "0 * * * *")
+        .withOutput("target_users", ScheduledInputOutputApp.OUTPUT_URI_PATTERN)
+        .concurrency(4)
+        .throttle(8)
+        .timeout(30)
+        .executionOrder(Schedule.ExecutionOrder.LAST_ONLY)
+        .build();
+
+    ByteArrayOutputStream output = new ByteArrayOutputStream();
+
+    SchedulableJobManager manager = JobManagers.createSchedulable(ScheduledInputOutputJob.class,
+        new AppContext(new Configuration()));
+
+    OozieScheduling.writeCoordinator(schedule, manager, output);
+
+    Document coord = XMLUtil.toDom(output);
+
+    XPath xpath = XMLUtil.getXPath();
+
+    assertEquals("30",
+        xpath.evaluate("coord:coordinator-app/coord:controls/coord:timeout", coord));
+
+    assertEquals("4",
+        xpath.evaluate("coord:coordinator-app/coord:controls/coord:concurrency", coord));
+
+    assertEquals("LAST_ONLY",
+        xpath.evaluate("coord:coordinator-app/coord:controls/coord:execution", coord));
+
+    assertEquals("8",
+        xpath.evaluate("coord:coordinator-app/coord:controls/coord:throttle", coord));
+  }
+
+  @Test
+  public void testNoControlsByDefault() throws Exception {
+
+    ByteArrayOutputStream output = new ByteArrayOutputStream();
+
+    SchedulableJobManager manager = JobManagers.createSchedulable(ScheduledInputOutputJob.class,
+        new AppContext(new Configuration()));
+
+    OozieScheduling.writeCoordinator(testSchedule, manager, output);
+
+    Document coord = XMLUtil.toDom(output);
+
+    XPath xpath = XMLUtil.getXPath();
+
+    assertEquals("0",
+        xpath.evaluate("count(coord:coordinator-app/coord:controls)", coord));
+  }
+
+  @Test
+  public void testWriteCoordinatorInputWindow() throws Exception {
+
+    Schedule schedule = new Schedule.Builder().jobClass(ScheduledInputOutputJob.class)
+        .frequency("0 0 * * *")
+        .withInput("source_users", ScheduledInputOutputApp.INPUT_URI_PATTERN, "0 * * * *", 24)
+        .withOutput("target_users", ScheduledInputOutputApp.OUTPUT_URI_PATTERN)
+        .build();
+
+    ByteArrayOutputStream output = new ByteArrayOutputStream();
+
+    SchedulableJobManager manager = JobManagers.createSchedulable(ScheduledInputOutputJob.class,
+        new AppContext(new Configuration()));
+
+    OozieScheduling.writeCoordinator(schedule, manager, output);
+
+    Document coord = XMLUtil.toDom(output);
+
+    XPath xpath = XMLUtil.getXPath();
+
+    assertEquals("${coord:current(-23)}",
+        xpath.evaluate("coord:coordinator-app/coord:input-events/coord:data-in/coord:start-instance",
+            coord));
+
+    assertEquals("${coord:current(0)}",
+        xpath.evaluate("coord:coordinator-app/coord:input-events/coord:data-in/coord:end-instance",
+            coord));
+
+    assertEquals("0",
+        xpath.evaluate("count(coord:coordinator-app/coord:input-events/coord:data-in/coord:instance)",
+            coord));
+  }
+
+  @Test
+  public void testRetryPolicySettings() throws Exception {
+
+    RetryPolicy policy = new RetryPolicy.Builder()
+        .maxRetries(3)
+        .interval(30)
+        .backoff(3.0, 600)
+        .failOn(IllegalArgumentException.class)
+        .build();
+
+    Schedule schedule = new Schedule.Builder().jobClass(ScheduledInputOutputJob.class)
+        .frequency("0 * * * *")
+        .withInput("source_users", ScheduledInputOutputApp.INPUT_URI_PATTERN, "0 * * * *")
+        .withOutput("target_users", ScheduledInputOutputApp.OUTPUT_URI_PATTERN)
+        .retry(policy)
+        .build();
+
+    ByteArrayOutputStream output = new ByteArrayOutputStream();
+
+    OozieScheduling.writeWorkFlow(schedule, context, output);
+
+    Document workflow = XMLUtil.toDom(output);
+
+    XPath xpath = XMLUtil.getXPath();
+
+    // Oozie should not retry since the launcher applies the policy.
+    assertEquals("0",
+        xpath.evaluate("wf:workflow-app/wf:action/@retry-max", workflow));
+
+    Configuration conf = new Configuration(false);
+
+    for (Map.Entry<String,String> setting:
+        OozieScheduling.getJobSettings(schedule, new Configuration()).entrySet()) {
+
+      conf.set(setting.getKey(), setting.getValue());
+    }
+
+    RetryPolicy loaded = OozieScheduling.getRetryPolicy(conf);
+
+    assertEquals(3, loaded.getMaxRetries());
+    assertEquals(30L, loaded.getIntervalSeconds());
+    assertEquals(3.0, loaded.getBackoffMultiplier(), 0.0);
+    assertEquals(600L, loaded.getMaxIntervalSeconds());
+    assertEquals(policy.getRetryOn(), loaded.getRetryOn());
+    assertEquals(policy.getFailOn(), loaded.getFailOn());
+  }
+
+  @Test
+  public void testInputConstraints() throws Exception {
+
+    Schedule schedule = new Schedule.Builder().jobClass(ScheduledInputOutputJob.class)
+        .frequency("0 * * * *")
+        .withInput("source_users", ScheduledInputOutputApp.INPUT_URI_PATTERN, "0 * * * *",
+            ImmutableMap.of("username", "user 1,user2"))
+        .withOutput("target_users", ScheduledInputOutputApp.OUTPUT_URI_PATTERN)
+        .build();
+
+    Map<String,String> settings = OozieScheduling.getJobSettings(schedule, new Configuration());
+
+    String constraints = settings.get("kite.input.constraints.source_users");
+
+    assertEquals("username=user+1,user2", constraints);
+
+    // Constraints are not part of the URI checked for input availability.
+    ByteArrayOutputStream output = new ByteArrayOutputStream();
+
+    SchedulableJobManager manager = JobManagers.createSchedulable(ScheduledInputOutputJob.class,
+        new AppContext(new Configuration()));
+
+    OozieScheduling.writeCoordinator(schedule, manager, output);
+
+    Document coord = XMLUtil.toDom(output);
+
+    XPath xpath = XMLUtil.getXPath();
+
+    assertFalse(xpath.evaluate("coord:coordinator-app/coord:datasets/coord:dataset/coord:uri-template", coord)
+        .contains("username"));
+
+    assertEquals("view:hive:default/users?year=2015&username=user+1,user2",
+        OozieScheduling.constrain("view:hive:default/users?year=2015", constraints));
+
+    assertEquals("view:hive:default/users?username=user+1,user2",
+        OozieScheduling.constrain("dataset:hive:default/users", constraints));
+
+    assertEquals("dataset:hive:default/users",
+        OozieScheduling.constrain("dataset:hive:default/users", null));
+  }
+
+  @Test
+  public void testEmptyInputPolicySettings() throws Exception {
+
+    assertEquals(Schedule.EmptyInputPolicy.RUN,
+        OozieScheduling.getEmptyInputPolicy(new Configuration(false)));
+
+    Schedule schedule = new Schedule.Builder().jobClass(ScheduledInputOutputJob.class)
+        .frequency("0 * * * *")
+        .withInput("source_users", ScheduledInputOutputApp.INPUT_URI_PATTERN, "0 * * * *")
+        .withOutput("target_users", ScheduledInputOutputApp.OUTPUT_URI_PATTERN)
+        .emptyInputs(Schedule.EmptyInputPolicy.SKIP_AND_SIGNAL)
+        .build();
+
+    Configuration conf = new Configuration(false);
+
+    for (Map.Entry<String,String> setting:
+        OozieScheduling.getJobSettings(schedule, new Configuration()).entrySet()) {
+
+      conf.set(setting.getKey(), setting.getValue());
+    }
+
+    assertEquals(Schedule.EmptyInputPolicy.SKIP_AND_SIGNAL,
+        OozieScheduling.getEmptyInputPolicy(conf));
+  }
+
+  @Test
+  public void testNoRetryPolicy() throws Exception {
+
+    assertNull(OozieScheduling.getRetryPolicy(new Configuration(false)));
+
+    ByteArrayOutputStream output = new ByteArrayOutputStream();
+
+    OozieScheduling.writeWorkFlow(testSchedule, context, output);
+
+    Document workflow = XMLUtil.toDom(output);
+
+    XPath xpath = XMLUtil.getXPath();
+
+    assertEquals("2",
+        xpath.evaluate("wf:workflow-app/wf:action/@retry-max", workflow));
+  }
+
   @Test
   public void testWriteBundle() throws Exception {
 
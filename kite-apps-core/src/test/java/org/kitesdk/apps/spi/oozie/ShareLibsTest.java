@@ -0,0 +1,116 @@
+/**
+ * Copyright 2015 Cerner Corporation.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.kitesdk.apps.spi.oozie;
+
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.Path;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.kitesdk.data.MiniDFSTest;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+
+public class ShareLibsTest extends MiniDFSTest {
+
+  FileSystem fs;
+
+  Configuration conf;
+
+  Path sharelib;
+
+  @Before
+  public void setup() throws IOException {
+
+    fs = getDFS();
+
+    sharelib = fs.makeQualified(new Path("/tmp/sharelib-" + (new Random().nextInt() & Integer.MAX_VALUE)));
+
+    conf = new Configuration(getConfiguration());
+    conf.set("system.libpath", sharelib.toString());
+
+    createJar("lib_20150101000000", "hive2", "hive-old.jar");
+    createJar("lib_20150601000000", "hive2", "hive-exec.jar");
+    createJar("lib_20150601000000", "hive2", "hive-metastore.jar");
+
+    ShareLibs.invalidate();
+  }
+
+  @After
+  public void cleanup() throws IOException {
+
+    ShareLibs.invalidate();
+
+    fs.delete(sharelib, true);
+  }
+
+  private void createJar(String libDir, String sharedLibName, String jarName) throws IOException {
+    fs.create(new Path(new Path(new Path(sharelib, libDir), sharedLibName), jarName)).close();
+  }
+
+  @Test
+  public void testLatestLibrary() throws IOException {
+
+    // Directories that are not timestamped must be ignored.
+    createJar("lib_latest", "hive2", "hive-bad.jar");
+
+    List<Path> jars = ShareLibs.jars(conf, "hive2");
+
+    assertEquals(2, jars.size());
+
+    for (Path jar: jars) {
+      assertEquals("lib_20150601000000", jar.getParent().getParent().getName());
+    }
+  }
+
+  @Test
+  public void testMissingLibrary() throws IOException {
+
+    assertEquals(0, ShareLibs.jars(conf, "pig").size());
+  }
+
+  @Test
+  public void testCachedUntilInvalidated() throws IOException {
+
+    assertEquals(2, ShareLibs.jars(conf, "hive2").size());
+
+    // A newer sharelib is not seen until the cache is invalidated.
+    createJar("lib_20151201000000", "hive2", "hive-exec.jar");
+
+    assertEquals(2, ShareLibs.jars(conf, "hive2").size());
+
+    ShareLibs.invalidate(conf, "hive2");
+
+    assertEquals(1, ShareLibs.jars(conf, "hive2").size());
+  }
+
+  @Test
+  public void testCachingDisabled() throws IOException {
+
+    conf.setLong(ShareLibs.CACHE_TTL_SECONDS, 0);
+
+    assertEquals(2, ShareLibs.jars(conf, "hive2").size());
+
+    createJar("lib_20151201000000", "hive2", "hive-exec.jar");
+
+    assertEquals(1, ShareLibs.jars(conf, "hive2").size());
+  }
+}
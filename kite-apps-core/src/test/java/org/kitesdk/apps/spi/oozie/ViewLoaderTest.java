@@ -0,0 +1,123 @@
+/**
+ * Copyright 2015 Cerner Corporation.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.kitesdk.apps.spi.oozie;
+
+import com.google.common.collect.Lists;
+import org.apache.avro.generic.GenericData;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.kitesdk.data.DatasetDescriptor;
+import org.kitesdk.data.DatasetNotFoundException;
+import org.kitesdk.data.Datasets;
+import org.kitesdk.data.View;
+import org.kitesdk.data.event.StandardEvent;
+
+import java.util.List;
+import java.util.Map;
+
+public class ViewLoaderTest {
+
+  @Rule
+  public TemporaryFolder folder = new TemporaryFolder();
+
+  private List<String> uris;
+
+  private List<ViewLoader.Key> keys;
+
+  @Before
+  public void createDatasets() {
+
+    DatasetDescriptor descriptor = new DatasetDescriptor.Builder()
+        .schema(StandardEvent.getClassSchema())
+        .build();
+
+    uris = Lists.newArrayList();
+    keys = Lists.newArrayList();
+
+    for (int i = 0; i < 4; ++i) {
+
+      String uri = "dataset:file:" + folder.getRoot().getAbsolutePath() + "/events_" + i;
+
+      Datasets.create(uri, descriptor);
+
+      uris.add(uri);
+      keys.add(new ViewLoader.Key(uri, StandardEvent.class));
+    }
+  }
+
+  @Test
+  public void testLoadConcurrently() {
+
+    Map<ViewLoader.Key,View> views = ViewLoader.load(keys, 4);
+
+    Assert.assertEquals(keys.size(), views.size());
+
+    for (ViewLoader.Key key: keys) {
+      Assert.assertEquals(StandardEvent.class, views.get(key).getType());
+    }
+  }
+
+  @Test
+  public void testDuplicatesLoadedOnce() {
+
+    List<ViewLoader.Key> duplicated = Lists.newArrayList(keys);
+    duplicated.addAll(keys);
+
+    Map<ViewLoader.Key,View> views = ViewLoader.load(duplicated, 4);
+
+    Assert.assertEquals(keys.size(), views.size());
+  }
+
+  @Test
+  public void testNotCachedBetweenLoads() {
+
+    Map<ViewLoader.Key,View> first = ViewLoader.load(keys, 4);
+    Map<ViewLoader.Key,View> second = ViewLoader.load(keys, 4);
+
+    // Each load sees the current datasets, so views are not reused.
+    for (ViewLoader.Key key: keys) {
+      Assert.assertNotSame(first.get(key), second.get(key));
+    }
+  }
+
+  @Test
+  public void testTypesLoadedSeparately() {
+
+    ViewLoader.Key generic = new ViewLoader.Key(uris.get(0), GenericData.Record.class);
+
+    List<ViewLoader.Key> both = Lists.newArrayList(keys);
+    both.add(generic);
+
+    Map<ViewLoader.Key,View> views = ViewLoader.load(both, 4);
+
+    Assert.assertEquals(StandardEvent.class, views.get(keys.get(0)).getType());
+    Assert.assertEquals(GenericData.Record.class, views.get(generic).getType());
+  }
+
+  @Test(expected = DatasetNotFoundException.class)
+  public void testMissingDataset() {
+
+    List<ViewLoader.Key> missing = Lists.newArrayList(keys);
+
+    missing.add(new ViewLoader.Key("dataset:file:" + folder.getRoot().getAbsolutePath() +
+        "/no_such_dataset", StandardEvent.class));
+
+    ViewLoader.load(missing, 4);
+  }
+}
@@ -15,20 +15,399 @@
  */
 package org.kitesdk.apps.crunch;
 
-import org.apache.crunch.util.DistCache;
-import org.kitesdk.apps.scheduled.AbstractSchedulableJob;
 import org.apache.crunch.Pipeline;
+import org.apache.crunch.impl.mem.MemPipeline;
 import org.apache.crunch.impl.mr.MRPipeline;
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.mapreduce.InputSplit;
+import org.apache.hadoop.mapreduce.Job;
+import org.kitesdk.apps.AppException;
+import org.kitesdk.apps.crunch.spi.SparkPipelines;
+import org.kitesdk.apps.scheduled.AbstractSchedulableJob;
+import org.kitesdk.apps.spi.UnionView;
+import org.kitesdk.apps.spi.ViewManifest;
+import org.kitesdk.apps.spi.jobs.SchedulableJobManager;
+import org.kitesdk.data.View;
+import org.kitesdk.data.spi.InputFormatAccessor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 import java.io.IOException;
+import java.util.Map;
 
 /**
  * Abstract base class for Crunch-based jobs.
+ *
+ * The engine running the pipeline is chosen with the
+ * {@value #ENGINE} job setting, which may be "mapreduce" (the default),
+ * "spark", "memory" or "auto". The "auto" engine uses the total size of
+ * the job's input views to run small inputs in memory, medium inputs on
+ * Spark and large inputs on MapReduce, where the in-memory and Spark
+ * ranges are each off unless their size setting is given.
+ *
+ * Jobs that may run on Spark are launched by an Oozie Spark action
+ * and share the Spark context of that action, which needs the
+ * kite-apps-spark and crunch-spark libraries. Other jobs are launched
+ * by a Java action and do not need Spark.
+ *
+ * When the {@value #SIZING_ENABLED} setting is true, the reducer count
+ * and split sizes of each run are also derived from the size of the input
+ * views, targeting the bytes per reducer of the {@value #BYTES_PER_REDUCER}
+ * setting and at most the map tasks of the {@value #MAX_MAPPERS} setting.
+ * Setting the Hadoop properties for either explicitly, with the "hadoop."
+ * prefix, overrides the derived value. The input views are only sized for
+ * jobs using this or the "auto" engine, since sizing lists their files.
  */
 public abstract class AbstractCrunchJob extends AbstractSchedulableJob {
 
+  private static final Logger LOG = LoggerFactory.getLogger(AbstractCrunchJob.class);
+
+  /**
+   * Job setting for the engine used to run the pipeline.
+   */
+  public static final String ENGINE = "kite.crunch.engine";
+
+  public static final String ENGINE_MAPREDUCE = "mapreduce";
+
+  public static final String ENGINE_SPARK = "spark";
+
+  public static final String ENGINE_MEMORY = "memory";
+
+  public static final String ENGINE_AUTO = "auto";
+
+  /**
+   * Job setting for the largest total input size, in bytes, the "auto"
+   * engine runs in memory. This defaults to zero, so inputs are never run
+   * in memory unless enabled, since in-memory pipelines can only write to
+   * file targets and not to Kite datasets.
+   */
+  public static final String MEMORY_MAX_BYTES = "kite.crunch.engine.memory.max.bytes";
+
+  /**
+   * Job setting for the largest total input size, in bytes, the "auto"
+   * engine runs on Spark. Larger inputs are run on MapReduce. This
+   * defaults to zero, so the "auto" engine only uses Spark, and is only
+   * launched by a Spark action, when this is set.
+   */
+  public static final String SPARK_MAX_BYTES = "kite.crunch.engine.spark.max.bytes";
+
+  /**
+   * Job setting to size the reducers and splits of each run from the size
+   * of its inputs. This is off by default.
+   */
+  public static final String SIZING_ENABLED = "kite.crunch.sizing.enabled";
+
+  /**
+   * Job setting for the input bytes handled by each reducer.
+   */
+  public static final String BYTES_PER_REDUCER = "kite.crunch.bytes.per.reducer";
+
+  private static final long DEFAULT_BYTES_PER_REDUCER = 1024L * 1024L * 1024L;
+
+  /**
+   * Job setting for the largest number of reducers used by a run.
+   */
+  public static final String MAX_REDUCERS = "kite.crunch.max.reducers";
+
+  private static final long DEFAULT_MAX_REDUCERS = 500;
+
+  /**
+   * Job setting for the largest number of map tasks used by a run. Splits
+   * are made larger than a block when needed to stay within this.
+   */
+  public static final String MAX_MAPPERS = "kite.crunch.max.mappers";
+
+  private static final long DEFAULT_MAX_MAPPERS = 1000;
+
+  // Crunch's own settings for the partitions of grouping operations.
+  private static final String CRUNCH_BYTES_PER_REDUCE_TASK = "crunch.bytes.per.reduce.task";
+
+  private static final String CRUNCH_MAX_REDUCERS = "crunch.max.reducers";
+
+  private static final String REDUCES = "mapreduce.job.reduces";
+
+  private static final String DEPRECATED_REDUCES = "mapred.reduce.tasks";
+
+  private static final String SPLIT_MIN_SIZE = "mapreduce.input.fileinputformat.split.minsize";
+
+  private static final String DEPRECATED_SPLIT_MIN_SIZE = "mapred.min.split.size";
+
+  private static final String BLOCK_SIZE = "dfs.blocksize";
+
+  private static final long DEFAULT_BLOCK_SIZE = 128L * 1024L * 1024L;
+
   protected Pipeline getPipeline() {
 
-    return new MRPipeline(AbstractCrunchJob.class, getName(), getJobContext().getHadoopConf());
+    Map<String,String> settings = getJobContext().getSettings();
+
+    boolean sizing = Boolean.parseBoolean(settings.get(SIZING_ENABLED));
+
+    // Only list the inputs when their size is used.
+    long inputBytes = sizing || ENGINE_AUTO.equals(getEngine(settings)) ?
+        inputBytes() :
+        -1;
+
+    String engine = selectEngine(inputBytes);
+
+    if (ENGINE_MEMORY.equals(engine)) {
+
+      // The in-memory pipeline is a shared instance, so it keeps its own
+      // configuration rather than taking that of each job.
+      return MemPipeline.getInstance();
+    }
+
+    Configuration conf = getJobContext().getHadoopConf();
+
+    if (sizing)
+      configureSizing(conf, inputBytes);
+
+    if (ENGINE_SPARK.equals(engine)) {
+
+      return SparkPipelines.create(this, conf);
+
+    } else {
+
+      return new MRPipeline(AbstractCrunchJob.class, getName(), conf);
+    }
+  }
+
+  /**
+   * Returns true if the engine setting of the job may run it on Spark,
+   * so it must be launched by a Spark action.
+   */
+  public boolean usesSpark() {
+
+    Map<String,String> settings = getJobContext().getSettings();
+
+    String engine = getEngine(settings);
+
+    return ENGINE_SPARK.equals(engine) ||
+        (ENGINE_AUTO.equals(engine) && getLong(settings, SPARK_MAX_BYTES, 0L) > 0);
+  }
+
+  private String getEngine(Map<String,String> settings) {
+
+    String engine = settings.containsKey(ENGINE) ? settings.get(ENGINE) : ENGINE_MAPREDUCE;
+
+    if (!ENGINE_MAPREDUCE.equals(engine) &&
+        !ENGINE_SPARK.equals(engine) &&
+        !ENGINE_MEMORY.equals(engine) &&
+        !ENGINE_AUTO.equals(engine))
+      throw new AppException("Unknown Crunch engine " + engine + " for job " + getName());
+
+    return engine;
+  }
+
+  /**
+   * Returns the engine that runs the pipeline, resolving the "auto"
+   * engine from the size of the job's inputs.
+   */
+  String selectEngine(long inputBytes) {
+
+    Map<String,String> settings = getJobContext().getSettings();
+
+    String engine = getEngine(settings);
+
+    if (!ENGINE_AUTO.equals(engine))
+      return engine;
+
+    long memoryMaxBytes = getLong(settings, MEMORY_MAX_BYTES, 0L);
+    long sparkMaxBytes = getLong(settings, SPARK_MAX_BYTES, 0L);
+
+    if (inputBytes < 0) {
+      engine = ENGINE_MAPREDUCE;
+    } else if (memoryMaxBytes > 0 && inputBytes <= memoryMaxBytes) {
+      engine = ENGINE_MEMORY;
+    } else if (sparkMaxBytes > 0 && inputBytes <= sparkMaxBytes) {
+      engine = ENGINE_SPARK;
+    } else {
+      engine = ENGINE_MAPREDUCE;
+    }
+
+    LOG.info("Selected the {} engine for job {} with {} input bytes.",
+        new Object[] {engine, getName(), inputBytes});
+
+    return engine;
+  }
+
+  /**
+   * Sets the reducer count and split size of the run from the size of
+   * its inputs, unless the size is unknown or the Hadoop properties are
+   * set explicitly for the job.
+   */
+  void configureSizing(Configuration conf, long inputBytes) {
+
+    Map<String,String> settings = getJobContext().getSettings();
+
+    long bytesPerReducer = getLong(settings, BYTES_PER_REDUCER, DEFAULT_BYTES_PER_REDUCER);
+    long maxReducers = getLong(settings, MAX_REDUCERS, DEFAULT_MAX_REDUCERS);
+    long maxMappers = getLong(settings, MAX_MAPPERS, DEFAULT_MAX_MAPPERS);
+
+    if (bytesPerReducer < 1 || maxReducers < 1 || maxMappers < 1)
+      throw new AppException("Crunch sizing settings for job " + getName() + " must be positive.");
+
+    // Grouping operations without an explicit partition count use these.
+    if (!isHadoopSetting(settings, CRUNCH_BYTES_PER_REDUCE_TASK))
+      conf.setLong(CRUNCH_BYTES_PER_REDUCE_TASK, bytesPerReducer);
+
+    if (!isHadoopSetting(settings, CRUNCH_MAX_REDUCERS))
+      conf.setLong(CRUNCH_MAX_REDUCERS, maxReducers);
+
+    if (inputBytes < 0)
+      return;
+
+    if (!isHadoopSetting(settings, REDUCES, DEPRECATED_REDUCES)) {
+
+      long reducers = Math.min(Math.max(divideRoundingUp(inputBytes, bytesPerReducer), 1), maxReducers);
+
+      conf.setLong(REDUCES, reducers);
+    }
+
+    if (!isHadoopSetting(settings, SPLIT_MIN_SIZE, DEPRECATED_SPLIT_MIN_SIZE)) {
+
+      long splitBytes = divideRoundingUp(inputBytes, maxMappers);
+
+      // Splits are at least a block, so only larger inputs need bigger splits.
+      long currentBytes = Math.max(conf.getLong(SPLIT_MIN_SIZE, 1L),
+          conf.getLong(BLOCK_SIZE, DEFAULT_BLOCK_SIZE));
+
+      if (splitBytes > currentBytes)
+        conf.setLong(SPLIT_MIN_SIZE, splitBytes);
+    }
+
+    LOG.info("Sized job {} for {} input bytes with {} reducers and a minimum split of {} bytes.",
+        new Object[] {getName(), inputBytes, conf.get(REDUCES), conf.get(SPLIT_MIN_SIZE)});
+  }
+
+  private static boolean isHadoopSetting(Map<String,String> settings, String... names) {
+
+    for (String name: names) {
+      if (settings.containsKey("hadoop." + name))
+        return true;
+    }
+
+    return false;
+  }
+
+  private static long divideRoundingUp(long dividend, long divisor) {
+    return (dividend + divisor - 1) / divisor;
+  }
+
+  private static long getLong(Map<String,String> settings, String name, long defaultValue) {
+
+    String value = settings.get(name);
+
+    if (value == null)
+      return defaultValue;
+
+    try {
+      return Long.parseLong(value.trim());
+    } catch (NumberFormatException e) {
+      throw new AppException("Invalid value for " + name + ": " + value, e);
+    }
+  }
+
+  /**
+   * Returns the total size of the splits of the job's input views,
+   * or -1 if the job has no input views or the size of any input
+   * cannot be determined. Inputs with a manifest are sized from it
+   * when manifests are enabled, and a union of views, such as an input
+   * window, is the total of the views in it.
+   */
+  long inputBytes() {
+
+    Map<String,View> inputViews = getJobContext().getInputViews();
+
+    if (inputViews.isEmpty())
+      return -1;
+
+    Configuration conf = getJobContext().getHadoopConf();
+
+    long total = 0;
+
+    boolean manifests = Boolean.parseBoolean(
+        getJobContext().getSettings().get(SchedulableJobManager.MANIFESTS_ENABLED));
+
+    for (Map.Entry<String,View> input: inputViews.entrySet()) {
+
+      long bytes = viewBytes(input.getKey(), input.getValue(), conf, manifests);
+
+      if (bytes < 0)
+        return -1;
+
+      total += bytes;
+    }
+
+    return total;
+  }
+
+  /**
+   * Returns the size of the splits of the given view of the named input,
+   * or -1 if it cannot be determined.
+   */
+  private long viewBytes(String inputName, View<?> view, Configuration conf, boolean manifests) {
+
+    if (view instanceof UnionView) {
+
+      long total = 0;
+
+      for (View<?> member: ((UnionView<?>) view).getViews()) {
+
+        long bytes = viewBytes(inputName, member, conf, manifests);
+
+        if (bytes < 0)
+          return -1;
+
+        total += bytes;
+      }
+
+      return total;
+    }
+
+    // Use the manifest of a ready input rather than listing it.
+    if (manifests) {
+
+      ViewManifest manifest = loadManifest(inputName, view, conf);
+
+      if (manifest != null)
+        return manifest.getBytes();
+    }
+
+    if (!(view instanceof InputFormatAccessor)) {
+
+      LOG.warn("Unable to determine the size of input {} of job {}.", inputName, getName());
+
+      return -1;
+    }
+
+    try {
+
+      InputFormatAccessor<?> accessor = (InputFormatAccessor<?>) view;
+
+      long total = 0;
+
+      for (InputSplit split: accessor.getInputFormat(conf).getSplits(Job.getInstance(conf))) {
+        total += split.getLength();
+      }
+
+      return total;
+
+    } catch (Exception e) {
+
+      LOG.warn("Unable to determine the size of input " + inputName +
+          " of job " + getName(), e);
+
+      return -1;
+    }
+  }
+
+  private ViewManifest loadManifest(String inputName, View view, Configuration conf) {
+
+    try {
+      return ViewManifest.load(view, conf);
+    } catch (IOException e) {
+      LOG.warn("Unable to load the manifest of input " + inputName + " of job " + getName(), e);
+      return null;
+    }
   }
 }
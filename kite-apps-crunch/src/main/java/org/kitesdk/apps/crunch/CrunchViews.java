@@ -0,0 +1,55 @@
+/**
+ * Copyright 2015 Cerner Corporation.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.kitesdk.apps.crunch;
+
+import org.apache.crunch.PCollection;
+import org.apache.crunch.Pipeline;
+import org.kitesdk.apps.spi.UnionView;
+import org.kitesdk.data.View;
+import org.kitesdk.data.crunch.CrunchDatasets;
+
+/**
+ * Helper functions for reading job inputs with Crunch.
+ */
+public class CrunchViews {
+
+  /**
+   * Reads the given view into a collection of the pipeline. Input
+   * windows are provided to jobs as a {@link UnionView}, which has no URI
+   * of its own, so each view in the union is read as its own source and
+   * the results are combined.
+   *
+   * @param pipeline the pipeline reading the view
+   * @param view the view to read
+   * @return a collection of the contents of the view
+   */
+  public static <E> PCollection<E> read(Pipeline pipeline, View<E> view) {
+
+    if (!(view instanceof UnionView))
+      return pipeline.read(CrunchDatasets.asSource(view));
+
+    PCollection<E> union = null;
+
+    for (View<E> member: ((UnionView<E>) view).getViews()) {
+
+      PCollection<E> collection = read(pipeline, member);
+
+      union = union == null ? collection : union.union(collection);
+    }
+
+    return union;
+  }
+}
@@ -0,0 +1,84 @@
+/**
+ * Copyright 2015 Cerner Corporation.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.kitesdk.apps.crunch.spi;
+
+import org.kitesdk.apps.AppContext;
+import org.kitesdk.apps.AppException;
+import org.kitesdk.apps.JobContext;
+import org.kitesdk.apps.crunch.AbstractCrunchJob;
+import org.kitesdk.apps.spi.jobs.JavaActionJobManager;
+import org.kitesdk.apps.spi.jobs.SchedulableJobManager;
+import org.kitesdk.apps.spi.jobs.SchedulableJobManagerFactory;
+
+/**
+ * Job manager for working with Crunch jobs. Jobs that may run on Spark
+ * are launched by a Spark action, and all others by a Java action.
+ */
+public class CrunchSchedulableJobManagerFactory implements SchedulableJobManagerFactory {
+
+  private static final String SPARK_PIPELINE_CLASS = "org.apache.crunch.impl.spark.SparkPipeline";
+
+  private static final String SPARK_MANAGER_CLASS = "org.kitesdk.apps.spark.spi.scheduled.SparkJobManager";
+
+  /**
+   * Returns true if the Spark libraries used by Crunch jobs are available,
+   * checked by name so this class loads without them.
+   */
+  private static boolean isSparkAvailable() {
+
+    ClassLoader loader = CrunchSchedulableJobManagerFactory.class.getClassLoader();
+
+    try {
+      Class.forName(SPARK_PIPELINE_CLASS, false, loader);
+      Class.forName(SPARK_MANAGER_CLASS, false, loader);
+    } catch (ClassNotFoundException e) {
+      return false;
+    }
+
+    return true;
+  }
+
+  @Override
+  public boolean supports(Class jobClass) {
+
+    return AbstractCrunchJob.class.isAssignableFrom(jobClass);
+  }
+
+  @Override
+  public SchedulableJobManager createManager(Class jobClass, AppContext context) {
+
+    AbstractCrunchJob job;
+
+    try {
+      job = (AbstractCrunchJob) jobClass.newInstance();
+    } catch (InstantiationException e) {
+      throw new AppException(e);
+    } catch (IllegalAccessException e) {
+      throw new AppException(e);
+    }
+
+    job.setJobContext(new JobContext(job, context.getSettings(), context.getReadOnlyHadoopConf()));
+
+    if (!job.usesSpark())
+      return JavaActionJobManager.create(jobClass, context);
+
+    if (!isSparkAvailable())
+      throw new AppException("Job " + job.getName() +
+          " uses the Spark engine, which requires kite-apps-spark and crunch-spark.");
+
+    return SparkPipelines.createManager(jobClass, context);
+  }
+}
@@ -0,0 +1,61 @@
+/**
+ * Copyright 2015 Cerner Corporation.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.kitesdk.apps.crunch.spi;
+
+import org.apache.crunch.Pipeline;
+import org.apache.crunch.impl.spark.SparkPipeline;
+import org.apache.hadoop.conf.Configuration;
+import org.kitesdk.apps.AppContext;
+import org.kitesdk.apps.AppException;
+import org.kitesdk.apps.JobContext;
+import org.kitesdk.apps.crunch.AbstractCrunchJob;
+import org.kitesdk.apps.spark.SparkJobContext;
+import org.kitesdk.apps.spark.spi.scheduled.SparkJobManager;
+import org.kitesdk.apps.spi.jobs.SchedulableJobManager;
+
+/**
+ * Spark support for Crunch jobs. This is kept apart from the job classes
+ * and their manager factory so Crunch jobs that do not use Spark can run
+ * without it on the classpath.
+ */
+public class SparkPipelines {
+
+  /**
+   * Creates a manager that launches the job with an Oozie Spark action.
+   */
+  static SchedulableJobManager createManager(Class<? extends AbstractCrunchJob> jobClass,
+                                             AppContext context) {
+
+    return SparkJobManager.create(jobClass, context);
+  }
+
+  /**
+   * Creates a Spark pipeline for the job, using the Spark context of the
+   * action that launched it.
+   */
+  public static Pipeline create(AbstractCrunchJob job, Configuration conf) {
+
+    JobContext context = job.getJobContext();
+
+    if (!(context instanceof SparkJobContext))
+      throw new AppException("Job " + job.getName() + " runs on Spark but was not launched by a Spark action.");
+
+    Pipeline pipeline = new SparkPipeline(((SparkJobContext) context).getSparkContext(), job.getName());
+    pipeline.setConfiguration(conf);
+
+    return pipeline;
+  }
+}
@@ -0,0 +1,257 @@
+/**
+ * Copyright 2015 Cerner Corporation.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.kitesdk.apps.crunch;
+
+import com.google.common.collect.Maps;
+import org.apache.crunch.Pipeline;
+import org.apache.crunch.impl.mr.MRPipeline;
+import org.apache.hadoop.conf.Configuration;
+import org.junit.Assert;
+import org.junit.Test;
+import org.kitesdk.apps.AppException;
+import org.kitesdk.apps.JobContext;
+
+import java.util.Map;
+
+public class AbstractCrunchJobTest {
+
+  private static final long GB = 1024L * 1024L * 1024L;
+
+  public static class EmptyCrunchJob extends AbstractCrunchJob {
+
+    @Override
+    public String getName() {
+      return "empty-crunch-job";
+    }
+
+    public void run() {
+    }
+  }
+
+  /**
+   * Job with a fixed input size that counts how often it is sized.
+   */
+  public static class SizedCrunchJob extends EmptyCrunchJob {
+
+    private int sized = 0;
+
+    @Override
+    long inputBytes() {
+
+      sized++;
+
+      return 10 * GB + 1;
+    }
+  }
+
+  private AbstractCrunchJob job(String... settings) {
+
+    return configure(new EmptyCrunchJob(), settings);
+  }
+
+  private static <T extends AbstractCrunchJob> T configure(T job, String... settings) {
+
+    Map<String,String> settingsMap = Maps.newHashMap();
+
+    for (int i = 0; i < settings.length; i += 2) {
+      settingsMap.put(settings[i], settings[i+1]);
+    }
+
+    job.setJobContext(new JobContext(job, settingsMap, new Configuration(false)));
+
+    return job;
+  }
+
+  @Test
+  public void testDefaultEngine() {
+
+    Assert.assertEquals(AbstractCrunchJob.ENGINE_MAPREDUCE, job().selectEngine(0));
+  }
+
+  @Test
+  public void testConfiguredEngine() {
+
+    Assert.assertEquals(AbstractCrunchJob.ENGINE_SPARK,
+        job(AbstractCrunchJob.ENGINE, "spark").selectEngine(0));
+
+    Assert.assertEquals(AbstractCrunchJob.ENGINE_MEMORY,
+        job("kite.job.empty-crunch-job." + AbstractCrunchJob.ENGINE, "memory").selectEngine(0));
+  }
+
+  @Test
+  public void testAutoEngine() {
+
+    AbstractCrunchJob job = job(AbstractCrunchJob.ENGINE, "auto");
+
+    // Spark and in-memory runs are only used when their sizes are set.
+    Assert.assertEquals(AbstractCrunchJob.ENGINE_MAPREDUCE, job.selectEngine(0));
+    Assert.assertEquals(AbstractCrunchJob.ENGINE_MAPREDUCE, job.selectEngine(GB));
+    Assert.assertFalse(job.usesSpark());
+  }
+
+  @Test
+  public void testAutoSparkEngine() {
+
+    AbstractCrunchJob job = job(AbstractCrunchJob.ENGINE, "auto",
+        AbstractCrunchJob.SPARK_MAX_BYTES, Long.toString(GB));
+
+    Assert.assertEquals(AbstractCrunchJob.ENGINE_SPARK, job.selectEngine(0));
+    Assert.assertEquals(AbstractCrunchJob.ENGINE_SPARK, job.selectEngine(GB));
+    Assert.assertEquals(AbstractCrunchJob.ENGINE_MAPREDUCE, job.selectEngine(GB + 1));
+    Assert.assertTrue(job.usesSpark());
+
+    // Inputs of unknown size run on MapReduce.
+    Assert.assertEquals(AbstractCrunchJob.ENGINE_MAPREDUCE, job.selectEngine(-1));
+  }
+
+  @Test
+  public void testAutoMemoryEngine() {
+
+    AbstractCrunchJob job = job(AbstractCrunchJob.ENGINE, "auto",
+        AbstractCrunchJob.MEMORY_MAX_BYTES, "1024");
+
+    Assert.assertEquals(AbstractCrunchJob.ENGINE_MEMORY, job.selectEngine(1024));
+    Assert.assertEquals(AbstractCrunchJob.ENGINE_MAPREDUCE, job.selectEngine(1025));
+    Assert.assertFalse(job.usesSpark());
+  }
+
+  @Test
+  public void testUsesSpark() {
+
+    Assert.assertFalse(job().usesSpark());
+    Assert.assertFalse(job(AbstractCrunchJob.ENGINE, "memory").usesSpark());
+    Assert.assertTrue(job(AbstractCrunchJob.ENGINE, "spark").usesSpark());
+  }
+
+  @Test(expected = AppException.class)
+  public void testSparkWithoutSparkAction() {
+
+    // Jobs launched by a Java action have no Spark context to run on.
+    job(AbstractCrunchJob.ENGINE, "spark").getPipeline();
+  }
+
+  @Test(expected = AppException.class)
+  public void testUnknownEngine() {
+
+    job(AbstractCrunchJob.ENGINE, "tez").selectEngine(0);
+  }
+
+  @Test
+  public void testNoInputs() {
+
+    Assert.assertEquals(-1, job().inputBytes());
+  }
+
+  @Test
+  public void testReducerSizing() {
+
+    AbstractCrunchJob job = job();
+
+    Configuration conf = new Configuration(false);
+    job.configureSizing(conf, 1024);
+    Assert.assertEquals(1, conf.getInt("mapreduce.job.reduces", 0));
+
+    conf = new Configuration(false);
+    job.configureSizing(conf, 10 * GB + 1);
+    Assert.assertEquals(11, conf.getInt("mapreduce.job.reduces", 0));
+
+    conf = new Configuration(false);
+    job.configureSizing(conf, 10000 * GB);
+    Assert.assertEquals(500, conf.getInt("mapreduce.job.reduces", 0));
+  }
+
+  @Test
+  public void testSplitSizing() {
+
+    AbstractCrunchJob job = job(AbstractCrunchJob.MAX_MAPPERS, "10");
+
+    Configuration conf = new Configuration(false);
+    job.configureSizing(conf, 1024);
+    Assert.assertNull(conf.get("mapreduce.input.fileinputformat.split.minsize"));
+
+    conf = new Configuration(false);
+    job.configureSizing(conf, 100 * GB);
+    Assert.assertEquals(10 * GB, conf.getLong("mapreduce.input.fileinputformat.split.minsize", 0));
+  }
+
+  @Test
+  public void testUnknownSize() {
+
+    Configuration conf = new Configuration(false);
+    job().configureSizing(conf, -1);
+
+    Assert.assertNull(conf.get("mapreduce.job.reduces"));
+    Assert.assertEquals(GB, conf.getLong("crunch.bytes.per.reduce.task", 0));
+  }
+
+  @Test
+  public void testExplicitReducers() {
+
+    AbstractCrunchJob job = job(
+        AbstractCrunchJob.BYTES_PER_REDUCER, "1024",
+        "kite.job.empty-crunch-job.hadoop.mapreduce.job.reduces", "7");
+
+    Configuration conf = new Configuration(false);
+    conf.setInt("mapreduce.job.reduces", 7);
+
+    job.configureSizing(conf, GB);
+
+    Assert.assertEquals(7, conf.getInt("mapreduce.job.reduces", 0));
+    Assert.assertEquals(1024, conf.getLong("crunch.bytes.per.reduce.task", 0));
+  }
+
+  @Test
+  public void testPipelineWithoutSizing() {
+
+    SizedCrunchJob job = configure(new SizedCrunchJob());
+
+    Pipeline pipeline = job.getPipeline();
+
+    Assert.assertTrue(pipeline instanceof MRPipeline);
+
+    // The inputs are not listed and the configuration is left alone.
+    Assert.assertEquals(0, job.sized);
+    Assert.assertNull(pipeline.getConfiguration().get("mapreduce.job.reduces"));
+    Assert.assertNull(pipeline.getConfiguration().get("crunch.bytes.per.reduce.task"));
+  }
+
+  @Test
+  public void testPipelineWithSizing() {
+
+    SizedCrunchJob job = configure(new SizedCrunchJob(),
+        AbstractCrunchJob.SIZING_ENABLED, "true");
+
+    Pipeline pipeline = job.getPipeline();
+
+    Assert.assertTrue(pipeline instanceof MRPipeline);
+    Assert.assertEquals(1, job.sized);
+    Assert.assertEquals(11, pipeline.getConfiguration().getInt("mapreduce.job.reduces", 0));
+  }
+
+  @Test
+  public void testPipelineAutoEngine() {
+
+    SizedCrunchJob job = configure(new SizedCrunchJob(),
+        AbstractCrunchJob.ENGINE, "auto");
+
+    Pipeline pipeline = job.getPipeline();
+
+    // The inputs are sized to select the engine, but not used for reducers.
+    Assert.assertTrue(pipeline instanceof MRPipeline);
+    Assert.assertEquals(1, job.sized);
+    Assert.assertNull(pipeline.getConfiguration().get("mapreduce.job.reduces"));
+  }
+}
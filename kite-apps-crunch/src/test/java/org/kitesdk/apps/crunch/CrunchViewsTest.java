@@ -0,0 +1,179 @@
+/**
+ * Copyright 2015 Cerner Corporation.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.kitesdk.apps.crunch;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import org.apache.crunch.PCollection;
+import org.apache.hadoop.conf.Configuration;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.kitesdk.apps.JobContext;
+import org.kitesdk.apps.spi.UnionView;
+import org.kitesdk.data.DatasetDescriptor;
+import org.kitesdk.data.DatasetWriter;
+import org.kitesdk.data.Datasets;
+import org.kitesdk.data.PartitionStrategy;
+import org.kitesdk.data.RefinableView;
+import org.kitesdk.data.View;
+import org.kitesdk.data.event.StandardEvent;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+public class CrunchViewsTest {
+
+  @Rule
+  public TemporaryFolder folder = new TemporaryFolder();
+
+  private RefinableView<StandardEvent> events;
+
+  /**
+   * Job that collects the user IDs of its windowed input.
+   */
+  public static class WindowedCrunchJob extends AbstractCrunchJob {
+
+    private final List<Long> userIds = Lists.newArrayList();
+
+    @Override
+    public String getName() {
+      return "windowed-crunch-job";
+    }
+
+    public void run(View<StandardEvent> input) {
+
+      PCollection<StandardEvent> events = CrunchViews.read(getPipeline(), input);
+
+      for (StandardEvent event: events.materialize()) {
+        userIds.add(event.getUserId());
+      }
+    }
+
+    public List<Long> getUserIds() {
+      return userIds;
+    }
+  }
+
+  @Before
+  public void setup() {
+
+    DatasetDescriptor descriptor = new DatasetDescriptor.Builder()
+        .schema(StandardEvent.getClassSchema())
+        .partitionStrategy(new PartitionStrategy.Builder()
+            .identity("event_name", "name")
+            .build())
+        .build();
+
+    events = Datasets.create("dataset:file:" + folder.getRoot().getAbsolutePath() + "/events",
+        descriptor, StandardEvent.class);
+
+    DatasetWriter<StandardEvent> writer = events.newWriter();
+
+    try {
+
+      // One event per user in each of three partitions.
+      for (long i = 0; i < 9; ++i) {
+
+        writer.write(StandardEvent.newBuilder()
+            .setEventInitiator("user")
+            .setEventName("event-" + (i % 3))
+            .setUserId(i)
+            .setSessionId("session")
+            .setIp("127.0.0.1")
+            .setTimestamp(1000L + i)
+            .build());
+      }
+
+    } finally {
+      writer.close();
+    }
+  }
+
+  @Test
+  public void testReadView() {
+
+    WindowedCrunchJob job = job();
+
+    job.run(events.with("name", "event-0"));
+
+    Assert.assertEquals(ImmutableList.of(0L, 3L, 6L), sorted(job.getUserIds()));
+  }
+
+  @Test
+  public void testReadWindow() {
+
+    List<View<StandardEvent>> window = ImmutableList.<View<StandardEvent>>of(
+        events.with("name", "event-0"),
+        events.with("name", "event-2"));
+
+    WindowedCrunchJob job = job();
+
+    job.run(new UnionView<StandardEvent>(window));
+
+    Assert.assertEquals(ImmutableList.of(0L, 2L, 3L, 5L, 6L, 8L), sorted(job.getUserIds()));
+  }
+
+  private static long inputBytes(WindowedCrunchJob job, View<StandardEvent> input) {
+
+    job.getJobContext().setInputViews(Collections.<String,View>singletonMap("input", input));
+
+    return job.inputBytes();
+  }
+
+  @Test
+  public void testWindowSize() {
+
+    View<StandardEvent> first = events.with("name", "event-0");
+    View<StandardEvent> second = events.with("name", "event-2");
+
+    WindowedCrunchJob job = job();
+
+    long firstBytes = inputBytes(job, first);
+    long secondBytes = inputBytes(job, second);
+
+    Assert.assertTrue(firstBytes > 0);
+    Assert.assertTrue(secondBytes > 0);
+
+    // A window is sized from each of its views rather than being unknown.
+    Assert.assertEquals(firstBytes + secondBytes, inputBytes(job,
+        new UnionView<StandardEvent>(ImmutableList.<View<StandardEvent>>of(first, second))));
+  }
+
+  private static WindowedCrunchJob job() {
+
+    Map<String,String> settings = Maps.newHashMap();
+    settings.put(AbstractCrunchJob.ENGINE, AbstractCrunchJob.ENGINE_MEMORY);
+
+    WindowedCrunchJob job = new WindowedCrunchJob();
+
+    job.setJobContext(new JobContext(job, settings, new Configuration()));
+
+    return job;
+  }
+
+  private static List<Long> sorted(List<Long> values) {
+
+    List<Long> copy = Lists.newArrayList(values);
+    Collections.sort(copy);
+
+    return copy;
+  }
+}
@@ -0,0 +1,68 @@
+/**
+ * Copyright 2015 Cerner Corporation.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.kitesdk.apps.crunch.spi;
+
+import com.google.common.collect.ImmutableMap;
+import org.apache.hadoop.conf.Configuration;
+import org.junit.Assert;
+import org.junit.Test;
+import org.kitesdk.apps.AppContext;
+import org.kitesdk.apps.crunch.AbstractCrunchJob;
+import org.kitesdk.apps.crunch.AbstractCrunchJobTest;
+import org.kitesdk.apps.spark.spi.scheduled.SparkJobManager;
+import org.kitesdk.apps.spi.jobs.JavaActionJobManager;
+import org.kitesdk.apps.spi.jobs.JobManagers;
+import org.kitesdk.apps.spi.jobs.SchedulableJobManager;
+
+import java.util.Map;
+
+public class CrunchSchedulableJobManagerFactoryTest {
+
+  private static SchedulableJobManager manager(Map<String,String> settings) {
+
+    AppContext context = new AppContext(settings, new Configuration());
+
+    return JobManagers.createSchedulable(AbstractCrunchJobTest.EmptyCrunchJob.class, context);
+  }
+
+  @Test
+  public void testJavaAction() {
+
+    SchedulableJobManager manager = manager(ImmutableMap.<String,String>of());
+
+    Assert.assertTrue(manager instanceof JavaActionJobManager);
+  }
+
+  @Test
+  public void testSparkAction() {
+
+    SchedulableJobManager manager = manager(ImmutableMap.of(
+        "kite.job.empty-crunch-job." + AbstractCrunchJob.ENGINE, AbstractCrunchJob.ENGINE_SPARK));
+
+    Assert.assertTrue(manager instanceof SparkJobManager);
+  }
+
+  @Test
+  public void testAutoEngineAction() {
+
+    Assert.assertTrue(manager(ImmutableMap.of(
+        AbstractCrunchJob.ENGINE, AbstractCrunchJob.ENGINE_AUTO)) instanceof JavaActionJobManager);
+
+    Assert.assertTrue(manager(ImmutableMap.of(
+        AbstractCrunchJob.ENGINE, AbstractCrunchJob.ENGINE_AUTO,
+        AbstractCrunchJob.SPARK_MAX_BYTES, "1024")) instanceof SparkJobManager);
+  }
+}
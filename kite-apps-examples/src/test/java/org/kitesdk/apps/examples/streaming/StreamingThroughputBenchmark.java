@@ -0,0 +1,374 @@
+/**
+ * Copyright 2015 Cerner Corporation.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.kitesdk.apps.examples.streaming;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.JsonNodeFactory;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.Lists;
+import org.apache.spark.streaming.scheduler.BatchInfo;
+import org.apache.spark.streaming.scheduler.StreamingListener;
+import org.apache.spark.streaming.scheduler.StreamingListenerBatchCompleted;
+import org.apache.spark.streaming.scheduler.StreamingListenerBatchStarted;
+import org.apache.spark.streaming.scheduler.StreamingListenerBatchSubmitted;
+import org.apache.spark.streaming.scheduler.StreamingListenerReceiverError;
+import org.apache.spark.streaming.scheduler.StreamingListenerReceiverStarted;
+import org.apache.spark.streaming.scheduler.StreamingListenerReceiverStopped;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Test;
+import org.kitesdk.apps.MiniAppTest;
+import org.kitesdk.apps.example.event.ExampleEvent;
+import org.kitesdk.apps.examples.streaming.todataset.TopicToDatasetApp;
+import org.kitesdk.apps.examples.streaming.totopic.TopicToTopicApp;
+import org.kitesdk.apps.spark.spi.SparkContextFactory;
+import org.kitesdk.apps.spark.test.SparkKafkaTestHarness;
+import org.kitesdk.data.DatasetReader;
+import org.kitesdk.data.Datasets;
+import org.kitesdk.data.View;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * End-to-end throughput of the example streaming jobs, running Kafka and
+ * Spark in-process. This is not run as part of the normal build, and may be
+ * run with a chosen volume of records like this:
+ *
+ * <pre>
+ * mvn test -pl kite-apps-examples -Dtest=StreamingThroughputBenchmark \
+ *     -Dkite.benchmark.records=500000 -Dkite.benchmark.batch.records=50000
+ * </pre>
+ *
+ * Each job first processes a warm-up batch, so job startup and JIT
+ * compilation are not measured. The throughput, batch latency percentiles
+ * and GC time of the measured records are written as JSON to the results
+ * directory, which defaults to target.
+ */
+public class StreamingThroughputBenchmark extends MiniAppTest {
+
+  private static final Logger LOG = LoggerFactory.getLogger(StreamingThroughputBenchmark.class);
+
+  /**
+   * System property with the number of records to measure.
+   */
+  public static final String RECORDS = "kite.benchmark.records";
+
+  /**
+   * System property with the number of records written in each batch.
+   */
+  public static final String BATCH_RECORDS = "kite.benchmark.batch.records";
+
+  /**
+   * System property with the directory to which results are written.
+   */
+  public static final String RESULTS_DIR = "kite.benchmark.results.dir";
+
+  /**
+   * System property with the seconds to wait for all output to be available.
+   */
+  public static final String TIMEOUT = "kite.benchmark.timeout.seconds";
+
+  private static final String ENVIRONMENT = "benchmark";
+
+  private final int records = Integer.getInteger(RECORDS, 100000);
+
+  private final int batchRecords = Integer.getInteger(BATCH_RECORDS, 10000);
+
+  private final long timeoutMillis = Integer.getInteger(TIMEOUT, 600) * 1000L;
+
+  private SparkKafkaTestHarness harness;
+
+  @After
+  public void cleanup() {
+
+    if (harness != null)
+      harness.tearDown();
+
+    SparkContextFactory.shutdown();
+  }
+
+  /**
+   * Records the latency of each completed batch, from its submission
+   * to the end of its processing. The Spark clock is advanced manually
+   * by the harness, so the batch time itself is not usable for latency.
+   */
+  static class BatchLatencyListener implements StreamingListener {
+
+    private final List<Long> latencies = Lists.newArrayList();
+
+    private boolean recording = false;
+
+    synchronized void startRecording() {
+      recording = true;
+    }
+
+    synchronized List<Long> getLatencies() {
+      return Lists.newArrayList(latencies);
+    }
+
+    @Override
+    public synchronized void onBatchCompleted(StreamingListenerBatchCompleted batchCompleted) {
+
+      BatchInfo info = batchCompleted.batchInfo();
+
+      if (recording && info.processingEndTime().isDefined())
+        latencies.add((Long) info.processingEndTime().get() - info.submissionTime());
+    }
+
+    @Override
+    public void onReceiverStarted(StreamingListenerReceiverStarted receiverStarted) {
+    }
+
+    @Override
+    public void onReceiverError(StreamingListenerReceiverError receiverError) {
+    }
+
+    @Override
+    public void onReceiverStopped(StreamingListenerReceiverStopped receiverStopped) {
+    }
+
+    @Override
+    public void onBatchSubmitted(StreamingListenerBatchSubmitted batchSubmitted) {
+    }
+
+    @Override
+    public void onBatchStarted(StreamingListenerBatchStarted batchStarted) {
+    }
+  }
+
+  /**
+   * Counts the time and collections of all garbage collectors in the JVM,
+   * which includes the in-process Kafka broker.
+   */
+  private static long[] gcTotals() {
+
+    long[] totals = new long[2];
+
+    for (GarbageCollectorMXBean collector: ManagementFactory.getGarbageCollectorMXBeans()) {
+      totals[0] += Math.max(collector.getCollectionTime(), 0);
+      totals[1] += Math.max(collector.getCollectionCount(), 0);
+    }
+
+    return totals;
+  }
+
+  private static List<ExampleEvent> createEvents(int first, int count) {
+
+    List<ExampleEvent> events = Lists.newArrayListWithCapacity(count);
+
+    for (int i = first; i < first + count; ++i) {
+
+      events.add(ExampleEvent.newBuilder()
+          .setUserId(i)
+          .setSessionId("session-" + (i % 1000))
+          .setTimestamp(1420070400000L + i)
+          .build());
+    }
+
+    return events;
+  }
+
+  /**
+   * Writes records to the topic in batches, starting with the given record number.
+   */
+  private void writeEvents(String topic, int first, int count) {
+
+    for (int written = 0; written < count; written += batchRecords) {
+      harness.writeMessages(topic, createEvents(first + written, Math.min(batchRecords, count - written)));
+    }
+  }
+
+  private static long percentile(List<Long> sorted, double percentile) {
+
+    if (sorted.isEmpty())
+      return -1;
+
+    int index = (int) Math.ceil(percentile * sorted.size()) - 1;
+
+    return sorted.get(Math.max(index, 0));
+  }
+
+  private void report(String jobName, long elapsedMillis, long[] gcBefore, long[] gcAfter,
+                      List<Long> latencies) throws IOException {
+
+    Collections.sort(latencies);
+
+    JsonNodeFactory js = JsonNodeFactory.instance;
+
+    ObjectNode root = js.objectNode();
+
+    root.put("job", jobName);
+    root.put("records", records);
+    root.put("batchRecords", batchRecords);
+    root.put("elapsedMillis", elapsedMillis);
+    root.put("recordsPerSecond", records * 1000.0 / Math.max(elapsedMillis, 1));
+
+    ObjectNode latencyNode = root.putObject("batchLatencyMillis");
+
+    latencyNode.put("batches", latencies.size());
+    latencyNode.put("p50", percentile(latencies, 0.50));
+    latencyNode.put("p95", percentile(latencies, 0.95));
+    latencyNode.put("p99", percentile(latencies, 0.99));
+    latencyNode.put("max", percentile(latencies, 1.0));
+
+    root.put("gcMillis", gcAfter[0] - gcBefore[0]);
+    root.put("gcCount", gcAfter[1] - gcBefore[1]);
+
+    File resultsDir = new File(System.getProperty(RESULTS_DIR, "target"));
+    resultsDir.mkdirs();
+
+    File resultsFile = new File(resultsDir, "streaming-benchmark-" + jobName + ".json");
+
+    Writer writer = new FileWriter(resultsFile);
+
+    try {
+
+      JsonGenerator gen = new JsonFactory().createGenerator(writer);
+      gen.setCodec(new ObjectMapper());
+      gen.useDefaultPrettyPrinter();
+      gen.writeTree(root);
+
+      gen.close();
+
+    } finally {
+      writer.close();
+    }
+
+    LOG.info("Benchmark of {}: {} records per second, written to {}.",
+        new Object[] {jobName, root.get("recordsPerSecond"), resultsFile});
+  }
+
+  private BatchLatencyListener addListener() {
+
+    BatchLatencyListener listener = new BatchLatencyListener();
+
+    harness.getStreamingContext().addStreamingListener(listener);
+
+    return listener;
+  }
+
+  @Test
+  public void testTopicToTopic() throws IOException {
+
+    harness = SparkKafkaTestHarness.load(TopicToTopicApp.class, getConfiguration(),
+        ImmutableMap.of("environment", ENVIRONMENT));
+
+    String inputTopic = ENVIRONMENT + "." + TopicToTopicApp.INPUT_TOPIC;
+    String outputTopic = ENVIRONMENT + "." + TopicToTopicApp.OUTPUT_TOPIC;
+
+    BatchLatencyListener listener = addListener();
+
+    // Warm up with a single batch.
+    writeEvents(inputTopic, 0, batchRecords);
+    harness.readMessages(outputTopic, ExampleEvent.class, batchRecords, "benchmark-warmup");
+
+    listener.startRecording();
+
+    long[] gcBefore = gcTotals();
+    long start = System.currentTimeMillis();
+
+    writeEvents(inputTopic, batchRecords, records);
+
+    // The consumer reads from the start of the topic, including the warm-up batch.
+    List<ExampleEvent> output = harness.readMessages(outputTopic, ExampleEvent.class,
+        batchRecords + records, "benchmark");
+
+    long elapsed = System.currentTimeMillis() - start;
+    long[] gcAfter = gcTotals();
+
+    Assert.assertEquals(batchRecords + records, output.size());
+
+    report("topic-to-topic", elapsed, gcBefore, gcAfter, listener.getLatencies());
+  }
+
+  /**
+   * Counts the records in the view, waiting until at least
+   * the expected number are available or the timeout expires.
+   */
+  private int awaitRecords(View<ExampleEvent> view, int expected) throws InterruptedException {
+
+    long deadline = System.currentTimeMillis() + timeoutMillis;
+
+    int count = 0;
+
+    while (System.currentTimeMillis() < deadline) {
+
+      count = 0;
+
+      DatasetReader<ExampleEvent> reader = view.newReader();
+
+      try {
+
+        while (reader.hasNext()) {
+          reader.next();
+          ++count;
+        }
+
+      } finally {
+        reader.close();
+      }
+
+      if (count >= expected)
+        break;
+
+      Thread.sleep(250);
+    }
+
+    return count;
+  }
+
+  @Test
+  public void testTopicToDataset() throws IOException, InterruptedException {
+
+    harness = SparkKafkaTestHarness.load(TopicToDatasetApp.class, getConfiguration());
+
+    View<ExampleEvent> output = Datasets.load(TopicToDatasetApp.EVENTS_DS_URI, ExampleEvent.class);
+
+    BatchLatencyListener listener = addListener();
+
+    // Warm up with a single batch.
+    writeEvents(TopicToDatasetApp.TOPIC_NAME, 0, batchRecords);
+    Assert.assertEquals(batchRecords, awaitRecords(output, batchRecords));
+
+    listener.startRecording();
+
+    long[] gcBefore = gcTotals();
+    long start = System.currentTimeMillis();
+
+    writeEvents(TopicToDatasetApp.TOPIC_NAME, batchRecords, records);
+
+    int count = awaitRecords(output, batchRecords + records);
+
+    long elapsed = System.currentTimeMillis() - start;
+    long[] gcAfter = gcTotals();
+
+    Assert.assertEquals(batchRecords + records, count);
+
+    report("topic-to-dataset", elapsed, gcBefore, gcAfter, listener.getLatencies());
+  }
+}
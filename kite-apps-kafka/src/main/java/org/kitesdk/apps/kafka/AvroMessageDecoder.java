@@ -0,0 +1,165 @@
+/**
+ * Copyright 2015 Cerner Corporation.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.kitesdk.apps.kafka;
+
+import com.google.common.collect.Maps;
+import org.apache.avro.Schema;
+import org.apache.avro.generic.GenericDatumReader;
+import org.apache.avro.io.BinaryDecoder;
+import org.apache.avro.io.DatumReader;
+import org.apache.avro.io.DecoderFactory;
+import org.apache.avro.specific.SpecificDatumReader;
+import org.kitesdk.apps.AppException;
+
+import java.io.IOException;
+import java.util.Map;
+
+/**
+ * Decodes Kafka messages written by {@link AvroMessageEncoder} into
+ * records of a reader schema.
+ *
+ * Messages with a schema identifier start with the two bytes
+ * {@code 0xC3 0x01}, followed by the 64-bit identifier of the writer's
+ * schema in little-endian order, followed by the Avro binary encoded
+ * record. The writer's schema is looked up in the {@link SchemaRegistry}
+ * and resolved against the reader schema, so records written with older
+ * or newer compatible schemas can be read. A resolving reader is cached
+ * for each writer schema. Messages without the header are assumed to be
+ * written with the reader schema.
+ *
+ * The decoder is reused between messages, so instances are not
+ * thread-safe and should be used by a single task.
+ */
+public class AvroMessageDecoder<T> {
+
+  private final Schema readerSchema;
+
+  private final SchemaRegistry registry;
+
+  private final boolean specific;
+
+  private final DatumReader<T> defaultReader;
+
+  private final Map<Long, DatumReader<T>> readers = Maps.newHashMap();
+
+  private BinaryDecoder decoder = null;
+
+  /**
+   * Creates a decoder for the given reader schema that looks up writer
+   * schemas in the given registry, which may be null if all messages
+   * are written with the reader schema.
+   */
+  public AvroMessageDecoder(Schema readerSchema, SchemaRegistry registry) {
+    this(readerSchema, registry, true);
+  }
+
+  /**
+   * Creates a decoder that produces specific records if specific is true,
+   * or generic records otherwise.
+   */
+  public AvroMessageDecoder(Schema readerSchema, SchemaRegistry registry, boolean specific) {
+    this.readerSchema = readerSchema;
+    this.registry = registry;
+    this.specific = specific;
+    this.defaultReader = createReader(readerSchema, readerSchema);
+  }
+
+  /**
+   * Creates the reader used to read records of the given writer schema.
+   */
+  protected DatumReader<T> createReader(Schema writerSchema, Schema readerSchema) {
+    return specific ?
+        new SpecificDatumReader<T>(writerSchema, readerSchema) :
+        new GenericDatumReader<T>(writerSchema, readerSchema);
+  }
+
+  /**
+   * Returns true if the given message starts with a schema identifier.
+   */
+  static boolean hasHeader(byte[] message) {
+
+    if (message.length < AvroMessageEncoder.HEADER_LENGTH)
+      return false;
+
+    for (int i = 0; i < AvroMessageEncoder.MAGIC.length; ++i) {
+      if (message[i] != AvroMessageEncoder.MAGIC[i])
+        return false;
+    }
+
+    return true;
+  }
+
+  /**
+   * Returns the writer schema identifier of a message with a header.
+   */
+  static long schemaId(byte[] message) {
+
+    long id = 0;
+
+    for (int i = 7; i >= 0; --i) {
+      id = (id << 8) | (message[AvroMessageEncoder.MAGIC.length + i] & 0xFFL);
+    }
+
+    return id;
+  }
+
+  private DatumReader<T> getReader(long id) {
+
+    DatumReader<T> reader = readers.get(id);
+
+    if (reader == null) {
+
+      if (registry == null)
+        throw new AppException("Message has schema identifier " + Long.toHexString(id) +
+            " but no schema registry is configured.");
+
+      Schema writerSchema = registry.getSchema(id);
+
+      reader = writerSchema.equals(readerSchema) ?
+          defaultReader :
+          createReader(writerSchema, readerSchema);
+
+      readers.put(id, reader);
+    }
+
+    return reader;
+  }
+
+  /**
+   * Decodes the given message.
+   */
+  public T decode(byte[] message) {
+
+    DatumReader<T> reader;
+    int offset;
+
+    if (hasHeader(message)) {
+      reader = getReader(schemaId(message));
+      offset = AvroMessageEncoder.HEADER_LENGTH;
+    } else {
+      reader = defaultReader;
+      offset = 0;
+    }
+
+    decoder = DecoderFactory.get().binaryDecoder(message, offset, message.length - offset, decoder);
+
+    try {
+      return reader.read(null, decoder);
+    } catch (IOException e) {
+      throw new AppException(e);
+    }
+  }
+}
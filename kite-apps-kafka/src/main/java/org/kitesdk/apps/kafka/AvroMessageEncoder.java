@@ -0,0 +1,113 @@
+/**
+ * Copyright 2015 Cerner Corporation.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.kitesdk.apps.kafka;
+
+import org.apache.avro.Schema;
+import org.apache.avro.io.BinaryEncoder;
+import org.apache.avro.io.DatumWriter;
+import org.apache.avro.io.EncoderFactory;
+import org.apache.avro.specific.SpecificDatumWriter;
+import org.kitesdk.apps.AppException;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+
+/**
+ * Encodes Avro records as Kafka messages. When a schema registry is used,
+ * each message starts with a header identifying the writer's schema,
+ * as described in {@link AvroMessageDecoder}.
+ *
+ * The buffer and encoder are reused between messages, so instances are
+ * not thread-safe and should be used by a single task.
+ */
+public class AvroMessageEncoder<T> {
+
+  /**
+   * Marker at the start of messages that carry a schema identifier.
+   */
+  static final byte[] MAGIC = {(byte) 0xC3, (byte) 0x01};
+
+  /**
+   * Length of the header of messages that carry a schema identifier.
+   */
+  static final int HEADER_LENGTH = MAGIC.length + 8;
+
+  private final DatumWriter<T> writer;
+
+  private final byte[] header;
+
+  private final ByteArrayOutputStream output = new ByteArrayOutputStream();
+
+  private BinaryEncoder encoder = null;
+
+  /**
+   * Creates an encoder for records of the given schema written to the
+   * given topic. The schema is registered with the given registry, or
+   * messages are written without a header if the registry is null.
+   */
+  public AvroMessageEncoder(Schema schema, SchemaRegistry registry, String topic) {
+    this(schema, registry != null ? Long.valueOf(registry.register(topic, schema)) : null);
+  }
+
+  /**
+   * Creates an encoder for records of the given schema, which has already
+   * been registered with the given identifier. Messages are written
+   * without a header if the identifier is null.
+   */
+  public AvroMessageEncoder(Schema schema, Long schemaId) {
+
+    this.writer = new SpecificDatumWriter<T>(schema);
+
+    if (schemaId != null) {
+
+      long id = schemaId;
+
+      header = new byte[HEADER_LENGTH];
+
+      System.arraycopy(MAGIC, 0, header, 0, MAGIC.length);
+
+      // Little-endian to match the Avro single object encoding.
+      for (int i = 0; i < 8; ++i) {
+        header[MAGIC.length + i] = (byte) (id >>> (8 * i));
+      }
+
+    } else {
+      header = new byte[0];
+    }
+  }
+
+  /**
+   * Encodes the given record as a message.
+   */
+  public byte[] encode(T record) {
+
+    output.reset();
+
+    try {
+      output.write(header);
+
+      encoder = EncoderFactory.get().binaryEncoder(output, encoder);
+
+      writer.write(record, encoder);
+      encoder.flush();
+
+    } catch (IOException e) {
+      throw new AppException(e);
+    }
+
+    return output.toByteArray();
+  }
+}
@@ -0,0 +1,491 @@
+/**
+ * Copyright 2015 Cerner Corporation.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.kitesdk.apps.kafka;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import kafka.javaapi.producer.Producer;
+import kafka.producer.KeyedMessage;
+import kafka.producer.ProducerConfig;
+import org.apache.avro.Schema;
+import org.apache.avro.SchemaBuilder;
+import org.apache.avro.generic.GenericRecord;
+import org.kitesdk.apps.AppException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Writes generated records to a Kafka topic as fast as possible or at a
+ * target rate, to load test the streaming jobs that consume the topic.
+ *
+ * Each thread has its own producer, record generator and encoder, and
+ * sends records in batches. The records are encoded with
+ * {@link AvroMessageEncoder} as the Kafka outputs of streaming jobs
+ * encode them, so they can be read by any streaming job.
+ */
+public class LoadGenerator {
+
+  private static final Logger LOG = LoggerFactory.getLogger(LoadGenerator.class);
+
+  private static final String KAFKA_PREFIX = "kafka.";
+
+  /**
+   * Schema of the records generated when no schema is given,
+   * with a string key and a padded payload.
+   */
+  public static final Schema DEFAULT_SCHEMA = SchemaBuilder.record("LoadEvent")
+      .namespace("org.kitesdk.apps.spark.kafka")
+      .fields()
+      .requiredString("key")
+      .requiredLong("timestamp")
+      .requiredBytes("payload")
+      .endRecord();
+
+  private final String topic;
+
+  private final Schema schema;
+
+  private final Map<String,String> settings;
+
+  private final int threads;
+
+  private final long rate;
+
+  private final long count;
+
+  private final long durationMillis;
+
+  private final int batchSize;
+
+  private final int recordSize;
+
+  private final String keyField;
+
+  private final long keyCardinality;
+
+  private final double skew;
+
+  private final AtomicLong recordsSent = new AtomicLong();
+
+  private final AtomicLong bytesSent = new AtomicLong();
+
+  /**
+   * Records not yet claimed by a thread, when a count is given.
+   */
+  private final AtomicLong remaining = new AtomicLong();
+
+  private final AtomicReference<Throwable> failure = new AtomicReference<Throwable>();
+
+  private volatile boolean stopped = false;
+
+  private CountDownLatch finished;
+
+  private long startTime;
+
+  private long endTime;
+
+  // Identifier of the registered schema, or null if no registry is used.
+  private volatile Long schemaId;
+
+  private LoadGenerator(Builder builder) {
+    this.topic = builder.topic;
+    this.schema = builder.schema;
+    this.settings = builder.settings;
+    this.threads = builder.threads;
+    this.rate = builder.rate;
+    this.count = builder.count;
+    this.durationMillis = builder.durationMillis;
+    this.batchSize = builder.batchSize;
+    this.recordSize = builder.recordSize;
+    this.keyField = builder.keyField;
+    this.keyCardinality = builder.keyCardinality;
+    this.skew = builder.skew;
+  }
+
+  /**
+   * Returns the producer properties in the given settings, which
+   * are those with a "kafka." prefix.
+   */
+  static Properties toProducerProps(Map<String,String> settings) {
+
+    Properties props = new Properties();
+
+    for (Map.Entry<String,String> entry: settings.entrySet()) {
+
+      if (entry.getKey().startsWith(KAFKA_PREFIX))
+        props.put(entry.getKey().substring(KAFKA_PREFIX.length()), entry.getValue());
+    }
+
+    return props;
+  }
+
+  /**
+   * Builder for load generators.
+   */
+  public static class Builder {
+
+    private String topic;
+
+    private Schema schema = DEFAULT_SCHEMA;
+
+    private Map<String,String> settings = Maps.newHashMap();
+
+    private int threads = 1;
+
+    private long rate = 0;
+
+    private long count = 0;
+
+    private long durationMillis = 0;
+
+    private int batchSize = 500;
+
+    private int recordSize = 100;
+
+    private String keyField = null;
+
+    private long keyCardinality = 1000;
+
+    private double skew = 0.0;
+
+    /**
+     * Sets the topic to which records are written.
+     */
+    public Builder topic(String topic) {
+      this.topic = topic;
+      return this;
+    }
+
+    /**
+     * Sets the schema of generated records, which defaults to {@link #DEFAULT_SCHEMA}.
+     */
+    public Builder schema(Schema schema) {
+      this.schema = schema;
+      return this;
+    }
+
+    /**
+     * Sets the application settings, which include the Kafka settings
+     * with a "kafka." prefix and the schema registry settings.
+     */
+    public Builder settings(Map<String,String> settings) {
+      this.settings = settings;
+      return this;
+    }
+
+    /**
+     * Sets the number of threads sending records.
+     */
+    public Builder threads(int threads) {
+      this.threads = threads;
+      return this;
+    }
+
+    /**
+     * Sets the target number of records per second across all threads,
+     * or zero to send as fast as possible.
+     */
+    public Builder rate(long recordsPerSecond) {
+      this.rate = recordsPerSecond;
+      return this;
+    }
+
+    /**
+     * Sets the number of records to send, or zero to send until
+     * the duration passes or the generator is stopped.
+     */
+    public Builder count(long count) {
+      this.count = count;
+      return this;
+    }
+
+    /**
+     * Sets how long to send records, or zero to send until the
+     * count is reached or the generator is stopped.
+     */
+    public Builder duration(long duration, TimeUnit unit) {
+      this.durationMillis = unit.toMillis(duration);
+      return this;
+    }
+
+    /**
+     * Sets the number of records in each send to Kafka.
+     */
+    public Builder batchSize(int batchSize) {
+      this.batchSize = batchSize;
+      return this;
+    }
+
+    /**
+     * Sets the target size in bytes of each encoded record. String and bytes
+     * fields are padded to reach it, so records of schemas without those
+     * fields may be smaller.
+     */
+    public Builder recordSize(int recordSize) {
+      this.recordSize = recordSize;
+      return this;
+    }
+
+    /**
+     * Sets the long, int or string field holding the key of each record.
+     * For the default schema this is the key field.
+     */
+    public Builder keyField(String keyField) {
+      this.keyField = keyField;
+      return this;
+    }
+
+    /**
+     * Sets the number of distinct keys.
+     */
+    public Builder keyCardinality(long keyCardinality) {
+      this.keyCardinality = keyCardinality;
+      return this;
+    }
+
+    /**
+     * Sets the skew of keys, as the exponent of a Zipf distribution.
+     * Zero, the default, draws keys uniformly, and higher values
+     * concentrate records on fewer keys.
+     */
+    public Builder skew(double skew) {
+      this.skew = skew;
+      return this;
+    }
+
+    public LoadGenerator build() {
+
+      if (topic == null)
+        throw new IllegalArgumentException("A topic must be provided.");
+
+      if (threads < 1)
+        throw new IllegalArgumentException("At least one thread is required: " + threads);
+
+      if (batchSize < 1)
+        throw new IllegalArgumentException("Batch size must be positive: " + batchSize);
+
+      if (rate < 0 || count < 0 || durationMillis < 0)
+        throw new IllegalArgumentException("Rate, count and duration must not be negative.");
+
+      if (keyField == null && schema.equals(DEFAULT_SCHEMA))
+        keyField = "key";
+
+      // Fail early if records of the schema cannot be generated.
+      new RecordGenerator(schema, keyField, keyCardinality, skew, recordSize, new Random());
+
+      return new LoadGenerator(this);
+    }
+  }
+
+  /**
+   * Starts sending records. This returns immediately; use
+   * {@link #awaitCompletion} to wait for the generator to finish.
+   */
+  public synchronized void start() {
+
+    if (finished != null)
+      throw new IllegalStateException("Load generator already started.");
+
+    finished = new CountDownLatch(threads);
+    remaining.set(count);
+    startTime = System.currentTimeMillis();
+
+    // Register the schema once rather than racing in each thread.
+    SchemaRegistry registry = SchemaRegistries.get(settings);
+
+    schemaId = registry != null ? Long.valueOf(registry.register(topic, schema)) : null;
+
+    for (int i = 0; i < threads; ++i) {
+
+      Thread thread = new Thread(new Sender(i), "kite-load-generator-" + i);
+      thread.setDaemon(true);
+      thread.start();
+    }
+  }
+
+  /**
+   * Signals all threads to stop after their current batch.
+   */
+  public void stop() {
+    stopped = true;
+  }
+
+  /**
+   * Waits for the generator to finish, returning true if it finished
+   * within the timeout.
+   *
+   * @throws AppException if sending records failed
+   */
+  public boolean awaitCompletion(long timeout, TimeUnit unit) throws InterruptedException {
+
+    boolean done = finished.await(timeout, unit);
+
+    if (failure.get() != null)
+      throw new AppException("Unable to send records to topic " + topic, failure.get());
+
+    return done;
+  }
+
+  public long getRecordsSent() {
+    return recordsSent.get();
+  }
+
+  public long getBytesSent() {
+    return bytesSent.get();
+  }
+
+  /**
+   * Gets the milliseconds the generator has been running, or ran for
+   * if it has finished.
+   */
+  public synchronized long getElapsedMillis() {
+
+    return endTime > 0 ?
+        endTime - startTime :
+        System.currentTimeMillis() - startTime;
+  }
+
+  private synchronized void threadFinished() {
+
+    finished.countDown();
+
+    if (finished.getCount() == 0)
+      endTime = System.currentTimeMillis();
+  }
+
+  /**
+   * Claims up to a batch of records to send, returning the number claimed.
+   */
+  private int claim() {
+
+    if (stopped)
+      return 0;
+
+    if (durationMillis > 0 && System.currentTimeMillis() - startTime >= durationMillis)
+      return 0;
+
+    if (count == 0)
+      return batchSize;
+
+    while (true) {
+
+      long current = remaining.get();
+
+      if (current <= 0)
+        return 0;
+
+      int claimed = (int) Math.min(batchSize, current);
+
+      if (remaining.compareAndSet(current, current - claimed))
+        return claimed;
+    }
+  }
+
+  private class Sender implements Runnable {
+
+    private final int index;
+
+    Sender(int index) {
+      this.index = index;
+    }
+
+    @Override
+    public void run() {
+
+      Producer<byte[],byte[]> producer = null;
+
+      try {
+
+        producer = new Producer<byte[],byte[]>(new ProducerConfig(toProducerProps(settings)));
+
+        RecordGenerator generator = new RecordGenerator(schema, keyField,
+            keyCardinality, skew, recordSize, new Random(index));
+
+        AvroMessageEncoder<GenericRecord> encoder = new AvroMessageEncoder<GenericRecord>(schema, schemaId);
+
+        List<KeyedMessage<byte[],byte[]>> messages = Lists.newArrayListWithCapacity(batchSize);
+
+        byte[] emptyKey = new byte[0];
+
+        double threadRate = rate / (double) threads;
+
+        long threadStart = System.nanoTime();
+
+        long threadSent = 0;
+
+        int batch;
+
+        while ((batch = claim()) > 0) {
+
+          messages.clear();
+
+          long bytes = 0;
+
+          for (int i = 0; i < batch; ++i) {
+
+            byte[] payload = encoder.encode(generator.next());
+
+            messages.add(new KeyedMessage<byte[],byte[]>(topic, emptyKey, payload));
+
+            bytes += payload.length;
+          }
+
+          producer.send(messages);
+
+          recordsSent.addAndGet(batch);
+          bytesSent.addAndGet(bytes);
+
+          threadSent += batch;
+
+          // Wait until the target rate allows the next batch.
+          if (threadRate > 0) {
+
+            long dueNanos = threadStart + (long) (threadSent * 1.0e9 / threadRate);
+            long waitNanos = dueNanos - System.nanoTime();
+
+            if (waitNanos > 0)
+              TimeUnit.NANOSECONDS.sleep(waitNanos);
+          }
+        }
+
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      } catch (Throwable t) {
+
+        LOG.error("Load generator thread failed.", t);
+
+        failure.compareAndSet(null, t);
+        stopped = true;
+
+      } finally {
+
+        if (producer != null)
+          producer.close();
+
+        threadFinished();
+      }
+    }
+  }
+}
@@ -0,0 +1,289 @@
+/**
+ * Copyright 2015 Cerner Corporation.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.kitesdk.apps.kafka;
+
+import com.google.common.collect.Lists;
+import org.apache.avro.Schema;
+import org.apache.avro.generic.GenericData;
+import org.apache.avro.generic.GenericRecord;
+
+import java.nio.ByteBuffer;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Generates records of a schema for load testing. String and bytes fields
+ * are padded so encoded records are close to a target size, and the key
+ * field is drawn from a fixed number of keys with a configurable skew.
+ *
+ * Other fields are filled cheaply: long fields with the current time,
+ * other primitives with random values, unions with their first non-null
+ * branch, and arrays and maps are left empty.
+ *
+ * Instances are not thread-safe and should be used by a single thread.
+ */
+class RecordGenerator {
+
+  /**
+   * Number of distinct padding values generated for each padded field.
+   */
+  private static final int PADDING_VALUES = 64;
+
+  private static final char[] ALPHABET =
+      "abcdefghijklmnopqrstuvwxyzABCDEFGHIJKLMNOPQRSTUVWXYZ0123456789".toCharArray();
+
+  private final Schema schema;
+
+  private final Schema.Field keyField;
+
+  private final long keyCardinality;
+
+  private final double skew;
+
+  private final Random random;
+
+  /**
+   * Values of padded string fields, which are chosen at random.
+   */
+  private List<String> paddingStrings = Collections.singletonList("");
+
+  /**
+   * Value of padded bytes fields.
+   */
+  private byte[] paddingBytes = new byte[0];
+
+  /**
+   * Creates a generator of records of the given schema.
+   *
+   * @param schema a record schema
+   * @param keyFieldName the name of a long, int or string field to hold keys, or null
+   * @param keyCardinality the number of distinct keys
+   * @param skew the exponent of the Zipf distribution of keys, where zero is uniform
+   * @param recordSize the target size of an encoded record in bytes
+   * @param random the source of random values
+   */
+  RecordGenerator(Schema schema, String keyFieldName, long keyCardinality,
+                  double skew, int recordSize, Random random) {
+
+    if (schema.getType() != Schema.Type.RECORD)
+      throw new IllegalArgumentException("Only record schemas can be generated: " + schema);
+
+    if (keyCardinality < 1)
+      throw new IllegalArgumentException("Key cardinality must be positive: " + keyCardinality);
+
+    if (skew < 0)
+      throw new IllegalArgumentException("Skew must not be negative: " + skew);
+
+    this.schema = schema;
+    this.keyCardinality = keyCardinality;
+    this.skew = skew;
+    this.random = random;
+
+    if (keyFieldName != null) {
+
+      keyField = schema.getField(keyFieldName);
+
+      if (keyField == null)
+        throw new IllegalArgumentException("Key field " + keyFieldName + " not in schema " + schema);
+
+      Schema.Type keyType = nonNull(keyField.schema()).getType();
+
+      if (keyType != Schema.Type.LONG && keyType != Schema.Type.INT && keyType != Schema.Type.STRING)
+        throw new IllegalArgumentException("Key field must be a long, int or string: " + keyFieldName);
+
+    } else {
+      keyField = null;
+    }
+
+    // Size the padding from a record generated without it.
+    int paddedFields = countPaddedFields(schema);
+
+    if (paddedFields > 0) {
+
+      int paddingLength = Math.max(0, recordSize - encodedSize(next())) / paddedFields;
+
+      List<String> strings = Lists.newArrayListWithCapacity(PADDING_VALUES);
+
+      for (int i = 0; i < PADDING_VALUES; ++i) {
+        strings.add(randomString(paddingLength));
+      }
+
+      paddingStrings = strings;
+      paddingBytes = new byte[paddingLength];
+      random.nextBytes(paddingBytes);
+    }
+  }
+
+  private static Schema nonNull(Schema schema) {
+
+    if (schema.getType() != Schema.Type.UNION)
+      return schema;
+
+    for (Schema branch: schema.getTypes()) {
+      if (branch.getType() != Schema.Type.NULL)
+        return branch;
+    }
+
+    return schema.getTypes().get(0);
+  }
+
+  private int countPaddedFields(Schema recordSchema) {
+
+    int count = 0;
+
+    for (Schema.Field field: recordSchema.getFields()) {
+
+      if (field == keyField)
+        continue;
+
+      Schema fieldSchema = nonNull(field.schema());
+
+      switch (fieldSchema.getType()) {
+        case STRING:
+        case BYTES:
+          ++count;
+          break;
+        case RECORD:
+          count += countPaddedFields(fieldSchema);
+          break;
+        default:
+          break;
+      }
+    }
+
+    return count;
+  }
+
+  private static int encodedSize(GenericRecord record) {
+
+    AvroMessageEncoder<GenericRecord> encoder =
+        new AvroMessageEncoder<GenericRecord>(record.getSchema(), null, null);
+
+    return encoder.encode(record).length;
+  }
+
+  private String randomString(int length) {
+
+    char[] chars = new char[length];
+
+    for (int i = 0; i < length; ++i) {
+      chars[i] = ALPHABET[random.nextInt(ALPHABET.length)];
+    }
+
+    return new String(chars);
+  }
+
+  /**
+   * Returns the next key, between zero and the key cardinality. Keys are
+   * drawn from a continuous approximation of a Zipf distribution, so
+   * lower keys are more frequent as the skew increases.
+   */
+  long nextKey() {
+
+    double u = random.nextDouble();
+
+    if (skew == 0)
+      return (long) (u * keyCardinality);
+
+    double x;
+
+    if (skew == 1.0) {
+      x = Math.pow(keyCardinality + 1, u);
+    } else {
+      double exponent = 1.0 - skew;
+      x = Math.pow(1.0 + u * (Math.pow(keyCardinality + 1, exponent) - 1.0), 1.0 / exponent);
+    }
+
+    return Math.min(Math.max((long) x - 1, 0), keyCardinality - 1);
+  }
+
+  /**
+   * Returns the next generated record.
+   */
+  GenericData.Record next() {
+    return generateRecord(schema);
+  }
+
+  private GenericData.Record generateRecord(Schema recordSchema) {
+
+    GenericData.Record record = new GenericData.Record(recordSchema);
+
+    for (Schema.Field field: recordSchema.getFields()) {
+
+      if (field == keyField) {
+        record.put(field.pos(), generateKey(nonNull(field.schema())));
+      } else {
+        record.put(field.pos(), generate(field.schema()));
+      }
+    }
+
+    return record;
+  }
+
+  private Object generateKey(Schema keySchema) {
+
+    long key = nextKey();
+
+    switch (keySchema.getType()) {
+      case LONG:
+        return key;
+      case INT:
+        return (int) key;
+      default:
+        return Long.toString(key);
+    }
+  }
+
+  private Object generate(Schema fieldSchema) {
+
+    switch (fieldSchema.getType()) {
+      case NULL:
+        return null;
+      case BOOLEAN:
+        return random.nextBoolean();
+      case INT:
+        return random.nextInt();
+      case LONG:
+        return System.currentTimeMillis();
+      case FLOAT:
+        return random.nextFloat();
+      case DOUBLE:
+        return random.nextDouble();
+      case STRING:
+        return paddingStrings.get(random.nextInt(paddingStrings.size()));
+      case BYTES:
+        return ByteBuffer.wrap(paddingBytes);
+      case FIXED:
+        byte[] fixed = new byte[fieldSchema.getFixedSize()];
+        random.nextBytes(fixed);
+        return new GenericData.Fixed(fieldSchema, fixed);
+      case ENUM:
+        List<String> symbols = fieldSchema.getEnumSymbols();
+        return new GenericData.EnumSymbol(fieldSchema, symbols.get(random.nextInt(symbols.size())));
+      case ARRAY:
+        return new GenericData.Array<Object>(0, fieldSchema);
+      case MAP:
+        return Collections.emptyMap();
+      case UNION:
+        return generate(nonNull(fieldSchema));
+      case RECORD:
+        return generateRecord(fieldSchema);
+      default:
+        throw new IllegalArgumentException("Unsupported schema: " + fieldSchema);
+    }
+  }
+}
@@ -0,0 +1,168 @@
+/**
+ * Copyright 2015 Cerner Corporation.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.kitesdk.apps.kafka;
+
+import org.apache.avro.Schema;
+import org.apache.avro.SchemaNormalization;
+import org.kitesdk.apps.AppException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Source of {@link SchemaRegistry} instances. The registry is disabled
+ * unless the {@link #REGISTRY_ENABLED} setting is true, since enabling it
+ * changes the format of messages written to Kafka. The implementation is
+ * chosen by the {@link #REGISTRY_CLASS} setting and defaults to
+ * {@link ZooKeeperSchemaRegistry}. Registries are shared by all users
+ * in a process with the same ZooKeeper connect string and registry
+ * settings, and are closed when the process shuts down.
+ */
+public class SchemaRegistries {
+
+  private static final Logger LOG = LoggerFactory.getLogger(SchemaRegistries.class);
+
+  private static final String REGISTRY_PREFIX = "kite.schema.registry.";
+
+  private static final String ZOOKEEPER_CONNECT = "kafka.zookeeper.connect";
+
+  /**
+   * Setting for the name of the {@link SchemaRegistry} implementation.
+   */
+  public static final String REGISTRY_CLASS = "kite.schema.registry.class";
+
+  /**
+   * Setting that, when true, enables the schema registry. Messages are
+   * then written with the fingerprint of their schema, which readers
+   * resolve against their own schema. Otherwise messages are written
+   * without a fingerprint, so readers must use the same schema as writers.
+   */
+  public static final String REGISTRY_ENABLED = "kite.schema.registry.enabled";
+
+  private static final ConcurrentMap<String, SchemaRegistry> REGISTRIES =
+      new ConcurrentHashMap<String, SchemaRegistry>();
+
+  static {
+    Runtime.getRuntime().addShutdownHook(new Thread("kite-schema-registries") {
+      @Override
+      public void run() {
+        close();
+      }
+    });
+  }
+
+  /**
+   * Returns true if the schema registry is enabled by the given settings.
+   */
+  public static boolean isEnabled(Map<String,String> settings) {
+    return "true".equalsIgnoreCase(settings.get(REGISTRY_ENABLED));
+  }
+
+  /**
+   * Returns the identifier of the given schema in any registry,
+   * which is its 64-bit parsing fingerprint.
+   */
+  public static long id(Schema schema) {
+    return SchemaNormalization.parsingFingerprint64(schema);
+  }
+
+  /**
+   * Gets the schema registry configured by the given settings,
+   * or null if the registry is disabled.
+   */
+  public static SchemaRegistry get(Map<String,String> settings) {
+
+    if (!isEnabled(settings))
+      return null;
+
+    String className = settings.containsKey(REGISTRY_CLASS) ?
+        settings.get(REGISTRY_CLASS) :
+        ZooKeeperSchemaRegistry.class.getName();
+
+    String key = key(className, settings);
+
+    SchemaRegistry registry = REGISTRIES.get(key);
+
+    if (registry == null) {
+
+      registry = create(className, settings);
+
+      SchemaRegistry existing = REGISTRIES.putIfAbsent(key, registry);
+
+      if (existing != null)
+        registry = existing;
+    }
+
+    return registry;
+  }
+
+  /**
+   * Returns the key under which a registry is shared, which includes only
+   * the settings a registry uses rather than all of the job's settings.
+   */
+  private static String key(String className, Map<String,String> settings) {
+
+    Map<String,String> registrySettings = new TreeMap<String,String>();
+
+    for (Map.Entry<String,String> setting: settings.entrySet()) {
+
+      if (setting.getKey().startsWith(REGISTRY_PREFIX) ||
+          setting.getKey().equals(ZOOKEEPER_CONNECT))
+        registrySettings.put(setting.getKey(), setting.getValue());
+    }
+
+    return className + registrySettings;
+  }
+
+  /**
+   * Closes all of the registries created in this process. This is
+   * called when the process shuts down.
+   */
+  public static void close() {
+
+    for (String key: REGISTRIES.keySet()) {
+
+      SchemaRegistry registry = REGISTRIES.remove(key);
+
+      if (registry instanceof Closeable) {
+
+        try {
+          ((Closeable) registry).close();
+        } catch (IOException e) {
+          LOG.warn("Unable to close schema registry " + registry, e);
+        }
+      }
+    }
+  }
+
+  private static SchemaRegistry create(String className, Map<String,String> settings) {
+
+    try {
+      Class<?> registryClass = Thread.currentThread().getContextClassLoader().loadClass(className);
+
+      return (SchemaRegistry) registryClass.getConstructor(Map.class).newInstance(settings);
+
+    } catch (Exception e) {
+      throw new AppException("Unable to create schema registry " + className, e);
+    }
+  }
+}
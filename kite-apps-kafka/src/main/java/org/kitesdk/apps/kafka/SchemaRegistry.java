@@ -0,0 +1,61 @@
+/**
+ * Copyright 2015 Cerner Corporation.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.kitesdk.apps.kafka;
+
+import org.apache.avro.Schema;
+
+/**
+ * A registry of the Avro schemas used to write messages to Kafka topics.
+ * Each schema is identified by its 64-bit parsing fingerprint, which is
+ * written at the start of each message so readers can resolve the writer's
+ * schema against their own. This allows producers and consumers of a topic
+ * to evolve their schemas independently.
+ *
+ * Implementations must have a public constructor that accepts the
+ * application settings as a {@code Map<String,String>}, and must be
+ * safe for use by multiple threads. See {@link SchemaRegistries}.
+ */
+public interface SchemaRegistry {
+
+  /**
+   * Registers the given schema as used by the given topic, and returns
+   * its identifier. Registering a schema that is already present only
+   * makes it the latest schema for the topic.
+   *
+   * @param topic the topic to which the schema is written
+   * @param schema the schema to register
+   * @return the identifier of the schema
+   */
+  long register(String topic, Schema schema);
+
+  /**
+   * Gets the schema with the given identifier.
+   *
+   * @param id the identifier of a registered schema
+   * @return the schema
+   * @throws org.kitesdk.apps.AppException if no such schema is registered
+   */
+  Schema getSchema(long id);
+
+  /**
+   * Gets the schema most recently registered for the given topic,
+   * or null if none has been registered.
+   *
+   * @param topic the topic
+   * @return the latest schema of the topic, or null
+   */
+  Schema getLatestSchema(String topic);
+}
@@ -0,0 +1,154 @@
+/**
+ * Copyright 2015 Cerner Corporation.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.kitesdk.apps.kafka;
+
+import kafka.utils.ZKStringSerializer$;
+import org.I0Itec.zkclient.ZkClient;
+import org.I0Itec.zkclient.exception.ZkNodeExistsException;
+import org.apache.avro.Schema;
+import org.kitesdk.apps.AppException;
+
+import java.io.Closeable;
+import java.math.BigInteger;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * A {@link SchemaRegistry} that stores schemas in the ZooKeeper ensemble
+ * used by Kafka. Each schema is stored once under its identifier, and
+ * each topic records the identifier of its latest schema. Schemas never
+ * change once stored, so they are cached after they are first read.
+ * Registering the schema a topic already uses does not write to ZooKeeper.
+ */
+public class ZooKeeperSchemaRegistry implements SchemaRegistry, Closeable {
+
+  /**
+   * Setting for the ZooKeeper path under which schemas are stored.
+   */
+  public static final String ROOT_PATH = "kite.schema.registry.zk.root";
+
+  private static final String DEFAULT_ROOT_PATH = "/kite/schemas";
+
+  private static final String ZOOKEEPER_CONNECT = "kafka.zookeeper.connect";
+
+  private final ZkClient client;
+
+  private final String root;
+
+  private final ConcurrentMap<Long, Schema> schemas = new ConcurrentHashMap<Long, Schema>();
+
+  public ZooKeeperSchemaRegistry(Map<String,String> settings) {
+
+    String zookeeperConnect = settings.get(ZOOKEEPER_CONNECT);
+
+    if (zookeeperConnect == null)
+      throw new AppException("Required property " + ZOOKEEPER_CONNECT + " does not exist.");
+
+    String root = settings.get(ROOT_PATH);
+
+    this.root = root != null ? root : DEFAULT_ROOT_PATH;
+    this.client = new ZkClient(zookeeperConnect, 10000, 10000, ZKStringSerializer$.MODULE$);
+  }
+
+  private String idPath(long id) {
+    return root + "/ids/" + Long.toHexString(id);
+  }
+
+  private String topicPath(String topic) {
+    return root + "/topics/" + topic;
+  }
+
+  @Override
+  public long register(String topic, Schema schema) {
+
+    long id = SchemaRegistries.id(schema);
+
+    if (!schemas.containsKey(id)) {
+
+      String path = idPath(id);
+
+      if (!client.exists(path)) {
+
+        client.createPersistent(root + "/ids", true);
+
+        try {
+          client.createPersistent(path, schema.toString());
+        } catch (ZkNodeExistsException e) {
+          // Registered concurrently with the same content.
+        }
+      }
+
+      schemas.putIfAbsent(id, schema);
+    }
+
+    String topicPath = topicPath(topic);
+
+    String storedId = client.readData(topicPath, true);
+
+    if (storedId == null) {
+
+      client.createPersistent(root + "/topics", true);
+
+      try {
+        client.createPersistent(topicPath, Long.toHexString(id));
+        storedId = Long.toHexString(id);
+      } catch (ZkNodeExistsException e) {
+        // Fall through and update the existing topic.
+      }
+    }
+
+    // Only write when the topic's latest schema changes.
+    if (!Long.toHexString(id).equals(storedId))
+      client.writeData(topicPath, Long.toHexString(id));
+
+    return id;
+  }
+
+  @Override
+  public Schema getSchema(long id) {
+
+    Schema schema = schemas.get(id);
+
+    if (schema == null) {
+
+      String schemaString = client.readData(idPath(id), true);
+
+      if (schemaString == null)
+        throw new AppException("No schema registered with identifier " + Long.toHexString(id));
+
+      schema = new Schema.Parser().parse(schemaString);
+
+      schemas.putIfAbsent(id, schema);
+    }
+
+    return schema;
+  }
+
+  @Override
+  public Schema getLatestSchema(String topic) {
+
+    String id = client.readData(topicPath(topic), true);
+
+    // Parse as unsigned, since fingerprints use all 64 bits.
+    return id == null ? null : getSchema(new BigInteger(id, 16).longValue());
+  }
+
+  @Override
+  public void close() {
+    client.close();
+  }
+}
@@ -0,0 +1,169 @@
+/**
+ * Copyright 2015 Cerner Corporation.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.kitesdk.apps.kafka;
+
+import com.google.common.collect.Maps;
+import org.apache.avro.Schema;
+import org.apache.avro.generic.GenericData;
+import org.apache.avro.generic.GenericRecord;
+import org.junit.Assert;
+import org.junit.Test;
+import org.kitesdk.apps.AppException;
+
+import java.util.Map;
+
+public class AvroMessagesTest {
+
+  private static final Schema V1 = new Schema.Parser().parse(
+      "{\"type\": \"record\", \"name\": \"Event\", \"fields\": [" +
+      "{\"name\": \"id\", \"type\": \"long\"}]}");
+
+  private static final Schema V2 = new Schema.Parser().parse(
+      "{\"type\": \"record\", \"name\": \"Event\", \"fields\": [" +
+      "{\"name\": \"id\", \"type\": \"long\"}," +
+      "{\"name\": \"source\", \"type\": \"string\", \"default\": \"unknown\"}]}");
+
+  /**
+   * Registry kept in memory for tests.
+   */
+  public static class MemorySchemaRegistry implements SchemaRegistry {
+
+    private final Map<Long,Schema> schemas = Maps.newConcurrentMap();
+
+    private final Map<String,Schema> latest = Maps.newConcurrentMap();
+
+    public MemorySchemaRegistry(Map<String,String> settings) {
+    }
+
+    @Override
+    public long register(String topic, Schema schema) {
+
+      long id = SchemaRegistries.id(schema);
+
+      schemas.put(id, schema);
+      latest.put(topic, schema);
+
+      return id;
+    }
+
+    @Override
+    public Schema getSchema(long id) {
+
+      Schema schema = schemas.get(id);
+
+      if (schema == null)
+        throw new AppException("No schema registered with identifier " + Long.toHexString(id));
+
+      return schema;
+    }
+
+    @Override
+    public Schema getLatestSchema(String topic) {
+      return latest.get(topic);
+    }
+  }
+
+  private static GenericRecord event(long id) {
+
+    GenericRecord record = new GenericData.Record(V1);
+    record.put("id", id);
+
+    return record;
+  }
+
+  @Test
+  public void testResolveWriterSchema() {
+
+    SchemaRegistry registry = new MemorySchemaRegistry(null);
+
+    AvroMessageEncoder<GenericRecord> encoder =
+        new AvroMessageEncoder<GenericRecord>(V1, registry, "events");
+
+    byte[] message = encoder.encode(event(42L));
+
+    Assert.assertTrue(AvroMessageDecoder.hasHeader(message));
+    Assert.assertEquals(SchemaRegistries.id(V1), AvroMessageDecoder.schemaId(message));
+    Assert.assertEquals(V1, registry.getLatestSchema("events"));
+
+    // A reader with a newer schema sees the default for the added field.
+    AvroMessageDecoder<GenericRecord> decoder =
+        new AvroMessageDecoder<GenericRecord>(V2, registry);
+
+    GenericRecord record = decoder.decode(message);
+
+    Assert.assertEquals(42L, record.get("id"));
+    Assert.assertEquals("unknown", record.get("source").toString());
+
+    // The cached reader is used for later messages.
+    Assert.assertEquals(7L, decoder.decode(encoder.encode(event(7L))).get("id"));
+
+    // An encoder for an already registered schema writes the same messages.
+    Assert.assertArrayEquals(message,
+        new AvroMessageEncoder<GenericRecord>(V1, SchemaRegistries.id(V1)).encode(event(42L)));
+  }
+
+  @Test
+  public void testWithoutRegistry() {
+
+    AvroMessageEncoder<GenericRecord> encoder =
+        new AvroMessageEncoder<GenericRecord>(V1, null, "events");
+
+    byte[] message = encoder.encode(event(42L));
+
+    Assert.assertFalse(AvroMessageDecoder.hasHeader(message));
+
+    // Messages without a header are read with the reader schema.
+    AvroMessageDecoder<GenericRecord> decoder =
+        new AvroMessageDecoder<GenericRecord>(V1, new MemorySchemaRegistry(null));
+
+    Assert.assertEquals(42L, decoder.decode(message).get("id"));
+  }
+
+  @Test(expected = AppException.class)
+  public void testUnknownSchema() {
+
+    byte[] message = new AvroMessageEncoder<GenericRecord>(V1, new MemorySchemaRegistry(null), "events")
+        .encode(event(42L));
+
+    new AvroMessageDecoder<GenericRecord>(V1, new MemorySchemaRegistry(null)).decode(message);
+  }
+
+  @Test
+  public void testConfiguredRegistry() {
+
+    Map<String,String> settings = Maps.newHashMap();
+    settings.put(SchemaRegistries.REGISTRY_CLASS, MemorySchemaRegistry.class.getName());
+
+    // The registry is disabled unless it is enabled explicitly.
+    Assert.assertNull(SchemaRegistries.get(settings));
+
+    settings.put(SchemaRegistries.REGISTRY_ENABLED, "true");
+
+    SchemaRegistry registry = SchemaRegistries.get(settings);
+
+    Assert.assertTrue(registry instanceof MemorySchemaRegistry);
+    Assert.assertSame(registry, SchemaRegistries.get(settings));
+
+    // Settings the registry does not use do not create another registry.
+    settings.put("kite.job.other.setting", "value");
+
+    Assert.assertSame(registry, SchemaRegistries.get(settings));
+
+    settings.put(SchemaRegistries.REGISTRY_ENABLED, "false");
+
+    Assert.assertNull(SchemaRegistries.get(settings));
+  }
+}
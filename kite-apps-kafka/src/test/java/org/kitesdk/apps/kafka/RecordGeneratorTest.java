@@ -0,0 +1,105 @@
+/**
+ * Copyright 2015 Cerner Corporation.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.kitesdk.apps.kafka;
+
+import org.apache.avro.generic.GenericData;
+import org.apache.avro.generic.GenericRecord;
+import org.junit.Assert;
+import org.junit.Test;
+import org.kitesdk.data.event.StandardEvent;
+
+import java.util.Random;
+
+public class RecordGeneratorTest {
+
+  @Test
+  public void testRecordSize() {
+
+    RecordGenerator generator = new RecordGenerator(LoadGenerator.DEFAULT_SCHEMA,
+        "key", 1000, 0.0, 500, new Random(1));
+
+    AvroMessageEncoder<GenericRecord> encoder = new AvroMessageEncoder<GenericRecord>(
+        LoadGenerator.DEFAULT_SCHEMA, null, null);
+
+    for (int i = 0; i < 100; ++i) {
+
+      int size = encoder.encode(generator.next()).length;
+
+      Assert.assertTrue("Unexpected record size " + size, Math.abs(size - 500) <= 25);
+    }
+  }
+
+  @Test
+  public void testKeyCardinality() {
+
+    RecordGenerator generator = new RecordGenerator(StandardEvent.getClassSchema(),
+        "user_id", 10, 0.0, 100, new Random(1));
+
+    boolean[] seen = new boolean[10];
+
+    for (int i = 0; i < 1000; ++i) {
+
+      GenericData.Record record = generator.next();
+
+      long key = (Long) record.get("user_id");
+
+      Assert.assertTrue("Key out of range: " + key, key >= 0 && key < 10);
+
+      seen[(int) key] = true;
+    }
+
+    for (int key = 0; key < 10; ++key) {
+      Assert.assertTrue("Key never generated: " + key, seen[key]);
+    }
+  }
+
+  @Test
+  public void testSkew() {
+
+    RecordGenerator uniform = new RecordGenerator(LoadGenerator.DEFAULT_SCHEMA,
+        "key", 1000, 0.0, 100, new Random(1));
+
+    RecordGenerator skewed = new RecordGenerator(LoadGenerator.DEFAULT_SCHEMA,
+        "key", 1000, 1.2, 100, new Random(1));
+
+    int uniformFirst = 0;
+    int skewedFirst = 0;
+
+    for (int i = 0; i < 10000; ++i) {
+
+      long uniformKey = uniform.nextKey();
+      long skewedKey = skewed.nextKey();
+
+      Assert.assertTrue(skewedKey >= 0 && skewedKey < 1000);
+
+      if (uniformKey == 0)
+        ++uniformFirst;
+
+      if (skewedKey == 0)
+        ++skewedFirst;
+    }
+
+    // The most frequent key of a skewed distribution takes a large share.
+    Assert.assertTrue(uniformFirst < 100);
+    Assert.assertTrue(skewedFirst > 1000);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testInvalidKeyField() {
+
+    new RecordGenerator(LoadGenerator.DEFAULT_SCHEMA, "payload", 1000, 0.0, 100, new Random(1));
+  }
+}
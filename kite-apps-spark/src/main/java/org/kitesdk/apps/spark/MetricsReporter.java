@@ -0,0 +1,42 @@
+/**
+ * Copyright 2015 Cerner Corporation.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.kitesdk.apps.spark;
+
+import com.codahale.metrics.MetricRegistry;
+
+import java.util.Map;
+
+/**
+ * Exports the metrics of a streaming job to a monitoring system.
+ * Implementations are named in the {@link StreamingMetrics#REPORTERS}
+ * setting and must have a public no-argument constructor.
+ */
+public interface MetricsReporter {
+
+  /**
+   * Starts reporting the metrics in the given registry.
+   *
+   * @param jobName the name of the job whose metrics are reported
+   * @param registry the registry holding the job's metrics
+   * @param settings the settings of the job
+   */
+  void start(String jobName, MetricRegistry registry, Map<String,String> settings);
+
+  /**
+   * Stops reporting metrics.
+   */
+  void stop();
+}
@@ -19,13 +19,16 @@ import org.apache.hadoop.conf.Configuration;
 import org.apache.hadoop.mapreduce.Job;
 import org.apache.spark.api.java.JavaPairRDD;
 import org.apache.spark.api.java.JavaRDD;
+import org.apache.spark.api.java.JavaSparkContext;
 import org.apache.spark.api.java.function.Function2;
 import org.apache.spark.api.java.function.PairFunction;
 import org.apache.spark.streaming.Time;
 import org.apache.spark.streaming.api.java.JavaDStream;
 import org.apache.spark.streaming.dstream.DStream;
 import org.kitesdk.apps.AppException;
+import org.kitesdk.apps.spi.UnionView;
 import org.kitesdk.data.View;
+import org.kitesdk.data.mapreduce.DatasetKeyInputFormat;
 import org.kitesdk.data.mapreduce.DatasetKeyOutputFormat;
 import org.kitesdk.data.spi.DefaultConfiguration;
 import scala.Tuple2;
@@ -39,6 +42,50 @@ import java.io.IOException;
  */
 public class SparkDatasets {
 
+  /**
+   * Load the contents of the given view as an RDD. Input windows are
+   * provided to jobs as a {@link UnionView}, which has no URI of its own,
+   * so each view in the union is loaded separately and the results combined.
+   *
+   * @param context
+   * @param view
+   * @param conf
+   */
+  @SuppressWarnings("unchecked")
+  public static <E> JavaRDD<E> load(JavaSparkContext context, View<E> view, Configuration conf) {
+
+    if (view instanceof UnionView) {
+
+      JavaRDD<E> union = null;
+
+      for (View<E> member: ((UnionView<E>) view).getViews()) {
+
+        JavaRDD<E> rdd = load(context, member, conf);
+
+        union = union == null ? rdd : union.union(rdd);
+      }
+
+      return union;
+    }
+
+    // Copy configuration to avoid side effects for the caller.
+    Configuration inputConf = new Configuration(conf);
+
+    try {
+      Job job = Job.getInstance(inputConf);
+
+      DatasetKeyInputFormat.configure(job).readFrom(view);
+
+      JavaPairRDD<E, Void> pairs = context.newAPIHadoopRDD(job.getConfiguration(),
+          DatasetKeyInputFormat.class, view.getType(), Void.class);
+
+      return pairs.keys();
+
+    } catch (IOException e) {
+      throw new AppException(e);
+    }
+  }
+
   /**
    * Save the contents of the given RDD to the given view.
    *
@@ -32,6 +32,8 @@ public class SparkJobContext extends JobContext {
 
   private final AppContext appContext;
 
+  private final String jobName;
+
   public JavaSparkContext getSparkContext() {
 
     return SparkContextFactory.getSparkContext(appContext.getSettings());
@@ -41,18 +43,34 @@ public class SparkJobContext extends JobContext {
     return SparkContextFactory.getStreamingContext(appContext.getSettings(), appContext.getInstallPath() + "/var/checkpoints/");
   }
 
+  /**
+   * Gets the metrics of the job in this process.
+   */
+  public StreamingMetrics getStreamingMetrics() {
+    return StreamingMetrics.get(jobName, getSettings());
+  }
+
+  /**
+   * Gets the name of the job.
+   */
+  public String getJobName() {
+    return jobName;
+  }
+
   /**
    * Creates a context with the given settings and Hadoop configuration.
    */
   public SparkJobContext(Job job, AppContext context) {
-    super(job, context.getSettings(), context.getHadoopConf());
+    super(job, context.getSettings(), context.getReadOnlyHadoopConf());
 
     this.appContext = context;
+    this.jobName = job.getName();
   }
 
   public SparkJobContext(StreamDescription descrip, Job job, AppContext context) {
-    super(descrip, job, context.getSettings(), context.getHadoopConf());
+    super(descrip, job, context.getSettings(), context.getReadOnlyHadoopConf());
 
     this.appContext = context;
+    this.jobName = job.getName();
   }
 }
@@ -0,0 +1,316 @@
+/**
+ * Copyright 2015 Cerner Corporation.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.kitesdk.apps.spark;
+
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.Histogram;
+import com.codahale.metrics.Meter;
+import com.codahale.metrics.MetricRegistry;
+import com.codahale.metrics.Timer;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import org.kitesdk.apps.AppException;
+import org.kitesdk.apps.spark.spi.metrics.JmxMetricsReporter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Metrics of a streaming job. Each process running part of the job has
+ * its own instance: the driver records batch delays and, if enabled,
+ * consumer lag, and executors record the records and bytes they read
+ * and write.
+ * Metrics are exported by the reporters configured for the job, which
+ * include JMX unless disabled.
+ *
+ * Jobs may register their own metrics in the {@link #getRegistry() registry}.
+ */
+public final class StreamingMetrics {
+
+  private static final Logger LOG = LoggerFactory.getLogger(StreamingMetrics.class);
+
+  /**
+   * Setting with a comma-separated list of {@link MetricsReporter}
+   * classes used to export the job's metrics.
+   */
+  public static final String REPORTERS = "kite.metrics.reporters";
+
+  /**
+   * Setting to enable or disable exporting metrics through JMX,
+   * which is enabled by default.
+   */
+  public static final String JMX_ENABLED = "kite.metrics.jmx.enabled";
+
+  /**
+   * Setting to enable tracking the lag of stream consumers behind the
+   * latest offsets in Kafka, which is disabled by default. Tracking lag
+   * costs an offset request to the brokers for each batch, made by the
+   * driver before the batch is processed.
+   */
+  public static final String LAG_ENABLED = "kite.metrics.lag.enabled";
+
+  private static final ConcurrentMap<String, StreamingMetrics> METRICS = Maps.newConcurrentMap();
+
+  private final String jobName;
+
+  private final MetricRegistry registry = new MetricRegistry();
+
+  private final ConcurrentMap<String, AtomicLong> lags = Maps.newConcurrentMap();
+
+  private final List<MetricsReporter> reporters = Lists.newArrayList();
+
+  private StreamingMetrics(String jobName) {
+    this.jobName = jobName;
+  }
+
+  /**
+   * Returns the metrics of the given job in this process, starting the
+   * reporters named in the settings when first called for the job.
+   *
+   * @param jobName the name of the job
+   * @param settings the settings of the job
+   * @return the metrics of the job
+   */
+  public static StreamingMetrics get(String jobName, Map<String,String> settings) {
+
+    StreamingMetrics metrics = METRICS.get(jobName);
+
+    if (metrics == null) {
+
+      StreamingMetrics created = new StreamingMetrics(jobName);
+
+      metrics = METRICS.putIfAbsent(jobName, created);
+
+      if (metrics == null) {
+        metrics = created;
+        metrics.startReporters(settings);
+      }
+    }
+
+    return metrics;
+  }
+
+  /**
+   * Returns true if consumer lag should be tracked for a job with the given settings.
+   */
+  public static boolean isLagEnabled(Map<String,String> settings) {
+
+    return Boolean.parseBoolean(settings.get(LAG_ENABLED));
+  }
+
+  private synchronized void startReporters(Map<String,String> settings) {
+
+    String jmxEnabled = settings.get(JMX_ENABLED);
+
+    if (jmxEnabled == null || Boolean.parseBoolean(jmxEnabled)) {
+      startReporter(new JmxMetricsReporter(), settings);
+    }
+
+    String reporterClasses = settings.get(REPORTERS);
+
+    if (reporterClasses != null) {
+
+      for (String className: reporterClasses.split(",")) {
+
+        if (className.trim().isEmpty())
+          continue;
+
+        MetricsReporter reporter;
+
+        try {
+          Class reporterClass = Thread.currentThread()
+              .getContextClassLoader()
+              .loadClass(className.trim());
+
+          reporter = (MetricsReporter) reporterClass.newInstance();
+
+        } catch (ClassNotFoundException e) {
+          throw new AppException(e);
+        } catch (InstantiationException e) {
+          throw new AppException(e);
+        } catch (IllegalAccessException e) {
+          throw new AppException(e);
+        }
+
+        startReporter(reporter, settings);
+      }
+    }
+  }
+
+  private void startReporter(MetricsReporter reporter, Map<String,String> settings) {
+
+    LOG.info("Reporting metrics of job {} with {}.", jobName, reporter.getClass().getName());
+
+    reporter.start(jobName, registry, settings);
+    reporters.add(reporter);
+  }
+
+  /**
+   * Stops the reporters of the job and discards its metrics
+   * in this process.
+   */
+  public synchronized void close() {
+
+    METRICS.remove(jobName, this);
+
+    for (MetricsReporter reporter: reporters) {
+      reporter.stop();
+    }
+
+    reporters.clear();
+  }
+
+  /**
+   * Gets the name of the job.
+   */
+  public String getJobName() {
+    return jobName;
+  }
+
+  /**
+   * Gets the registry holding the job's metrics.
+   */
+  public MetricRegistry getRegistry() {
+    return registry;
+  }
+
+  private String name(String... names) {
+    return MetricRegistry.name("kite", names);
+  }
+
+  private String topicName(String topic, String metric) {
+    return name(jobName, "topics", topic, metric);
+  }
+
+  private String partitionName(String topic, int partition, String metric) {
+    return name(jobName, "topics", topic, Integer.toString(partition), metric);
+  }
+
+  /**
+   * Gets the meter of records read from the given topic partition.
+   */
+  public Meter recordsRead(String topic, int partition) {
+    return registry.meter(partitionName(topic, partition, "records-read"));
+  }
+
+  /**
+   * Gets the meter of bytes read from the given topic partition.
+   */
+  public Meter bytesRead(String topic, int partition) {
+    return registry.meter(partitionName(topic, partition, "bytes-read"));
+  }
+
+  /**
+   * Gets the timer of decoding records read from the given topic. Each
+   * update is the time taken to decode the records of one partition of
+   * a batch, which keeps the cost of timing out of the per-record path.
+   */
+  public Timer decodeTime(String topic) {
+    return registry.timer(topicName(topic, "decode-time"));
+  }
+
+  /**
+   * Gets the meter of records written to the given topic.
+   */
+  public Meter recordsWritten(String topic) {
+    return registry.meter(topicName(topic, "records-written"));
+  }
+
+  /**
+   * Gets the meter of bytes written to the given topic.
+   */
+  public Meter bytesWritten(String topic) {
+    return registry.meter(topicName(topic, "bytes-written"));
+  }
+
+  /**
+   * Gets the timer of sending each set of messages to the given topic.
+   */
+  public Timer sendLatency(String topic) {
+    return registry.timer(topicName(topic, "send-latency"));
+  }
+
+  /**
+   * Gets the histogram of the time in milliseconds batches waited to be processed.
+   */
+  public Histogram schedulingDelay() {
+    return registry.histogram(name(jobName, "batches", "scheduling-delay"));
+  }
+
+  /**
+   * Gets the histogram of the time in milliseconds taken to process batches.
+   */
+  public Histogram processingDelay() {
+    return registry.histogram(name(jobName, "batches", "processing-delay"));
+  }
+
+  /**
+   * Gets the histogram of the time in milliseconds from the scheduled
+   * time of batches to the completion of their processing.
+   */
+  public Histogram totalDelay() {
+    return registry.histogram(name(jobName, "batches", "total-delay"));
+  }
+
+  /**
+   * Records the number of messages in the given topic partition
+   * that have not yet been read by the job.
+   */
+  public void setConsumerLag(String topic, int partition, long lag) {
+
+    String name = partitionName(topic, partition, "consumer-lag");
+
+    AtomicLong value = lags.get(name);
+
+    if (value == null) {
+
+      AtomicLong created = new AtomicLong();
+
+      value = lags.putIfAbsent(name, created);
+
+      if (value == null) {
+
+        value = created;
+
+        final AtomicLong gaugeValue = created;
+
+        registry.register(name, new Gauge<Long>() {
+          @Override
+          public Long getValue() {
+            return gaugeValue.get();
+          }
+        });
+      }
+    }
+
+    value.set(lag);
+  }
+
+  /**
+   * Gets the last recorded lag of the given topic partition,
+   * or -1 if none has been recorded.
+   */
+  public long getConsumerLag(String topic, int partition) {
+
+    AtomicLong value = lags.get(partitionName(topic, partition, "consumer-lag"));
+
+    return value == null ? -1 : value.get();
+  }
+}
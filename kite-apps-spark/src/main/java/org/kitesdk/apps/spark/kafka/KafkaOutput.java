@@ -15,22 +15,22 @@
  */
 package org.kitesdk.apps.spark.kafka;
 
+import com.codahale.metrics.Timer;
 import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
 import kafka.javaapi.producer.Producer;
 import kafka.producer.KeyedMessage;
 import org.apache.avro.Schema;
-import org.apache.avro.io.BinaryEncoder;
-import org.apache.avro.io.DatumWriter;
-import org.apache.avro.io.EncoderFactory;
-import org.apache.avro.specific.SpecificData;
-import org.apache.avro.specific.SpecificRecord;
+import org.apache.avro.generic.IndexedRecord;
 import org.apache.spark.api.java.JavaRDD;
 import org.apache.spark.api.java.function.Function;
 import org.apache.spark.api.java.function.VoidFunction;
 import org.apache.spark.streaming.api.java.JavaDStream;
+import org.kitesdk.apps.kafka.AvroMessageEncoder;
+import org.kitesdk.apps.kafka.SchemaRegistries;
+import org.kitesdk.apps.kafka.SchemaRegistry;
+import org.kitesdk.apps.spark.StreamingMetrics;
 
-import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.ObjectInputStream;
 import java.io.ObjectOutputStream;
@@ -43,10 +43,13 @@ import java.util.Properties;
 /**
  * Support for Kafka as a Kite application output.
  */
-public class KafkaOutput<T extends SpecificRecord> implements Serializable {
+public class KafkaOutput<T extends IndexedRecord> implements Serializable {
 
   private static final String PREFIX = "kafka.";
 
+  // Name under which metrics are recorded if no job is given.
+  private static final String DEFAULT_JOB_NAME = "kafka-output";
+
   private static Properties toKafkaProps(Map<String,String> settings) {
 
     Properties props = new Properties();
@@ -69,9 +72,22 @@ public class KafkaOutput<T extends SpecificRecord> implements Serializable {
 
   private Map<String,String> settings;
 
+  private String jobName;
+
+  // Identifier of the registered schema, or null if no registry is used.
+  private Long schemaId;
+
   private ProducerPool pool;
 
   public KafkaOutput(Schema schema, Map<String,String> settings) {
+    this(schema, settings, DEFAULT_JOB_NAME);
+  }
+
+  /**
+   * Creates an output for the given job, whose metrics
+   * include the records written to the output.
+   */
+  public KafkaOutput(Schema schema, Map<String,String> settings, String jobName) {
 
     this.topic = settings.get(Topics.TOPIC_NAME);
 
@@ -81,6 +97,13 @@ public class KafkaOutput<T extends SpecificRecord> implements Serializable {
 
     this.schema = schema;
     this.settings = settings;
+    this.jobName = jobName;
+
+    // Register the schema once here rather than in each task.
+    SchemaRegistry registry = SchemaRegistries.get(settings);
+
+    this.schemaId = registry != null ? Long.valueOf(registry.register(topic, schema)) : null;
+
     pool = ProducerPool.get(toKafkaProps(settings));
   }
 
@@ -88,6 +111,11 @@ public class KafkaOutput<T extends SpecificRecord> implements Serializable {
 
     out.writeUTF(topic);
     out.writeUTF(schema.toString());
+    out.writeUTF(jobName);
+
+    out.writeBoolean(schemaId != null);
+    if (schemaId != null)
+      out.writeLong(schemaId);
 
     out.writeInt(settings.size());
     for (Map.Entry<String,String> entry: settings.entrySet()) {
@@ -103,6 +131,8 @@ public class KafkaOutput<T extends SpecificRecord> implements Serializable {
 
     String schemaString = in.readUTF();
     this.schema = new Schema.Parser().parse(schemaString);
+    this.jobName = in.readUTF();
+    this.schemaId = in.readBoolean() ? Long.valueOf(in.readLong()) : null;
     this.settings = Maps.newHashMap();
 
     int size = in.readInt();
@@ -140,29 +170,39 @@ public class KafkaOutput<T extends SpecificRecord> implements Serializable {
     @Override
     public void call(Iterator<T> iterator) throws Exception {
 
-      DatumWriter writer = SpecificData.get().createDatumWriter(schema);
+      AvroMessageEncoder<T> encoder = new AvroMessageEncoder<T>(schema, schemaId);
 
       List<KeyedMessage> messages = Lists.newArrayList();
 
-      while (iterator.hasNext()) {
-
-        ByteArrayOutputStream output = new ByteArrayOutputStream();
+      long bytes = 0;
 
-        SpecificRecord record = iterator.next();
-
-        BinaryEncoder encoder = EncoderFactory.get().binaryEncoder(output, null);
+      while (iterator.hasNext()) {
 
-        writer.write(record, encoder);
-        encoder.flush();
+        byte[] payload = encoder.encode(iterator.next());
 
-        KeyedMessage<byte[],byte[]> message = new KeyedMessage<byte[], byte[]>(topic, new byte[0], output.toByteArray());
+        KeyedMessage<byte[],byte[]> message = new KeyedMessage<byte[], byte[]>(topic, new byte[0],
+            payload);
 
         messages.add(message);
+
+        bytes += payload.length;
       }
 
+      StreamingMetrics metrics = StreamingMetrics.get(jobName, settings);
+
       Producer producer = pool.get();
 
-      producer.send(messages);
+      Timer.Context sendTime = metrics.sendLatency(topic).time();
+
+      try {
+        producer.send(messages);
+      } finally {
+        sendTime.stop();
+        pool.release(producer);
+      }
+
+      metrics.recordsWritten(topic).mark(messages.size());
+      metrics.bytesWritten(topic).mark(bytes);
     }
   }
 
@@ -24,6 +24,8 @@ import org.apache.avro.Schema;
 import org.kitesdk.apps.AppContext;
 import org.kitesdk.apps.AppException;
 import org.kitesdk.apps.JobContext;
+import org.kitesdk.apps.kafka.SchemaRegistries;
+import org.kitesdk.apps.kafka.SchemaRegistry;
 import org.kitesdk.apps.spark.SparkJobContext;
 
 import java.util.Map;
@@ -36,6 +38,13 @@ public class Topics {
 
   public static final String TOPIC_NAME = "kite.topic.name";
 
+  /**
+   * Setting holding the Avro schema of a topic whose records are
+   * read or written as generic records. If absent, the latest
+   * schema registered for the topic is used.
+   */
+  public static final String SCHEMA = "kite.topic.schema";
+
   public static final String ZOOKEEPER_CONNECT = "zookeeper.connect";
 
   public static final String BROKER_LIST = "metadata.broker.list";
@@ -80,6 +89,20 @@ public class Topics {
     return props;
   }
 
+  /**
+   * Given a Kafka topic name and the schema of its records, returns a map
+   * of settings that can be passed to a {@link org.kitesdk.apps.streaming.StreamDescription}
+   * to configure it to use the given Kafka topic with generic records.
+   */
+  public static Map<String,String> topic(String topic, Schema schema) {
+
+    Map<String,String> props = topic(topic);
+
+    props.put(SCHEMA, schema.toString());
+
+    return props;
+  }
+
   /**
    * Given a Kafka topic name and consumer group, returns a map of settings
    * that can be passed to a {@link org.kitesdk.apps.streaming.StreamDescription}
@@ -119,9 +142,6 @@ public class Topics {
                                  int replicationFactor,
                                  Schema schema) {
 
-    // Currently the schema parameter is unused, but we have it here so it can
-    // be applied to a schema registry for the topic when that is available.
-
     ZkClient client = new ZkClient(getKafkaProp(context, ZOOKEEPER_CONNECT), 1000, 1000, ZKStringSerializer$.MODULE$);
 
     try {
@@ -131,5 +151,12 @@ public class Topics {
     } finally {
       client.close();
     }
+
+    // Register the schema so readers of the topic can resolve it.
+    SchemaRegistry registry = SchemaRegistries.get(context.getSettings());
+
+    if (registry != null && schema != null) {
+      registry.register(topicName, schema);
+    }
   }
 }
@@ -0,0 +1,158 @@
+/**
+ * Copyright 2015 Cerner Corporation.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.kitesdk.apps.spark.spi.kryo;
+
+import com.esotericsoftware.kryo.Kryo;
+import com.esotericsoftware.kryo.Serializer;
+import com.esotericsoftware.kryo.io.Input;
+import com.esotericsoftware.kryo.io.Output;
+import com.google.common.collect.Maps;
+import org.apache.avro.Schema;
+import org.apache.avro.generic.GenericDatumReader;
+import org.apache.avro.generic.GenericDatumWriter;
+import org.apache.avro.generic.GenericRecord;
+import org.apache.avro.io.BinaryDecoder;
+import org.apache.avro.io.BinaryEncoder;
+import org.apache.avro.io.DatumReader;
+import org.apache.avro.io.DatumWriter;
+import org.apache.avro.io.DecoderFactory;
+import org.apache.avro.io.EncoderFactory;
+import org.kitesdk.apps.AppException;
+import org.kitesdk.apps.kafka.SchemaRegistries;
+
+import java.io.IOException;
+import java.util.Collection;
+import java.util.IdentityHashMap;
+import java.util.Map;
+
+/**
+ * Kryo serializer for Avro generic records. Records of a schema known to
+ * the serializer are written with only the schema's fingerprint; records
+ * of other schemas are written with the full schema. Readers and writers
+ * are cached per schema, and records are encoded directly to and from
+ * the Kryo streams without intermediate buffers.
+ *
+ * Kryo instances are not shared between threads, so neither is this.
+ */
+public class GenericRecordSerializer extends Serializer<GenericRecord> {
+
+  private final Map<Long, Schema> knownSchemas = Maps.newHashMap();
+
+  // Fingerprints of written schemas, by identity since records
+  // of a stream generally share a schema instance.
+  private final Map<Schema, Long> ids = new IdentityHashMap<Schema, Long>();
+
+  // Schemas parsed from records that carried their full schema.
+  private final Map<String, Schema> parsedSchemas = Maps.newHashMap();
+
+  private final Map<Schema, DatumWriter<GenericRecord>> writers = Maps.newHashMap();
+
+  private final Map<Schema, DatumReader<GenericRecord>> readers = Maps.newHashMap();
+
+  private BinaryEncoder encoder = null;
+
+  private BinaryDecoder decoder = null;
+
+  public GenericRecordSerializer(Collection<Schema> schemas) {
+
+    for (Schema schema: schemas) {
+      knownSchemas.put(SchemaRegistries.id(schema), schema);
+    }
+  }
+
+  @Override
+  public void write(Kryo kryo, Output output, GenericRecord record) {
+
+    Schema schema = record.getSchema();
+
+    Long id = ids.get(schema);
+
+    if (id == null) {
+      id = SchemaRegistries.id(schema);
+      ids.put(schema, id);
+    }
+
+    if (knownSchemas.containsKey(id)) {
+      output.writeBoolean(true);
+      output.writeLong(id);
+    } else {
+      output.writeBoolean(false);
+      output.writeString(schema.toString());
+    }
+
+    DatumWriter<GenericRecord> writer = writers.get(schema);
+
+    if (writer == null) {
+      writer = new GenericDatumWriter<GenericRecord>(schema);
+      writers.put(schema, writer);
+    }
+
+    // The direct encoder does not buffer, so the record
+    // is written in place in the Kryo output.
+    encoder = EncoderFactory.get().directBinaryEncoder(output, encoder);
+
+    try {
+      writer.write(record, encoder);
+      encoder.flush();
+    } catch (IOException e) {
+      throw new AppException(e);
+    }
+  }
+
+  @Override
+  public GenericRecord read(Kryo kryo, Input input, Class<GenericRecord> type) {
+
+    Schema schema;
+
+    if (input.readBoolean()) {
+
+      long id = input.readLong();
+
+      schema = knownSchemas.get(id);
+
+      if (schema == null)
+        throw new AppException("Unknown schema fingerprint " + Long.toHexString(id));
+
+    } else {
+
+      String schemaString = input.readString();
+
+      schema = parsedSchemas.get(schemaString);
+
+      if (schema == null) {
+        schema = new Schema.Parser().parse(schemaString);
+        parsedSchemas.put(schemaString, schema);
+      }
+    }
+
+    DatumReader<GenericRecord> reader = readers.get(schema);
+
+    if (reader == null) {
+      reader = new GenericDatumReader<GenericRecord>(schema);
+      readers.put(schema, reader);
+    }
+
+    // The direct decoder does not read ahead, so it consumes
+    // only the bytes of the record from the Kryo input.
+    decoder = DecoderFactory.get().directBinaryDecoder(input, decoder);
+
+    try {
+      return reader.read(null, decoder);
+    } catch (IOException e) {
+      throw new AppException(e);
+    }
+  }
+}
@@ -16,11 +16,22 @@
 package org.kitesdk.apps.spark.spi.kryo;
 
 import com.esotericsoftware.kryo.Kryo;
+import com.google.common.base.Charsets;
+import com.google.common.collect.Lists;
+import com.google.common.io.Files;
+import org.apache.avro.Schema;
+import org.apache.avro.generic.GenericData;
+import org.apache.spark.SparkFiles;
 import org.apache.spark.serializer.KryoRegistrator;
 import org.kitesdk.apps.AppException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.File;
+import java.io.IOException;
+import java.util.Collection;
+import java.util.List;
+
 public class KryoAvroRegistrator implements KryoRegistrator {
 
   Logger LOGGER = LoggerFactory.getLogger(KryoAvroRegistrator.class);
@@ -31,8 +42,73 @@ public class KryoAvroRegistrator implements KryoRegistrator {
    */
   public static final String KITE_AVRO_CLASSES = "kite.avro.classes";
 
+  /**
+   * System property naming a file with the schemas of generic records
+   * used by the job, one schema per line. The file is shipped with the
+   * job, so the name is resolved against the working directory or the
+   * files added to Spark, unless it is an absolute path. Generic records
+   * of these schemas are serialized without their schema.
+   */
+  public static final String KITE_AVRO_SCHEMAS = "kite.avro.schemas";
+
+  /**
+   * Writes the given schemas to a file that can be named by the
+   * {@link #KITE_AVRO_SCHEMAS} property.
+   */
+  public static void writeSchemas(Collection<Schema> schemas, File file) throws IOException {
+
+    StringBuilder builder = new StringBuilder();
+
+    // Schemas are written in their single-line form.
+    for (Schema schema: schemas) {
+      builder.append(schema.toString()).append('\n');
+    }
+
+    Files.write(builder.toString(), file, Charsets.UTF_8);
+  }
+
+  private static File schemasFile(String name) {
+
+    File file = new File(name);
+
+    if (file.isAbsolute() || file.exists())
+      return file;
+
+    return new File(SparkFiles.get(name));
+  }
+
+  private static List<Schema> readSchemas(String name) {
+
+    List<Schema> schemas = Lists.newArrayList();
+
+    if (name != null && !name.isEmpty()) {
+
+      File file = schemasFile(name);
+
+      try {
+
+        for (String line: Files.readLines(file, Charsets.UTF_8)) {
+
+          if (!line.trim().isEmpty())
+            schemas.add(new Schema.Parser().parse(line));
+        }
+
+      } catch (IOException e) {
+        throw new AppException("Unable to read Avro schemas from " + file, e);
+      }
+    }
+
+    return schemas;
+  }
+
   public void registerClasses(Kryo kryo) {
 
+    List<Schema> genericSchemas = readSchemas(System.getProperty(KITE_AVRO_SCHEMAS));
+
+    LOGGER.info("Registering generic records with {} known schemas.", genericSchemas.size());
+
+    kryo.register(GenericData.Record.class, new GenericRecordSerializer(genericSchemas));
+
     String classesString = System.getProperty(KITE_AVRO_CLASSES);
 
     if (classesString == null || classesString.isEmpty()) {
@@ -0,0 +1,55 @@
+/**
+ * Copyright 2015 Cerner Corporation.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.kitesdk.apps.spark.spi.metrics;
+
+import com.codahale.metrics.JmxReporter;
+import com.codahale.metrics.MetricRegistry;
+import org.kitesdk.apps.spark.MetricsReporter;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Exposes the metrics of a streaming job as MBeans in the
+ * {@code kite.apps} domain of the platform MBean server.
+ */
+public class JmxMetricsReporter implements MetricsReporter {
+
+  public static final String DOMAIN = "kite.apps";
+
+  private JmxReporter reporter;
+
+  @Override
+  public void start(String jobName, MetricRegistry registry, Map<String,String> settings) {
+
+    reporter = JmxReporter.forRegistry(registry)
+        .inDomain(DOMAIN)
+        .convertDurationsTo(TimeUnit.MILLISECONDS)
+        .convertRatesTo(TimeUnit.SECONDS)
+        .build();
+
+    reporter.start();
+  }
+
+  @Override
+  public void stop() {
+
+    if (reporter != null) {
+      reporter.stop();
+      reporter = null;
+    }
+  }
+}
@@ -25,16 +25,15 @@ import org.kitesdk.apps.JobContext;
 import org.kitesdk.apps.scheduled.SchedulableJob;
 import org.kitesdk.apps.scheduled.Schedule;
 import org.kitesdk.apps.spark.SparkJobContext;
+import org.kitesdk.apps.spi.JarStore;
 import org.kitesdk.apps.spi.jobs.JobReflection;
 import org.kitesdk.apps.spi.jobs.SchedulableJobManager;
 import org.kitesdk.apps.spi.oozie.OozieScheduling;
 import org.kitesdk.apps.spi.oozie.ShareLibs;
 import org.kitesdk.data.View;
-import org.kitesdk.apps.spark.AbstractSchedulableSparkJob;
 
 import java.io.File;
 import java.io.IOException;
-import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
 import java.util.Arrays;
 import java.util.Collections;
@@ -45,17 +44,17 @@ import static org.kitesdk.apps.spi.oozie.OozieScheduling.element;
 import static org.kitesdk.apps.spi.oozie.OozieScheduling.property;
 
 /**
- * Spark job manager.
+ * Spark job manager, which runs jobs in Oozie Spark actions.
  */
-class SparkJobManager extends SchedulableJobManager {
+public class SparkJobManager extends SchedulableJobManager {
 
   private volatile SparkJobContext sparkJobContext;
 
 
-  public static SparkJobManager create(Class<? extends AbstractSchedulableSparkJob> jobClass,
+  public static SparkJobManager create(Class<? extends SchedulableJob> jobClass,
                                        AppContext context) {
 
-    AbstractSchedulableSparkJob job;
+    SchedulableJob job;
 
     try {
       job = jobClass.newInstance();
@@ -88,21 +87,11 @@ class SparkJobManager extends SchedulableJobManager {
   @Override
   public void run(Instant nominalTime, Map<String,View> views) {
 
+    job.setNominalTime(nominalTime);
+    job.setJobContext(getJobContext());
 
-    try {
-
-      job.setNominalTime(nominalTime);
-      job.setJobContext(getJobContext());
-
-      Object[] args = JobReflection.getArgs(runMethod, views);
-
-      runMethod.invoke(job, args);
-    } catch (IllegalAccessException e) {
-      throw new AppException(e);
-    } catch (InvocationTargetException e) {
-      throw new AppException(e);
-    } finally {
-    }
+    // The run time is recorded even if the job fails.
+    invokeJob(views);
 
     signalOutputViews(views);
   }
@@ -125,7 +114,7 @@ class SparkJobManager extends SchedulableJobManager {
     property(writer, "oozie.action.sharelib.for.spark", "spark,hive2");
     property(writer, "kiteAppRoot", "${kiteAppRoot}");
 
-    OozieScheduling.writeJobConfiguration(writer, schedule, context.getHadoopConf());
+    OozieScheduling.writeJobConfiguration(writer, schedule, context.getReadOnlyHadoopConf());
 
     writer.endElement(); // configuration
 
@@ -138,7 +127,7 @@ class SparkJobManager extends SchedulableJobManager {
     String containingJar = jobConf.getJar();
 
     String jarName = containingJar != null ?
-        "${kiteAppRoot}/lib/" + new File(containingJar).getName() :
+        libraryJarPath(new File(containingJar).getName()) :
         "";
 
     element(writer, "jar",  jarName);
@@ -152,7 +141,7 @@ class SparkJobManager extends SchedulableJobManager {
 
     // Pass the job settings as Hadoop settings to be used by the underlying
     // system.
-    Map<String, String> settings = OozieScheduling.getJobSettings(schedule, context.getHadoopConf());
+    Map<String, String> settings = OozieScheduling.getJobSettings(schedule, context.getReadOnlyHadoopConf());
 
     StringBuilder builder = new StringBuilder();
 
@@ -173,6 +162,21 @@ class SparkJobManager extends SchedulableJobManager {
     return builder.toString();
   }
 
+  /**
+   * Returns the location of the named library JAR, which is in
+   * the shared JAR store if the application was installed with one.
+   */
+  private String libraryJarPath(String jarName) {
+
+    for (Path storedJar: JarStore.getLibraryJars(context.getReadOnlyHadoopConf())) {
+
+      if (storedJar.getName().equals(jarName))
+        return storedJar.toString();
+    }
+
+    return "${kiteAppRoot}/lib/" + jarName;
+  }
+
   private final String getJarString(Class jobClass) {
 
     List<File> libJars = getLibraryJars();
@@ -187,8 +191,7 @@ class SparkJobManager extends SchedulableJobManager {
         if (!first)
           builder.append(",");
 
-        builder.append("${kiteAppRoot}/lib/");
-        builder.append(jarFile.getName());
+        builder.append(libraryJarPath(jarFile.getName()));
 
         first = false;
       }
@@ -201,7 +204,7 @@ class SparkJobManager extends SchedulableJobManager {
 
       // No need to add the Spark shared library here because
       // it is automatically included in the spark action.
-      List<Path> jars = ShareLibs.jars(context.getHadoopConf(), "hive2");
+      List<Path> jars = ShareLibs.jars(context.getReadOnlyHadoopConf(), "hive2");
 
       for (Path jar: jars) {
 
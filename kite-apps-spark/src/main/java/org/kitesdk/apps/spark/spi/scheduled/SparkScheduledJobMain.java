@@ -15,6 +15,7 @@
  */
 package org.kitesdk.apps.spark.spi.scheduled;
 
+import com.google.common.collect.Lists;
 import org.apache.hadoop.conf.Configuration;
 import org.apache.hadoop.fs.FileSystem;
 import org.apache.hadoop.fs.Path;
@@ -22,14 +23,18 @@ import org.apache.spark.SparkConf;
 import org.apache.spark.api.java.JavaSparkContext;
 import org.joda.time.Instant;
 import org.kitesdk.apps.AppContext;
+import org.kitesdk.apps.scheduled.RetryPolicy;
+import org.kitesdk.apps.scheduled.Schedule;
 import org.kitesdk.apps.spi.PropertyFiles;
 import org.kitesdk.apps.spi.jobs.JobManagers;
 import org.kitesdk.apps.spi.jobs.SchedulableJobManager;
 import org.kitesdk.apps.spi.oozie.OozieScheduling;
 import org.kitesdk.data.View;
 import org.kitesdk.data.spi.DefaultConfiguration;
+import scala.Tuple2;
 
 import java.util.Collections;
+import java.util.List;
 import java.util.Map;
 
 /**
@@ -37,19 +42,26 @@ import java.util.Map;
  */
 public class SparkScheduledJobMain {
 
+  private static final String SPARK_HADOOP_PREFIX = "spark.hadoop.";
+
   public static void main(String[] args) throws Exception {
 
     String jobClassName = args[0];
 
     SparkConf sparkConf = new SparkConf().setAppName(jobClassName);
 
-    // Create the spark context for the application.
-    JavaSparkContext ctx = new JavaSparkContext(sparkConf);
+    // Build the Hadoop configuration the way Spark does, so the inputs can
+    // be checked before starting the Spark context.
+    Configuration conf = new Configuration();
+
+    for (Tuple2<String,String> setting: sparkConf.getAll()) {
 
-    Configuration conf = ctx.hadoopConfiguration();
+      if (setting._1().startsWith(SPARK_HADOOP_PREFIX))
+        conf.set(setting._1().substring(SPARK_HADOOP_PREFIX.length()), setting._2());
+    }
 
     // Use the loaded Hadoop configuration
-    DefaultConfiguration.set(ctx.hadoopConfiguration());
+    DefaultConfiguration.set(conf);
 
     String kiteAppRoot = conf.get("kiteAppRoot");
 
@@ -67,9 +79,43 @@ public class SparkScheduledJobMain {
 
     SchedulableJobManager manager = JobManagers.createSchedulable(jobClass, appContext);
 
-    // Get the views to be used from Oozie configuration.
-    Map<String, View> views = OozieScheduling.loadViews(manager, conf);
+    RetryPolicy retryPolicy = OozieScheduling.getRetryPolicy(conf);
+
+    Schedule.EmptyInputPolicy emptyInputPolicy = OozieScheduling.getEmptyInputPolicy(conf);
+
+    // Catch-up launches first run any earlier nominal times on their own.
+    List<Instant> nominalTimes = Lists.newArrayList(OozieScheduling.getCatchUpTimes(manager, conf));
+
+    nominalTimes.add(nominalTime);
+
+    JavaSparkContext ctx = null;
+
+    for (Instant runTime: nominalTimes) {
+
+      // Get the views to be used from Oozie configuration.
+      Map<String, View> views = runTime.equals(nominalTime) ?
+          OozieScheduling.loadViews(manager, conf) :
+          OozieScheduling.loadViews(manager, conf, runTime);
+
+      // Skip runs with empty inputs before creating the Spark context, if the
+      // schedule allows it. The driver itself has already been launched.
+      if (emptyInputPolicy != Schedule.EmptyInputPolicy.RUN && manager.inputsEmpty(views)) {
+
+        manager.skip(runTime, views, emptyInputPolicy);
+
+        continue;
+      }
+
+      // Create the spark context for the application once it is needed.
+      if (ctx == null) {
+
+        ctx = new JavaSparkContext(sparkConf);
+
+        DefaultConfiguration.set(ctx.hadoopConfiguration());
+      }
 
-    manager.run(nominalTime, views);
+      // Retry failed runs here if the schedule has a retry policy.
+      manager.run(runTime, views, retryPolicy);
+    }
   }
 }
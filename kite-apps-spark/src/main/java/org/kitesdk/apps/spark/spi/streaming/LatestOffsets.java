@@ -0,0 +1,197 @@
+/**
+ * Copyright 2015 Cerner Corporation.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.kitesdk.apps.spark.spi.streaming;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import kafka.api.PartitionOffsetRequestInfo;
+import kafka.cluster.Broker;
+import kafka.common.TopicAndPartition;
+import kafka.javaapi.OffsetRequest;
+import kafka.javaapi.OffsetResponse;
+import kafka.javaapi.PartitionMetadata;
+import kafka.javaapi.TopicMetadata;
+import kafka.javaapi.TopicMetadataRequest;
+import kafka.javaapi.consumer.SimpleConsumer;
+import org.kitesdk.apps.AppException;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Looks up the latest offsets of the partitions of a topic, so the lag of
+ * a stream behind them can be measured. Partition leaders and connections
+ * to them are kept between lookups and refreshed when a lookup fails.
+ *
+ * Instances are used by the driver of a streaming job and are not thread-safe.
+ */
+class LatestOffsets {
+
+  private static final String CLIENT_ID = "kite-offsets";
+
+  private static final int TIMEOUT_MS = 10000;
+
+  private static final int BUFFER_SIZE = 64 * 1024;
+
+  private final String topic;
+
+  private final List<String> brokers;
+
+  // Leader of each partition, as host:port.
+  private final Map<Integer, String> leaders = Maps.newHashMap();
+
+  private final Map<String, SimpleConsumer> consumers = Maps.newHashMap();
+
+  /**
+   * Creates an instance for the given topic.
+   *
+   * @param topic the topic
+   * @param brokerList a comma-separated list of brokers as host:port
+   */
+  LatestOffsets(String topic, String brokerList) {
+
+    this.topic = topic;
+    this.brokers = Lists.newArrayList();
+
+    for (String broker: brokerList.split(",")) {
+      if (!broker.trim().isEmpty())
+        brokers.add(broker.trim());
+    }
+  }
+
+  private SimpleConsumer consumer(String hostAndPort) {
+
+    SimpleConsumer consumer = consumers.get(hostAndPort);
+
+    if (consumer == null) {
+
+      int separator = hostAndPort.lastIndexOf(':');
+
+      consumer = new SimpleConsumer(hostAndPort.substring(0, separator),
+          Integer.parseInt(hostAndPort.substring(separator + 1)),
+          TIMEOUT_MS, BUFFER_SIZE, CLIENT_ID);
+
+      consumers.put(hostAndPort, consumer);
+    }
+
+    return consumer;
+  }
+
+  private void refreshLeaders() {
+
+    leaders.clear();
+
+    TopicMetadataRequest request = new TopicMetadataRequest(Collections.singletonList(topic));
+
+    RuntimeException cause = null;
+
+    for (String broker: brokers) {
+
+      try {
+
+        for (TopicMetadata metadata: consumer(broker).send(request).topicsMetadata()) {
+
+          for (PartitionMetadata partition: metadata.partitionsMetadata()) {
+
+            Broker leader = partition.leader();
+
+            if (leader != null)
+              leaders.put(partition.partitionId(), leader.host() + ":" + leader.port());
+          }
+        }
+
+        return;
+
+      } catch (RuntimeException e) {
+        cause = e;
+      }
+    }
+
+    throw new AppException("Unable to get metadata for topic " + topic, cause);
+  }
+
+  /**
+   * Returns the latest offset of each partition of the topic.
+   */
+  Map<Integer, Long> get() {
+
+    if (leaders.isEmpty())
+      refreshLeaders();
+
+    // Group the partitions by leader to make one request to each.
+    Map<String, Map<TopicAndPartition, PartitionOffsetRequestInfo>> requests = Maps.newHashMap();
+
+    for (Map.Entry<Integer, String> leader: leaders.entrySet()) {
+
+      Map<TopicAndPartition, PartitionOffsetRequestInfo> request = requests.get(leader.getValue());
+
+      if (request == null) {
+        request = Maps.newHashMap();
+        requests.put(leader.getValue(), request);
+      }
+
+      request.put(new TopicAndPartition(topic, leader.getKey()),
+          new PartitionOffsetRequestInfo(kafka.api.OffsetRequest.LatestTime(), 1));
+    }
+
+    Map<Integer, Long> offsets = Maps.newHashMap();
+
+    try {
+
+      for (Map.Entry<String, Map<TopicAndPartition, PartitionOffsetRequestInfo>> request: requests.entrySet()) {
+
+        OffsetResponse response = consumer(request.getKey()).getOffsetsBefore(
+            new OffsetRequest(request.getValue(), kafka.api.OffsetRequest.CurrentVersion(), CLIENT_ID));
+
+        for (TopicAndPartition partition: request.getValue().keySet()) {
+
+          if (response.hasError()) {
+            throw new AppException("Error " + response.errorCode(topic, partition.partition()) +
+                " getting offsets of " + partition);
+          }
+
+          long[] partitionOffsets = response.offsets(topic, partition.partition());
+
+          if (partitionOffsets.length > 0)
+            offsets.put(partition.partition(), partitionOffsets[0]);
+        }
+      }
+
+    } catch (RuntimeException e) {
+
+      // Leaders may have moved, so find them again on the next lookup.
+      close();
+
+      throw e;
+    }
+
+    return offsets;
+  }
+
+  /**
+   * Closes the connections to the brokers.
+   */
+  void close() {
+
+    for (SimpleConsumer consumer: consumers.values()) {
+      consumer.close();
+    }
+
+    consumers.clear();
+    leaders.clear();
+  }
+}
@@ -0,0 +1,77 @@
+/**
+ * Copyright 2015 Cerner Corporation.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.kitesdk.apps.spark.spi.streaming;
+
+import com.codahale.metrics.Histogram;
+import org.apache.spark.streaming.scheduler.BatchInfo;
+import org.apache.spark.streaming.scheduler.StreamingListener;
+import org.apache.spark.streaming.scheduler.StreamingListenerBatchCompleted;
+import org.apache.spark.streaming.scheduler.StreamingListenerBatchStarted;
+import org.apache.spark.streaming.scheduler.StreamingListenerBatchSubmitted;
+import org.apache.spark.streaming.scheduler.StreamingListenerReceiverError;
+import org.apache.spark.streaming.scheduler.StreamingListenerReceiverStarted;
+import org.apache.spark.streaming.scheduler.StreamingListenerReceiverStopped;
+import org.kitesdk.apps.spark.StreamingMetrics;
+import scala.Option;
+
+/**
+ * Records the scheduling and processing delays of completed
+ * batches in the metrics of a streaming job.
+ */
+class MetricsStreamingListener implements StreamingListener {
+
+  private final StreamingMetrics metrics;
+
+  MetricsStreamingListener(StreamingMetrics metrics) {
+    this.metrics = metrics;
+  }
+
+  private static void update(Histogram histogram, Option<Object> delay) {
+
+    if (delay.isDefined())
+      histogram.update((Long) delay.get());
+  }
+
+  @Override
+  public void onBatchCompleted(StreamingListenerBatchCompleted batchCompleted) {
+
+    BatchInfo info = batchCompleted.batchInfo();
+
+    update(metrics.schedulingDelay(), info.schedulingDelay());
+    update(metrics.processingDelay(), info.processingDelay());
+    update(metrics.totalDelay(), info.totalDelay());
+  }
+
+  @Override
+  public void onReceiverStarted(StreamingListenerReceiverStarted receiverStarted) {
+  }
+
+  @Override
+  public void onReceiverError(StreamingListenerReceiverError receiverError) {
+  }
+
+  @Override
+  public void onReceiverStopped(StreamingListenerReceiverStopped receiverStopped) {
+  }
+
+  @Override
+  public void onBatchSubmitted(StreamingListenerBatchSubmitted batchSubmitted) {
+  }
+
+  @Override
+  public void onBatchStarted(StreamingListenerBatchStarted batchStarted) {
+  }
+}
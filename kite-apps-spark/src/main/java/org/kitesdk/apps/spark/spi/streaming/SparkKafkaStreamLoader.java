@@ -15,15 +15,17 @@
  */
 package org.kitesdk.apps.spark.spi.streaming;
 
+import com.codahale.metrics.Meter;
+import com.codahale.metrics.Timer;
+import com.google.common.collect.Maps;
+import com.google.common.collect.UnmodifiableIterator;
 import kafka.serializer.DefaultDecoder;
 import org.apache.avro.Schema;
-import org.apache.avro.io.DatumReader;
-import org.apache.avro.io.Decoder;
-import org.apache.avro.io.DecoderFactory;
-import org.apache.avro.specific.SpecificData;
 import org.apache.hadoop.fs.Path;
 import org.apache.spark.api.java.JavaPairRDD;
+import org.apache.spark.api.java.JavaRDD;
 import org.apache.spark.api.java.function.Function;
+import org.apache.spark.api.java.function.Function2;
 import org.apache.spark.streaming.api.java.JavaDStream;
 import org.apache.spark.streaming.api.java.JavaPairDStream;
 import org.apache.spark.streaming.api.java.JavaPairInputDStream;
@@ -33,51 +35,238 @@ import org.apache.spark.streaming.kafka.KafkaUtils;
 import org.apache.spark.streaming.kafka.OffsetRange;
 import org.kitesdk.apps.AppException;
 import org.kitesdk.apps.JobContext;
+import org.kitesdk.apps.kafka.AvroMessageDecoder;
+import org.kitesdk.apps.kafka.SchemaRegistries;
 import org.kitesdk.apps.spark.SparkJobContext;
+import org.kitesdk.apps.spark.StreamingMetrics;
 import org.kitesdk.apps.spark.kafka.Topics;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import scala.Tuple2;
 
 
 import java.io.IOException;
 import java.io.ObjectInputStream;
 import java.io.ObjectOutputStream;
+import java.util.HashMap;
 import java.util.HashSet;
+import java.util.Iterator;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.TimeUnit;
 
 public class SparkKafkaStreamLoader {
 
-  static class ToAvroFunction implements Function<Tuple2<byte[],byte[]>, Object> {
+  /**
+   * Decodes the messages of each partition of a batch, recording the
+   * records and bytes read from the partition and the time taken to
+   * decode them.
+   */
+  static class ToAvroFunction implements Function2<Integer, Iterator<Tuple2<byte[],byte[]>>, Iterator<Object>> {
 
     private Schema schema;
 
+    private Map<String,String> settings;
+
+    private boolean specific;
+
+    private String jobName;
+
+    // Offset range of each partition of the batch being decoded.
+    private OffsetRange[] ranges;
+
+    // Created on first use in each task, since decoders are not serializable.
+    private transient AvroMessageDecoder<Object> decoder;
+
     private void writeObject(ObjectOutputStream output) throws IOException {
 
       output.writeUTF(schema.toString());
+      output.writeBoolean(specific);
+      output.writeUTF(jobName);
+      output.writeObject(ranges);
+
+      output.writeInt(settings.size());
+
+      for (Map.Entry<String,String> entry: settings.entrySet()) {
+        output.writeUTF(entry.getKey());
+        output.writeUTF(entry.getValue());
+      }
     }
 
     private void readObject(ObjectInputStream input) throws IOException, ClassNotFoundException  {
 
       schema = new Schema.Parser().parse(input.readUTF());
+      specific = input.readBoolean();
+      jobName = input.readUTF();
+      ranges = (OffsetRange[]) input.readObject();
+
+      settings = Maps.newHashMap();
+
+      int size = input.readInt();
+
+      for (int i = 0; i < size; ++i) {
+        settings.put(input.readUTF(), input.readUTF());
+      }
     }
 
-    public ToAvroFunction(Schema schema) {
+    public ToAvroFunction(Schema schema, Map<String,String> settings, boolean specific,
+                          String jobName, OffsetRange[] ranges) {
 
       this.schema = schema;
+      this.settings = Maps.newHashMap(settings);
+      this.specific = specific;
+      this.jobName = jobName;
+      this.ranges = ranges;
+    }
+
+    /**
+     * Returns a copy of this function to decode a batch with the given offset ranges.
+     */
+    ToAvroFunction withRanges(OffsetRange[] ranges) {
+      return new ToAvroFunction(schema, settings, specific, jobName, ranges);
+    }
+
+    @Override
+    public Iterator<Object> call(Integer partition, final Iterator<Tuple2<byte[], byte[]>> messages) throws Exception {
+
+      if (decoder == null) {
+        decoder = new AvroMessageDecoder<Object>(schema, SchemaRegistries.get(settings), specific);
+      }
+
+      OffsetRange range = ranges[partition];
+
+      StreamingMetrics metrics = StreamingMetrics.get(jobName, settings);
+
+      final Meter recordsRead = metrics.recordsRead(range.topic(), range.partition());
+      final Meter bytesRead = metrics.bytesRead(range.topic(), range.partition());
+      final Timer decodeTime = metrics.decodeTime(range.topic());
+
+      // Totals are kept locally and published once the partition is
+      // read, rather than updating the shared metrics for each record.
+      return new UnmodifiableIterator<Object>() {
+
+        long records = 0;
+
+        long bytes = 0;
+
+        long decodeNanos = 0;
+
+        boolean published = false;
+
+        @Override
+        public boolean hasNext() {
+
+          boolean hasNext = messages.hasNext();
+
+          if (!hasNext && !published) {
+
+            recordsRead.mark(records);
+            bytesRead.mark(bytes);
+            decodeTime.update(decodeNanos, TimeUnit.NANOSECONDS);
+
+            published = true;
+          }
+
+          return hasNext;
+        }
+
+        @Override
+        public Object next() {
+
+          byte[] message = messages.next()._2();
+
+          long start = System.nanoTime();
+
+          Object record = decoder.decode(message);
+
+          decodeNanos += System.nanoTime() - start;
+
+          ++records;
+          bytes += message.length;
+
+          return record;
+        }
+      };
+    }
+  }
+
+  /**
+   * Decodes each batch of a direct Kafka stream. This runs on the
+   * driver, where it also records the lag of the batch behind the
+   * latest offsets of the topic if lag tracking is enabled.
+   */
+  static class DecodeBatchFunction implements Function<JavaPairRDD<byte[],byte[]>, JavaRDD<Object>> {
+
+    private static final Logger LOG = LoggerFactory.getLogger(DecodeBatchFunction.class);
+
+    private final ToAvroFunction decode;
+
+    private final String topic;
+
+    private final String brokerList;
+
+    private final HashMap<String,String> settings;
+
+    private transient LatestOffsets latestOffsets;
+
+    DecodeBatchFunction(ToAvroFunction decode, String topic, String brokerList, Map<String,String> settings) {
+      this.decode = decode;
+      this.topic = topic;
+      this.brokerList = brokerList;
+      this.settings = Maps.newHashMap(settings);
+    }
+
+    private void recordLag(OffsetRange[] ranges) {
+
+      if (latestOffsets == null)
+        latestOffsets = new LatestOffsets(topic, brokerList);
+
+      StreamingMetrics metrics = StreamingMetrics.get(decode.jobName, settings);
+
+      // Failing to measure lag should not fail the batch.
+      try {
+
+        Map<Integer, Long> offsets = latestOffsets.get();
+
+        for (OffsetRange range: ranges) {
+
+          Long latest = offsets.get(range.partition());
+
+          if (latest != null)
+            metrics.setConsumerLag(range.topic(), range.partition(),
+                Math.max(0L, latest - range.untilOffset()));
+        }
+
+      } catch (RuntimeException e) {
+        LOG.warn("Unable to get the latest offsets of topic " + topic, e);
+      }
     }
 
     @Override
-    public Object call(Tuple2<byte[], byte[]> kv) throws Exception {
+    public JavaRDD<Object> call(JavaPairRDD<byte[], byte[]> messages) throws Exception {
+
+      // Partitions of a direct stream correspond to its offset ranges.
+      OffsetRange[] ranges = ((HasOffsetRanges) messages.rdd()).offsetRanges();
 
-      Decoder decoder = DecoderFactory.get().binaryDecoder(kv._2(), null);
-      DatumReader reader = SpecificData.get().createDatumReader(schema);
+      if (brokerList != null && StreamingMetrics.isLagEnabled(settings))
+        recordLag(ranges);
 
-      return reader.read(null, decoder);
+      return messages.mapPartitionsWithIndex(decode.withRanges(ranges), true);
     }
   }
 
   public JavaDStream load(Schema schema, Map<String, String> properties, JobContext jobContext)  {
 
+    return load(schema, properties, jobContext, true);
+  }
+
+  /**
+   * Loads a stream of records of the given schema, which are specific
+   * records if specific is true or generic records otherwise.
+   */
+  public JavaDStream load(Schema schema, Map<String, String> properties, JobContext jobContext,
+                          boolean specific)  {
+
     // JavaPairReceiverInputDStream<String, String> stream =  KafkaUtils.createStream(DefaultSparkContext.getStreamingContext(), "foo", "bar", null);
 
     JavaStreamingContext ctx = ((SparkJobContext) jobContext).getSparkStreamingContext();
@@ -103,7 +292,11 @@ public class SparkKafkaStreamLoader {
             params,
             topics);
 
-        return stream.map(new ToAvroFunction(schema));
+        ToAvroFunction decode = new ToAvroFunction(schema, properties, specific,
+            ((SparkJobContext) jobContext).getJobName(), null);
+
+        return stream.transform(new DecodeBatchFunction(decode, topic,
+            params.get(Topics.BROKER_LIST), properties));
 
       } catch (Exception e) {
         cause = e;
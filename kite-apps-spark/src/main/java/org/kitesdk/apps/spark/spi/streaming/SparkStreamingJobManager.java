@@ -15,12 +15,14 @@
  */
 package org.kitesdk.apps.spark.spi.streaming;
 
+import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
 import com.google.common.io.Closeables;
 import org.apache.avro.Schema;
+import org.apache.avro.generic.IndexedRecord;
 import org.apache.avro.specific.SpecificData;
 import org.apache.avro.specific.SpecificRecord;
-import org.apache.hadoop.fs.FileStatus;
 import org.apache.hadoop.fs.FileSystem;
 import org.apache.hadoop.fs.Path;
 import org.apache.hadoop.mapred.JobConf;
@@ -29,10 +31,15 @@ import org.kitesdk.apps.AppContext;
 import org.kitesdk.apps.AppException;
 import org.kitesdk.apps.DataIn;
 import org.kitesdk.apps.DataOut;
+import org.kitesdk.apps.kafka.SchemaRegistries;
+import org.kitesdk.apps.kafka.SchemaRegistry;
 import org.kitesdk.apps.spark.AbstractStreamingSparkJob;
 import org.kitesdk.apps.spark.SparkJobContext;
 import org.kitesdk.apps.spark.kafka.KafkaOutput;
+import org.kitesdk.apps.spark.kafka.Topics;
 import org.kitesdk.apps.spark.spi.kryo.KryoAvroRegistrator;
+import org.kitesdk.apps.spi.JarStore;
+import org.kitesdk.apps.spi.jobs.JobDescriptor;
 import org.kitesdk.apps.spi.jobs.JobReflection;
 import org.kitesdk.apps.spi.jobs.StreamingJobManager;
 import org.kitesdk.apps.spi.oozie.ShareLibs;
@@ -50,7 +57,6 @@ import java.io.InputStreamReader;
 import java.io.OutputStream;
 import java.io.OutputStreamWriter;
 import java.io.PrintStream;
-import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
 import java.net.URI;
 import java.util.Arrays;
@@ -58,6 +64,7 @@ import java.util.Collections;
 import java.util.List;
 import java.util.Map;
 import java.util.Scanner;
+import java.util.Set;
 
 
 public class SparkStreamingJobManager implements StreamingJobManager<AbstractStreamingSparkJob> {
@@ -215,7 +222,18 @@ public class SparkStreamingJobManager implements StreamingJobManager<AbstractStr
 
     Path libPath = new Path(appRoot, "lib");
 
-    Path jarPath = new Path(libPath, new File(containingJar).getName());
+    // Library JARs may be in the application or in a shared JAR store.
+    List<Path> libJars = JarStore.libraryJars(fs, appRoot);
+
+    String containingJarName = new File(containingJar).getName();
+
+    Path jarPath = new Path(libPath, containingJarName);
+
+    for (Path libJar: libJars) {
+      if (libJar.getName().equals(containingJarName))
+        jarPath = libJar;
+    }
+
     jarPath = fs.makeQualified(jarPath);
 
     SparkLauncher launcher = new SparkLauncher();
@@ -230,15 +248,13 @@ public class SparkStreamingJobManager implements StreamingJobManager<AbstractStr
     try {
       // Add the library JARs from HDFS so we don't need to reload
       // them separately into Spark.
-      FileStatus[] libJars = fs.listStatus(libPath);
-
-      for (FileStatus jar: libJars) {
+      for (Path jar: libJars) {
 
-        launcher.addJar(jar.getPath().toString());
+        launcher.addJar(fs.makeQualified(jar).toString());
       }
 
       // Add the sharelib JARs, since they are not visible to Spark otherwise.
-      List<Path> shareLibJars = ShareLibs.jars(sparkJobContext.getHadoopConf(), "hive2");
+      List<Path> shareLibJars = ShareLibs.jars(sparkJobContext.getReadOnlyHadoopConf(), "hive2");
 
       for (Path sharelibJar: shareLibJars) {
 
@@ -254,7 +270,7 @@ public class SparkStreamingJobManager implements StreamingJobManager<AbstractStr
 
     // Explicitly set the metastore URI to be usable in the job.
     launcher.setConf("spark.hadoop.hive.metastore.uris",
-        sparkJobContext.getHadoopConf().get("hive.metastore.uris"));
+        sparkJobContext.getReadOnlyHadoopConf().get("hive.metastore.uris"));
 
     // Add the Avro classes.
     List<Schema> schemas = JobReflection.getSchemas(job);
@@ -278,6 +294,31 @@ public class SparkStreamingJobManager implements StreamingJobManager<AbstractStr
       first = false;
     }
 
+    // Add the schemas of generic records in streams, so records
+    // shuffled between executors need not carry their schemas. The
+    // schemas are shipped as a file and only its name is passed along.
+    List<Schema> genericSchemas = getGenericSchemas();
+
+    File schemasFile = null;
+
+    if (!genericSchemas.isEmpty()) {
+
+      try {
+        schemasFile = File.createTempFile("kite-avro-schemas-", ".avsc");
+        KryoAvroRegistrator.writeSchemas(genericSchemas, schemasFile);
+      } catch (IOException e) {
+        throw new AppException(e);
+      }
+
+      launcher.addFile(schemasFile.getAbsolutePath());
+
+      avroClassesArg
+          .append(" -D")
+          .append(KryoAvroRegistrator.KITE_AVRO_SCHEMAS)
+          .append("=")
+          .append(schemasFile.getName());
+    }
+
     launcher.setConf("spark.driver.extraJavaOptions", avroClassesArg.toString());
     launcher.setConf("spark.executor.extraJavaOptions", avroClassesArg.toString());
 
@@ -302,6 +343,11 @@ public class SparkStreamingJobManager implements StreamingJobManager<AbstractStr
       throw new AppException(e);
     } catch (InterruptedException e) {
       throw new AppException(e);
+    } finally {
+
+      // spark-submit has uploaded the file by the time it exits.
+      if (schemasFile != null)
+        schemasFile.delete();
     }
   }
 
@@ -337,6 +383,73 @@ public class SparkStreamingJobManager implements StreamingJobManager<AbstractStr
         KafkaOutput.class.isAssignableFrom(sourceType);
   }
 
+  /**
+   * Returns true if records of the given type are read and
+   * written as generic records.
+   */
+  private static boolean isGeneric(Class type) {
+
+    return type == null ||
+        !SpecificRecord.class.isAssignableFrom(type) &&
+            IndexedRecord.class.isAssignableFrom(type);
+  }
+
+  /**
+   * Returns the schema of records of the given type in the named stream.
+   * The schema of generic records is taken from the stream's settings,
+   * or from the schema registry if the settings do not define one.
+   */
+  private static Schema getSchema(Class type, String name, Map<String,String> settings) {
+
+    if (!isGeneric(type))
+      return SpecificData.get().getSchema(type);
+
+    String schemaString = settings.get(Topics.SCHEMA);
+
+    if (schemaString != null)
+      return new Schema.Parser().parse(schemaString);
+
+    SchemaRegistry registry = SchemaRegistries.get(settings);
+    String topic = settings.get(Topics.TOPIC_NAME);
+
+    Schema schema = registry != null && topic != null ?
+        registry.getLatestSchema(topic) :
+        null;
+
+    if (schema == null)
+      throw new AppException("No schema found for generic records in stream " + name +
+          ". Set " + Topics.SCHEMA + " or register a schema for the topic.");
+
+    return schema;
+  }
+
+  private List<Schema> getGenericSchemas() {
+
+    JobDescriptor descriptor = JobDescriptor.of(job.getClass(), runMethod);
+
+    Map<String, Class> sourceTypes = descriptor.getTypes();
+
+    Set<Schema> schemas = Sets.newLinkedHashSet();
+
+    for (DataIn input: descriptor.getInputs().values()) {
+
+      if (isStream(sourceTypes.get(input.name())) && isGeneric(input.type())) {
+        schemas.add(getSchema(input.type(), input.name(),
+            sparkJobContext.getInputSettings(input.name())));
+      }
+    }
+
+    for (DataOut output: descriptor.getOutputs().values()) {
+
+      if (isStream(sourceTypes.get(output.name())) && isGeneric(output.type())) {
+        schemas.add(getSchema(output.type(), output.name(),
+            sparkJobContext.getOutputSettings(output.name())));
+      }
+    }
+
+    return Lists.newArrayList(schemas);
+  }
+
   private JavaDStream load(Map<String,String> inputSettings, StreamDescription description, DataIn input) {
 
     StreamDescription.Stream stream = description.getStreams().get(input.name());
@@ -351,15 +464,9 @@ public class SparkStreamingJobManager implements StreamingJobManager<AbstractStr
       " must specify a type for input " + input.name());
     }
 
-    if (SpecificRecord.class.isAssignableFrom(input.type())) {
-
-      Schema schema = SpecificData.get().getSchema(input.type());
-
-      return loader.load(schema, inputSettings, sparkJobContext);
+    Schema schema = getSchema(input.type(), input.name(), inputSettings);
 
-    } else {
-      throw new UnsupportedOperationException("Current implementation only supports specific types in streams.");
-    }
+    return loader.load(schema, inputSettings, sparkJobContext, !isGeneric(input.type()));
   }
 
   /**
@@ -367,11 +474,13 @@ public class SparkStreamingJobManager implements StreamingJobManager<AbstractStr
    */
   public void run()  {
 
-    Map<String, Class> sourceTypes = JobReflection.getTypes(runMethod);
+    JobDescriptor descriptor = JobDescriptor.of(job.getClass(), runMethod);
+
+    Map<String, Class> sourceTypes = descriptor.getTypes();
 
     Map<String,Object> parameters = Maps.newHashMap();
 
-    for(DataIn input: JobReflection.getInputs(runMethod).values()) {
+    for(DataIn input: descriptor.getInputs().values()) {
 
       if (isStream(sourceTypes.get(input.name()))) {
 
@@ -387,15 +496,15 @@ public class SparkStreamingJobManager implements StreamingJobManager<AbstractStr
       }
     }
 
-    for (DataOut output: JobReflection.getOutputs(runMethod).values()) {
+    for (DataOut output: descriptor.getOutputs().values()) {
 
       if (isStream(sourceTypes.get(output.name()))) {
 
         Map<String,String> outputSettings = sparkJobContext.getOutputSettings(output.name());
 
-        Schema schema = SpecificData.get().getSchema(output.type());
+        Schema schema = getSchema(output.type(), output.name(), outputSettings);
 
-        parameters.put(output.name(), new KafkaOutput(schema, outputSettings));
+        parameters.put(output.name(), new KafkaOutput(schema, outputSettings, job.getName()));
 
       } else {
 
@@ -410,17 +519,13 @@ public class SparkStreamingJobManager implements StreamingJobManager<AbstractStr
       }
     }
 
-    Object[] args = JobReflection.getArgs(runMethod, parameters);
+    // Record the delays of each batch in the job's metrics.
+    sparkJobContext.getSparkStreamingContext().addStreamingListener(
+        new MetricsStreamingListener(sparkJobContext.getStreamingMetrics()));
 
     job.setJobContext(sparkJobContext);
 
     // Run the job itself.
-    try {
-      runMethod.invoke(job, args);
-    } catch (IllegalAccessException e) {
-      throw new AppException(e);
-    } catch (InvocationTargetException e) {
-      throw new AppException(e);
-    }
+    descriptor.invoke(job, parameters);
   }
 }
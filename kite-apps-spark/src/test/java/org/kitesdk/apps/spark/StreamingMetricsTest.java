@@ -0,0 +1,138 @@
+/**
+ * Copyright 2015 Cerner Corporation.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.kitesdk.apps.spark;
+
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.MetricRegistry;
+import com.google.common.collect.ImmutableMap;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Test;
+import org.kitesdk.apps.spark.spi.metrics.JmxMetricsReporter;
+
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.Collections;
+import java.util.Map;
+
+public class StreamingMetricsTest {
+
+  public static class TestReporter implements MetricsReporter {
+
+    static MetricRegistry started = null;
+
+    static boolean stopped = false;
+
+    @Override
+    public void start(String jobName, MetricRegistry registry, Map<String, String> settings) {
+      started = registry;
+    }
+
+    @Override
+    public void stop() {
+      stopped = true;
+    }
+  }
+
+  StreamingMetrics metrics;
+
+  @After
+  public void cleanup() {
+
+    if (metrics != null)
+      metrics.close();
+
+    TestReporter.started = null;
+    TestReporter.stopped = false;
+  }
+
+  @Test
+  public void testSameInstance() {
+
+    metrics = StreamingMetrics.get("same-job", Collections.<String,String>emptyMap());
+
+    Assert.assertSame(metrics, StreamingMetrics.get("same-job", Collections.<String,String>emptyMap()));
+    Assert.assertNotSame(metrics, StreamingMetrics.get("other-job", Collections.<String,String>emptyMap()));
+
+    StreamingMetrics.get("other-job", Collections.<String,String>emptyMap()).close();
+  }
+
+  @Test
+  public void testPluggableReporter() {
+
+    metrics = StreamingMetrics.get("reported-job", ImmutableMap.of(
+        StreamingMetrics.REPORTERS, TestReporter.class.getName(),
+        StreamingMetrics.JMX_ENABLED, "false"));
+
+    Assert.assertSame(metrics.getRegistry(), TestReporter.started);
+
+    metrics.close();
+
+    Assert.assertTrue(TestReporter.stopped);
+  }
+
+  @Test
+  public void testInstruments() {
+
+    metrics = StreamingMetrics.get("instrumented-job", Collections.<String,String>emptyMap());
+
+    metrics.recordsRead("events", 0).mark(10);
+    metrics.bytesRead("events", 0).mark(100);
+    metrics.schedulingDelay().update(5);
+
+    Assert.assertEquals(10, metrics.recordsRead("events", 0).getCount());
+    Assert.assertEquals(0, metrics.recordsRead("events", 1).getCount());
+    Assert.assertEquals(100, metrics.bytesRead("events", 0).getCount());
+    Assert.assertEquals(1, metrics.schedulingDelay().getCount());
+  }
+
+  @Test
+  public void testConsumerLag() {
+
+    metrics = StreamingMetrics.get("lagging-job", Collections.<String,String>emptyMap());
+
+    Assert.assertEquals(-1, metrics.getConsumerLag("events", 0));
+
+    metrics.setConsumerLag("events", 0, 42);
+    metrics.setConsumerLag("events", 0, 7);
+
+    Assert.assertEquals(7, metrics.getConsumerLag("events", 0));
+
+    Gauge lag = metrics.getRegistry().getGauges()
+        .get("kite.lagging-job.topics.events.0.consumer-lag");
+
+    Assert.assertEquals(7L, lag.getValue());
+  }
+
+  @Test
+  public void testLagDisabledByDefault() {
+
+    Assert.assertFalse(StreamingMetrics.isLagEnabled(Collections.<String,String>emptyMap()));
+    Assert.assertTrue(StreamingMetrics.isLagEnabled(
+        ImmutableMap.of(StreamingMetrics.LAG_ENABLED, "true")));
+  }
+
+  @Test
+  public void testJmx() throws Exception {
+
+    metrics = StreamingMetrics.get("jmx-job", Collections.<String,String>emptyMap());
+
+    metrics.recordsWritten("events").mark();
+
+    Assert.assertTrue(ManagementFactory.getPlatformMBeanServer().isRegistered(
+        new ObjectName(JmxMetricsReporter.DOMAIN, "name", "kite.jmx-job.topics.events.records-written")));
+  }
+}
@@ -19,17 +19,30 @@ import com.esotericsoftware.kryo.Kryo;
 import com.esotericsoftware.kryo.Serializer;
 import com.esotericsoftware.kryo.io.Input;
 import com.esotericsoftware.kryo.io.Output;
+import com.google.common.collect.ImmutableList;
+import org.apache.avro.Schema;
+import org.apache.avro.generic.GenericData;
+import org.apache.avro.generic.GenericRecord;
 import org.junit.After;
 import org.junit.Assert;
+import org.junit.Rule;
 import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
 import org.kitesdk.data.event.SmallEvent;
 
+import java.io.File;
+import java.io.IOException;
+
 public class KryoAvroRegistratorTest {
 
+  @Rule
+  public TemporaryFolder folder = new TemporaryFolder();
+
   @After
   public void clearRegistration(){
 
     System.clearProperty(KryoAvroRegistrator.KITE_AVRO_CLASSES);
+    System.clearProperty(KryoAvroRegistrator.KITE_AVRO_SCHEMAS);
   }
 
   @Test
@@ -62,4 +75,51 @@ public class KryoAvroRegistratorTest {
 
     Assert.assertEquals(testEvent, result);
   }
+
+  private static byte[] writeGeneric(Kryo kryo, GenericRecord record) {
+
+    Output output = new Output(1024);
+
+    kryo.writeObject(output, record);
+
+    return output.toBytes();
+  }
+
+  @Test
+  public void testGenericRecords() throws IOException {
+
+    Schema schema = SmallEvent.getClassSchema();
+
+    GenericRecord record = new GenericData.Record(schema);
+    record.put("user_id", 1L);
+    record.put("session_id", "123");
+
+    // Serialize with and without the schema being known.
+    Kryo unknownKryo = new Kryo();
+
+    new KryoAvroRegistrator().registerClasses(unknownKryo);
+
+    byte[] unknownBytes = writeGeneric(unknownKryo, record);
+
+    File schemasFile = folder.newFile("schemas.avsc");
+
+    KryoAvroRegistrator.writeSchemas(ImmutableList.of(schema), schemasFile);
+
+    System.setProperty(KryoAvroRegistrator.KITE_AVRO_SCHEMAS, schemasFile.getAbsolutePath());
+
+    Kryo kryo = new Kryo();
+
+    new KryoAvroRegistrator().registerClasses(kryo);
+
+    byte[] knownBytes = writeGeneric(kryo, record);
+
+    // Known schemas are written as a fingerprint rather than in full.
+    Assert.assertTrue(knownBytes.length < unknownBytes.length);
+
+    Assert.assertEquals(record,
+        kryo.readObject(new Input(knownBytes), GenericData.Record.class));
+
+    Assert.assertEquals(record,
+        kryo.readObject(new Input(unknownBytes), GenericData.Record.class));
+  }
 }
@@ -17,6 +17,7 @@ package org.kitesdk.apps.spark.test;
 
 import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
 import com.google.common.io.Files;
 import kafka.consumer.Consumer;
 import kafka.consumer.ConsumerConfig;
@@ -27,11 +28,8 @@ import kafka.producer.KeyedMessage;
 import kafka.javaapi.producer.Producer;
 import kafka.producer.ProducerConfig;
 import org.apache.avro.Schema;
-import org.apache.avro.io.BinaryDecoder;
 import org.apache.avro.io.BinaryEncoder;
-import org.apache.avro.io.DatumReader;
 import org.apache.avro.io.DatumWriter;
-import org.apache.avro.io.DecoderFactory;
 import org.apache.avro.io.EncoderFactory;
 import org.apache.avro.specific.SpecificData;
 import org.apache.avro.specific.SpecificRecord;
@@ -41,8 +39,10 @@ import org.apache.spark.util.ManualClock;
 import org.kitesdk.apps.AppContext;
 import org.kitesdk.apps.AppException;
 import org.kitesdk.apps.Application;
-import org.kitesdk.apps.spark.spi.SparkContextFactory;
+import org.kitesdk.apps.kafka.AvroMessageDecoder;
+import org.kitesdk.apps.kafka.SchemaRegistries;
 import org.kitesdk.apps.spark.apps.StreamingSparkApp;
+import org.kitesdk.apps.spark.spi.SparkContextFactory;
 import org.kitesdk.apps.spark.spi.streaming.SparkStreamingJobManager;
 import org.kitesdk.apps.spi.jobs.JobManagers;
 import org.kitesdk.apps.spi.jobs.StreamingJobManager;
@@ -77,6 +77,14 @@ public class SparkKafkaTestHarness {
   private final AppContext appContext;
 
   public SparkKafkaTestHarness(Class cls, Configuration conf) throws IOException {
+    this(cls, conf, Collections.<String,String>emptyMap());
+  }
+
+  /**
+   * Creates a harness for the given application with additional settings,
+   * which override the defaults of the harness.
+   */
+  public SparkKafkaTestHarness(Class cls, Configuration conf, Map<String,String> settings) throws IOException {
 
     // Set up Kafka.
     harness = new KafkaBrokerTestHarness();
@@ -86,13 +94,17 @@ public class SparkKafkaTestHarness {
     String brokerList = (String) harness.getProducerProps().get("metadata.broker.list");
     String zookeeperString = (String) harness.getConsumerProps().get("zookeeper.connect");
 
-    Map<String,String> props = ImmutableMap.<String,String>builder()
+    Map<String,String> props = Maps.newHashMap();
+
+    props.putAll(ImmutableMap.<String,String>builder()
         .put("spark.master", "local[3]")
         .put("spark.app.name", "spark-test")
         .put("spark.streaming.clock", "org.apache.spark.util.ManualClock")
         .put("kafka.metadata.broker.list", brokerList)
         .put("kafka.zookeeper.connect", zookeeperString)
-        .build();
+        .build());
+
+    props.putAll(settings);
 
     appContext = new AppContext(props, conf);
 
@@ -139,6 +151,13 @@ public class SparkKafkaTestHarness {
     return new SparkKafkaTestHarness(appClass, conf);
   }
 
+  public static SparkKafkaTestHarness load(Class<? extends Application> appClass,
+                                           Configuration conf,
+                                           Map<String,String> settings) throws IOException {
+
+    return new SparkKafkaTestHarness(appClass, conf, settings);
+  }
+
   public void writeMessages(String topic, List<? extends SpecificRecord> records) {
 
     if (records.size() == 0)
@@ -175,10 +194,20 @@ public class SparkKafkaTestHarness {
 
   public <T extends SpecificRecord> List<T> readMessages(String topic, Class<T> cls, int count) throws IOException {
 
+    return readMessages(topic, cls, count, "test_group");
+  }
+
+  /**
+   * Reads the given number of messages from the start of the topic
+   * as a member of the given consumer group, blocking until they are available.
+   */
+  public <T extends SpecificRecord> List<T> readMessages(String topic, Class<T> cls, int count,
+                                                         String groupId) throws IOException {
+
     List<T> records = Lists.newArrayList();
 
     Properties props = harness.getConsumerProps();
-    props.setProperty("group.id", "test_group");
+    props.setProperty("group.id", groupId);
     props.put("socket.timeout.ms", "500");
     props.put("consumer.id", "test");
     props.put("auto.offset.reset", "smallest");
@@ -192,17 +221,22 @@ public class SparkKafkaTestHarness {
 
     Schema schema = SpecificData.get().getSchema(cls);
 
-    DatumReader reader = SpecificData.get().createDatumReader(schema);
+    AvroMessageDecoder<T> decoder = new AvroMessageDecoder<T>(schema,
+        SchemaRegistries.get(appContext.getSettings()));
 
-    for (int i = 0; i < count; ++i) {
+    try {
+
+      for (int i = 0; i < count; ++i) {
 
-      MessageAndMetadata<byte[],byte[]> message = (MessageAndMetadata<byte[], byte[]>) it.next();
+        MessageAndMetadata<byte[],byte[]> message = (MessageAndMetadata<byte[], byte[]>) it.next();
 
-      BinaryDecoder binaryDecoder = DecoderFactory.get().binaryDecoder(message.message(),  null);
+        T record = decoder.decode(message.message());
 
-      T record = (T) reader.read(null, binaryDecoder);
+        records.add(record);
+      }
 
-      records.add(record);
+    } finally {
+      connector.shutdown();
     }
 
     return records;
@@ -212,6 +246,10 @@ public class SparkKafkaTestHarness {
     return appContext;
   }
 
+  public JavaStreamingContext getStreamingContext() {
+    return context;
+  }
+
   /**
    * Terminates the test runner, cleaning up all underlying resources.
    */